@@ -0,0 +1,35 @@
+package com.example.Smart.Workplace.Management.Portal.benchmark;
+
+import com.example.Smart.Workplace.Management.Portal.model.Role;
+import com.example.Smart.Workplace.Management.Portal.model.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entities shared by the benchmarks, filled the way the database would fill them
+ */
+public final class Fixtures {
+
+    // Base64 of a 256-bit key, as application.security.jwt.secret-key holds it
+    public static final String JWT_SECRET = "NDRmYzVhOTc2ZDM4YjFlMDJhNmY0YzlkN2UzYjg1MTBjMmY2OWE0ZDdiMWUzYzA1";
+    public static final long JWT_EXPIRATION_MILLIS = 86_400_000L;
+
+    private Fixtures() {
+    }
+
+    public static User user(long id, Role role) {
+        return User.builder()
+                .id(id)
+                .firstName("Amara")
+                .lastName("Okafor-" + id)
+                .email("user" + id + "@example.com")
+                .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3o3aFz3ZkUi9r3Pz0gYz5.e")
+                .role(role)
+                .active(true)
+                .department("Engineering")
+                .phoneNumber("+44 20 7946 0000")
+                .createdAt(LocalDateTime.of(2025, 3, 14, 9, 30))
+                .updatedAt(LocalDateTime.of(2026, 1, 5, 17, 45))
+                .build();
+    }
+}
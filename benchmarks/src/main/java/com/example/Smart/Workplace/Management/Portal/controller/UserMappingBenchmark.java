@@ -0,0 +1,46 @@
+package com.example.Smart.Workplace.Management.Portal.controller;
+
+import com.example.Smart.Workplace.Management.Portal.benchmark.Fixtures;
+import com.example.Smart.Workplace.Management.Portal.model.Role;
+import com.example.Smart.Workplace.Management.Portal.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The HashMap built per user by the admin user endpoints
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserMappingBenchmark {
+
+    private AdminController adminController;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        // mapUserToDto touches none of the controller's collaborators
+        adminController = new AdminController(null, null, null, null, null, null, null, null, null, null, null, null,
+                null, null);
+        user = Fixtures.user(42, Role.EMPLOYEE);
+    }
+
+    @Benchmark
+    public Map<String, Object> userToDto() {
+        return adminController.mapUserToDto(user);
+    }
+}
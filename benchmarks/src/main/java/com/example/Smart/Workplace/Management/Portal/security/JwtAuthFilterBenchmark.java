@@ -0,0 +1,70 @@
+package com.example.Smart.Workplace.Management.Portal.security;
+
+import com.example.Smart.Workplace.Management.Portal.benchmark.Fixtures;
+import com.example.Smart.Workplace.Management.Portal.model.Role;
+import com.example.Smart.Workplace.Management.Portal.model.User;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The JWT filter end to end, with user lookup stubbed out so only the filter's own cost shows
+ * The anonymous case is the floor: mock request, response and chain without any token work.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthFilterBenchmark {
+
+    private JwtAuthFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtService jwtService = JwtServiceBenchmark.jwtService();
+        User user = Fixtures.user(42, Role.EMPLOYEE);
+        filter = new JwtAuthFilter(jwtService, username -> user);
+        authorization = "Bearer " + jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public Authentication authenticatedRequest() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/leave/my");
+        request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        return filter(request);
+    }
+
+    @Benchmark
+    public Authentication anonymousRequest() throws ServletException, IOException {
+        return filter(new MockHttpServletRequest("GET", "/api/leave/my"));
+    }
+
+    private Authentication filter(MockHttpServletRequest request) throws ServletException, IOException {
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duplicate lookup on complaint submit: signing the new complaint and probing the LSH buckets
+ * The corpus is synthetic, 3-word titles and 14-word descriptions over a skewed vocabulary.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ComplaintSimilarityBenchmark {
+
+    // Distinct words across the corpus; picks are skewed so common words repeat as in real text
+    private static final int VOCABULARY = 5000;
+
+    @Param({"30000"})
+    private int openComplaints;
+
+    private ComplaintSimilarityIndex index;
+    private String title;
+    private String description;
+    private int[] signature;
+
+    @Setup
+    public void setUp() {
+        index = new ComplaintSimilarityIndex(null, 0.5, 5);
+        Random random = new Random(42);
+        for (long id = 1; id <= openComplaints; id++) {
+            index.add(id, index.signature(words(random, 3), words(random, 14)));
+        }
+        // A new complaint drawn like the rest, so it shares the common words
+        title = words(random, 3);
+        description = words(random, 14);
+        signature = index.signature(title, description);
+    }
+
+    @Benchmark
+    public List<Long> signAndFindCandidates() {
+        return index.findCandidates(index.signature(title, description), null);
+    }
+
+    @Benchmark
+    public List<Long> findCandidates() {
+        return index.findCandidates(signature, null);
+    }
+
+    private static String words(Random random, int count) {
+        StringJoiner text = new StringJoiner(" ");
+        for (int i = 0; i < count; i++) {
+            double skewed = random.nextDouble() * random.nextDouble();
+            text.add("w" + (int) (skewed * VOCABULARY));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.benchmark.Fixtures;
+import com.example.Smart.Workplace.Management.Portal.dto.ComplaintDto;
+import com.example.Smart.Workplace.Management.Portal.dto.LeaveRequestDto;
+import com.example.Smart.Workplace.Management.Portal.model.Complaint;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintPriority;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintStatus;
+import com.example.Smart.Workplace.Management.Portal.model.LeaveRequest;
+import com.example.Smart.Workplace.Management.Portal.model.LeaveStatus;
+import com.example.Smart.Workplace.Management.Portal.model.Role;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping behind every leave and complaint list, with loaded associations
+ * Read gc.alloc.rate.norm for the bytes each DTO costs; lazy loading is not part of this.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoMappingBenchmark {
+
+    private LeaveService leaveService;
+    private ComplaintService complaintService;
+    private LeaveRequest leaveRequest;
+    private Complaint complaint;
+
+    @Setup
+    public void setUp() {
+        // The mappers touch no collaborators
+        leaveService = new LeaveService(null, null, null);
+        complaintService = new ComplaintService(null, null, null, null, null, null, null, null);
+
+        leaveRequest = LeaveRequest.builder()
+                .id(1001L)
+                .employee(Fixtures.user(42, Role.EMPLOYEE))
+                .manager(Fixtures.user(7, Role.MANAGER))
+                .startDate(LocalDate.of(2026, 11, 2))
+                .endDate(LocalDate.of(2026, 11, 6))
+                .reason("Family visit")
+                .status(LeaveStatus.APPROVED)
+                .submittedAt(LocalDateTime.of(2026, 10, 12, 10, 15))
+                .processedAt(LocalDateTime.of(2026, 10, 13, 9, 0))
+                .build();
+        complaint = Complaint.builder()
+                .id(2002L)
+                .user(Fixtures.user(42, Role.EMPLOYEE))
+                .assignedTo(Fixtures.user(9, Role.MANAGER))
+                .title("Laptop freezes during video calls")
+                .description("Since the last update my laptop freezes whenever I share my screen.")
+                .category("IT")
+                .priority(ComplaintPriority.HIGH)
+                .status(ComplaintStatus.IN_PROGRESS)
+                .submittedAt(LocalDateTime.of(2026, 10, 14, 8, 40))
+                .updatedAt(LocalDateTime.of(2026, 10, 14, 11, 5))
+                .build();
+    }
+
+    @Benchmark
+    public LeaveRequestDto leaveRequestToDto() {
+        return leaveService.mapToDto(leaveRequest);
+    }
+
+    @Benchmark
+    public ComplaintDto complaintToDto() {
+        return complaintService.mapToDto(complaint);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import okhttp3.OkHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gson chat-completion request bodies, by how many earlier turns the prompt carries
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LlmRequestBodyBenchmark {
+
+    @Param({"0", "6", "20"})
+    private int turns;
+
+    private OpenAiCompatibleProvider provider;
+    private LlmRequest request;
+
+    @Setup
+    public void setUp() {
+        provider = new GroqProvider(OpenAiCompatibleProvider.Settings.builder()
+                .name("groq")
+                .url("http://localhost/v1/chat/completions")
+                .apiKey("benchmark")
+                .model("llama-3.3-70b-versatile")
+                .build(),
+                new OkHttpClient(), ResilientHttpExecutor.Settings.builder().build(), status -> "unavailable");
+
+        LlmRequest.LlmRequestBuilder builder = LlmRequest.builder()
+                .systemPrompt("You are a helpful workplace assistant.\n\nUSER INFORMATION:\nRole: EMPLOYEE\n"
+                        + "Department: Engineering\n\nCOMPANY POLICY EXCERPTS:\n"
+                        + "[Handbook > Annual leave]\nUp to five unused days may be carried over. ".repeat(8))
+                .userMessage("Can I carry over the leave I did not use this year?");
+        for (int i = 0; i < turns; i++) {
+            builder.historyMessage(new LlmRequest.Message(LlmRequest.ROLE_USER, "How many leave days do I have left? " + i));
+            builder.historyMessage(new LlmRequest.Message(LlmRequest.ROLE_ASSISTANT,
+                    "You have 9 of your 15 annual days left; requests go to your manager for approval. ".repeat(3)));
+        }
+        request = builder.build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        provider.close();
+    }
+
+    @Benchmark
+    public String completionBody() {
+        return provider.requestBody(request, "llama-3.3-70b-versatile", false);
+    }
+
+    @Benchmark
+    public String streamingBody() {
+        return provider.requestBody(request, "llama-3.3-70b-versatile", true);
+    }
+}
@@ -0,0 +1,134 @@
+#!/usr/bin/env python3
+"""Train the assistant's intent model: src/main/resources/ai/intent-training.tsv -> intent-model.json
+
+Multinomial logistic regression over lower-cased unigrams and bigrams, fitted by plain SGD with L2
+(bias included).
+The featurizer must stay identical to IntentClassifier.features(). Standard library only and seeded,
+so the same TSV always produces the same model.
+
+    python3 scripts/train_intent_model.py            # train, report 5-fold CV accuracy, write the model
+    python3 scripts/train_intent_model.py --check    # only report CV accuracy
+
+Run IntentClassifierTest afterwards; its golden messages must still classify as expected.
+"""
+import argparse
+import json
+import math
+import random
+import re
+from pathlib import Path
+
+ROOT = Path(__file__).resolve().parent.parent
+TRAINING = ROOT / "src/main/resources/ai/intent-training.tsv"
+MODEL = ROOT / "src/main/resources/ai/intent-model.json"
+
+# Order of the output vectors; general last
+INTENTS = ["leave_balance", "pending_leaves", "upcoming_leaves", "complaint_status", "general"]
+LEARNING_RATE = 0.1
+L2 = 0.02
+EPOCHS = 40
+FOLDS = 5
+SEED = 42
+
+
+def features(text):
+    words = [word for word in re.split("[^a-z0-9]+", text.lower().replace("'", "")) if word]
+    return words + [words[i - 1] + "_" + words[i] for i in range(1, len(words))]
+
+
+def load(path):
+    examples = []
+    for line in path.read_text(encoding="utf-8").splitlines():
+        if not line.strip() or line.startswith("#"):
+            continue
+        intent, text = line.split("\t", 1)
+        if intent not in INTENTS:
+            raise SystemExit(f"unknown intent {intent!r} in {path}")
+        examples.append((INTENTS.index(intent), features(text)))
+    return examples
+
+
+def softmax(scores):
+    top = max(scores)
+    exps = [math.exp(score - top) for score in scores]
+    total = sum(exps)
+    return [value / total for value in exps]
+
+
+def scores(bias, weights, feats):
+    result = list(bias)
+    for feature in feats:
+        vector = weights.get(feature)
+        if vector:
+            for k in range(len(result)):
+                result[k] += vector[k]
+    return result
+
+
+def train(examples, seed=SEED):
+    classes = len(INTENTS)
+    bias = [0.0] * classes
+    weights = {}
+    order = list(examples)
+    rng = random.Random(seed)
+    for _ in range(EPOCHS):
+        rng.shuffle(order)
+        for label, feats in order:
+            probabilities = softmax(scores(bias, weights, feats))
+            gradient = [probabilities[k] - (1.0 if k == label else 0.0) for k in range(classes)]
+            for k in range(classes):
+                bias[k] -= LEARNING_RATE * (gradient[k] + L2 * bias[k])
+            for feature in feats:
+                vector = weights.setdefault(feature, [0.0] * classes)
+                for k in range(classes):
+                    vector[k] -= LEARNING_RATE * (gradient[k] + L2 * vector[k])
+    return bias, weights
+
+
+def cross_validate(examples):
+    shuffled = list(examples)
+    random.Random(SEED).shuffle(shuffled)
+    correct = 0
+    for fold in range(FOLDS):
+        held_out = shuffled[fold::FOLDS]
+        training = [example for i, example in enumerate(shuffled) if i % FOLDS != fold]
+        bias, weights = train(training)
+        for label, feats in held_out:
+            predicted = scores(bias, weights, feats)
+            correct += predicted.index(max(predicted)) == label
+    return correct / len(examples)
+
+
+def write(bias, weights, accuracy):
+    description = (f"Multinomial logistic regression over lower-cased unigrams and bigrams (w1_w2). "
+                   f"Trained offline on intent-training.tsv by scripts/train_intent_model.py: SGD, learning rate "
+                   f"{LEARNING_RATE}, L2 {L2}, {EPOCHS} epochs; {FOLDS}-fold CV accuracy {accuracy:.2f}.")
+    head = json.dumps({"description": description, "features": "unigram+bigram", "intents": INTENTS},
+                      separators=(",", ":"))[:-1]
+    lines = [head + ",", '"bias":' + vector(bias) + ","]
+    entries = [json.dumps(feature) + ":" + vector(weights[feature]) for feature in sorted(weights)]
+    lines.append('"weights":{' + ",\n".join(entries) + "}}")
+    MODEL.write_text("\n".join(lines) + "\n", encoding="utf-8")
+
+
+def vector(values):
+    return "[" + ",".join(format(round(value, 4) + 0.0, "g") for value in values) + "]"
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    parser.add_argument("--check", action="store_true", help="only report cross-validated accuracy")
+    args = parser.parse_args()
+
+    examples = load(TRAINING)
+    accuracy = cross_validate(examples)
+    print(f"{len(examples)} examples, {FOLDS}-fold CV accuracy {accuracy:.3f}")
+    if args.check:
+        return
+    bias, weights = train(examples)
+    write(bias, weights, accuracy)
+    print(f"wrote {MODEL.relative_to(ROOT)}: {len(weights)} features")
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,27 @@
+package com.example.Smart.Workplace.Management.Portal.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * JDBC batching defaults for Hibernate
+ * Inserts of entities with sequence ids (e.g. chat transcripts) are grouped into JDBC batches;
+ * values set in spring.jpa.properties take precedence.
+ */
+@Configuration
+public class JpaBatchingConfig {
+
+    @Value("${jpa.batch-size:50}")
+    private int batchSize;
+
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer() {
+        return properties -> {
+            properties.putIfAbsent("hibernate.jdbc.batch_size", batchSize);
+            properties.putIfAbsent("hibernate.order_inserts", true);
+            properties.putIfAbsent("hibernate.order_updates", true);
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.Smart.Workplace.Management.Portal.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.boot.actuate.metrics.data.RepositoryTagsProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Role tag for the request and repository timers, plus the Actuator defaults in metrics.properties
+ * Endpoint timers (http.server.requests), repository timers (spring.data.repository.invocations),
+ * HikariCP and JVM/GC metrics come from Spring Boot's auto-configuration once Actuator is present;
+ * this only adds the caller's role, so latency can be told apart per role.
+ */
+@Configuration
+@PropertySource("classpath:metrics.properties")
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private static final String ROLE_TAG = "role";
+    private static final String ROLE_ATTRIBUTE = MetricsConfig.class.getName() + ".role";
+    private static final String NO_ROLE = "none";
+
+    /**
+     * Request timers carry the role the handler ran as; requests rejected before a handler get "none"
+     */
+    @Bean
+    public ServerRequestObservationConvention roleTaggedServerRequestObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                Object role = context.getCarrier().getAttribute(ROLE_ATTRIBUTE);
+                return super.getLowCardinalityKeyValues(context)
+                        .and(KeyValue.of(ROLE_TAG, role != null ? role.toString() : NO_ROLE));
+            }
+        };
+    }
+
+    @Bean
+    public RepositoryTagsProvider roleTaggedRepositoryTagsProvider() {
+        DefaultRepositoryTagsProvider defaults = new DefaultRepositoryTagsProvider();
+        return new RepositoryTagsProvider() {
+            @Override
+            public Iterable<Tag> repositoryTags(RepositoryMethodInvocationListener.RepositoryMethodInvocation invocation) {
+                return Tags.of(defaults.repositoryTags(invocation)).and(ROLE_TAG, currentRole());
+            }
+        };
+    }
+
+    /**
+     * The observation is stopped after Spring Security has cleared its context, so the role is
+     * captured on the request while the handler runs
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                request.setAttribute(ROLE_ATTRIBUTE, currentRole());
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Role of the authenticated caller in lower case, "none" for anonymous and background work
+     */
+    private static String currentRole() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return NO_ROLE;
+        }
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(authority -> authority.startsWith("ROLE_"))
+                .map(authority -> authority.substring("ROLE_".length()).toLowerCase())
+                .findFirst()
+                .orElse(NO_ROLE);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.Smart.Workplace.Management.Portal.config;
+
+import com.example.Smart.Workplace.Management.Portal.service.QueryTracker;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the SQL of each request and reports it in a Server-Timing header
+ * The header is written just before the body starts, when the statements run so far are known,
+ * so browser dev tools show e.g. {@code db;dur=12.4;desc="7 queries"} next to each call.
+ * Async requests (the chat endpoints) are tracked across the initial and the async dispatch and
+ * checked once the result is written; statements on other threads in between are not counted.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@RequiredArgsConstructor
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private static final String QUERIES_ATTRIBUTE = QueryBudgetFilter.class.getName() + ".queries";
+    private static final String SERVER_TIMING = "Server-Timing";
+
+    private final QueryTracker queryTracker;
+
+    /**
+     * Also run on the async dispatch, to finish what the initial dispatch started
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        QueryTracker.RequestQueries started = (QueryTracker.RequestQueries) request.getAttribute(QUERIES_ATTRIBUTE);
+        QueryTracker.RequestQueries queries = started != null ? queryTracker.resume(started) : queryTracker.begin();
+        ServerTimingResponse timedResponse = new ServerTimingResponse(response, queries);
+        try {
+            filterChain.doFilter(request, timedResponse);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // The result is written on a later dispatch, which picks the count up from here
+                request.setAttribute(QUERIES_ATTRIBUTE, queries);
+                queryTracker.suspend();
+            } else {
+                request.removeAttribute(QUERIES_ATTRIBUTE);
+                timedResponse.addServerTiming();
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                queryTracker.end(queries, request.getMethod() + " " + (pattern != null ? pattern : "UNMATCHED"));
+            }
+        }
+    }
+
+    /**
+     * Adds the header once, at the last moment headers can still be set
+     */
+    private static final class ServerTimingResponse extends HttpServletResponseWrapper {
+
+        private final QueryTracker.RequestQueries queries;
+        private boolean added;
+
+        private ServerTimingResponse(HttpServletResponse response, QueryTracker.RequestQueries queries) {
+            super(response);
+            this.queries = queries;
+        }
+
+        private void addServerTiming() {
+            // An async dispatch wraps the response wrapped on the initial one; only the outer adds the header
+            if (added || isCommitted() || containsHeader(SERVER_TIMING)) {
+                return;
+            }
+            added = true;
+            double millis = (double) queries.getNanos() / TimeUnit.MILLISECONDS.toNanos(1);
+            addHeader(SERVER_TIMING, String.format(Locale.ROOT, "db;dur=%.1f;desc=\"%d queries\"",
+                    millis, queries.getCount()));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addServerTiming();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addServerTiming();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addServerTiming();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.Smart.Workplace.Management.Portal.config;
+
+import com.example.Smart.Workplace.Management.Portal.service.QueryTracker;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Routes every JDBC statement through datasource-proxy so QueryTracker can charge it to a request
+ * Off with db.tracing.enabled=false, which leaves the pool unwrapped.
+ */
+@Configuration
+public class QueryTracingConfig {
+
+    @Bean
+    public static BeanPostProcessor queryTracingDataSourcePostProcessor(Environment environment,
+                                                                        ObjectProvider<QueryTracker> queryTracker) {
+        boolean enabled = environment.getProperty("db.tracing.enabled", Boolean.class, true);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!enabled || !(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create(dataSource)
+                        .name(beanName)
+                        .listener(new LazyListener(queryTracker))
+                        .build();
+            }
+        };
+    }
+
+    /**
+     * Looks the tracker up on first use; the DataSource is built long before application services
+     */
+    private static final class LazyListener implements QueryExecutionListener {
+
+        private final ObjectProvider<QueryTracker> provider;
+        private volatile QueryTracker tracker;
+
+        private LazyListener(ObjectProvider<QueryTracker> provider) {
+            this.provider = provider;
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            QueryTracker current = tracker();
+            if (current != null) {
+                current.beforeQuery(execInfo, queryInfoList);
+            }
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            QueryTracker current = tracker;
+            if (current != null) {
+                current.afterQuery(execInfo, queryInfoList);
+            }
+        }
+
+        private QueryTracker tracker() {
+            QueryTracker current = tracker;
+            if (current == null) {
+                // Schema setup runs before the tracker exists; those statements go uncounted
+                current = provider.getIfAvailable();
+                tracker = current;
+            }
+            return current;
+        }
+    }
+}
@@ -1,13 +1,17 @@
 package com.example.Smart.Workplace.Management.Portal.config;
 
 import com.example.Smart.Workplace.Management.Portal.security.JwtAuthFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -17,7 +21,9 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -38,6 +44,10 @@ public class SecurityConfig {
     private final JwtAuthFilter jwtAuthFilter;
     private final UserDetailsService userDetailsService;
 
+    // Networks Prometheus may scrape from without a token; loopback only unless configured
+    @Value("${metrics.scrape-networks:127.0.0.1/32,::1/128}")
+    private List<String> scrapeNetworks;
+
     /**
      * Configure security filter chain
      * Defines which endpoints require authentication and authorization
@@ -57,6 +67,14 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/error").permitAll()
 
+                        // Actuator: health for load balancers, metrics for scrapers on trusted networks, the rest for admins
+                        .requestMatchers("/actuator/health", "/actuator/health/**", "/actuator/info").permitAll()
+                        .requestMatchers("/actuator/prometheus").access(fromScrapeNetworks())
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+
+                        // Async re-dispatch of streamed/async responses; the original request was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Leave Management endpoints
                         .requestMatchers(HttpMethod.POST, "/api/leave/submit").authenticated()
                         .requestMatchers(HttpMethod.GET, "/api/leave/my-requests").authenticated()
@@ -71,6 +89,7 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/complaints/assigned").hasAnyRole("MANAGER", "ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/complaints/unassigned").hasAnyRole("MANAGER", "ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/api/complaints/{id}/assign/**").hasAnyRole("MANAGER", "ADMIN")
+                        .requestMatchers(HttpMethod.PUT, "/api/complaints/{id}/merge").hasAnyRole("MANAGER", "ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/api/complaints/{id}").authenticated()
                         .requestMatchers(HttpMethod.DELETE, "/api/complaints/{id}").hasRole("ADMIN")
 
@@ -96,6 +115,20 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Allows requests whose remote address is in one of the scrape networks
+     * Behind a reverse proxy this is the proxy's address, so list only networks the proxy does not front.
+     */
+    private AuthorizationManager<RequestAuthorizationContext> fromScrapeNetworks() {
+        List<IpAddressMatcher> networks = scrapeNetworks.stream()
+                .map(String::trim)
+                .filter(network -> !network.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+        return (authentication, context) -> new AuthorizationDecision(networks.stream()
+                .anyMatch(network -> network.matches(context.getRequest())));
+    }
+
     /**
      * Configure CORS to allow frontend requests
      * Supports both Vite (5173) and Create React App (3000) default ports
@@ -124,7 +157,12 @@ public class SecurityConfig {
         configuration.setExposedHeaders(Arrays.asList(
                 "Authorization",
                 "Content-Type",
-                "X-Total-Count"
+                "X-Total-Count",
+                "Content-Disposition",
+                "Content-Range",
+                "Accept-Ranges",
+                "ETag",
+                "Server-Timing"
         ));
 
         // Cache preflight response for 1 hour
@@ -1,16 +1,21 @@
 package com.example.Smart.Workplace.Management.Portal.controller;
 
-import com.example.Smart.Workplace.Management.Portal.model.ChatMessage;
+import com.example.Smart.Workplace.Management.Portal.dto.ChatHistoryPage;
 import com.example.Smart.Workplace.Management.Portal.service.AIAssistantService;
+import com.example.Smart.Workplace.Management.Portal.service.LlmService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/ai-assistant")
@@ -21,26 +26,91 @@ public class AIAssistantController {
 
     private final AIAssistantService aiAssistantService;
 
+    @Value("${ai.stream.timeout-ms:120000}")
+    private long streamTimeoutMillis;
+
+    /**
+     * Served asynchronously: the servlet thread is released while the model generates
+     */
     @PostMapping("/chat")
-    public ResponseEntity<Map<String, String>> chat(
+    public CompletableFuture<ResponseEntity<Map<String, String>>> chat(
             @RequestBody Map<String, String> request,
             Authentication authentication) {
 
         String message = request.get("message");
         log.info("Received chat message from: {}", authentication.getName());
 
-        String response = aiAssistantService.processMessage(message, authentication.getName());
+        return aiAssistantService.processMessage(message, authentication.getName())
+                .thenApply(response -> {
+                    Map<String, String> result = new HashMap<>();
+                    result.put("response", response);
+                    result.put("timestamp", java.time.LocalDateTime.now().toString());
+
+                    return ResponseEntity.ok(result);
+                });
+    }
+
+    /**
+     * Same as /chat, but relays tokens as Server-Sent Events while they are generated
+     * Events: "token" {token}, then "done" {timestamp} or "error" {error}.
+     */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter chatStream(
+            @RequestBody Map<String, String> request,
+            Authentication authentication) {
+
+        String message = request.get("message");
+        log.info("Received streaming chat message from: {}", authentication.getName());
+
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        Runnable cancel = aiAssistantService.streamMessage(message, authentication.getName(), new LlmService.StreamListener() {
+            @Override
+            public void onToken(String token) {
+                send(emitter, "token", Map.of("token", token));
+            }
+
+            @Override
+            public void onComplete(String fullResponse) {
+                if (send(emitter, "done", Map.of("timestamp", java.time.LocalDateTime.now().toString()))) {
+                    emitter.complete();
+                }
+            }
+
+            @Override
+            public void onError(String userMessage, Throwable cause) {
+                if (send(emitter, "error", Map.of("error", userMessage))) {
+                    emitter.complete();
+                }
+            }
+        });
 
-        Map<String, String> result = new HashMap<>();
-        result.put("response", response);
-        result.put("timestamp", java.time.LocalDateTime.now().toString());
+        // Stop generating (and paying for) tokens nobody will read
+        emitter.onTimeout(cancel);
+        emitter.onError(error -> cancel.run());
+        emitter.onCompletion(cancel);
 
-        return ResponseEntity.ok(result);
+        return emitter;
     }
 
+    private static boolean send(SseEmitter emitter, String event, Map<String, String> data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client disconnected or emitter already completed
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    /**
+     * Newest first; pass the returned nextCursor to get the next, older page
+     */
     @GetMapping("/history")
-    public ResponseEntity<List<ChatMessage>> getChatHistory(Authentication authentication) {
-        List<ChatMessage> history = aiAssistantService.getChatHistory(authentication.getName());
-        return ResponseEntity.ok(history);
+    public ResponseEntity<ChatHistoryPage> getChatHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+        return ResponseEntity.ok(aiAssistantService.getChatHistory(authentication.getName(), cursor, limit));
     }
 }
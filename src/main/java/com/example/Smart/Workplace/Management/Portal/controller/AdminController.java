@@ -1,19 +1,34 @@
 package com.example.Smart.Workplace.Management.Portal.controller;
 
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintPriority;
 import com.example.Smart.Workplace.Management.Portal.model.ComplaintStatus;
 import com.example.Smart.Workplace.Management.Portal.model.LeaveStatus;
+import com.example.Smart.Workplace.Management.Portal.model.PolicyDocument;
 import com.example.Smart.Workplace.Management.Portal.model.Role;
 import com.example.Smart.Workplace.Management.Portal.model.User;
+import com.example.Smart.Workplace.Management.Portal.repository.ComplaintEventRepository;
 import com.example.Smart.Workplace.Management.Portal.repository.ComplaintRepository;
 import com.example.Smart.Workplace.Management.Portal.repository.LeaveRequestRepository;
 import com.example.Smart.Workplace.Management.Portal.repository.UserRepository;
+import com.example.Smart.Workplace.Management.Portal.service.AssistantResponseCache;
+import com.example.Smart.Workplace.Management.Portal.service.ComplaintDigestJob;
+import com.example.Smart.Workplace.Management.Portal.service.LlmService;
+import com.example.Smart.Workplace.Management.Portal.service.LlmUsageRecorder;
+import com.example.Smart.Workplace.Management.Portal.service.PolicyKnowledgeBase;
+import com.example.Smart.Workplace.Management.Portal.service.PromptAssembler;
+import com.example.Smart.Workplace.Management.Portal.service.QueryTracker;
+import com.example.Smart.Workplace.Management.Portal.service.ResolutionTimeAnalytics;
+import com.example.Smart.Workplace.Management.Portal.service.SlaMonitorService;
+import com.example.Smart.Workplace.Management.Portal.service.UserContextCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +50,17 @@ public class AdminController {
     private final UserRepository userRepository;
     private final LeaveRequestRepository leaveRequestRepository;
     private final ComplaintRepository complaintRepository;
+    private final SlaMonitorService slaMonitorService;
+    private final ComplaintEventRepository complaintEventRepository;
+    private final ResolutionTimeAnalytics resolutionTimeAnalytics;
+    private final AssistantResponseCache assistantResponseCache;
+    private final LlmService llmService;
+    private final LlmUsageRecorder llmUsageRecorder;
+    private final PolicyKnowledgeBase policyKnowledgeBase;
+    private final PromptAssembler promptAssembler;
+    private final ComplaintDigestJob complaintDigestJob;
+    private final QueryTracker queryTracker;
+    private final UserContextCache userContextCache;
 
     // ============= USER MANAGEMENT =============
 
@@ -78,6 +104,7 @@ public class AdminController {
 
         user.setActive(!user.getActive());
         User updatedUser = userRepository.save(user);
+        userContextCache.invalidateAfterCommit(id);
 
         log.info("User {} is now {}", id, updatedUser.getActive() ? "active" : "inactive");
         return ResponseEntity.ok(mapUserToDto(updatedUser));
@@ -98,6 +125,8 @@ public class AdminController {
 
         user.setRole(role);
         User updatedUser = userRepository.save(user);
+        // The assistant's prompt states the user's role
+        userContextCache.invalidateAfterCommit(id);
 
         log.info("User {} role updated to {}", id, role);
         return ResponseEntity.ok(mapUserToDto(updatedUser));
@@ -116,6 +145,7 @@ public class AdminController {
         // Soft delete - just deactivate
         user.setActive(false);
         userRepository.save(user);
+        userContextCache.invalidateAfterCommit(id);
 
         // For hard delete, uncomment:
         // userRepository.delete(user);
@@ -203,6 +233,15 @@ public class AdminController {
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * Get SLA compliance statistics by priority
+     */
+    @GetMapping("/complaints/sla")
+    public ResponseEntity<Map<String, Object>> getSlaStatistics() {
+        log.info("Admin fetching complaint SLA statistics");
+        return ResponseEntity.ok(slaMonitorService.getComplianceStatistics());
+    }
+
     // ============= ANALYTICS =============
 
     /**
@@ -266,6 +305,43 @@ public class AdminController {
         return ResponseEntity.ok(analytics);
     }
 
+    /**
+     * Get complaint resolution-time percentiles (p50/p90/p99) and monthly trend
+     */
+    @GetMapping("/analytics/resolution-times")
+    public ResponseEntity<Map<String, Object>> getResolutionTimeAnalytics(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) ComplaintPriority priority,
+            @RequestParam(defaultValue = "6") int months) {
+
+        log.info("Admin fetching resolution-time analytics (category={}, priority={}, months={})",
+                category, priority, months);
+
+        return ResponseEntity.ok(resolutionTimeAnalytics.getSummary(category, priority, months));
+    }
+
+    /**
+     * Get average time complaints spend in each status (from the complaint event log)
+     */
+    @GetMapping("/analytics/complaints/time-in-state")
+    public ResponseEntity<List<Map<String, Object>>> getComplaintTimeInState() {
+        log.info("Admin fetching complaint time-in-state analytics");
+
+        List<Map<String, Object>> stats = complaintEventRepository.getTimeInStateStatistics().stream()
+                .map(result -> {
+                    Map<String, Object> stat = new HashMap<>();
+                    stat.put("status", result[0]);
+                    stat.put("completedTransitions", result[1]);
+                    stat.put("avgHours", toHours(result[2]));
+                    stat.put("maxHours", toHours(result[3]));
+                    stat.put("currentlyInState", result[4]);
+                    return stat;
+                })
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(stats);
+    }
+
     /**
      * Get department statistics
      */
@@ -293,7 +369,9 @@ public class AdminController {
 
                     stat.put("leaveCount", leaveCount);
                     stat.put("complaintCount", 0); // Add if you have department field in complaints
-                    stat.put("avgResolutionTime", "2.5 days"); // Calculate if needed
+                    Double avgResolutionDays = resolutionTimeAnalytics.getAverageResolutionDays(dept);
+                    stat.put("avgResolutionTime",
+                            avgResolutionDays != null ? String.format("%.1f days", avgResolutionDays) : "N/A");
 
                     return stat;
                 })
@@ -336,12 +414,166 @@ public class AdminController {
         return ResponseEntity.ok(dashboard);
     }
 
+    // ============= AI ASSISTANT =============
+
+    /**
+     * Response cache size, hit ratio and evictions
+     */
+    @GetMapping("/ai/cache")
+    public ResponseEntity<Map<String, Object>> getAssistantCacheStatistics() {
+        log.info("Admin fetching AI response cache statistics");
+        return ResponseEntity.ok(assistantResponseCache.getStatistics());
+    }
+
+    /**
+     * Drop all cached answers, e.g. after a policy change
+     */
+    @DeleteMapping("/ai/cache")
+    public ResponseEntity<Map<String, String>> clearAssistantCache() {
+        log.info("Admin clearing AI response cache");
+        assistantResponseCache.invalidateAll();
+
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "AI response cache cleared");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Circuit breaker state, retry budget, retry/hedge counts and recent upstream latency
+     */
+    @GetMapping("/ai/resilience")
+    public ResponseEntity<Map<String, Object>> getAssistantResilienceStatistics() {
+        log.info("Admin fetching AI provider resilience statistics");
+        return ResponseEntity.ok(llmService.getResilienceStatistics());
+    }
+
+    /**
+     * Prompt token budget, mean prompt size and how often context had to be dropped to fit
+     */
+    @GetMapping("/ai/prompts")
+    public ResponseEntity<Map<String, Object>> getPromptBudgetStatistics() {
+        log.info("Admin fetching AI prompt budget statistics");
+        return ResponseEntity.ok(promptAssembler.getStatistics());
+    }
+
+    /**
+     * LLM requests, errors, tokens, estimated cost and mean latency, by day, model or user
+     * Defaults to the last 30 days.
+     */
+    @GetMapping("/ai/usage")
+    public ResponseEntity<Map<String, Object>> getAssistantUsage(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String groupBy) {
+        log.info("Admin fetching AI usage by {}", groupBy);
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        return ResponseEntity.ok(llmUsageRecorder.getUsage(start, end, groupBy));
+    }
+
+    /**
+     * Indexed policy documents and chunk counts
+     */
+    @GetMapping("/ai/policies")
+    public ResponseEntity<Map<String, Object>> getPolicyKnowledgeBase() {
+        log.info("Admin fetching policy knowledge base");
+        return ResponseEntity.ok(policyKnowledgeBase.getStatistics());
+    }
+
+    /**
+     * Create or replace a policy document by title and re-index
+     */
+    @PostMapping("/ai/policies")
+    public ResponseEntity<Map<String, Object>> savePolicy(@RequestBody Map<String, String> request) {
+        log.info("Admin saving policy document: {}", request.get("title"));
+        PolicyDocument saved = policyKnowledgeBase.save(request.get("title"), request.get("content"));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", saved.getId());
+        response.put("title", saved.getTitle());
+        response.put("updatedAt", saved.getUpdatedAt());
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/ai/policies/{id}")
+    public ResponseEntity<Map<String, String>> deletePolicy(@PathVariable Long id) {
+        log.info("Admin deleting policy document {}", id);
+        policyKnowledgeBase.delete(id);
+
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Policy document deleted");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Re-read policy files after they changed on disk
+     */
+    @PostMapping("/ai/policies/reload")
+    public ResponseEntity<Map<String, Object>> reloadPolicies() {
+        log.info("Admin reloading policy knowledge base");
+        policyKnowledgeBase.reload();
+        return ResponseEntity.ok(policyKnowledgeBase.getStatistics());
+    }
+
+    /**
+     * The excerpts a question would put into the prompt, with their scores
+     */
+    @GetMapping("/ai/policies/search")
+    public ResponseEntity<List<PolicyKnowledgeBase.Match>> searchPolicies(@RequestParam String q) {
+        return ResponseEntity.ok(policyKnowledgeBase.search(q));
+    }
+
+    /**
+     * LLM-written summary of a week's complaints by category; the latest completed week by default
+     */
+    @GetMapping("/ai/complaint-digest")
+    public ResponseEntity<Map<String, Object>> getComplaintDigest(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate week) {
+        log.info("Admin fetching complaint digest for {}", week != null ? week : "latest week");
+        return ResponseEntity.ok(complaintDigestJob.getDigest(week));
+    }
+
+    /**
+     * Build (or finish) the digest of the week containing the given day in the background
+     */
+    @PostMapping("/ai/complaint-digest/run")
+    public ResponseEntity<Map<String, Object>> runComplaintDigest(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate week) {
+        log.info("Admin starting complaint digest for week of {}", week);
+        boolean started = complaintDigestJob.start(week);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("started", started);
+        response.put("message", started ? "Complaint digest started" : "A complaint digest is already running");
+        return ResponseEntity.accepted().body(response);
+    }
+
+    // ============= DATABASE =============
+
+    /**
+     * SQL statements and database time per endpoint, with the latest requests over the query budget
+     */
+    @GetMapping("/db/queries")
+    public ResponseEntity<Map<String, Object>> getQueryBudget() {
+        return ResponseEntity.ok(queryTracker.getStatistics());
+    }
+
     // ============= HELPER METHODS =============
 
+    /**
+     * Convert a seconds aggregate from a native query to hours, rounded to one decimal
+     */
+    private Double toHours(Object seconds) {
+        if (seconds == null) {
+            return null;
+        }
+        return Math.round(((Number) seconds).doubleValue() / 360.0) / 10.0;
+    }
+
     /**
      * Map User entity to DTO (excludes sensitive information like password)
      */
-    private Map<String, Object> mapUserToDto(User user) {
+    Map<String, Object> mapUserToDto(User user) {
         Map<String, Object> dto = new HashMap<>();
         dto.put("id", user.getId());
         dto.put("firstName", user.getFirstName());
@@ -0,0 +1,131 @@
+package com.example.Smart.Workplace.Management.Portal.controller;
+
+import com.example.Smart.Workplace.Management.Portal.dto.ComplaintAttachmentDto;
+import com.example.Smart.Workplace.Management.Portal.service.AttachmentStorage;
+import com.example.Smart.Workplace.Management.Portal.service.ComplaintAttachmentService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/complaints/{complaintId}/attachments")
+@RequiredArgsConstructor
+public class ComplaintAttachmentController {
+
+    private final ComplaintAttachmentService attachmentService;
+    private final AttachmentStorage attachmentStorage;
+
+    /**
+     * Upload an attachment; the file is the raw request body, its name a query parameter
+     */
+    @PostMapping
+    public ResponseEntity<ComplaintAttachmentDto> uploadAttachment(
+            @PathVariable Long complaintId,
+            @RequestParam String fileName,
+            HttpServletRequest request,
+            Authentication authentication) throws IOException {
+        ComplaintAttachmentDto created = attachmentService.upload(complaintId, fileName, request.getContentType(),
+                request.getContentLengthLong(), request.getInputStream(), authentication.getName());
+        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+    }
+
+    /**
+     * List attachments of a complaint
+     */
+    @GetMapping
+    public ResponseEntity<List<ComplaintAttachmentDto>> getAttachments(
+            @PathVariable Long complaintId,
+            Authentication authentication) {
+        return ResponseEntity.ok(attachmentService.getAttachments(complaintId, authentication.getName()));
+    }
+
+    /**
+     * Download an attachment, honouring a single-range Range header (206 / 416)
+     */
+    @GetMapping("/{attachmentId}")
+    public void downloadAttachment(
+            @PathVariable Long complaintId,
+            @PathVariable Long attachmentId,
+            Authentication authentication,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        ComplaintAttachmentService.AttachmentDownload download =
+                attachmentService.getDownload(complaintId, attachmentId, authentication.getName());
+        ComplaintAttachmentDto attachment = download.attachment();
+        long length = attachment.getSizeBytes();
+
+        // Content-addressed, so the hash is a strong validator that never goes stale
+        String etag = "\"" + attachment.getSha256() + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=86400");
+
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = parseSingleRange(request, etag);
+        if (range != null) {
+            try {
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                start = length;
+            }
+            // HttpRange accepts a first position at or past the end, which is unsatisfiable
+            if (start >= length || start > end) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        } else {
+            response.setStatus(HttpStatus.OK.value());
+        }
+
+        response.setContentType(attachment.getContentType());
+        response.setContentLengthLong(end - start + 1);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(attachment.getFileName(), StandardCharsets.UTF_8)
+                .build()
+                .toString());
+
+        attachmentStorage.transfer(download.blob(), start, end, request, response);
+    }
+
+    /**
+     * The requested range, or null to send the whole file
+     * Malformed, multi-range and stale If-Range requests fall back to the full body, as RFC 9110 allows.
+     */
+    private static HttpRange parseSingleRange(HttpServletRequest request, String etag) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
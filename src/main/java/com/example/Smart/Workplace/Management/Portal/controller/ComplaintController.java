@@ -1,6 +1,7 @@
 package com.example.Smart.Workplace.Management.Portal.controller;
 
 import com.example.Smart.Workplace.Management.Portal.dto.ComplaintDto;
+import com.example.Smart.Workplace.Management.Portal.dto.ComplaintTimelineDto;
 import com.example.Smart.Workplace.Management.Portal.service.ComplaintService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -94,6 +95,30 @@ public class ComplaintController {
         return ResponseEntity.ok(updated);
     }
 
+    /**
+     * Merge duplicate complaints into this one (MANAGER/ADMIN only)
+     */
+    @PutMapping("/{id}/merge")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<ComplaintDto> mergeDuplicates(
+            @PathVariable Long id,
+            @RequestBody List<Long> duplicateIds,
+            Authentication authentication) {
+        ComplaintDto merged = complaintService.mergeDuplicates(id, duplicateIds, authentication.getName());
+        return ResponseEntity.ok(merged);
+    }
+
+    /**
+     * Get status timeline and time-in-state (submitter, assignee, MANAGER/ADMIN)
+     */
+    @GetMapping("/{id}/timeline")
+    public ResponseEntity<ComplaintTimelineDto> getTimeline(
+            @PathVariable Long id,
+            Authentication authentication) {
+        ComplaintTimelineDto timeline = complaintService.getTimeline(id, authentication.getName());
+        return ResponseEntity.ok(timeline);
+    }
+
     /**
      * Delete complaint (ADMIN only)
      */
@@ -0,0 +1,17 @@
+package com.example.Smart.Workplace.Management.Portal.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * One exchange of a user's assistant history; selected directly by the query, no entity involved
+ */
+public record ChatHistoryItem(
+        Long id,
+        String message,
+        String response,
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        LocalDateTime createdAt,
+        String intent) {
+}
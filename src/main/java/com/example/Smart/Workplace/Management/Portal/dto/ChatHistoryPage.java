@@ -0,0 +1,23 @@
+package com.example.Smart.Workplace.Management.Portal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatHistoryPage {
+
+    // Newest first
+    private List<ChatHistoryItem> items;
+
+    /**
+     * Opaque cursor for the next (older) page, null when there is none
+     */
+    private String nextCursor;
+}
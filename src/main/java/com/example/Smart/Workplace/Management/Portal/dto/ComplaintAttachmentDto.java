@@ -0,0 +1,29 @@
+package com.example.Smart.Workplace.Management.Portal.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComplaintAttachmentDto {
+
+    private Long id;
+    private Long complaintId;
+    private String fileName;
+    private String contentType;
+    private Long sizeBytes;
+    private String sha256;
+
+    private Long uploadedById;
+    private String uploadedByName;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime uploadedAt;
+}
@@ -11,6 +11,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @Builder
@@ -44,6 +45,12 @@ public class ComplaintDto {
 
     private String resolution;
 
+    // Primary complaint if this one was merged as a duplicate
+    private Long duplicateOfId;
+
+    // Likely duplicates among open complaints (returned on submission)
+    private List<Long> possibleDuplicateIds;
+
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime submittedAt;
 
@@ -0,0 +1,32 @@
+package com.example.Smart.Workplace.Management.Portal.dto;
+
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintEventType;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintStatus;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComplaintEventDto {
+
+    private ComplaintEventType type;
+    private ComplaintStatus fromStatus;
+    private ComplaintStatus toStatus;
+
+    // User who made the change (null for system actions)
+    private Long actorId;
+    private String actorName;
+
+    private Long assignedToId;
+    private String note;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,26 @@
+package com.example.Smart.Workplace.Management.Portal.dto;
+
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComplaintTimelineDto {
+
+    private Long complaintId;
+    private ComplaintStatus currentStatus;
+    private List<ComplaintEventDto> events;
+
+    /**
+     * Seconds spent in each status, the current status counted up to now
+     */
+    private Map<ComplaintStatus, Long> timeInStateSeconds;
+}
@@ -0,0 +1,18 @@
+package com.example.Smart.Workplace.Management.Portal.exception;
+
+import lombok.Getter;
+
+/**
+ * Failed call to the AI provider
+ * The message is safe to show to the user; statusCode is the upstream HTTP status, 0 for I/O failures.
+ */
+@Getter
+public class AIProviderException extends RuntimeException {
+
+    private final int statusCode;
+
+    public AIProviderException(String message, int statusCode, Throwable cause) {
+        super(message, cause);
+        this.statusCode = statusCode;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.Smart.Workplace.Management.Portal.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a downstream dependency is saturated and the request is shed instead of queued
+ * Mapped to 503 Service Unavailable with a Retry-After hint.
+ */
+@Getter
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
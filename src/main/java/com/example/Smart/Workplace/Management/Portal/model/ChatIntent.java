@@ -0,0 +1,31 @@
+package com.example.Smart.Workplace.Management.Portal.model;
+
+/**
+ * Intent of an assistant message, stored in ChatMessage.intent by its code
+ */
+public enum ChatIntent {
+    LEAVE_BALANCE("leave_balance"),
+    PENDING_LEAVES("pending_leaves"),
+    UPCOMING_LEAVES("upcoming_leaves"),
+    COMPLAINT_STATUS("complaint_status"),
+    GENERAL("general");
+
+    private final String code;
+
+    ChatIntent(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public static ChatIntent fromCode(String code) {
+        for (ChatIntent intent : values()) {
+            if (intent.code.equals(code)) {
+                return intent;
+            }
+        }
+        throw new IllegalArgumentException("Unknown chat intent: " + code);
+    }
+}
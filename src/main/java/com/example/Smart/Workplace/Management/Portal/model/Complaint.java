@@ -104,6 +104,24 @@ public class Complaint {
     @Column(name = "resolved_at")
     private LocalDateTime resolvedAt;
 
+    /**
+     * Timestamp when the response SLA (time to assignment) was breached
+     */
+    @Column(name = "response_breached_at")
+    private LocalDateTime responseBreachedAt;
+
+    /**
+     * Timestamp when the resolution SLA was breached
+     */
+    @Column(name = "resolution_breached_at")
+    private LocalDateTime resolutionBreachedAt;
+
+    /**
+     * Primary complaint this one was merged into as a duplicate
+     */
+    @Column(name = "duplicate_of_id")
+    private Long duplicateOfId;
+
     /**
      * Auto-set resolved time when status changes to RESOLVED
      */
@@ -0,0 +1,57 @@
+package com.example.Smart.Workplace.Management.Portal.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * File attached to a complaint
+ * The bytes live in the content-addressed file store under their SHA-256,
+ * so identical uploads share a single stored blob.
+ */
+@Entity
+@Table(name = "complaint_attachments", indexes = {
+        @Index(name = "idx_attachment_complaint", columnList = "complaint_id"),
+        @Index(name = "idx_attachment_sha256", columnList = "sha256")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString(exclude = {"complaint", "uploadedBy"})
+@EqualsAndHashCode(of = "id")
+public class ComplaintAttachment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "complaint_id", nullable = false)
+    private Complaint complaint;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    /**
+     * Hex SHA-256 of the content, also the key in the file store
+     */
+    @Column(name = "sha256", nullable = false, length = 64)
+    private String sha256;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "uploaded_by", nullable = false)
+    private User uploadedBy;
+
+    @CreationTimestamp
+    @Column(name = "uploaded_at", nullable = false, updatable = false)
+    private LocalDateTime uploadedAt;
+}
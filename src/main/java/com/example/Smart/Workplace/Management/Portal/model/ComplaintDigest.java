@@ -0,0 +1,46 @@
+package com.example.Smart.Workplace.Management.Portal.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * LLM-written summary of one week's complaints, by category
+ * Incomplete (completedAt null) while the job runs or after it failed part-way; a rerun resumes it.
+ */
+@Entity
+@Table(name = "complaint_digests")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class ComplaintDigest {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Monday the week starts on
+     */
+    @Column(name = "week_start", nullable = false, unique = true)
+    private LocalDate weekStart;
+
+    @Column(name = "complaint_count")
+    private Integer complaintCount;
+
+    @Column(name = "chunk_count")
+    private Integer chunkCount;
+
+    @Column(columnDefinition = "TEXT")
+    private String summary;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,56 @@
+package com.example.Smart.Workplace.Management.Portal.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint of the weekly digest: the summary of one prompt-sized batch of a category's complaints
+ * A rerun skips batches whose complaint id range is already summarised.
+ */
+@Entity
+@Table(name = "complaint_digest_chunks", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_digest_chunk", columnNames = {"week_start", "category", "chunk_index"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class ComplaintDigestChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "week_start", nullable = false)
+    private LocalDate weekStart;
+
+    /**
+     * Complaint category, empty for uncategorised complaints
+     */
+    @Column(nullable = false, length = 50)
+    private String category;
+
+    @Column(name = "chunk_index", nullable = false)
+    private Integer chunkIndex;
+
+    @Column(name = "first_complaint_id", nullable = false)
+    private Long firstComplaintId;
+
+    @Column(name = "last_complaint_id", nullable = false)
+    private Long lastComplaintId;
+
+    @Column(name = "complaint_count", nullable = false)
+    private Integer complaintCount;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String summary;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
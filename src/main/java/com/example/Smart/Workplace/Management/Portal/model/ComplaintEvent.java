@@ -0,0 +1,56 @@
+package com.example.Smart.Workplace.Management.Portal.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only log entry for a complaint transition
+ * Stores plain ids instead of associations so rows can be batch-inserted over JDBC
+ */
+@Entity
+@Table(name = "complaint_events", indexes = {
+        @Index(name = "idx_complaint_events_complaint", columnList = "complaint_id, occurred_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class ComplaintEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "complaint_id", nullable = false)
+    private Long complaintId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 30)
+    private ComplaintEventType eventType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "from_status", length = 20)
+    private ComplaintStatus fromStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "to_status", length = 20)
+    private ComplaintStatus toStatus;
+
+    /**
+     * User who caused the transition, null for system actions (e.g. SLA escalation)
+     */
+    @Column(name = "actor_id")
+    private Long actorId;
+
+    @Column(name = "assigned_to_id")
+    private Long assignedToId;
+
+    @Column(name = "note", columnDefinition = "TEXT")
+    private String note;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,11 @@
+package com.example.Smart.Workplace.Management.Portal.model;
+
+public enum ComplaintEventType {
+    SUBMITTED,
+    ASSIGNED,
+    STATUS_CHANGED,
+    RESOLUTION_UPDATED,
+    ESCALATED,
+    MERGED,
+    DELETED
+}
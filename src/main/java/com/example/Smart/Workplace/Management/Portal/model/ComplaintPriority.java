@@ -4,5 +4,13 @@ public enum ComplaintPriority {
     LOW,
     MEDIUM,
     HIGH,
-    URGENT
+    URGENT;
+
+    /**
+     * Next priority level used when a complaint breaches its SLA
+     * URGENT stays URGENT
+     */
+    public ComplaintPriority escalate() {
+        return this == URGENT ? URGENT : values()[ordinal() + 1];
+    }
 }
@@ -0,0 +1,58 @@
+package com.example.Smart.Workplace.Management.Portal.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Daily LLM usage aggregate per user and model
+ * Rows are upserted (counters added) by LlmUsageRecorder, never written per call.
+ * user_id 0 stands for calls made outside a user request.
+ */
+@Entity
+@Table(name = "llm_usage_daily", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_llm_usage_day_user_model", columnNames = {"usage_date", "user_id", "model"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class LlmUsageDaily {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "usage_date", nullable = false)
+    private LocalDate usageDate;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "model", nullable = false, length = 100)
+    private String model;
+
+    @Column(name = "request_count", nullable = false)
+    private Long requestCount;
+
+    @Column(name = "error_count", nullable = false)
+    private Long errorCount;
+
+    @Column(name = "prompt_tokens", nullable = false)
+    private Long promptTokens;
+
+    @Column(name = "completion_tokens", nullable = false)
+    private Long completionTokens;
+
+    @Column(name = "cost_usd", nullable = false, precision = 14, scale = 6)
+    private BigDecimal costUsd;
+
+    /**
+     * Sum of upstream latencies, divided by request_count for the mean
+     */
+    @Column(name = "total_latency_ms", nullable = false)
+    private Long totalLatencyMs;
+}
@@ -1,13 +1,40 @@
 package com.example.Smart.Workplace.Management.Portal.repository;
 
+import com.example.Smart.Workplace.Management.Portal.dto.ChatHistoryItem;
 import com.example.Smart.Workplace.Management.Portal.model.ChatMessage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
-    List<ChatMessage> findByUserIdOrderByCreatedAtDesc(Long userId);
-    List<ChatMessage> findTop10ByUserIdOrderByCreatedAtDesc(Long userId);
+
+    /**
+     * Newest exchanges of a user, served by idx_chat_user_created
+     */
+    @Query("SELECT new com.example.Smart.Workplace.Management.Portal.dto.ChatHistoryItem(" +
+            "c.id, c.message, c.response, c.createdAt, c.intent) " +
+            "FROM ChatMessage c WHERE c.user.id = :userId " +
+            "ORDER BY c.createdAt DESC, c.id DESC")
+    List<ChatHistoryItem> findLatestHistory(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Exchanges older than the (createdAt, id) cursor (keyset pagination, no OFFSET scan)
+     */
+    @Query("SELECT new com.example.Smart.Workplace.Management.Portal.dto.ChatHistoryItem(" +
+            "c.id, c.message, c.response, c.createdAt, c.intent) " +
+            "FROM ChatMessage c WHERE c.user.id = :userId " +
+            "AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id)) " +
+            "ORDER BY c.createdAt DESC, c.id DESC")
+    List<ChatHistoryItem> findHistoryBefore(
+            @Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable
+    );
 }
@@ -0,0 +1,38 @@
+package com.example.Smart.Workplace.Management.Portal.repository;
+
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintAttachment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ComplaintAttachmentRepository extends JpaRepository<ComplaintAttachment, Long> {
+
+    // Attachments of a complaint with their uploaders, oldest first
+    @Query("SELECT a FROM ComplaintAttachment a JOIN FETCH a.uploadedBy " +
+           "WHERE a.complaint.id = :complaintId ORDER BY a.uploadedAt ASC")
+    List<ComplaintAttachment> findWithUploaderByComplaintId(@Param("complaintId") Long complaintId);
+
+    // Attachment scoped to its complaint, with its uploader
+    @Query("SELECT a FROM ComplaintAttachment a JOIN FETCH a.uploadedBy " +
+           "WHERE a.id = :id AND a.complaint.id = :complaintId")
+    Optional<ComplaintAttachment> findWithUploaderByIdAndComplaintId(@Param("id") Long id,
+                                                                     @Param("complaintId") Long complaintId);
+
+    // Whether any attachment still points at a stored blob
+    boolean existsBySha256(String sha256);
+
+    // Blobs referenced by a complaint's attachments
+    @Query("SELECT DISTINCT a.sha256 FROM ComplaintAttachment a WHERE a.complaint.id = :complaintId")
+    List<String> findBlobsByComplaintId(@Param("complaintId") Long complaintId);
+
+    // Remove all attachment rows of a complaint in one statement
+    @Modifying
+    @Query("DELETE FROM ComplaintAttachment a WHERE a.complaint.id = :complaintId")
+    int deleteByComplaintId(@Param("complaintId") Long complaintId);
+}
@@ -0,0 +1,18 @@
+package com.example.Smart.Workplace.Management.Portal.repository;
+
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintDigestChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ComplaintDigestChunkRepository extends JpaRepository<ComplaintDigestChunk, Long> {
+
+    List<ComplaintDigestChunk> findByWeekStartAndCategoryOrderByChunkIndex(LocalDate weekStart, String category);
+
+    Optional<ComplaintDigestChunk> findByWeekStartAndCategoryAndChunkIndex(LocalDate weekStart, String category,
+                                                                          Integer chunkIndex);
+}
@@ -0,0 +1,16 @@
+package com.example.Smart.Workplace.Management.Portal.repository;
+
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintDigest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface ComplaintDigestRepository extends JpaRepository<ComplaintDigest, Long> {
+
+    Optional<ComplaintDigest> findByWeekStart(LocalDate weekStart);
+
+    Optional<ComplaintDigest> findFirstByCompletedAtIsNotNullOrderByWeekStartDesc();
+}
@@ -0,0 +1,32 @@
+package com.example.Smart.Workplace.Management.Portal.repository;
+
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ComplaintEventRepository extends JpaRepository<ComplaintEvent, Long> {
+
+    // Timeline of a single complaint
+    List<ComplaintEvent> findByComplaintIdOrderByOccurredAtAscIdAsc(Long complaintId);
+
+    /**
+     * Time spent in each status across all complaints
+     * Each status change is closed by the next one for the same complaint (LEAD window)
+     * Returns [status, completedIntervals, avgSeconds, maxSeconds, currentlyInState]
+     */
+    @Query(value = "SELECT to_status, " +
+            "COUNT(next_at), " +
+            "AVG(EXTRACT(EPOCH FROM (next_at - occurred_at))), " +
+            "MAX(EXTRACT(EPOCH FROM (next_at - occurred_at))), " +
+            "COUNT(*) - COUNT(next_at) " +
+            "FROM (SELECT to_status, occurred_at, " +
+            "      LEAD(occurred_at) OVER (PARTITION BY complaint_id ORDER BY occurred_at, id) AS next_at " +
+            "      FROM complaint_events WHERE to_status IS NOT NULL) transitions " +
+            "GROUP BY to_status",
+            nativeQuery = true)
+    List<Object[]> getTimeInStateStatistics();
+}
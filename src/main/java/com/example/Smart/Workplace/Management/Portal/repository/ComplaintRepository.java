@@ -1,11 +1,18 @@
 package com.example.Smart.Workplace.Management.Portal.repository;
 
 import com.example.Smart.Workplace.Management.Portal.model.Complaint;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintPriority;
 import com.example.Smart.Workplace.Management.Portal.model.ComplaintStatus;
 import com.example.Smart.Workplace.Management.Portal.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -31,4 +38,102 @@ public interface ComplaintRepository extends JpaRepository<Complaint, Long> {
 
     // Count by user
     long countByUserId(Long userId);
+
+    /**
+     * Open and in-progress complaints for the SLA timer wheel
+     * Returns [id, priority, status, submittedAt, assignedToId, responseBreachedAt, resolutionBreachedAt]
+     */
+    @Query("SELECT c.id, c.priority, c.status, c.submittedAt, a.id, c.responseBreachedAt, c.resolutionBreachedAt " +
+            "FROM Complaint c LEFT JOIN c.assignedTo a " +
+            "WHERE c.status IN ('OPEN', 'IN_PROGRESS')")
+    List<Object[]> findActiveForSlaTracking();
+
+    /**
+     * SLA compliance by priority
+     * Returns [priority, total, responseBreaches, resolutionBreaches]
+     */
+    @Query("SELECT c.priority, COUNT(c), " +
+            "SUM(CASE WHEN c.responseBreachedAt IS NOT NULL THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN c.resolutionBreachedAt IS NOT NULL THEN 1 ELSE 0 END) " +
+            "FROM Complaint c GROUP BY c.priority")
+    List<Object[]> getSlaStatisticsByPriority();
+
+    /**
+     * Open and in-progress complaints for the duplicate index
+     * Returns [id, title, description]
+     */
+    @Query("SELECT c.id, c.title, c.description FROM Complaint c WHERE c.status IN ('OPEN', 'IN_PROGRESS')")
+    List<Object[]> findActiveForSimilarityIndex();
+
+    /**
+     * Close a set of duplicates and link them to the primary complaint in one statement
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Complaint c SET c.duplicateOfId = :primaryId, c.status = :closed, " +
+            "c.resolution = :resolution, c.updatedAt = :now " +
+            "WHERE c.id IN :ids AND c.id <> :primaryId AND c.status IN ('OPEN', 'IN_PROGRESS')")
+    int mergeDuplicates(
+            @Param("primaryId") Long primaryId,
+            @Param("ids") Collection<Long> ids,
+            @Param("closed") ComplaintStatus closed,
+            @Param("resolution") String resolution,
+            @Param("now") LocalDateTime now
+    );
+
+    /**
+     * Record a missed response target and set the priority, unless the complaint was closed or already marked
+     * Touches only these columns so a concurrent status change is never overwritten
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Complaint c SET c.responseBreachedAt = :now, c.priority = :priority, c.updatedAt = :now " +
+            "WHERE c.id = :id AND c.status IN ('OPEN', 'IN_PROGRESS') AND c.responseBreachedAt IS NULL")
+    int markResponseBreached(
+            @Param("id") Long id,
+            @Param("priority") ComplaintPriority priority,
+            @Param("now") LocalDateTime now
+    );
+
+    /**
+     * Record a missed resolution target and set the priority, unless the complaint was closed or already marked
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Complaint c SET c.resolutionBreachedAt = :now, c.priority = :priority, c.updatedAt = :now " +
+            "WHERE c.id = :id AND c.status IN ('OPEN', 'IN_PROGRESS') AND c.resolutionBreachedAt IS NULL")
+    int markResolutionBreached(
+            @Param("id") Long id,
+            @Param("priority") ComplaintPriority priority,
+            @Param("now") LocalDateTime now
+    );
+
+    /**
+     * Resolved complaints for resolution-time analytics
+     * Returns [category, priority, submittedAt, resolvedAt, submitterDepartment]
+     */
+    @Query("SELECT c.category, c.priority, c.submittedAt, c.resolvedAt, u.department " +
+            "FROM Complaint c JOIN c.user u WHERE c.resolvedAt IS NOT NULL")
+    List<Object[]> findResolutionTimes();
+
+    /**
+     * Categories with complaints submitted in a window, merged duplicates aside; empty string for uncategorised ones
+     */
+    @Query("SELECT DISTINCT COALESCE(c.category, '') FROM Complaint c " +
+            "WHERE c.submittedAt >= :from AND c.submittedAt < :to AND c.duplicateOfId IS NULL")
+    List<String> findCategoriesSubmittedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * One page of a category's complaints in a window, keyset-paginated by id, for the weekly digest
+     * Complaints merged into another are left out; the primary already stands for them.
+     * Returns [id, priority, status, title, description]
+     */
+    @Query("SELECT c.id, c.priority, c.status, c.title, c.description FROM Complaint c " +
+            "WHERE c.submittedAt >= :from AND c.submittedAt < :to " +
+            "AND COALESCE(c.category, '') = :category AND c.duplicateOfId IS NULL " +
+            "AND c.id > :afterId ORDER BY c.id")
+    List<Object[]> findForDigest(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("category") String category,
+            @Param("afterId") Long afterId,
+            Pageable page
+    );
 }
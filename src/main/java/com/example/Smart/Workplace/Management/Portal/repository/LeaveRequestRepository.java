@@ -37,6 +37,9 @@ public interface LeaveRequestRepository extends JpaRepository<LeaveRequest, Long
         return findByEmployeeIdAndStatus(employeeId, LeaveStatus.PENDING);
     }
 
+    List<LeaveRequest> findByEmployeeIdAndStatusAndEndDateGreaterThanEqualOrderByStartDateAsc(
+            Long employeeId, LeaveStatus status, LocalDate date);
+
     // ============= Find by Manager =============
     List<LeaveRequest> findByManagerId(Long managerId);
     List<LeaveRequest> findByManager(User manager);
@@ -0,0 +1,39 @@
+package com.example.Smart.Workplace.Management.Portal.repository;
+
+import com.example.Smart.Workplace.Management.Portal.model.LlmUsageDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Rollups over the daily usage aggregate
+ * Each returns [group..., requests, errors, promptTokens, completionTokens, costUsd, totalLatencyMs]
+ */
+@Repository
+public interface LlmUsageDailyRepository extends JpaRepository<LlmUsageDaily, Long> {
+
+    @Query("SELECT u.usageDate, SUM(u.requestCount), SUM(u.errorCount), SUM(u.promptTokens), " +
+            "SUM(u.completionTokens), SUM(u.costUsd), SUM(u.totalLatencyMs) " +
+            "FROM LlmUsageDaily u WHERE u.usageDate BETWEEN :from AND :to " +
+            "GROUP BY u.usageDate ORDER BY u.usageDate")
+    List<Object[]> rollupByDay(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT u.model, SUM(u.requestCount), SUM(u.errorCount), SUM(u.promptTokens), " +
+            "SUM(u.completionTokens), SUM(u.costUsd), SUM(u.totalLatencyMs) " +
+            "FROM LlmUsageDaily u WHERE u.usageDate BETWEEN :from AND :to " +
+            "GROUP BY u.model ORDER BY SUM(u.costUsd) DESC")
+    List<Object[]> rollupByModel(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Per user, with name and role; calls outside a user request (user_id 0) have no match and are left out
+     */
+    @Query("SELECT u.userId, usr.firstName, usr.lastName, usr.role, SUM(u.requestCount), SUM(u.errorCount), " +
+            "SUM(u.promptTokens), SUM(u.completionTokens), SUM(u.costUsd), SUM(u.totalLatencyMs) " +
+            "FROM LlmUsageDaily u, User usr WHERE usr.id = u.userId AND u.usageDate BETWEEN :from AND :to " +
+            "GROUP BY u.userId, usr.firstName, usr.lastName, usr.role ORDER BY SUM(u.costUsd) DESC")
+    List<Object[]> rollupByUser(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
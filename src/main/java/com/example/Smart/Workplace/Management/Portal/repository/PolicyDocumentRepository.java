@@ -0,0 +1,13 @@
+package com.example.Smart.Workplace.Management.Portal.repository;
+
+import com.example.Smart.Workplace.Management.Portal.model.PolicyDocument;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PolicyDocumentRepository extends JpaRepository<PolicyDocument, Long> {
+
+    Optional<PolicyDocument> findByTitleIgnoreCase(String title);
+}
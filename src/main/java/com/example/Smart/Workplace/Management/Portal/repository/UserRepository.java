@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -156,4 +157,31 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     @Query("SELECT u.department, COUNT(u) FROM User u WHERE u.department IS NOT NULL GROUP BY u.department ORDER BY COUNT(u) DESC")
     List<Object[]> getDepartmentStatistics();
+
+    /**
+     * Everything the AI assistant tells the model about a user, in one round trip
+     * One scan of the user's leave requests plus an indexed count of their open complaints.
+     * @param userId User ID
+     * @param yearStart First day of the current year
+     * @param yearEnd Last day of the current year
+     * @return One row: [first name, last name, email, role, department, total leaves, pending,
+     *         approved, rejected, approved leave days this year, open complaints]
+     */
+    @Query(value = "SELECT u.first_name, u.last_name, u.email, u.role, u.department, " +
+            "COUNT(lr.id), " +
+            "COUNT(lr.id) FILTER (WHERE lr.status = 'PENDING'), " +
+            "COUNT(lr.id) FILTER (WHERE lr.status = 'APPROVED'), " +
+            "COUNT(lr.id) FILTER (WHERE lr.status = 'REJECTED'), " +
+            "COALESCE(SUM(lr.end_date - lr.start_date + 1) FILTER (WHERE lr.status = 'APPROVED' " +
+            "AND lr.start_date >= :yearStart AND lr.end_date <= :yearEnd), 0), " +
+            "(SELECT COUNT(*) FROM complaints c WHERE c.user_id = u.id AND c.status IN ('OPEN', 'IN_PROGRESS')) " +
+            "FROM users u LEFT JOIN leave_requests lr ON lr.employee_id = u.id " +
+            "WHERE u.id = :userId " +
+            "GROUP BY u.id",
+            nativeQuery = true)
+    List<Object[]> findAssistantContext(
+            @Param("userId") Long userId,
+            @Param("yearStart") LocalDate yearStart,
+            @Param("yearEnd") LocalDate yearEnd
+    );
 }
@@ -1,30 +1,51 @@
 package com.example.Smart.Workplace.Management.Portal.service;
 
-import com.example.Smart.Workplace.Management.Portal.model.ChatMessage;
-import com.example.Smart.Workplace.Management.Portal.model.LeaveRequest;
+import com.example.Smart.Workplace.Management.Portal.dto.ChatHistoryItem;
+import com.example.Smart.Workplace.Management.Portal.dto.ChatHistoryPage;
+import com.example.Smart.Workplace.Management.Portal.exception.AIProviderException;
+import com.example.Smart.Workplace.Management.Portal.model.ChatIntent;
 import com.example.Smart.Workplace.Management.Portal.model.User;
 import com.example.Smart.Workplace.Management.Portal.repository.ChatMessageRepository;
-import com.example.Smart.Workplace.Management.Portal.repository.LeaveRequestRepository;
 import com.example.Smart.Workplace.Management.Portal.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AIAssistantService {
 
-    private final GroqAIService groqAIService;
+    private final LlmService llmService;
     private final ChatMessageRepository chatMessageRepository;
     private final UserRepository userRepository;
-    private final LeaveRequestRepository leaveRequestRepository;
+    private final AssistantResponseCache responseCache;
+    private final IntentClassifier intentClassifier;
+    private final LocalIntentResponder localIntentResponder;
+    private final LeaveService leaveService;
+    private final ConversationMemory conversationMemory;
+    private final UserContextCache userContextCache;
+    private final ChatTranscriptLog chatTranscriptLog;
+    private final PolicyKnowledgeBase policyKnowledgeBase;
+    private final PromptAssembler promptAssembler;
+    private final TokenEstimator tokenEstimator;
+
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
 
     private static final String SYSTEM_PROMPT = """
             You are a helpful workplace assistant for the Smart Workplace Management Portal.
@@ -34,6 +55,9 @@ public class AIAssistantService {
             - Understanding company policies
             - General HR questions
             
+            Answer policy questions only from the COMPANY POLICY EXCERPTS given below. Never invent
+            policy details; if no excerpt covers the question, say so and suggest contacting HR.
+            
             Be friendly, professional, and concise. If asked to perform an action like 
             submitting a leave request, guide the user through the process step by step.
             
@@ -47,62 +71,325 @@ public class AIAssistantService {
             - Ask about policies
             """;
 
-    public String processMessage(String message, String username) {
+    /**
+     * Ask the assistant without holding the calling thread while the model generates
+     * Data questions are answered locally, general ones from the response cache when possible.
+     * The conversation is saved when the answer arrives.
+     */
+    public CompletableFuture<String> processMessage(String message, String username) {
         log.info("Processing message from user: {}", username);
+        promptAssembler.requireWithinLimit(message);
 
         User user = userRepository.findByEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
+        // Data questions are answered from the database without an LLM round trip
+        IntentClassifier.Classification intent = intentClassifier.classify(message);
+        String localAnswer = answerLocally(intent, user);
+        if (localAnswer != null) {
+            remember(user, message, localAnswer, intent);
+            return CompletableFuture.completedFuture(localAnswer);
+        }
+
+        String cacheKey = cacheKeyFor(message, user);
+        String cached = cacheKey != null ? responseCache.get(cacheKey) : null;
+        if (cached != null) {
+            log.debug("Answered from response cache for user: {}", username);
+            remember(user, message, cached, intent);
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        // Get AI response, then save conversation
+        PromptAssembler.Assembled prompt = buildLlmRequest(user, message, intent, cacheKey != null);
+        return llmService.getCompletionAsync(prompt.request())
+                .thenApply(completion -> {
+                    String aiResponse = completion.content();
+                    if (cacheKey != null) {
+                        responseCache.put(cacheKey, aiResponse);
+                    }
+                    remember(user, message, completion, intent, prompt.promptTokens());
+                    return aiResponse;
+                })
+                .exceptionally(error -> {
+                    String reply = userFacingError(error);
+                    saveConversation(user, message, reply, intent, prompt.promptTokens(), null);
+                    return reply;
+                });
+    }
+
+    /**
+     * Stream the answer token by token; the conversation is saved once the stream completes
+     * Returns an action that cancels the upstream call, for when the client goes away.
+     */
+    public Runnable streamMessage(String message, String username, LlmService.StreamListener listener) {
+        log.info("Streaming message from user: {}", username);
+        promptAssembler.requireWithinLimit(message);
+
+        User user = userRepository.findByEmail(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+
+        // Data questions are answered from the database without an LLM round trip
+        IntentClassifier.Classification intent = intentClassifier.classify(message);
+        String localAnswer = answerLocally(intent, user);
+        if (localAnswer != null) {
+            remember(user, message, localAnswer, intent);
+            listener.onToken(localAnswer);
+            listener.onComplete(localAnswer);
+            return () -> {
+            };
+        }
+
+        String cacheKey = cacheKeyFor(message, user);
+        String cached = cacheKey != null ? responseCache.get(cacheKey) : null;
+        if (cached != null) {
+            remember(user, message, cached, intent);
+            listener.onToken(cached);
+            listener.onComplete(cached);
+            return () -> {
+            };
+        }
+
+        PromptAssembler.Assembled prompt = buildLlmRequest(user, message, intent, cacheKey != null);
+        return llmService.streamChatCompletion(prompt.request(),
+                new LlmService.StreamListener() {
+                    @Override
+                    public void onToken(String token) {
+                        listener.onToken(token);
+                    }
+
+                    @Override
+                    public void onComplete(String fullResponse) {
+                        onComplete(new LlmCompletion(fullResponse, -1, -1, -1));
+                    }
+
+                    @Override
+                    public void onComplete(LlmCompletion completion) {
+                        String fullResponse = completion.content();
+                        if (cacheKey != null) {
+                            responseCache.put(cacheKey, fullResponse);
+                        }
+                        remember(user, message, completion, intent, prompt.promptTokens());
+                        listener.onComplete(fullResponse);
+                    }
+
+                    @Override
+                    public void onError(String userMessage, Throwable cause) {
+                        listener.onError(userMessage, cause);
+                    }
+                });
+    }
+
+    /**
+     * Follow-ups depend on the conversation, so they never use the shared cache
+     */
+    private String cacheKeyFor(String message, User user) {
+        if (conversationMemory.isFollowUp(user.getId(), message)) {
+            return null;
+        }
+        return responseCache.keyFor(message, user);
+    }
+
+    /**
+     * Shareable (cacheable) questions get a generic prompt without history;
+     * everything else gets the personal context, the rolling summary and recent turns
+     * Data questions the classifier was not confident enough to answer locally are short lookups
+     * over the context, so they go to the fast model tier; open questions get the standard one.
+     * The assembler keeps the whole prompt within the per-request token budget.
+     */
+    private PromptAssembler.Assembled buildLlmRequest(User user, String message,
+                                                      IntentClassifier.Classification intent, boolean shareable) {
+        ModelTier tier = intent.intent() == ChatIntent.GENERAL ? ModelTier.STANDARD : ModelTier.FAST;
+        PromptAssembler.Prompt.PromptBuilder prompt = PromptAssembler.Prompt.builder()
+                .instructions(buildInstructions(user, !shareable))
+                // Policy excerpts depend on the question alone, so they are safe to share either way
+                .policyExcerpts(policyKnowledgeBase.excerpts(message))
+                .userMessage(message)
+                .tier(tier)
+                .userId(user.getId())
+                .role(user.getRole());
+        if (!shareable) {
+            ConversationMemory.Snapshot memory = conversationMemory.snapshot(user.getId());
+            prompt.summary(memory.summary()).history(memory.turns());
+        }
+        return promptAssembler.assemble(prompt.build());
+    }
+
+    /**
+     * Personal context (leave figures, email) is only included for personal questions,
+     * so answers to general questions are safe to share through the cache
+     */
+    private String buildInstructions(User user, boolean includePersonalContext) {
         // Get user context
-        String userContext = getUserContext(user);
+        String userContext = includePersonalContext ? getUserContext(user) : getUserClassContext(user);
 
-        // Build system prompt with context
         String currentDate = LocalDate.now().format(DateTimeFormatter.ISO_DATE);
-        String fullSystemPrompt = String.format(SYSTEM_PROMPT, currentDate) + "\n\n" + userContext;
+        return String.format(SYSTEM_PROMPT, currentDate) + "\n\n" + userContext;
+    }
 
-        // Get AI response
-        String aiResponse = groqAIService.getChatCompletion(message, fullSystemPrompt);
+    private static String userFacingError(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof AIProviderException) {
+            return cause.getMessage();
+        }
+        log.error("Unexpected error from AI provider", cause);
+        return "Sorry, I encountered an error. Please try again.";
+    }
 
-        // Save conversation
-        ChatMessage chatMessage = ChatMessage.builder()
-                .user(user)
-                .message(message)
-                .response(aiResponse)
-                .createdAt(LocalDateTime.now())
-                .build();
+    private String answerLocally(IntentClassifier.Classification intent, User user) {
+        if (!intentClassifier.isLocallyAnswerable(intent)) {
+            return null;
+        }
+        log.debug("Answering {} locally ({})", intent.intent(), intent.confidence());
+        return localIntentResponder.answer(intent.intent(), user);
+    }
 
-        chatMessageRepository.save(chatMessage);
+    /**
+     * Add a successful exchange to the conversation memory, then persist it
+     * Memory first: if it has to be warmed from the database, this message is not read back twice.
+     */
+    private void remember(User user, String message, String answer, IntentClassifier.Classification intent) {
+        conversationMemory.record(user.getId(), message, answer);
+        // Local and cached answers cost no tokens
+        saveConversation(user, message, answer, intent, null, null);
+    }
 
-        return aiResponse;
+    /**
+     * Same for an answer the model generated, with the prompt as counted locally and the completion
+     * as the provider billed it (counted locally when the provider reported no usage)
+     */
+    private void remember(User user, String message, LlmCompletion completion, IntentClassifier.Classification intent,
+                          int promptTokens) {
+        String answer = completion.content();
+        conversationMemory.record(user.getId(), message, answer);
+        int completionTokens = completion.completionTokens() >= 0
+                ? (int) completion.completionTokens() : tokenEstimator.estimate(answer);
+        saveConversation(user, message, answer, intent, promptTokens, completionTokens);
     }
 
+    private void saveConversation(User user, String message, String response,
+                                  IntentClassifier.Classification intent,
+                                  Integer promptTokens, Integer completionTokens) {
+        // At the column's precision, so a pending copy matches its written row exactly
+        LocalDateTime createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        // Written behind: the answer is returned without waiting for the insert
+        chatTranscriptLog.record(new ChatTranscriptLog.Transcript(user.getId(), message, response,
+                createdAt, intent.intent().getCode(), intent.confidence(), promptTokens, completionTokens));
+    }
+
+    private String getUserClassContext(User user) {
+        return "USER INFORMATION:\n"
+                + "Role: " + user.getRole() + "\n"
+                + "Department: " + user.getDepartment() + "\n";
+    }
+
+    /**
+     * Personal context from the cached snapshot; no database access unless it was invalidated
+     */
     private String getUserContext(User user) {
+        UserContextCache.Snapshot snapshot = userContextCache.get(user.getId());
         StringBuilder context = new StringBuilder();
 
         context.append("USER INFORMATION:\n");
-        context.append("Name: ").append(user.getFullName()).append("\n");
-        context.append("Email: ").append(user.getEmail()).append("\n");
-        context.append("Role: ").append(user.getRole()).append("\n");
-        context.append("Department: ").append(user.getDepartment()).append("\n\n");
-
-        // Get leave balance
-        List<LeaveRequest> leaves = leaveRequestRepository.findByEmployeeId(user.getId());
-        long pendingLeaves = leaves.stream().filter(l -> l.getStatus().toString().equals("PENDING")).count();
-        long approvedLeaves = leaves.stream().filter(l -> l.getStatus().toString().equals("APPROVED")).count();
+        context.append("Name: ").append(snapshot.fullName()).append("\n");
+        context.append("Email: ").append(snapshot.email()).append("\n");
+        context.append("Role: ").append(snapshot.role()).append("\n");
+        context.append("Department: ").append(snapshot.department()).append("\n\n");
 
         context.append("LEAVE INFORMATION:\n");
-        context.append("Total leave requests: ").append(leaves.size()).append("\n");
-        context.append("Pending requests: ").append(pendingLeaves).append("\n");
-        context.append("Approved leaves: ").append(approvedLeaves).append("\n");
-        context.append("Remaining leave balance: ").append(15 - approvedLeaves).append(" days\n");
+        context.append("Total leave requests: ").append(snapshot.totalLeaves()).append("\n");
+        context.append("Pending requests: ").append(snapshot.pendingLeaves()).append("\n");
+        context.append("Approved leaves: ").append(snapshot.approvedLeaves()).append("\n");
+        context.append("Rejected requests: ").append(snapshot.rejectedLeaves()).append("\n");
+        context.append("Remaining leave balance: ")
+                .append(Math.max(leaveService.getAnnualAllowanceDays() - snapshot.usedLeaveDaysThisYear(), 0))
+                .append(" days\n\n");
+
+        context.append("COMPLAINTS:\n");
+        context.append("Open complaints: ").append(snapshot.openComplaints()).append("\n");
 
         return context.toString();
     }
 
-    public List<ChatMessage> getChatHistory(String username) {
+    /**
+     * One page of the user's history, newest first, using keyset pagination on (createdAt, id)
+     *
+     * @param cursor nextCursor of the previous page, null for the newest page
+     * @param limit  page size, clamped to 1..MAX_HISTORY_PAGE_SIZE
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public ChatHistoryPage getChatHistory(String username, String cursor, int limit) {
         User user = userRepository.findByEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        return chatMessageRepository.findTop10ByUserIdOrderByCreatedAtDesc(user.getId());
+        int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE));
+        // One extra row tells whether an older page exists
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+
+        List<ChatHistoryItem> items;
+        if (cursor == null || cursor.isBlank()) {
+            // Pending first: a batch committing in between then shows up in the query instead of in neither
+            List<ChatTranscriptLog.Transcript> pending = chatTranscriptLog.pending(user.getId());
+            items = withPendingTranscripts(pending, chatMessageRepository.findLatestHistory(user.getId(), page), pageSize);
+        } else {
+            HistoryCursor position = HistoryCursor.decode(cursor);
+            items = chatMessageRepository.findHistoryBefore(user.getId(), position.createdAt(), position.id(), page);
+        }
+
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = items.subList(0, pageSize);
+            ChatHistoryItem last = items.get(pageSize - 1);
+            // A not yet written exchange has no id; everything persisted sorts after it
+            nextCursor = new HistoryCursor(last.createdAt(), last.id() != null ? last.id() : Long.MAX_VALUE).encode();
+        }
+
+        return ChatHistoryPage.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Newest page plus exchanges still waiting in the write-behind buffer (without an id yet)
+     * Pending exchanges the query already returned (committed since pending was read) are dropped.
+     * Keeps one more persisted row than fits, so the caller can still tell whether an older page exists.
+     */
+    private static List<ChatHistoryItem> withPendingTranscripts(List<ChatTranscriptLog.Transcript> transcripts,
+                                                                List<ChatHistoryItem> persisted, int pageSize) {
+        Set<String> written = persisted.stream()
+                .map(item -> item.createdAt() + "|" + item.message())
+                .collect(Collectors.toSet());
+        List<ChatHistoryItem> pending = transcripts.stream()
+                .filter(transcript -> !written.contains(transcript.createdAt() + "|" + transcript.message()))
+                .limit(pageSize)
+                .map(transcript -> new ChatHistoryItem(null, transcript.message(), transcript.response(),
+                        transcript.createdAt(), transcript.intent()))
+                .toList();
+        if (pending.isEmpty()) {
+            return persisted;
+        }
+        List<ChatHistoryItem> merged = new ArrayList<>(pending);
+        merged.addAll(persisted.subList(0, Math.min(persisted.size(), Math.max(pageSize - pending.size(), 0) + 1)));
+        return merged;
+    }
+
+    /**
+     * Position of the last item of a history page, exchanged as an opaque URL-safe string
+     */
+    private record HistoryCursor(LocalDateTime createdAt, Long id) {
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        static HistoryCursor decode(String cursor) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                return new HistoryCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid history cursor");
+            }
+        }
     }
 }
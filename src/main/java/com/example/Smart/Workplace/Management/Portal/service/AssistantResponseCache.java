@@ -0,0 +1,124 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Cache of assistant answers to general (non-personal) questions
+ * Keyed by a normalized question fingerprint plus the asker's role and department, so
+ * "How many sick days do I get?" and "how many sick days do i get" share one answer per
+ * user class. Questions about the user's own data bypass the cache, and cacheable questions
+ * are answered without the personal context in the prompt so the cached text holds nothing personal.
+ */
+@Component
+public class AssistantResponseCache implements MeterBinder {
+
+    private static final Set<String> FILLER_WORDS = Set.of(
+            "hi", "hello", "hey", "please", "pls", "thanks", "thank", "you", "kindly", "could", "can",
+            "would", "tell", "me", "a", "an", "the", "um", "ok", "okay");
+
+    // Questions about the asker's own records, or carrying specifics (dates, ids, emails)
+    private static final Pattern PERSONAL = Pattern.compile(
+            "\\b(my|mine|myself)\\b"
+                    + "|\\b(balance|remaining|left|pending|approved|rejected|status|upcoming|history)\\b"
+                    + "|\\b(i|i've|ive|i'm|im)\\b.{0,40}\\b(have|had|applied|submitted|filed|taken|took|used)\\b"
+                    + "|\\d"
+                    + "|@",
+            Pattern.CASE_INSENSITIVE);
+
+    private final Cache<String, String> cache;
+    private final LongAdder bypassed = new LongAdder();
+
+    public AssistantResponseCache(
+            @Value("${ai.cache.max-size:10000}") long maxSize,
+            @Value("${ai.cache.ttl-minutes:60}") long ttlMinutes) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Cache key for the question, or null when it is personal and must not be cached
+     */
+    public String keyFor(String question, User user) {
+        if (question == null || PERSONAL.matcher(question).find()) {
+            bypassed.increment();
+            return null;
+        }
+        String fingerprint = fingerprint(question);
+        if (fingerprint.isEmpty()) {
+            bypassed.increment();
+            return null;
+        }
+        return user.getRole() + "|" + (user.getDepartment() != null ? user.getDepartment().toLowerCase(Locale.ROOT) : "-")
+                + "|" + fingerprint;
+    }
+
+    public String get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(String key, String answer) {
+        cache.put(key, answer);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Same figures as getStatistics, published to Micrometer under cache=ai.responses
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "ai.responses");
+    }
+
+    public Map<String, Object> getStatistics() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRatio", Math.round(stats.hitRate() * 1000) / 1000.0);
+        result.put("evictions", stats.evictionCount());
+        result.put("bypassedPersonal", bypassed.sum());
+        return result;
+    }
+
+    /**
+     * Lower-case, accent- and punctuation-free words with greetings and filler removed, in order
+     */
+    static String fingerprint(String question) {
+        String normalized = Normalizer.normalize(question, Normalizer.Form.NFKD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .replace("'", "");
+        StringJoiner words = new StringJoiner(" ");
+        for (String word : normalized.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty() && !FILLER_WORDS.contains(word)) {
+                words.add(word);
+            }
+        }
+        return words.toString();
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Content-addressed file store for complaint attachments
+ * Blobs live at {root}/ab/cd/{sha256}. Uploads are streamed through a fixed 64 KB buffer into a
+ * temp file while hashing, then atomically moved into place, so identical files are stored once
+ * and a half-written upload is never visible. Downloads go through the kernel (sendfile / transferTo)
+ * instead of being copied through the heap.
+ */
+@Component
+@Slf4j
+public class AttachmentStorage {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Tomcat sendfile contract: set these and leave the body empty, the connector streams the file
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final Path root;
+    private final Path tempDir;
+    private final long maxSizeBytes;
+
+    /**
+     * A stored upload; created is false when identical content was already in the store
+     */
+    public record StoredBlob(String sha256, long sizeBytes, boolean created) {
+    }
+
+    public AttachmentStorage(
+            @Value("${attachments.storage-dir:data/attachments}") String storageDir,
+            @Value("${attachments.max-size-bytes:26214400}") long maxSizeBytes) {
+        this.root = Path.of(storageDir).toAbsolutePath().normalize();
+        this.tempDir = root.resolve("tmp");
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(tempDir);
+        log.info("Attachment store at {} (max {} bytes per file)", root, maxSizeBytes);
+    }
+
+    public long getMaxSizeBytes() {
+        return maxSizeBytes;
+    }
+
+    /**
+     * Stream an upload into the store, hashing as it goes; heap use is one buffer regardless of file size
+     */
+    public StoredBlob store(InputStream in) throws IOException {
+        MessageDigest digest = sha256();
+        Path temp = Files.createTempFile(tempDir, "upload-", ".part");
+        try {
+            long size = 0;
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxSizeBytes) {
+                        throw new IllegalArgumentException("Attachment exceeds the maximum size of " + maxSizeBytes + " bytes");
+                    }
+                    digest.update(buffer, 0, read);
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                    while (chunk.hasRemaining()) {
+                        out.write(chunk);
+                    }
+                }
+                out.force(false);
+            }
+            if (size == 0) {
+                throw new IllegalArgumentException("Attachment is empty");
+            }
+
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(sha256);
+            boolean created = false;
+            if (Files.exists(target)) {
+                log.debug("Attachment blob {} already stored, deduplicated", sha256);
+            } else {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                    created = true;
+                } catch (FileAlreadyExistsException e) {
+                    // Same content uploaded concurrently, either copy is fine
+                }
+            }
+            return new StoredBlob(sha256, size, created);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Location of a blob; existence is not checked
+     */
+    public Path resolve(String sha256) {
+        if (sha256 == null || !sha256.matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("Invalid attachment hash");
+        }
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    /**
+     * Remove a blob, e.g. one whose metadata row could not be written
+     */
+    public void delete(String sha256) throws IOException {
+        Files.deleteIfExists(resolve(sha256));
+    }
+
+    /**
+     * Write bytes [start, end] (inclusive) of a blob as the response body
+     * Headers must already be set. Uses Tomcat sendfile when the connector offers it,
+     * otherwise FileChannel.transferTo into the response channel.
+     */
+    public void transfer(Path blob, long start, long end, HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, blob.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel in = FileChannel.open(blob, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = end - start + 1;
+            while (remaining > 0) {
+                long sent = in.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
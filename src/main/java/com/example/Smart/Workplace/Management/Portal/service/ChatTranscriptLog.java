@@ -0,0 +1,135 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.ChatMessage;
+import com.example.Smart.Workplace.Management.Portal.repository.ChatMessageRepository;
+import com.example.Smart.Workplace.Management.Portal.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Write-behind persistence of assistant transcripts
+ * The chat path only enqueues; a background writer inserts them in JDBC batches (pooled
+ * sequence ids, hibernate.jdbc.batch_size), spilling to a file while the database is unavailable.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChatTranscriptLog {
+
+    /**
+     * One exchange waiting to be written; plain values so it can be spilled as JSON
+     * Token counts are null for answers that did not come from the model.
+     */
+    public record Transcript(Long userId, String message, String response, LocalDateTime createdAt,
+                             String intent, Double confidence, Integer promptTokens, Integer completionTokens) {
+    }
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${ai.transcripts.buffer-capacity:8192}")
+    private int bufferCapacity;
+
+    @Value("${ai.transcripts.batch-size:100}")
+    private int batchSize;
+
+    @Value("${ai.transcripts.flush-interval-ms:200}")
+    private long flushIntervalMillis;
+
+    @Value("${ai.transcripts.spill-file:data/chat-transcripts.spill}")
+    private String spillFile;
+
+    private WriteBehindBuffer<Transcript> buffer;
+
+    /**
+     * Move the pooled sequence past ids assigned while chat_messages used an identity column before
+     * the writer can insert anything
+     */
+    @PostConstruct
+    void start() {
+        try {
+            jdbcTemplate.queryForObject("SELECT setval('chat_messages_seq', GREATEST(" +
+                    "(SELECT COALESCE(MAX(id), 0) FROM chat_messages) + 50, " +
+                    "(SELECT last_value FROM chat_messages_seq)))", Long.class);
+        } catch (DataAccessException e) {
+            log.warn("Could not align chat_messages_seq with existing rows: {}", e.getMessage());
+        }
+        buffer = new WriteBehindBuffer<>("chat-transcripts", bufferCapacity, batchSize, flushIntervalMillis,
+                this::insertBatch, Path.of(spillFile), objectMapper, Transcript.class);
+        buffer.start();
+    }
+
+    /**
+     * Write back anything spilled by the previous run
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        buffer.replaySpill();
+    }
+
+    @PreDestroy
+    void stop() {
+        buffer.close();
+        log.info("Chat transcript log stopped: {} written in {} batches, {} spilled",
+                buffer.getWrittenCount(), buffer.getBatchCount(), buffer.getSpilledCount());
+    }
+
+    /**
+     * Enqueue without waiting for the insert
+     */
+    public void record(Transcript transcript) {
+        buffer.offer(transcript);
+    }
+
+    /**
+     * A user's transcripts accepted but not yet written, newest first
+     * A batch stays here until its transaction has committed, so for a moment a transcript can be
+     * both pending and in the table; read this before the table and drop what the table returned.
+     */
+    public List<Transcript> pending(Long userId) {
+        return buffer.pending().stream()
+                .filter(transcript -> userId.equals(transcript.userId()))
+                .sorted(Comparator.comparing(Transcript::createdAt).reversed())
+                .toList();
+    }
+
+    public int getQueueDepth() {
+        return buffer.getQueueDepth();
+    }
+
+    /**
+     * One transaction; Hibernate groups the inserts into JDBC batches
+     */
+    private void insertBatch(List<Transcript> batch) {
+        transactionTemplate.executeWithoutResult(status -> chatMessageRepository.saveAll(batch.stream()
+                .map(transcript -> ChatMessage.builder()
+                        .user(userRepository.getReferenceById(transcript.userId()))
+                        .message(transcript.message())
+                        .response(transcript.response())
+                        .createdAt(transcript.createdAt())
+                        .intent(transcript.intent())
+                        .confidence(transcript.confidence())
+                        .promptTokens(transcript.promptTokens())
+                        .completionTokens(transcript.completionTokens())
+                        .build())
+                .toList()));
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker
+ * CLOSED while the failure rate over the last window-size calls stays below the threshold;
+ * OPEN rejects every call for open-millis; HALF_OPEN lets a single trial call through and
+ * closes on its success or re-opens on its failure. Independently, pauseFor() rejects calls
+ * until a deadline, used to honour an upstream Retry-After.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMillis;
+    private final LongSupplier clock;
+
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long openUntil;
+    private long pausedUntil;
+    private boolean trialInFlight;
+
+    private long rejectedCalls;
+    private long timesOpened;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          long openMillis, LongSupplier clock) {
+        this.name = name;
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+        this.clock = clock;
+        this.window = new boolean[windowSize];
+    }
+
+    /**
+     * Whether a call may go out now; a granted HALF_OPEN trial must be followed by exactly one outcome
+     */
+    public synchronized boolean tryAcquirePermission() {
+        long now = clock.getAsLong();
+        if (state == State.OPEN) {
+            if (now < openUntil) {
+                rejectedCalls++;
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                rejectedCalls++;
+                return false;
+            }
+            trialInFlight = true;
+            return true;
+        }
+        if (now < pausedUntil) {
+            rejectedCalls++;
+            return false;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+            trialInFlight = false;
+            resetWindow();
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && windowCount >= minimumCalls
+                && (double) windowFailures / windowCount >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * Give back a permission whose call ended without a verdict (cancelled by the caller)
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    /**
+     * Reject calls until now + millis (e.g. a 429 Retry-After) without counting it as an outage
+     */
+    public synchronized void pauseFor(long millis) {
+        pausedUntil = Math.max(pausedUntil, clock.getAsLong() + millis);
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && clock.getAsLong() >= openUntil) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("name", name);
+        stats.put("state", getState());
+        stats.put("failureRate", windowCount == 0 ? 0.0 : Math.round(1000.0 * windowFailures / windowCount) / 1000.0);
+        stats.put("windowCalls", windowCount);
+        stats.put("timesOpened", timesOpened);
+        stats.put("rejectedCalls", rejectedCalls);
+        stats.put("pausedForMs", Math.max(0, pausedUntil - clock.getAsLong()));
+        return stats;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = clock.getAsLong() + openMillis;
+        trialInFlight = false;
+        timesOpened++;
+        resetWindow();
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == windowSize) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % windowSize;
+    }
+
+    private void resetWindow() {
+        windowIndex = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+}
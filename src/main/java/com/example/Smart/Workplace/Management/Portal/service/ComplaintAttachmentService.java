@@ -0,0 +1,216 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.dto.ComplaintAttachmentDto;
+import com.example.Smart.Workplace.Management.Portal.model.Complaint;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintAttachment;
+import com.example.Smart.Workplace.Management.Portal.model.User;
+import com.example.Smart.Workplace.Management.Portal.repository.ComplaintAttachmentRepository;
+import com.example.Smart.Workplace.Management.Portal.repository.ComplaintRepository;
+import com.example.Smart.Workplace.Management.Portal.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Attachments on complaints, visible to whoever can view the complaint
+ * Deliberately not transactional at class level: the upload is streamed to disk before
+ * the metadata row is written, so no transaction is held open while bytes arrive.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ComplaintAttachmentService {
+
+    private static final int MAX_FILE_NAME_LENGTH = 255;
+
+    private final ComplaintAttachmentRepository attachmentRepository;
+    private final ComplaintRepository complaintRepository;
+    private final UserRepository userRepository;
+    private final ComplaintService complaintService;
+    private final AttachmentStorage attachmentStorage;
+
+    /**
+     * Blob location and metadata for a download
+     */
+    public record AttachmentDownload(ComplaintAttachmentDto attachment, Path blob) {
+    }
+
+    /**
+     * Stream a raw request body into the store and attach it to the complaint
+     */
+    public ComplaintAttachmentDto upload(Long complaintId, String fileName, String contentType,
+                                         long contentLength, InputStream body, String username) throws IOException {
+        log.info("Uploading attachment '{}' to complaint {} by user: {}", fileName, complaintId, username);
+
+        if (contentType != null && contentType.toLowerCase().startsWith("multipart/")) {
+            throw new IllegalArgumentException("Send the file as the raw request body, not as multipart form data");
+        }
+        if (contentLength > attachmentStorage.getMaxSizeBytes()) {
+            throw new IllegalArgumentException("Attachment exceeds the maximum size of "
+                    + attachmentStorage.getMaxSizeBytes() + " bytes");
+        }
+
+        User user = findUser(username);
+        Complaint complaint = findViewableComplaint(complaintId, user);
+
+        AttachmentStorage.StoredBlob blob = attachmentStorage.store(body);
+
+        ComplaintAttachment attachment = ComplaintAttachment.builder()
+                .complaint(complaint)
+                .fileName(sanitizeFileName(fileName))
+                .contentType(normalizeContentType(contentType))
+                .sizeBytes(blob.sizeBytes())
+                .sha256(blob.sha256())
+                .uploadedBy(user)
+                .build();
+
+        ComplaintAttachment saved;
+        try {
+            saved = attachmentRepository.save(attachment);
+        } catch (RuntimeException e) {
+            discardUnreferenced(blob);
+            throw e;
+        }
+        log.info("Attachment {} stored for complaint {} ({} bytes, sha256 {})",
+                saved.getId(), complaintId, blob.sizeBytes(), blob.sha256());
+        return mapToDto(saved, user);
+    }
+
+    /**
+     * List attachments of a complaint
+     */
+    public List<ComplaintAttachmentDto> getAttachments(Long complaintId, String username) {
+        User user = findUser(username);
+        findViewableComplaint(complaintId, user);
+
+        List<ComplaintAttachment> attachments = attachmentRepository.findWithUploaderByComplaintId(complaintId);
+        return attachments.stream()
+                .map(attachment -> mapToDto(attachment, attachment.getUploadedBy()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Resolve an attachment for download after checking access
+     */
+    public AttachmentDownload getDownload(Long complaintId, Long attachmentId, String username) {
+        User user = findUser(username);
+        findViewableComplaint(complaintId, user);
+
+        ComplaintAttachment attachment = attachmentRepository.findWithUploaderByIdAndComplaintId(attachmentId, complaintId)
+                .orElseThrow(() -> new IllegalArgumentException("Attachment not found"));
+
+        Path blob = attachmentStorage.resolve(attachment.getSha256());
+        if (!Files.isReadable(blob)) {
+            log.error("Attachment {} is missing its blob {}", attachmentId, blob);
+            throw new IllegalStateException("Attachment content is missing");
+        }
+        return new AttachmentDownload(mapToDto(attachment, attachment.getUploadedBy()), blob);
+    }
+
+    /**
+     * Delete a blob this upload created if no attachment row refers to it
+     * A blob that was already stored belongs to earlier uploads and is always kept.
+     */
+    private void discardUnreferenced(AttachmentStorage.StoredBlob blob) {
+        if (blob.created()) {
+            deleteIfUnreferenced(blob.sha256());
+        }
+    }
+
+    private void deleteIfUnreferenced(String sha256) {
+        try {
+            if (!attachmentRepository.existsBySha256(sha256)) {
+                attachmentStorage.delete(sha256);
+                log.info("Removed unreferenced attachment blob {}", sha256);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not remove unreferenced attachment blob {}", sha256, e);
+        }
+    }
+
+    /**
+     * Delete a complaint's attachment rows in the caller's transaction
+     * Blobs no other attachment refers to are removed once it commits, so a rollback keeps them.
+     */
+    public void deleteForComplaint(Long complaintId) {
+        List<String> blobs = attachmentRepository.findBlobsByComplaintId(complaintId);
+        if (blobs.isEmpty()) {
+            return;
+        }
+        int deleted = attachmentRepository.deleteByComplaintId(complaintId);
+        log.info("Deleted {} attachment(s) of complaint {}", deleted, complaintId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    blobs.forEach(ComplaintAttachmentService.this::deleteIfUnreferenced);
+                }
+            });
+        } else {
+            blobs.forEach(this::deleteIfUnreferenced);
+        }
+    }
+
+    private User findUser(String username) {
+        return userRepository.findByEmail(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    }
+
+    private Complaint findViewableComplaint(Long complaintId, User user) {
+        Complaint complaint = complaintRepository.findById(complaintId)
+                .orElseThrow(() -> new IllegalArgumentException("Complaint not found"));
+        complaintService.checkCanView(complaint, user);
+        return complaint;
+    }
+
+    /**
+     * Keep only the last path segment and drop control characters
+     */
+    private static String sanitizeFileName(String fileName) {
+        String name = fileName == null ? "" : fileName;
+        name = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1);
+        name = name.replaceAll("\\p{Cntrl}", "").trim();
+        if (name.isEmpty() || name.equals(".") || name.equals("..")) {
+            return "attachment";
+        }
+        return name.length() > MAX_FILE_NAME_LENGTH ? name.substring(0, MAX_FILE_NAME_LENGTH) : name;
+    }
+
+    private static String normalizeContentType(String contentType) {
+        if (contentType == null || contentType.isBlank()) {
+            return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return mediaType.getType() + "/" + mediaType.getSubtype();
+        } catch (IllegalArgumentException e) {
+            return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        }
+    }
+
+    private ComplaintAttachmentDto mapToDto(ComplaintAttachment attachment, User uploadedBy) {
+        return ComplaintAttachmentDto.builder()
+                .id(attachment.getId())
+                .complaintId(attachment.getComplaint().getId())
+                .fileName(attachment.getFileName())
+                .contentType(attachment.getContentType())
+                .sizeBytes(attachment.getSizeBytes())
+                .sha256(attachment.getSha256())
+                .uploadedById(uploadedBy.getId())
+                .uploadedByName(uploadedBy.getFullName())
+                .uploadedAt(attachment.getUploadedAt())
+                .build();
+    }
+}
@@ -0,0 +1,411 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.exception.ServiceOverloadedException;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintDigest;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintDigestChunk;
+import com.example.Smart.Workplace.Management.Portal.repository.ComplaintDigestChunkRepository;
+import com.example.Smart.Workplace.Management.Portal.repository.ComplaintDigestRepository;
+import com.example.Smart.Workplace.Management.Portal.repository.ComplaintRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Weekly "what are people complaining about" digest, written by the LLM in batches
+ * Each category's complaints for the week are read page by page and packed into prompts of at
+ * most ai.digest.chunk-tokens. Every batch summary is saved as a checkpoint, so a rerun after a
+ * failure only sends the batches that are missing. Batch summaries are then merged per category
+ * and topped with a short overview.
+ * Calls go through the LLM scheduler in the shared system lane, which has the lowest weight and
+ * its own tokens-per-minute budget, so the job stays within the rate limit and interactive users
+ * are served first. On top of that, at most ai.digest.parallelism batches are in flight and no new
+ * batch starts while assistant requests are queued.
+ */
+@Service
+@Slf4j
+public class ComplaintDigestJob {
+
+    private static final String UNCATEGORISED = "Uncategorised";
+
+    private static final String BATCH_PROMPT = """
+            You summarise workplace complaints for HR administrators.
+            Given complaints of one category from the past week, list the recurring themes, most
+            frequent first, each with a rough count and one short example. Put anything urgent or
+            safety-related at the top. Never name or identify the people involved.
+            Answer with concise bullet points only.
+            """;
+
+    private static final String MERGE_PROMPT = """
+            You combine partial summaries of one category's workplace complaints into one summary.
+            Merge overlapping themes and add up their counts, most frequent first, with anything
+            urgent or safety-related at the top. Answer with concise bullet points only.
+            """;
+
+    private static final String OVERVIEW_PROMPT = """
+            You write the opening of a weekly complaints digest for HR administrators.
+            Given the per-category summaries, say in three to five bullet points what people
+            complained about most this week and what needs attention first.
+            """;
+
+    /**
+     * Complaints packed into one prompt, in id order
+     */
+    private static final class Batch {
+        private final StringBuilder text = new StringBuilder();
+        private long firstId;
+        private long lastId;
+        private int count;
+        private int tokens;
+
+        void add(long id, String line, int lineTokens) {
+            if (count == 0) {
+                firstId = id;
+            }
+            lastId = id;
+            count++;
+            tokens += lineTokens;
+            text.append(line).append('\n');
+        }
+    }
+
+    private final ComplaintRepository complaintRepository;
+    private final ComplaintDigestRepository digestRepository;
+    private final ComplaintDigestChunkRepository chunkRepository;
+    private final LlmService llmService;
+    private final TokenEstimator tokenEstimator;
+
+    private final int chunkTokens;
+    private final int complaintTokens;
+    private final int summaryTokens;
+    private final int parallelism;
+    private final int pageSize;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final int busyActiveCalls;
+    private final long yieldPollMillis;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("complaint-digest-"));
+    private final AtomicReference<LocalDate> runningWeek = new AtomicReference<>();
+
+    public ComplaintDigestJob(
+            ComplaintRepository complaintRepository,
+            ComplaintDigestRepository digestRepository,
+            ComplaintDigestChunkRepository chunkRepository,
+            LlmService llmService,
+            TokenEstimator tokenEstimator,
+            @Value("${ai.digest.chunk-tokens:3000}") int chunkTokens,
+            @Value("${ai.digest.complaint-tokens:300}") int complaintTokens,
+            @Value("${ai.digest.summary-tokens:400}") int summaryTokens,
+            @Value("${ai.digest.parallelism:2}") int parallelism,
+            @Value("${ai.digest.page-size:200}") int pageSize,
+            @Value("${ai.digest.max-attempts:4}") int maxAttempts,
+            @Value("${ai.digest.retry-backoff-ms:5000}") long retryBackoffMillis,
+            @Value("${ai.digest.busy-active-calls:8}") int busyActiveCalls,
+            @Value("${ai.digest.yield-poll-ms:1000}") long yieldPollMillis) {
+        this.complaintRepository = complaintRepository;
+        this.digestRepository = digestRepository;
+        this.chunkRepository = chunkRepository;
+        this.llmService = llmService;
+        this.tokenEstimator = tokenEstimator;
+        this.chunkTokens = chunkTokens;
+        this.complaintTokens = complaintTokens;
+        this.summaryTokens = summaryTokens;
+        this.parallelism = Math.max(1, parallelism);
+        this.pageSize = pageSize;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.busyActiveCalls = busyActiveCalls;
+        this.yieldPollMillis = yieldPollMillis;
+    }
+
+    /**
+     * Daily, so a week whose digest failed part-way is finished the next morning; completed weeks are skipped
+     */
+    @Scheduled(cron = "${ai.digest.cron:0 30 5 * * *}")
+    public void scheduledRun() {
+        start(LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).minusWeeks(1));
+    }
+
+    /**
+     * Build the digest of the week containing the given day in the background
+     *
+     * @return false when a digest job is already running
+     */
+    public boolean start(LocalDate day) {
+        LocalDate weekStart = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        if (weekStart.plusWeeks(1).isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("The week starting " + weekStart + " has not ended yet");
+        }
+        if (!runningWeek.compareAndSet(null, weekStart)) {
+            return false;
+        }
+        runner.execute(() -> {
+            try {
+                run(weekStart);
+            } catch (RuntimeException e) {
+                log.error("Complaint digest for week {} failed", weekStart, e);
+            } finally {
+                runningWeek.set(null);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * The digest of the week containing the given day, or the latest completed one when no day is given
+     */
+    public Map<String, Object> getDigest(LocalDate day) {
+        ComplaintDigest digest = (day == null
+                ? digestRepository.findFirstByCompletedAtIsNotNullOrderByWeekStartDesc()
+                : digestRepository.findByWeekStart(day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))))
+                .orElseThrow(() -> new IllegalArgumentException("No complaint digest found"));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("weekStart", digest.getWeekStart());
+        result.put("complaintCount", digest.getComplaintCount());
+        result.put("chunkCount", digest.getChunkCount());
+        result.put("summary", digest.getSummary());
+        result.put("startedAt", digest.getStartedAt());
+        result.put("completedAt", digest.getCompletedAt());
+        result.put("running", digest.getWeekStart().equals(runningWeek.get()));
+        return result;
+    }
+
+    @PreDestroy
+    void stop() {
+        runner.shutdownNow();
+    }
+
+    /**
+     * One pass over the week; leaves the digest incomplete if any batch still fails after its retries
+     */
+    void run(LocalDate weekStart) {
+        ComplaintDigest digest = digestRepository.findByWeekStart(weekStart)
+                .orElseGet(() -> ComplaintDigest.builder().weekStart(weekStart).build());
+        if (digest.getCompletedAt() != null) {
+            log.debug("Complaint digest for week {} already complete", weekStart);
+            return;
+        }
+        digest.setStartedAt(LocalDateTime.now());
+        digest = digestRepository.save(digest);
+
+        LocalDateTime from = weekStart.atStartOfDay();
+        LocalDateTime to = from.plusWeeks(1);
+        List<String> categories = complaintRepository.findCategoriesSubmittedBetween(from, to).stream().sorted().toList();
+
+        Semaphore slots = new Semaphore(parallelism);
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        // [complaints, batches] per category
+        Map<String, int[]> countsByCategory = new LinkedHashMap<>();
+        for (String category : categories) {
+            countsByCategory.put(category, packCategory(weekStart, category, from, to, slots, batches));
+        }
+
+        try {
+            CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            long failed = batches.stream().filter(CompletableFuture::isCompletedExceptionally).count();
+            log.warn("Complaint digest for week {} incomplete: {} of {} batches failed, a rerun resumes ({})",
+                    weekStart, failed, batches.size(), e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            return;
+        }
+
+        StringBuilder sections = new StringBuilder();
+        int complaints = 0;
+        for (Map.Entry<String, int[]> entry : countsByCategory.entrySet()) {
+            int count = entry.getValue()[0];
+            // Checkpoints past the last batch are left over from a run that saw more complaints
+            List<String> parts = chunkRepository.findByWeekStartAndCategoryOrderByChunkIndex(weekStart, entry.getKey())
+                    .stream()
+                    .filter(chunk -> chunk.getChunkIndex() < entry.getValue()[1])
+                    .map(ComplaintDigestChunk::getSummary)
+                    .toList();
+            sections.append("## ").append(entry.getKey().isEmpty() ? UNCATEGORISED : entry.getKey())
+                    .append(" (").append(count).append(count == 1 ? " complaint" : " complaints")
+                    .append(")\n").append(reduce(MERGE_PROMPT, parts).trim()).append("\n\n");
+            complaints += count;
+        }
+        String overview = categories.isEmpty()
+                ? "No complaints were submitted this week."
+                : reduce(OVERVIEW_PROMPT, List.of(sections.toString()));
+
+        digest.setSummary(("## Overview\n" + overview.trim() + "\n\n" + sections).trim());
+        digest.setComplaintCount(complaints);
+        digest.setChunkCount(batches.size());
+        digest.setCompletedAt(LocalDateTime.now());
+        digestRepository.save(digest);
+        log.info("Complaint digest for week {} complete: {} complaints in {} categories, {} batches",
+                weekStart, digest.getComplaintCount(), categories.size(), batches.size());
+    }
+
+    /**
+     * Read one category page by page and send each full batch off as soon as it is packed
+     *
+     * @return the number of complaints and of batches in the category
+     */
+    private int[] packCategory(LocalDate weekStart, String category, LocalDateTime from, LocalDateTime to,
+                               Semaphore slots, List<CompletableFuture<Void>> batches) {
+        int complaints = 0;
+        int index = 0;
+        long afterId = 0;
+        Batch batch = new Batch();
+        List<Object[]> page;
+        do {
+            page = complaintRepository.findForDigest(from, to, category, afterId, PageRequest.of(0, pageSize));
+            for (Object[] row : page) {
+                long id = (Long) row[0];
+                String line = "#" + id + " [" + row[1] + ", " + row[2] + "] " + row[3] + ": " + abbreviate((String) row[4]);
+                int lineTokens = tokenEstimator.estimate(line);
+                if (batch.count > 0 && batch.tokens + lineTokens > chunkTokens) {
+                    batches.add(summarise(weekStart, category, index++, batch, slots));
+                    batch = new Batch();
+                }
+                batch.add(id, line, lineTokens);
+                complaints++;
+                afterId = id;
+            }
+        } while (page.size() == pageSize);
+        if (batch.count > 0) {
+            batches.add(summarise(weekStart, category, index++, batch, slots));
+        }
+        return new int[]{complaints, index};
+    }
+
+    /**
+     * Summarise one batch unless its checkpoint already covers the same complaints
+     */
+    private CompletableFuture<Void> summarise(LocalDate weekStart, String category, int index, Batch batch,
+                                              Semaphore slots) {
+        ComplaintDigestChunk chunk = chunkRepository.findByWeekStartAndCategoryAndChunkIndex(weekStart, category, index)
+                .orElseGet(() -> ComplaintDigestChunk.builder().weekStart(weekStart).category(category).chunkIndex(index).build());
+        if (chunk.getId() != null && chunk.getFirstComplaintId() == batch.firstId && chunk.getLastComplaintId() == batch.lastId) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        awaitQuietAndAcquire(slots);
+        String prompt = "Category: " + (category.isEmpty() ? UNCATEGORISED : category) + "\nComplaints:\n" + batch.text;
+        return complete(BATCH_PROMPT, prompt, 1)
+                .thenAccept(summary -> {
+                    chunk.setFirstComplaintId(batch.firstId);
+                    chunk.setLastComplaintId(batch.lastId);
+                    chunk.setComplaintCount(batch.count);
+                    chunk.setSummary(summary);
+                    chunkRepository.save(chunk);
+                })
+                .whenComplete((ignored, error) -> slots.release());
+    }
+
+    /**
+     * Fold summaries into one, in groups that fit a prompt; a single part that fits is returned as is
+     */
+    private String reduce(String systemPrompt, List<String> parts) {
+        if (parts.size() == 1 && systemPrompt.equals(MERGE_PROMPT)) {
+            return parts.get(0);
+        }
+        List<String> groups = new ArrayList<>();
+        StringBuilder group = new StringBuilder();
+        int groupTokens = 0;
+        for (String part : parts) {
+            int partTokens = tokenEstimator.estimate(part);
+            if (group.length() > 0 && groupTokens + partTokens > chunkTokens) {
+                groups.add(group.toString());
+                group.setLength(0);
+                groupTokens = 0;
+            }
+            group.append(part).append("\n\n");
+            groupTokens += partTokens;
+        }
+        groups.add(group.toString());
+
+        List<String> reduced = new ArrayList<>();
+        for (String text : groups) {
+            awaitQuiet();
+            reduced.add(complete(systemPrompt, text, 1).join());
+        }
+        return reduced.size() == 1 ? reduced.get(0) : reduce(systemPrompt, reduced);
+    }
+
+    /**
+     * One completion in the system lane, retried after a pause while the assistant is overloaded or failing
+     */
+    private CompletableFuture<String> complete(String systemPrompt, String userMessage, int attempt) {
+        LlmRequest request = LlmRequest.builder()
+                .systemPrompt(systemPrompt)
+                .userMessage(userMessage)
+                .temperature(0.2)
+                .maxTokens(summaryTokens)
+                .build();
+        CompletableFuture<String> call;
+        try {
+            call = llmService.getChatCompletionAsync(request);
+        } catch (ServiceOverloadedException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        return call.handle((summary, error) -> {
+            if (error == null) {
+                return CompletableFuture.completedFuture(summary);
+            }
+            if (attempt >= maxAttempts) {
+                return CompletableFuture.<String>failedFuture(error);
+            }
+            log.debug("Complaint digest call failed (attempt {}), retrying: {}", attempt, error.getMessage());
+            return CompletableFuture.runAsync(() -> {
+                    }, CompletableFuture.delayedExecutor(retryBackoffMillis * attempt, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> complete(systemPrompt, userMessage, attempt + 1));
+        }).thenCompose(Function.identity());
+    }
+
+    private void awaitQuietAndAcquire(Semaphore slots) {
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Complaint digest interrupted", e);
+        }
+        awaitQuiet();
+    }
+
+    /**
+     * Hold back while assistant requests are waiting or the provider is busy with interactive traffic
+     */
+    private void awaitQuiet() {
+        while (llmService.getQueuedCalls() > 0 || llmService.getActiveCalls() >= busyActiveCalls) {
+            try {
+                Thread.sleep(yieldPollMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Complaint digest interrupted", e);
+            }
+        }
+    }
+
+    private String abbreviate(String text) {
+        int maxChars = complaintTokens * 4;
+        if (text == null) {
+            return "";
+        }
+        String flat = text.replaceAll("\\s+", " ").trim();
+        return flat.length() <= maxChars ? flat : flat.substring(0, maxChars) + "...";
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintEvent;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintEventType;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintStatus;
+import com.example.Smart.Workplace.Management.Portal.repository.ComplaintEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Append-only complaint event log
+ * Events are handed to a write-behind ring buffer after the business transaction commits
+ * and flushed in JDBC batches by a background thread, so the update path never waits on the insert.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ComplaintEventLog {
+
+    private static final String INSERT_SQL = "INSERT INTO complaint_events " +
+            "(complaint_id, event_type, from_status, to_status, actor_id, assigned_to_id, note, occurred_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ComplaintEventRepository complaintEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${complaint.events.buffer-capacity:8192}")
+    private int bufferCapacity;
+
+    @Value("${complaint.events.batch-size:200}")
+    private int batchSize;
+
+    @Value("${complaint.events.flush-interval-ms:200}")
+    private long flushIntervalMillis;
+
+    @Value("${complaint.events.spill-file:data/complaint-events.spill}")
+    private String spillFile;
+
+    private WriteBehindBuffer<ComplaintEvent> buffer;
+
+    @PostConstruct
+    void start() {
+        buffer = new WriteBehindBuffer<>("complaint-events", bufferCapacity, batchSize, flushIntervalMillis,
+                this::insertBatch, Path.of(spillFile), objectMapper, ComplaintEvent.class);
+        buffer.start();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void replaySpilledEvents() {
+        buffer.replaySpill();
+    }
+
+    @PreDestroy
+    void stop() {
+        buffer.close();
+        log.info("Complaint event log stopped: {} written in {} batches, {} spilled",
+                buffer.getWrittenCount(), buffer.getBatchCount(), buffer.getSpilledCount());
+    }
+
+    /**
+     * Record a transition; enqueued only once the surrounding transaction commits
+     */
+    public void record(Long complaintId, ComplaintEventType type, ComplaintStatus fromStatus,
+                       ComplaintStatus toStatus, Long actorId, Long assignedToId, String note) {
+        ComplaintEvent event = ComplaintEvent.builder()
+                .complaintId(complaintId)
+                .eventType(type)
+                .fromStatus(fromStatus)
+                .toStatus(toStatus)
+                .actorId(actorId)
+                .assignedToId(assignedToId)
+                .note(note)
+                .occurredAt(LocalDateTime.now())
+                .build();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    buffer.offer(event);
+                }
+            });
+        } else {
+            buffer.offer(event);
+        }
+    }
+
+    /**
+     * Timeline for one complaint: persisted events plus any still waiting in the buffer
+     */
+    public List<ComplaintEvent> getTimeline(Long complaintId) {
+        List<ComplaintEvent> timeline = new ArrayList<>(
+                complaintEventRepository.findByComplaintIdOrderByOccurredAtAscIdAsc(complaintId));
+        buffer.pending().stream()
+                .filter(event -> complaintId.equals(event.getComplaintId()))
+                .forEach(timeline::add);
+        timeline.sort(Comparator.comparing(ComplaintEvent::getOccurredAt));
+        return timeline;
+    }
+
+    /**
+     * One JDBC batch, one commit
+     */
+    private void insertBatch(List<ComplaintEvent> batch) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, event) -> {
+                    ps.setLong(1, event.getComplaintId());
+                    ps.setString(2, event.getEventType().name());
+                    ps.setString(3, event.getFromStatus() != null ? event.getFromStatus().name() : null);
+                    ps.setString(4, event.getToStatus() != null ? event.getToStatus().name() : null);
+                    ps.setObject(5, event.getActorId(), Types.BIGINT);
+                    ps.setObject(6, event.getAssignedToId(), Types.BIGINT);
+                    ps.setString(7, event.getNote());
+                    ps.setTimestamp(8, Timestamp.valueOf(event.getOccurredAt()));
+                }));
+    }
+}
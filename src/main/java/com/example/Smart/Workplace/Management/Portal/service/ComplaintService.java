@@ -1,7 +1,11 @@
 package com.example.Smart.Workplace.Management.Portal.service;
 
 import com.example.Smart.Workplace.Management.Portal.dto.ComplaintDto;
+import com.example.Smart.Workplace.Management.Portal.dto.ComplaintEventDto;
+import com.example.Smart.Workplace.Management.Portal.dto.ComplaintTimelineDto;
 import com.example.Smart.Workplace.Management.Portal.model.Complaint;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintEvent;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintEventType;
 import com.example.Smart.Workplace.Management.Portal.model.ComplaintStatus;
 import com.example.Smart.Workplace.Management.Portal.model.Role;
 import com.example.Smart.Workplace.Management.Portal.model.User;
@@ -9,12 +13,18 @@ import com.example.Smart.Workplace.Management.Portal.repository.ComplaintReposit
 import com.example.Smart.Workplace.Management.Portal.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,6 +35,13 @@ public class ComplaintService {
 
     private final ComplaintRepository complaintRepository;
     private final UserRepository userRepository;
+    private final SlaMonitorService slaMonitorService;
+    private final ComplaintEventLog complaintEventLog;
+    private final ComplaintSimilarityIndex complaintSimilarityIndex;
+    private final ResolutionTimeAnalytics resolutionTimeAnalytics;
+    private final UserContextCache userContextCache;
+    // Looked up lazily: the attachment service depends on this one for access checks
+    private final ObjectProvider<ComplaintAttachmentService> complaintAttachmentService;
 
     /**
      * Submit a new complaint
@@ -44,10 +61,26 @@ public class ComplaintService {
                 .priority(dto.getPriority() != null ? dto.getPriority() : null)
                 .build();
 
+        // Look for near-duplicates among open complaints before indexing this one
+        int[] signature = complaintSimilarityIndex.signature(complaint.getTitle(), complaint.getDescription());
+        List<Long> possibleDuplicates = complaintSimilarityIndex.findCandidates(signature, null);
+
         Complaint saved = complaintRepository.save(complaint);
         log.info("Complaint created with ID: {}", saved.getId());
 
-        return mapToDto(saved);
+        complaintSimilarityIndex.addAfterCommit(saved.getId(), signature);
+        if (!possibleDuplicates.isEmpty()) {
+            log.info("Complaint {} has possible duplicates: {}", saved.getId(), possibleDuplicates);
+        }
+
+        slaMonitorService.track(saved);
+        userContextCache.invalidateAfterCommit(user.getId());
+        complaintEventLog.record(saved.getId(), ComplaintEventType.SUBMITTED,
+                null, saved.getStatus(), user.getId(), null, null);
+
+        ComplaintDto created = mapToDto(saved);
+        created.setPossibleDuplicateIds(possibleDuplicates);
+        return created;
     }
 
     /**
@@ -123,8 +156,15 @@ public class ComplaintService {
         User staff = userRepository.findById(staffId)
                 .orElseThrow(() -> new IllegalArgumentException("Staff not found"));
 
+        ComplaintStatus previousStatus = complaint.getStatus();
         complaint.setAssignedTo(staff);
         complaint.setStatus(ComplaintStatus.IN_PROGRESS);
+        slaMonitorService.recordResponse(complaint);
+
+        boolean statusChanged = previousStatus != ComplaintStatus.IN_PROGRESS;
+        complaintEventLog.record(complaintId, ComplaintEventType.ASSIGNED,
+                statusChanged ? previousStatus : null, statusChanged ? ComplaintStatus.IN_PROGRESS : null,
+                manager.getId(), staff.getId(), null);
 
         return mapToDto(complaintRepository.save(complaint));
     }
@@ -149,17 +189,96 @@ public class ComplaintService {
             throw new AccessDeniedException("You are not authorized to update this complaint");
         }
 
-        if (dto.getStatus() != null) {
+        ComplaintStatus previousStatus = complaint.getStatus();
+        if (dto.getStatus() != null && dto.getStatus() != previousStatus) {
             complaint.setStatus(dto.getStatus());
+            complaintEventLog.record(complaintId, ComplaintEventType.STATUS_CHANGED,
+                    previousStatus, dto.getStatus(), user.getId(), null, null);
+            userContextCache.invalidateAfterCommit(complaint.getUser().getId());
+
+            if (dto.getStatus() == ComplaintStatus.RESOLVED || dto.getStatus() == ComplaintStatus.CLOSED) {
+                slaMonitorService.recordResolution(complaint);
+                complaintSimilarityIndex.removeAfterCommit(complaintId);
+            } else {
+                if (previousStatus == ComplaintStatus.RESOLVED || previousStatus == ComplaintStatus.CLOSED) {
+                    slaMonitorService.recordReopen(complaint);
+                    complaintSimilarityIndex.addAfterCommit(complaintId,
+                            complaintSimilarityIndex.signature(complaint.getTitle(), complaint.getDescription()));
+                }
+                if (dto.getStatus() == ComplaintStatus.IN_PROGRESS) {
+                    slaMonitorService.recordResponse(complaint);
+                }
+            }
+
+            if (dto.getStatus() == ComplaintStatus.RESOLVED && complaint.getResolvedAt() == null) {
+                // Set here rather than in @PreUpdate so analytics see it before the flush
+                complaint.setResolvedAt(LocalDateTime.now());
+                resolutionTimeAnalytics.recordAfterCommit(complaint);
+            }
         }
 
-        if (dto.getResolution() != null) {
+        if (dto.getResolution() != null && !dto.getResolution().equals(complaint.getResolution())) {
             complaint.setResolution(dto.getResolution());
+            complaintEventLog.record(complaintId, ComplaintEventType.RESOLUTION_UPDATED,
+                    null, null, user.getId(), null, dto.getResolution());
         }
 
         return mapToDto(complaintRepository.save(complaint));
     }
 
+    /**
+     * Merge duplicates into a primary complaint (MANAGER/ADMIN only)
+     * All open duplicates are closed and linked in a single UPDATE statement
+     */
+    @Transactional
+    public ComplaintDto mergeDuplicates(Long primaryId, List<Long> duplicateIds, String username) {
+        log.info("Merging complaints {} into {} by user: {}", duplicateIds, primaryId, username);
+
+        User user = userRepository.findByEmail(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+
+        if (user.getRole() != Role.MANAGER && user.getRole() != Role.ADMIN) {
+            throw new AccessDeniedException("Only managers/admins can merge complaints");
+        }
+
+        if (duplicateIds == null || duplicateIds.isEmpty()) {
+            throw new IllegalArgumentException("No duplicate complaints given");
+        }
+        if (duplicateIds.contains(primaryId)) {
+            throw new IllegalArgumentException("A complaint cannot be merged into itself");
+        }
+
+        complaintRepository.findById(primaryId)
+                .orElseThrow(() -> new IllegalArgumentException("Complaint not found"));
+
+        // Capture previous statuses for the event log before the bulk update
+        List<Complaint> openDuplicates = complaintRepository.findAllById(duplicateIds).stream()
+                .filter(c -> c.getStatus() == ComplaintStatus.OPEN || c.getStatus() == ComplaintStatus.IN_PROGRESS)
+                .toList();
+        Map<Long, ComplaintStatus> previousStatuses = openDuplicates.stream()
+                .collect(Collectors.toMap(Complaint::getId, Complaint::getStatus));
+        if (previousStatuses.isEmpty()) {
+            throw new IllegalArgumentException("None of the given complaints are open");
+        }
+
+        String resolution = "Merged into complaint #" + primaryId;
+        int merged = complaintRepository.mergeDuplicates(
+                primaryId, previousStatuses.keySet(), ComplaintStatus.CLOSED, resolution, LocalDateTime.now());
+        log.info("Merged {} complaint(s) into {}", merged, primaryId);
+
+        previousStatuses.forEach((id, previousStatus) -> {
+            slaMonitorService.untrack(id);
+            complaintSimilarityIndex.removeAfterCommit(id);
+            complaintEventLog.record(id, ComplaintEventType.MERGED, previousStatus, ComplaintStatus.CLOSED,
+                    user.getId(), null, resolution);
+        });
+        openDuplicates.forEach(c -> userContextCache.invalidateAfterCommit(c.getUser().getId()));
+
+        Complaint primary = complaintRepository.findById(primaryId)
+                .orElseThrow(() -> new IllegalArgumentException("Complaint not found"));
+        return mapToDto(primary);
+    }
+
     /**
      * Delete complaint (ADMIN only)
      */
@@ -174,14 +293,101 @@ public class ComplaintService {
             throw new AccessDeniedException("Only admins can delete complaints");
         }
 
+        complaintRepository.findById(complaintId)
+                .ifPresent(complaint -> userContextCache.invalidateAfterCommit(complaint.getUser().getId()));
+        // Attachment rows reference the complaint, so they go first
+        complaintAttachmentService.getObject().deleteForComplaint(complaintId);
         complaintRepository.deleteById(complaintId);
+        slaMonitorService.untrack(complaintId);
+        complaintSimilarityIndex.removeAfterCommit(complaintId);
+        complaintEventLog.record(complaintId, ComplaintEventType.DELETED, null, null, admin.getId(), null, null);
         log.info("Complaint {} deleted successfully", complaintId);
     }
 
+    /**
+     * Get the status timeline of a complaint with time spent in each state
+     * Visible to the submitter, the assignee and managers/admins
+     */
+    public ComplaintTimelineDto getTimeline(Long complaintId, String username) {
+        log.info("Fetching timeline for complaint {} by user: {}", complaintId, username);
+
+        Complaint complaint = complaintRepository.findById(complaintId)
+                .orElseThrow(() -> new IllegalArgumentException("Complaint not found"));
+
+        User user = userRepository.findByEmail(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+
+        checkCanView(complaint, user);
+
+        List<ComplaintEvent> events = complaintEventLog.getTimeline(complaintId);
+
+        // Resolve actor names with a single query
+        List<Long> actorIds = events.stream()
+                .map(ComplaintEvent::getActorId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, String> actorNames = userRepository.findAllById(actorIds).stream()
+                .collect(Collectors.toMap(User::getId, User::getFullName));
+
+        List<ComplaintEventDto> eventDtos = events.stream()
+                .map(event -> ComplaintEventDto.builder()
+                        .type(event.getEventType())
+                        .fromStatus(event.getFromStatus())
+                        .toStatus(event.getToStatus())
+                        .actorId(event.getActorId())
+                        .actorName(actorNames.get(event.getActorId()))
+                        .assignedToId(event.getAssignedToId())
+                        .note(event.getNote())
+                        .occurredAt(event.getOccurredAt())
+                        .build())
+                .collect(Collectors.toList());
+
+        return ComplaintTimelineDto.builder()
+                .complaintId(complaintId)
+                .currentStatus(complaint.getStatus())
+                .events(eventDtos)
+                .timeInStateSeconds(computeTimeInState(complaint, events))
+                .build();
+    }
+
+    /**
+     * Walk the status transitions; complaints older than the event log start as OPEN at submission
+     */
+    private Map<ComplaintStatus, Long> computeTimeInState(Complaint complaint, List<ComplaintEvent> events) {
+        Map<ComplaintStatus, Long> timeInState = new EnumMap<>(ComplaintStatus.class);
+        ComplaintStatus state = ComplaintStatus.OPEN;
+        LocalDateTime since = complaint.getSubmittedAt();
+
+        for (ComplaintEvent event : events) {
+            if (event.getToStatus() == null) {
+                continue;
+            }
+            if (since != null && event.getEventType() != ComplaintEventType.SUBMITTED) {
+                timeInState.merge(state, Duration.between(since, event.getOccurredAt()).getSeconds(), Long::sum);
+            }
+            state = event.getToStatus();
+            since = event.getOccurredAt();
+        }
+
+        if (since != null) {
+            timeInState.merge(state, Duration.between(since, LocalDateTime.now()).getSeconds(), Long::sum);
+        }
+        return timeInState;
+    }
+
+    void checkCanView(Complaint complaint, User user) {
+        boolean isOwner = complaint.getUser().getId().equals(user.getId());
+        boolean isAssignee = complaint.getAssignedTo() != null && complaint.getAssignedTo().getId().equals(user.getId());
+        if (!isOwner && !isAssignee && user.getRole() != Role.MANAGER && user.getRole() != Role.ADMIN) {
+            throw new AccessDeniedException("You are not authorized to view this complaint");
+        }
+    }
+
     /**
      * Map entity to DTO
      */
-    private ComplaintDto mapToDto(Complaint complaint) {
+    ComplaintDto mapToDto(Complaint complaint) {
         ComplaintDto dto = ComplaintDto.builder()
                 .id(complaint.getId())
                 .title(complaint.getTitle())
@@ -192,6 +398,7 @@ public class ComplaintService {
                 .userId(complaint.getUser().getId())
                 .userName(complaint.getUser().getFullName())
                 .resolution(complaint.getResolution())
+                .duplicateOfId(complaint.getDuplicateOfId())
                 .submittedAt(complaint.getSubmittedAt())
                 .updatedAt(complaint.getUpdatedAt())
                 .resolvedAt(complaint.getResolvedAt())
@@ -0,0 +1,263 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.repository.ComplaintRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory near-duplicate index for open complaints
+ * Each complaint gets a MinHash signature of the word set of its title + description.
+ * The signature is split into bands (LSH): complaints sharing any band bucket are candidates,
+ * and candidates are verified by the estimated Jaccard similarity. A lookup touches only
+ * a handful of small buckets, independent of how many complaints are open. Text with no words
+ * left after stop-word filtering has an empty signature and is neither indexed nor matched.
+ */
+@Component
+@Slf4j
+public class ComplaintSimilarityIndex {
+
+    private static final int NUM_HASHES = 32;
+    private static final int ROWS_PER_BAND = 2;
+    private static final int BANDS = NUM_HASHES / ROWS_PER_BAND;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "the", "is", "are", "was", "were", "be", "been", "on", "in", "at", "to", "of",
+            "for", "and", "or", "it", "its", "this", "that", "with", "my", "our", "we", "i", "me",
+            "not", "no", "has", "have", "had", "there", "please", "again", "since", "from", "by");
+
+    private static final long[] SEEDS = new long[NUM_HASHES];
+    private static final int[] EMPTY = new int[0];
+
+    private record Match(long id, double similarity) {
+    }
+
+    static {
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            seed = mix(seed + 0x9E3779B97F4A7C15L);
+            SEEDS[i] = seed;
+        }
+    }
+
+    private final ComplaintRepository complaintRepository;
+    private final double minSimilarity;
+    private final int maxResults;
+
+    private final Map<Long, int[]> signatures = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> buckets = new ConcurrentHashMap<>();
+
+    public ComplaintSimilarityIndex(
+            ComplaintRepository complaintRepository,
+            @Value("${complaint.duplicates.min-similarity:0.5}") double minSimilarity,
+            @Value("${complaint.duplicates.max-results:5}") int maxResults) {
+        this.complaintRepository = complaintRepository;
+        this.minSimilarity = minSimilarity;
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Index every open/in-progress complaint once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOpenComplaints() {
+        for (Object[] row : complaintRepository.findActiveForSimilarityIndex()) {
+            add((Long) row[0], signature((String) row[1], (String) row[2]));
+        }
+        log.info("Duplicate index loaded with {} open complaints", signatures.size());
+    }
+
+    /**
+     * MinHash signature over the distinct, stop-word filtered words of the complaint; empty without any
+     */
+    public int[] signature(String title, String description) {
+        Set<String> tokens = tokenize(title + " " + (description != null ? description : ""));
+        if (tokens.isEmpty()) {
+            // All MAX_VALUE would put every such complaint in the same buckets at similarity 1.0
+            return EMPTY;
+        }
+        int[] signature = new int[NUM_HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+
+        for (String token : tokens) {
+            long tokenHash = hash(token);
+            for (int i = 0; i < NUM_HASHES; i++) {
+                int value = (int) (mix(tokenHash ^ SEEDS[i]) >>> 33);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Likely duplicates of a signature, most similar first
+     */
+    public List<Long> findCandidates(int[] signature, Long excludeId) {
+        if (signature.length == 0) {
+            return List.of();
+        }
+        Set<Long> seen = new HashSet<>();
+        List<Match> matches = new ArrayList<>();
+
+        for (int band = 0; band < BANDS; band++) {
+            Set<Long> bucket = buckets.get(bucketKey(band, signature));
+            if (bucket == null) {
+                continue;
+            }
+            for (Long id : bucket) {
+                if (id.equals(excludeId) || !seen.add(id)) {
+                    continue;
+                }
+                int[] other = signatures.get(id);
+                if (other == null) {
+                    continue;
+                }
+                double similarity = estimateSimilarity(signature, other);
+                if (similarity >= minSimilarity) {
+                    matches.add(new Match(id, similarity));
+                }
+            }
+        }
+
+        return matches.stream()
+                .sorted(Comparator.comparingDouble(Match::similarity).reversed())
+                .limit(maxResults)
+                .map(Match::id)
+                .toList();
+    }
+
+    /**
+     * Index a complaint once the surrounding transaction commits, so a rollback never leaves it matchable
+     */
+    public void addAfterCommit(Long complaintId, int[] signature) {
+        afterCommit(() -> add(complaintId, signature));
+    }
+
+    /**
+     * Drop a complaint from the index once the surrounding transaction commits
+     */
+    public void removeAfterCommit(Long complaintId) {
+        afterCommit(() -> remove(complaintId));
+    }
+
+    public void add(Long complaintId, int[] signature) {
+        if (signature.length == 0) {
+            remove(complaintId);
+            return;
+        }
+        int[] previous = signatures.put(complaintId, signature);
+        if (previous != null) {
+            removeFromBuckets(complaintId, previous);
+        }
+        // Added inside compute: a concurrent removeFromBuckets could otherwise drop the bucket between
+        // computeIfAbsent and add, losing this id
+        for (int band = 0; band < BANDS; band++) {
+            buckets.compute(bucketKey(band, signature), (key, bucket) -> {
+                Set<Long> ids = bucket != null ? bucket : ConcurrentHashMap.<Long>newKeySet();
+                ids.add(complaintId);
+                return ids;
+            });
+        }
+    }
+
+    public void remove(Long complaintId) {
+        int[] signature = signatures.remove(complaintId);
+        if (signature != null) {
+            removeFromBuckets(complaintId, signature);
+        }
+    }
+
+    public int size() {
+        return signatures.size();
+    }
+
+    /**
+     * Fraction of agreeing MinHash values estimates the Jaccard similarity of the word sets
+     */
+    private static double estimateSimilarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / NUM_HASHES;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void removeFromBuckets(Long complaintId, int[] signature) {
+        for (int band = 0; band < BANDS; band++) {
+            buckets.computeIfPresent(bucketKey(band, signature), (key, bucket) -> {
+                bucket.remove(complaintId);
+                return bucket.isEmpty() ? null : bucket;
+            });
+        }
+    }
+
+    private static long bucketKey(int band, int[] signature) {
+        long key = band;
+        for (int row = 0; row < ROWS_PER_BAND; row++) {
+            key = mix(key * 31 + signature[band * ROWS_PER_BAND + row]);
+        }
+        return key;
+    }
+
+    private static Set<String> tokenize(String text) {
+        Set<String> tokens = new HashSet<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static long hash(String token) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < token.length(); i++) {
+            h ^= token.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * MurmurHash3 64-bit finaliser
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
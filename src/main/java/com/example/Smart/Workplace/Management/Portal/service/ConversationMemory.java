@@ -0,0 +1,197 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.dto.ChatHistoryItem;
+import com.example.Smart.Workplace.Management.Portal.repository.ChatMessageRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Per-user multi-turn memory for the assistant, held in memory
+ * Recent turns are kept verbatim while they fit the history token budget; older turns are folded
+ * into a rolling extractive summary that has its own budget. So the history sent with a prompt is
+ * bounded however long the conversation runs. Turn costs are TokenEstimator's BPE counts, the same
+ * ones PromptAssembler budgets with. The database is only read to warm a user's memory after a
+ * restart or eviction.
+ */
+@Component
+public class ConversationMemory implements MeterBinder {
+
+    private static final int SUMMARY_QUESTION_CHARS = 120;
+    private static final int SUMMARY_ANSWER_CHARS = 160;
+    private static final int WARM_UP_TURNS = 10;
+
+    // Messages that only make sense with the previous turn: they open with a connective ("and for
+    // sick leave?") or are short and point back at it ("why is that?")
+    private static final Pattern FOLLOW_UP_START = Pattern.compile(
+            "^\\s*(and|but|also|then|what about|how about|what if|ok|okay)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern BACK_REFERENCE = Pattern.compile(
+            "\\b(it|that|this|those|these|them|same)\\b", Pattern.CASE_INSENSITIVE);
+    private static final int MAX_BACK_REFERENCE_WORDS = 6;
+
+    /**
+     * One question/answer exchange with its estimated token cost
+     */
+    public record Turn(String question, String answer, int tokens) {
+    }
+
+    /**
+     * What goes into the next prompt: the rolling summary (may be empty) and recent turns, oldest first
+     */
+    public record Snapshot(String summary, List<Turn> turns) {
+
+        public boolean isEmpty() {
+            return summary.isEmpty() && turns.isEmpty();
+        }
+    }
+
+    private static final class Conversation {
+        private final Deque<Turn> turns = new ArrayDeque<>();
+        private final Deque<String> summary = new ArrayDeque<>();
+        private int turnTokens;
+        private int summaryTokens;
+    }
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final TokenEstimator tokenEstimator;
+    private final int historyTokenBudget;
+    private final int summaryTokenBudget;
+    private final int maxTurns;
+    private final Cache<Long, Conversation> conversations;
+
+    public ConversationMemory(
+            ChatMessageRepository chatMessageRepository,
+            TokenEstimator tokenEstimator,
+            @Value("${ai.memory.history-token-budget:1200}") int historyTokenBudget,
+            @Value("${ai.memory.summary-token-budget:300}") int summaryTokenBudget,
+            @Value("${ai.memory.max-turns:20}") int maxTurns,
+            @Value("${ai.memory.max-users:10000}") long maxUsers,
+            @Value("${ai.memory.idle-minutes:120}") long idleMinutes) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.tokenEstimator = tokenEstimator;
+        this.historyTokenBudget = historyTokenBudget;
+        this.summaryTokenBudget = summaryTokenBudget;
+        this.maxTurns = maxTurns;
+        this.conversations = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, conversations, "ai.conversations");
+    }
+
+    public Snapshot snapshot(Long userId) {
+        Conversation conversation = conversation(userId);
+        synchronized (conversation) {
+            return new Snapshot(String.join("\n", conversation.summary), List.copyOf(conversation.turns));
+        }
+    }
+
+    /**
+     * Append a completed exchange, folding the oldest turns into the summary when over budget
+     */
+    public void record(Long userId, String question, String answer) {
+        Conversation conversation = conversation(userId);
+        synchronized (conversation) {
+            append(conversation, question, answer);
+        }
+    }
+
+    /**
+     * Whether a message leans on the previous turn ("and for sick leave?", "why is that?")
+     */
+    public boolean isFollowUp(Long userId, String message) {
+        if (message == null || message.isBlank()) {
+            return false;
+        }
+        boolean pointsBack = FOLLOW_UP_START.matcher(message).find()
+                || (BACK_REFERENCE.matcher(message).find()
+                && message.trim().split("\\s+").length <= MAX_BACK_REFERENCE_WORDS);
+        if (!pointsBack) {
+            return false;
+        }
+        // Warms from the database if needed: without a previous turn there is nothing to follow up on
+        Conversation conversation = conversation(userId);
+        synchronized (conversation) {
+            return !conversation.turns.isEmpty();
+        }
+    }
+
+    public void clear(Long userId) {
+        conversations.put(userId, new Conversation());
+    }
+
+    private Conversation conversation(Long userId) {
+        return conversations.get(userId, this::warmUp);
+    }
+
+    /**
+     * Rebuild from the latest saved messages when a user's memory is not held
+     */
+    private Conversation warmUp(Long userId) {
+        Conversation conversation = new Conversation();
+        List<ChatHistoryItem> recent = chatMessageRepository.findLatestHistory(userId, PageRequest.of(0, WARM_UP_TURNS));
+        for (int i = recent.size() - 1; i >= 0; i--) {
+            append(conversation, recent.get(i).message(), recent.get(i).response());
+        }
+        return conversation;
+    }
+
+    private void append(Conversation conversation, String question, String answer) {
+        Turn turn = new Turn(question, answer,
+                tokenEstimator.estimateMessage(question) + tokenEstimator.estimateMessage(answer));
+        conversation.turns.addLast(turn);
+        conversation.turnTokens += turn.tokens();
+
+        // Always keep the latest turn verbatim, even if it alone exceeds the budget
+        while (conversation.turns.size() > 1
+                && (conversation.turnTokens > historyTokenBudget || conversation.turns.size() > maxTurns)) {
+            Turn oldest = conversation.turns.removeFirst();
+            conversation.turnTokens -= oldest.tokens();
+            fold(conversation, oldest);
+        }
+    }
+
+    /**
+     * Extractive summary line: the question and the first sentence of the answer, both truncated
+     */
+    private void fold(Conversation conversation, Turn turn) {
+        String line = "- User asked: " + abbreviate(turn.question(), SUMMARY_QUESTION_CHARS)
+                + " | Assistant: " + abbreviate(firstSentence(turn.answer()), SUMMARY_ANSWER_CHARS);
+        conversation.summary.addLast(line);
+        conversation.summaryTokens += tokenEstimator.estimate(line);
+
+        while (conversation.summaryTokens > summaryTokenBudget && conversation.summary.size() > 1) {
+            conversation.summaryTokens -= tokenEstimator.estimate(conversation.summary.removeFirst());
+        }
+    }
+
+    private static String firstSentence(String text) {
+        if (text == null) {
+            return "";
+        }
+        String flat = text.replaceAll("\\s+", " ").trim();
+        int end = flat.indexOf(". ");
+        return end > 0 ? flat.substring(0, end + 1) : flat;
+    }
+
+    private static String abbreviate(String text, int maxChars) {
+        String flat = text == null ? "" : text.replaceAll("\\s+", " ").trim();
+        return flat.length() <= maxChars ? flat : flat.substring(0, maxChars - 3) + "...";
+    }
+}
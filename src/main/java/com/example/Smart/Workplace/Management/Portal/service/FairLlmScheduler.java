@@ -0,0 +1,385 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.exception.ServiceOverloadedException;
+import com.example.Smart.Workplace.Management.Portal.model.Role;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Weighted fair queue in front of the LLM provider, one lane per user
+ * Lanes are served by deficit round robin: each visit credits a lane quantum x role weight
+ * tokens, and the lane's head job runs once its credit covers the job's estimated tokens.
+ * Calls without a user or role (background jobs) share one system lane with its own, lower weight.
+ * A job also needs a free global slot, room in the global requests/tokens-per-minute budget
+ * (matched to the provider's rate limit) and, for its user, a free per-user slot and room in
+ * the user's tokens-per-minute budget. Lanes that just became active are visited before lanes
+ * with a standing backlog (as in FQ-CoDel), so a heavy user only ever delays their own lane and
+ * a light user's request goes out as soon as a slot frees up. A lane's credit is capped at one
+ * quantum above its head job, so waiting on the budget does not bank a burst. Each queued job
+ * has a timer that fails it after max-queue-wait, even while every slot is busy.
+ */
+@Slf4j
+public class FairLlmScheduler implements AutoCloseable {
+
+    private static final long BLOCKED_RETRY_MILLIS = 50;
+
+    @Getter
+    @Builder
+    public static class Settings {
+        @Builder.Default
+        private final int maxConcurrency = 16;
+        @Builder.Default
+        private final int maxQueued = 32;
+        @Builder.Default
+        private final int maxConcurrencyPerUser = 2;
+        @Builder.Default
+        private final int maxQueuedPerUser = 4;
+        @Builder.Default
+        private final long userTokensPerMinute = 20000;
+        @Builder.Default
+        private final long requestsPerMinute = 1000;
+        @Builder.Default
+        private final long tokensPerMinute = 300000;
+        @Builder.Default
+        private final long quantumTokens = 1000;
+        @Builder.Default
+        private final long maxQueueWaitMillis = 20000;
+        @Builder.Default
+        private final Map<Role, Integer> roleWeights = Map.of(Role.EMPLOYEE, 1, Role.MANAGER, 2, Role.ADMIN, 2);
+        // Below every role, so background work gets a fraction of an employee's share while users wait
+        @Builder.Default
+        private final double systemWeight = 0.5;
+    }
+
+    private static final class Job {
+        private final Supplier<CompletableFuture<?>> task;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final long cost;
+        private final long enqueuedAt;
+        private Lane lane;
+        private ScheduledFuture<?> expiry;
+
+        Job(Supplier<CompletableFuture<?>> task, long cost, long enqueuedAt) {
+            this.task = task;
+            this.cost = cost;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private final class Lane {
+        private final Role role; // null for the system lane
+        private final long quantum;
+        private final Deque<Job> queue = new ArrayDeque<>();
+        private final MinuteBudget tokens;
+        private long deficit;
+        private int running;
+        private boolean active;
+
+        Lane(Role role, long now) {
+            this.role = role;
+            double weight = role == null ? settings.getSystemWeight()
+                    : Math.max(1, settings.getRoleWeights().getOrDefault(role, 1));
+            this.quantum = Math.max(1, Math.round(settings.getQuantumTokens() * weight));
+            this.tokens = new MinuteBudget(settings.getUserTokensPerMinute(), now);
+        }
+    }
+
+    private final Settings settings;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService ticker;
+
+    // All state below is guarded by this
+    private final Map<Long, Lane> lanes = new HashMap<>();
+    private final Deque<Lane> newLanes = new ArrayDeque<>();
+    private final Deque<Lane> oldLanes = new ArrayDeque<>();
+    private final MinuteBudget globalRequests;
+    private final MinuteBudget globalTokens;
+    private int running;
+    private int queued;
+    private ScheduledFuture<?> pendingTick;
+
+    private long dispatched;
+    private long rejected;
+    private long expired;
+    private final Map<Role, Long> dispatchedByRole = new EnumMap<>(Role.class);
+    private long dispatchedSystem;
+
+    public FairLlmScheduler(Settings settings) {
+        this(settings, System::currentTimeMillis);
+    }
+
+    FairLlmScheduler(Settings settings, LongSupplier clock) {
+        this.settings = settings;
+        this.clock = clock;
+        long now = clock.getAsLong();
+        this.globalRequests = new MinuteBudget(settings.getRequestsPerMinute(), now);
+        this.globalTokens = new MinuteBudget(settings.getTokensPerMinute(), now);
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+                new CustomizableThreadFactory("llm-scheduler-"));
+        // Almost every expiry timer is cancelled when its job starts; drop those from the queue at once
+        executor.setRemoveOnCancelPolicy(true);
+        this.ticker = executor;
+        this.ticker.scheduleWithFixedDelay(this::pruneIdleLanes, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Queue a call in the user's lane; the task runs once the lane's turn comes and must return
+     * a future that completes when the call no longer needs its slot
+     * Cancelling the returned future before the task starts removes it from the queue.
+     *
+     * @param estimatedTokens prompt plus completion tokens the call may consume
+     * @throws ServiceOverloadedException when the user's lane or the global queue is full
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> submit(Long userId, Role role, long estimatedTokens,
+                                           Supplier<CompletableFuture<T>> task) {
+        long now = clock.getAsLong();
+        Job job = new Job((Supplier<CompletableFuture<?>>) (Supplier<?>) task, Math.max(1, estimatedTokens), now);
+        synchronized (this) {
+            Lane lane = lanes.computeIfAbsent(userId, id -> new Lane(role, now));
+            if (lane.queue.size() >= settings.getMaxQueuedPerUser()) {
+                rejected++;
+                throw new ServiceOverloadedException(
+                        "You have several questions in progress already. Please wait for them to finish.", 5);
+            }
+            if (queued >= settings.getMaxQueued()) {
+                rejected++;
+                log.warn("LLM scheduler saturated: {} running, {} queued", running, queued);
+                throw new ServiceOverloadedException("The AI assistant is busy right now. Please try again shortly.", 5);
+            }
+            lane.queue.addLast(job);
+            queued++;
+            job.lane = lane;
+            job.expiry = ticker.schedule(() -> expire(job), settings.getMaxQueueWaitMillis(), TimeUnit.MILLISECONDS);
+            if (!lane.active) {
+                lane.active = true;
+                // Only a user with nothing running counts as new; otherwise they rejoin the back of the round
+                (lane.running == 0 ? newLanes : oldLanes).addLast(lane);
+            }
+        }
+        dispatch();
+        return (CompletableFuture<T>) job.result;
+    }
+
+    public synchronized int getRunning() {
+        return running;
+    }
+
+    public synchronized int getQueued() {
+        return queued;
+    }
+
+    public synchronized Map<String, Object> getStatistics() {
+        long now = clock.getAsLong();
+        globalRequests.refill(now);
+        globalTokens.refill(now);
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("running", running);
+        stats.put("queued", queued);
+        stats.put("lanes", lanes.size());
+        stats.put("activeLanes", newLanes.size() + oldLanes.size());
+        stats.put("dispatched", dispatched);
+        stats.put("dispatchedByRole", new EnumMap<>(dispatchedByRole));
+        stats.put("dispatchedSystem", dispatchedSystem);
+        stats.put("rejected", rejected);
+        stats.put("expired", expired);
+        stats.put("requestBudgetAvailable", Math.round(globalRequests.getAvailable()));
+        stats.put("tokenBudgetAvailable", Math.round(globalTokens.getAvailable()));
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Deficit round robin over the active lanes, new ones first, until capacity runs out or nothing can start
+     * Tasks are started outside the lock.
+     */
+    private void dispatch() {
+        List<Job> toStart = new ArrayList<>();
+        List<Job> toExpire = new ArrayList<>();
+        synchronized (this) {
+            long now = clock.getAsLong();
+            globalRequests.refill(now);
+            globalTokens.refill(now);
+
+            boolean blockedByBudget = false;
+            int lanesWithoutProgress = 0;
+            while (running < settings.getMaxConcurrency()
+                    && lanesWithoutProgress < newLanes.size() + oldLanes.size()) {
+                boolean fresh = !newLanes.isEmpty();
+                Lane lane = fresh ? newLanes.pollFirst() : oldLanes.pollFirst();
+                boolean progressed = false;
+                boolean creditShort = false;
+
+                dropExpiredAndCancelled(lane, now, toExpire);
+                if (!lane.queue.isEmpty() && lane.running < settings.getMaxConcurrencyPerUser()) {
+                    // A lane held back by the budget or the global slots is visited often; it must not bank credit
+                    lane.deficit = Math.min(lane.deficit + lane.quantum, lane.queue.peekFirst().cost + lane.quantum);
+                    lane.tokens.refill(now);
+                    // Gaining credit counts as progress: a big job runs after a few rounds
+                    creditShort = lane.deficit < lane.queue.peekFirst().cost;
+                    progressed = creditShort;
+
+                    while (!lane.queue.isEmpty()
+                            && running < settings.getMaxConcurrency()
+                            && lane.running < settings.getMaxConcurrencyPerUser()) {
+                        Job job = lane.queue.peekFirst();
+                        if (lane.deficit < job.cost) {
+                            break; // keeps its credit for the next round
+                        }
+                        if (!lane.tokens.canAfford(job.cost) || !globalRequests.canAfford(1)
+                                || !globalTokens.canAfford(job.cost)) {
+                            blockedByBudget = true;
+                            break;
+                        }
+                        lane.queue.pollFirst();
+                        queued--;
+                        lane.deficit -= job.cost;
+                        lane.tokens.charge(job.cost);
+                        globalRequests.charge(1);
+                        globalTokens.charge(job.cost);
+                        lane.running++;
+                        running++;
+                        dispatched++;
+                        if (lane.role != null) {
+                            dispatchedByRole.merge(lane.role, 1L, Long::sum);
+                        } else {
+                            dispatchedSystem++;
+                        }
+                        toStart.add(job);
+                        progressed = true;
+                        creditShort = false;
+                    }
+                }
+
+                if (lane.queue.isEmpty()) {
+                    lane.active = false;
+                    lane.deficit = 0; // DRR: an idle lane does not bank credit
+                } else if (fresh && creditShort) {
+                    newLanes.addFirst(lane); // keeps its turn until its first job goes out
+                } else {
+                    oldLanes.addLast(lane);
+                }
+                lanesWithoutProgress = progressed ? 0 : lanesWithoutProgress + 1;
+            }
+
+            if (blockedByBudget && running < settings.getMaxConcurrency()) {
+                scheduleTick();
+            }
+        }
+
+        for (Job job : toExpire) {
+            job.result.completeExceptionally(queueWaitExceeded());
+        }
+        for (Job job : toStart) {
+            job.expiry.cancel(false);
+            Lane lane = job.lane;
+            job.result.whenComplete((value, error) -> finished(lane));
+            start(job);
+        }
+    }
+
+    private void start(Job job) {
+        CompletableFuture<?> call;
+        try {
+            call = job.task.get();
+        } catch (RuntimeException e) {
+            job.result.completeExceptionally(e);
+            return;
+        }
+        call.whenComplete((value, error) -> {
+            if (error != null) {
+                job.result.completeExceptionally(error);
+            } else {
+                job.result.complete(value);
+            }
+        });
+    }
+
+    private void finished(Lane lane) {
+        synchronized (this) {
+            lane.running--;
+            running--;
+        }
+        dispatch();
+    }
+
+    /**
+     * Fail a job still queued after max-queue-wait; dispatch may not run in the meantime if no slot frees up
+     */
+    private void expire(Job job) {
+        synchronized (this) {
+            if (!job.lane.queue.remove(job)) {
+                return; // started or dropped already
+            }
+            queued--;
+            if (job.result.isDone()) {
+                return; // cancelled by the caller
+            }
+            expired++;
+        }
+        job.result.completeExceptionally(queueWaitExceeded());
+    }
+
+    // Caller holds the lock
+    private void dropExpiredAndCancelled(Lane lane, long now, List<Job> toExpire) {
+        Iterator<Job> jobs = lane.queue.iterator();
+        while (jobs.hasNext()) {
+            Job job = jobs.next();
+            if (job.result.isDone()) {
+                jobs.remove();
+                queued--;
+                job.expiry.cancel(false);
+            } else if (now - job.enqueuedAt > settings.getMaxQueueWaitMillis()) {
+                jobs.remove();
+                queued--;
+                expired++;
+                job.expiry.cancel(false);
+                toExpire.add(job);
+            }
+        }
+    }
+
+    private static ServiceOverloadedException queueWaitExceeded() {
+        return new ServiceOverloadedException("The AI assistant is busy right now. Please try again shortly.", 5);
+    }
+
+    // Caller holds the lock
+    private void scheduleTick() {
+        if (pendingTick == null || pendingTick.isDone()) {
+            pendingTick = ticker.schedule(this::dispatch, BLOCKED_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Forget lanes with nothing queued or running whose budget has fully refilled
+     */
+    private synchronized void pruneIdleLanes() {
+        long now = clock.getAsLong();
+        lanes.values().removeIf(lane -> {
+            lane.tokens.refill(now);
+            return lane.queue.isEmpty() && lane.running == 0 && lane.tokens.isFull();
+        });
+    }
+}
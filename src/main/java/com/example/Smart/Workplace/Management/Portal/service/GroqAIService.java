@@ -1,99 +0,0 @@
-package com.example.Smart.Workplace.Management.Portal.service;
-
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import lombok.extern.slf4j.Slf4j;
-import okhttp3.*;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Service;
-
-import java.io.IOException;
-import java.util.concurrent.TimeUnit;
-
-@Service
-@Slf4j
-public class GroqAIService {
-
-    @Value("${groq.api.key}")
-    private String apiKey;
-
-    @Value("${groq.model:llama-3.1-70b-versatile}")
-    private String model;
-
-    @Value("${groq.api.url:https://api.groq.com/openai/v1/chat/completions}")
-    private String apiUrl;
-
-    private final OkHttpClient client = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(30, TimeUnit.SECONDS)
-            .build();
-
-    private final Gson gson = new Gson();
-
-    public String getChatCompletion(String userMessage, String systemPrompt) {
-        try {
-            JsonObject requestBody = new JsonObject();
-            requestBody.addProperty("model", model);
-
-            JsonArray messages = new JsonArray();
-
-            // System message
-            JsonObject systemMsg = new JsonObject();
-            systemMsg.addProperty("role", "system");
-            systemMsg.addProperty("content", systemPrompt);
-            messages.add(systemMsg);
-
-            // User message
-            JsonObject userMsg = new JsonObject();
-            userMsg.addProperty("role", "user");
-            userMsg.addProperty("content", userMessage);
-            messages.add(userMsg);
-
-            requestBody.add("messages", messages);
-            requestBody.addProperty("temperature", 0.7);
-            requestBody.addProperty("max_tokens", 1000);
-
-            RequestBody body = RequestBody.create(
-                    requestBody.toString(),
-                    MediaType.parse("application/json")
-            );
-
-            Request request = new Request.Builder()
-                    .url(apiUrl)
-                    .addHeader("Authorization", "Bearer " + apiKey)
-                    .addHeader("Content-Type", "application/json")
-                    .post(body)
-                    .build();
-
-            try (Response response = client.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    String errorBody = response.body() != null ? response.body().string() : "No error details";
-                    log.error("API call failed: {} - {}", response.code(), errorBody);
-
-                    // Return helpful error message
-                    if (response.code() == 429) {
-                        return "⚠️ I'm experiencing high demand right now. Please try again in a moment.";
-                    } else if (response.code() == 401) {
-                        return "⚠️ Authentication error. Please contact your administrator.";
-                    } else {
-                        return "⚠️ I'm having trouble connecting. Please try again.";
-                    }
-                }
-
-                String responseBody = response.body().string();
-                JsonObject jsonResponse = gson.fromJson(responseBody, JsonObject.class);
-
-                return jsonResponse
-                        .getAsJsonArray("choices")
-                        .get(0).getAsJsonObject()
-                        .getAsJsonObject("message")
-                        .get("content").getAsString();
-            }
-
-        } catch (IOException e) {
-            log.error("Error calling API", e);
-            return "Sorry, I encountered an error. Please try again.";
-        }
-    }
-}
@@ -0,0 +1,30 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.google.gson.JsonObject;
+import okhttp3.OkHttpClient;
+
+import java.util.function.IntFunction;
+
+/**
+ * Groq's OpenAI-compatible endpoint
+ * Groq may report the usage of a stream under x_groq.usage on the last chunk instead of usage.
+ */
+public class GroqProvider extends OpenAiCompatibleProvider {
+
+    public GroqProvider(Settings settings, OkHttpClient client,
+                        ResilientHttpExecutor.Settings resilience, IntFunction<String> userMessageForStatus) {
+        super(settings, client, resilience, userMessageForStatus);
+    }
+
+    @Override
+    protected JsonObject usageOf(JsonObject response) {
+        JsonObject usage = super.usageOf(response);
+        if (usage == null && response.has("x_groq") && response.get("x_groq").isJsonObject()) {
+            JsonObject groq = response.getAsJsonObject("x_groq");
+            if (groq.has("usage") && groq.get("usage").isJsonObject()) {
+                return groq.getAsJsonObject("usage");
+            }
+        }
+        return usage;
+    }
+}
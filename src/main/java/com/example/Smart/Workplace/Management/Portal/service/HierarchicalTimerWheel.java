@@ -0,0 +1,176 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timer wheel (Varghese &amp; Lauck)
+ * Each level has 64 slots; a slot at level n covers 64^n ticks.
+ * Scheduling and cancelling are O(1), and each tick touches a single level-0 slot
+ * plus an amortised cascade from the higher levels, independent of how many timers are pending.
+ * All methods are synchronized - callers are request threads (schedule/cancel) and the ticker.
+ */
+public class HierarchicalTimerWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final int levels;
+    private final Timeout<T>[][] wheel;
+
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimerWheel(long tickMillis, int levels, long startMillis) {
+        if (tickMillis <= 0 || levels < 1 || levels > 10) {
+            throw new IllegalArgumentException("Invalid timer wheel configuration");
+        }
+        this.tickMillis = tickMillis;
+        this.levels = levels;
+        this.startMillis = startMillis;
+        this.wheel = new Timeout[levels][SLOTS];
+    }
+
+    /**
+     * Schedule a payload to expire at the given wall-clock time
+     * Deadlines in the past expire on the next tick
+     */
+    public synchronized Timeout<T> schedule(T payload, long deadlineMillis) {
+        long deadlineTick = Math.max(Math.floorDiv(deadlineMillis - startMillis, tickMillis), currentTick + 1);
+        Timeout<T> timeout = new Timeout<>(payload, deadlineMillis, deadlineTick);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Cancel a pending timeout; returns false if it already expired or was cancelled
+     */
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout == null || timeout.level < 0) {
+            return false;
+        }
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Advance the wheel up to the given wall-clock time and return the expired payloads
+     * Callbacks are left to the caller so they never run while holding the lock
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        List<T> expired = new ArrayList<>();
+
+        while (currentTick < targetTick) {
+            currentTick++;
+            int index = (int) (currentTick & SLOT_MASK);
+
+            // Cascade higher levels whenever the lower level wraps around
+            for (int level = 1; level < levels && index == 0; level++) {
+                index = (int) ((currentTick >>> (level * SLOT_BITS)) & SLOT_MASK);
+                cascade(level, index);
+            }
+
+            Timeout<T> timeout = wheel[0][(int) (currentTick & SLOT_MASK)];
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                unlink(timeout);
+                if (timeout.deadlineTick > currentTick) {
+                    // Parked beyond the span of a single-level wheel
+                    place(timeout);
+                } else {
+                    size--;
+                    expired.add(timeout.payload);
+                }
+                timeout = next;
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void cascade(int level, int index) {
+        Timeout<T> timeout = wheel[level][index];
+        wheel[level][index] = null;
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            timeout.prev = null;
+            timeout.next = null;
+            place(timeout);
+            timeout = next;
+        }
+    }
+
+    private void place(Timeout<T> timeout) {
+        long delta = Math.max(timeout.deadlineTick - currentTick, 0);
+        int level = 0;
+        while (level < levels - 1 && delta >= (1L << ((level + 1) * SLOT_BITS))) {
+            level++;
+        }
+
+        // Beyond the wheel span: park in the furthest slot of the top level, it is re-placed on cascade
+        long tick = delta >= (1L << (levels * SLOT_BITS))
+                ? currentTick + (1L << (levels * SLOT_BITS)) - 1
+                : timeout.deadlineTick;
+        int index = (int) ((tick >>> (level * SLOT_BITS)) & SLOT_MASK);
+
+        timeout.level = level;
+        timeout.index = index;
+        timeout.prev = null;
+        timeout.next = wheel[level][index];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        wheel[level][index] = timeout;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            wheel[timeout.level][timeout.index] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.level = -1;
+    }
+
+    /**
+     * Handle to a pending timer, used for O(1) cancellation
+     */
+    public static final class Timeout<T> {
+        private final T payload;
+        private final long deadlineMillis;
+        private final long deadlineTick;
+        private int level = -1;
+        private int index;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(T payload, long deadlineMillis, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineMillis = deadlineMillis;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+    }
+}
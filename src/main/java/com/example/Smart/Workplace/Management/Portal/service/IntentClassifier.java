@@ -0,0 +1,187 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.ChatIntent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Local intent classifier for assistant messages, runs in microseconds before any LLM call
+ * A multinomial logistic regression over unigrams and bigrams (ai/intent-model.json, trained from
+ * ai/intent-training.tsv by scripts/train_intent_model.py) scores every intent. A high-precision
+ * regex rule only raises the confidence when the model agrees with it, and open-ended questions
+ * (why, what if, how does it work) stay general even when they mention the asker's data.
+ */
+@Component
+@Slf4j
+public class IntentClassifier {
+
+    private static final double RULE_CONFIDENCE = 0.95;
+
+    // Only questions about the asker's own data qualify for the rules
+    private static final String ABOUT_ME = "(?=.*\\b(my|i|me|mine)\\b)";
+    private static final String LEAVE = "(leaves?|vacations?|holidays?|pto|time off|days? off)";
+
+    // Conditions, reasons and how-it-works questions need the LLM, whatever data they mention
+    private static final Pattern OPEN_ENDED = Pattern.compile("\\b(why|if|unless|what happens|what if"
+            + "|how (is|are|does|do|would|will|can)|can i|could i|should i|explain|polic(y|ies)|rules?"
+            + "|calculated|carry (over|forward)|when i)\\b");
+
+    private static final Map<ChatIntent, Pattern> RULES = new LinkedHashMap<>();
+
+    static {
+        RULES.put(ChatIntent.PENDING_LEAVES, Pattern.compile(ABOUT_ME
+                + "(.*\\b(pending|awaiting|unapproved)\\b.{0,30}\\b" + LEAVE + "\\b"
+                + "|.*\\b" + LEAVE + "( requests?| applications?)?\\b.{0,30}\\b(pending|approved yet|awaiting)\\b)"));
+        RULES.put(ChatIntent.UPCOMING_LEAVES, Pattern.compile(ABOUT_ME
+                + ".*\\b(upcoming|next|scheduled|booked|planned)\\b.{0,20}\\b" + LEAVE + "\\b"));
+        RULES.put(ChatIntent.LEAVE_BALANCE, Pattern.compile(ABOUT_ME
+                + "(.*\\b" + LEAVE + "\\b.{0,30}\\b(balance|left|remaining|remain)\\b"
+                + "|.*\\b(balance|remaining)\\b.{0,20}\\b" + LEAVE + "\\b)"));
+        RULES.put(ChatIntent.COMPLAINT_STATUS, Pattern.compile(
+                ".*\\b(status|progress|update|show|list|view)\\b.{0,25}\\bmy (complaints?|tickets?)\\b"
+                        + "|.*\\bmy (complaints?|tickets?)\\b.{0,25}\\b(status|resolved|fixed|closed|progress)\\b"));
+    }
+
+    /**
+     * Predicted intent and its probability (agreeing rules and open-ended questions report a fixed high confidence)
+     */
+    public record Classification(ChatIntent intent, double confidence) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final ResourceLoader resourceLoader;
+    private final String modelLocation;
+    private final double minConfidence;
+
+    private ChatIntent[] classes;
+    private double[] bias;
+    private Map<String, double[]> weights;
+
+    public IntentClassifier(
+            ObjectMapper objectMapper,
+            ResourceLoader resourceLoader,
+            @Value("${ai.intent.model:classpath:ai/intent-model.json}") String modelLocation,
+            @Value("${ai.intent.min-confidence:0.7}") double minConfidence) {
+        this.objectMapper = objectMapper;
+        this.resourceLoader = resourceLoader;
+        this.modelLocation = modelLocation;
+        this.minConfidence = minConfidence;
+    }
+
+    @PostConstruct
+    void loadModel() throws IOException {
+        JsonNode model;
+        try (InputStream in = resourceLoader.getResource(modelLocation).getInputStream()) {
+            model = objectMapper.readTree(in);
+        }
+
+        List<ChatIntent> intents = new ArrayList<>();
+        model.get("intents").forEach(node -> intents.add(ChatIntent.fromCode(node.asText())));
+        classes = intents.toArray(new ChatIntent[0]);
+        bias = toVector(model.get("bias"));
+
+        weights = new HashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = model.get("weights").fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            weights.put(field.getKey(), toVector(field.getValue()));
+        }
+        log.info("Intent model loaded from {}: {} intents, {} features", modelLocation, classes.length, weights.size());
+    }
+
+    public Classification classify(String message) {
+        if (message == null || message.isBlank()) {
+            return new Classification(ChatIntent.GENERAL, 1.0);
+        }
+        String text = message.toLowerCase(Locale.ROOT).replace("'", "");
+        if (OPEN_ENDED.matcher(text).find()) {
+            return new Classification(ChatIntent.GENERAL, RULE_CONFIDENCE);
+        }
+
+        Classification predicted = predict(text);
+        for (Map.Entry<ChatIntent, Pattern> rule : RULES.entrySet()) {
+            if (rule.getValue().matcher(text).find()) {
+                // A rule alone is not enough: it fires on any phrasing that contains its keywords
+                return predicted.intent() == rule.getKey()
+                        ? new Classification(rule.getKey(), Math.max(RULE_CONFIDENCE, predicted.confidence()))
+                        : predicted;
+            }
+        }
+        return predicted;
+    }
+
+    /**
+     * Confident enough about a data intent to answer without the LLM
+     */
+    public boolean isLocallyAnswerable(Classification classification) {
+        return classification.intent() != ChatIntent.GENERAL && classification.confidence() >= minConfidence;
+    }
+
+    private Classification predict(String text) {
+        double[] scores = bias.clone();
+        for (String feature : features(text)) {
+            double[] w = weights.get(feature);
+            if (w != null) {
+                for (int k = 0; k < scores.length; k++) {
+                    scores[k] += w[k];
+                }
+            }
+        }
+
+        // Softmax, keeping only the winner
+        double max = Double.NEGATIVE_INFINITY;
+        for (double score : scores) {
+            max = Math.max(max, score);
+        }
+        double sum = 0;
+        int best = 0;
+        for (int k = 0; k < scores.length; k++) {
+            sum += Math.exp(scores[k] - max);
+            if (scores[k] > scores[best]) {
+                best = k;
+            }
+        }
+        return new Classification(classes[best], Math.exp(scores[best] - max) / sum);
+    }
+
+    /**
+     * Unigrams and bigrams joined with '_', matching the training featurizer
+     */
+    private static List<String> features(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : text.split("[^a-z0-9]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        List<String> features = new ArrayList<>(words);
+        for (int i = 1; i < words.size(); i++) {
+            features.add(words.get(i - 1) + "_" + words.get(i));
+        }
+        return features;
+    }
+
+    private static double[] toVector(JsonNode array) {
+        double[] vector = new double[array.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = array.get(i).asDouble();
+        }
+        return vector;
+    }
+}
@@ -9,11 +9,13 @@ import com.example.Smart.Workplace.Management.Portal.repository.LeaveRequestRepo
 import com.example.Smart.Workplace.Management.Portal.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -30,6 +32,10 @@ public class LeaveService {
 
     private final LeaveRequestRepository leaveRequestRepository;
     private final UserRepository userRepository;
+    private final UserContextCache userContextCache;
+
+    @Value("${leave.annual-allowance-days:15}")
+    private int annualAllowanceDays;
 
     /**
      * Submit a new leave request
@@ -68,6 +74,7 @@ public class LeaveService {
 
         // Save and return
         LeaveRequest savedRequest = leaveRequestRepository.save(leaveRequest);
+        userContextCache.invalidateAfterCommit(employee.getId());
         log.info("Leave request created successfully with ID: {}", savedRequest.getId());
 
         return mapToDto(savedRequest);
@@ -167,18 +174,39 @@ public class LeaveService {
         leaveRequest.setManager(manager);
 
         LeaveRequest updatedRequest = leaveRequestRepository.save(leaveRequest);
+        userContextCache.invalidateAfterCommit(leaveRequest.getEmployee().getId());
         log.info("Leave request {} successfully updated to status {}", leaveId, status);
 
         return mapToDto(updatedRequest);
     }
 
+    /**
+     * Annual leave allowance in days
+     */
+    public int getAnnualAllowanceDays() {
+        return annualAllowanceDays;
+    }
+
+    /**
+     * Days of approved leave taken or booked in the current calendar year
+     *
+     * @param employeeId Employee to check
+     * @return Number of approved leave days this year
+     */
+    public long getUsedLeaveDaysThisYear(Long employeeId) {
+        int year = LocalDate.now().getYear();
+        Long used = leaveRequestRepository.calculateTotalLeaveDaysInPeriod(
+                employeeId, LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+        return used != null ? used : 0;
+    }
+
     /**
      * Map LeaveRequest entity to LeaveRequestDto
      *
      * @param leaveRequest Entity to map
      * @return Mapped DTO
      */
-    private LeaveRequestDto mapToDto(LeaveRequest leaveRequest) {
+    LeaveRequestDto mapToDto(LeaveRequest leaveRequest) {
         LeaveRequestDto dto = new LeaveRequestDto();
         dto.setId(leaveRequest.getId());
         dto.setStartDate(leaveRequest.getStartDate());
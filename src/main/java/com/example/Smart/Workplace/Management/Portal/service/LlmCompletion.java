@@ -0,0 +1,9 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+/**
+ * Completion text with the provider-reported token counts (-1 when not reported)
+ *
+ * @param timeToFirstTokenNanos streams only, -1 when no token arrived
+ */
+public record LlmCompletion(String content, long promptTokens, long completionTokens, long timeToFirstTokenNanos) {
+}
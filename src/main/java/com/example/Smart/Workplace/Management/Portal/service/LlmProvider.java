@@ -0,0 +1,66 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * One upstream chat completion API
+ * Implementations own the wire format, credentials and resilience (retries, circuit breaker) for
+ * their endpoint; failed calls complete with an AIProviderException carrying a friendly message.
+ */
+public interface LlmProvider extends AutoCloseable {
+
+    /**
+     * A streamed completion in progress
+     */
+    interface StreamCall {
+
+        /**
+         * Completes when the stream ends; fails with AIProviderException, or CancellationException once cancelled
+         */
+        CompletableFuture<LlmCompletion> result();
+
+        /**
+         * Content and timings received so far
+         */
+        LlmCompletion partial();
+
+        void cancel();
+
+        boolean isCancelled();
+    }
+
+    String getName();
+
+    String getModel(ModelTier tier);
+
+    /**
+     * False while the circuit breaker rejects calls
+     */
+    boolean isAvailable();
+
+    /**
+     * Smallest remaining share (0..1) of the request and token rate limits last reported, 1 when unknown
+     */
+    double getRateLimitHeadroom();
+
+    /**
+     * Take one request and its estimated tokens from this provider's own per-minute budget; false when out of room
+     */
+    default boolean reserve(long estimatedTokens) {
+        return true;
+    }
+
+    CompletableFuture<LlmCompletion> complete(LlmRequest request, String model, long timeoutMillis);
+
+    /**
+     * Stream a completion; onToken runs on an OkHttp thread for every content delta
+     */
+    StreamCall stream(LlmRequest request, String model, Consumer<String> onToken);
+
+    Map<String, Object> getStatistics();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,47 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.Role;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+import java.util.List;
+
+/**
+ * Everything needed for one chat completion call, independent of the provider's wire format
+ */
+@Getter
+@Builder
+public class LlmRequest {
+
+    public static final String ROLE_USER = "user";
+    public static final String ROLE_ASSISTANT = "assistant";
+
+    /**
+     * One prior message of the conversation
+     */
+    public record Message(String role, String content) {
+    }
+
+    private final String systemPrompt;
+
+    // Earlier turns, oldest first
+    @Singular("historyMessage")
+    private final List<Message> history;
+
+    private final String userMessage;
+
+    @Builder.Default
+    private final double temperature = 0.7;
+
+    @Builder.Default
+    private final int maxTokens = 1000;
+
+    @Builder.Default
+    private final ModelTier tier = ModelTier.STANDARD;
+
+    // Who the call is made for; decides the scheduling lane and its weight (null = shared system lane)
+    private final Long userId;
+
+    private final Role role;
+}
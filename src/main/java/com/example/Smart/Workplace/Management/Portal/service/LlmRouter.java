@@ -0,0 +1,168 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Orders the LLM providers for each call by how they have been doing lately
+ * Every provider keeps an exponentially weighted moving average of its latency and error rate. The
+ * score is the latency, inflated by the error rate and by a nearly exhausted rate limit, plus a fixed
+ * cost per expected failure; lowest goes first and the rest are failover targets. Providers whose
+ * circuit is open go last. The error average fades while a provider is idle, and a small share of
+ * calls swaps the two best, so a recovered provider wins its traffic back.
+ */
+public class LlmRouter {
+
+    @Getter
+    @Builder
+    public static class Settings {
+        // Weight of the newest sample in the moving averages
+        @Builder.Default
+        private final double ewmaAlpha = 0.2;
+        // Extra latency charged per unit of error rate, roughly the cost of a failover detour
+        @Builder.Default
+        private final long errorCostMillis = 10000;
+        @Builder.Default
+        private final double lowHeadroom = 0.1;
+        @Builder.Default
+        private final double lowHeadroomPenalty = 4;
+        @Builder.Default
+        private final double explorationRate = 0.05;
+        @Builder.Default
+        private final long errorHalfLifeMillis = 60000;
+    }
+
+    private static final class Health {
+        private double latencyMillis = Double.NaN;
+        private double errorRate;
+        private long updatedAt;
+        private long successes;
+        private long failures;
+    }
+
+    private record Ranked(LlmProvider provider, boolean available, double score, int order) {
+    }
+
+    private final List<LlmProvider> providers;
+    private final Settings settings;
+    private final LongSupplier clock;
+    private final DoubleSupplier random;
+    private final Map<String, Health> health = new HashMap<>();
+
+    public LlmRouter(List<LlmProvider> providers, Settings settings) {
+        this(providers, settings, System::currentTimeMillis, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    LlmRouter(List<LlmProvider> providers, Settings settings, LongSupplier clock, DoubleSupplier random) {
+        if (providers.isEmpty()) {
+            throw new IllegalArgumentException("At least one LLM provider is required");
+        }
+        this.providers = List.copyOf(providers);
+        this.settings = settings;
+        this.clock = clock;
+        this.random = random;
+        providers.forEach(provider -> health.put(provider.getName(), new Health()));
+    }
+
+    /**
+     * Providers to try for one call, best first; ties keep the configured order
+     */
+    public List<LlmProvider> rank() {
+        long now = clock.getAsLong();
+        List<Ranked> ranked = new ArrayList<>(providers.size());
+        synchronized (this) {
+            double meanLatency = meanSampledLatency();
+            for (int i = 0; i < providers.size(); i++) {
+                LlmProvider provider = providers.get(i);
+                ranked.add(new Ranked(provider, provider.isAvailable(),
+                        score(health.get(provider.getName()), provider.getRateLimitHeadroom(), meanLatency, now), i));
+            }
+        }
+        ranked.sort(Comparator.comparing((Ranked r) -> !r.available())
+                .thenComparingDouble(Ranked::score)
+                .thenComparingInt(Ranked::order));
+
+        if (ranked.size() > 1 && ranked.get(1).available() && random.getAsDouble() < settings.getExplorationRate()) {
+            ranked.add(0, ranked.remove(1));
+        }
+        return ranked.stream().map(Ranked::provider).toList();
+    }
+
+    /**
+     * A call that succeeded; for streams pass the time to first token
+     */
+    public synchronized void recordSuccess(LlmProvider provider, long latencyNanos) {
+        Health h = health.get(provider.getName());
+        double latencyMillis = latencyNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        h.latencyMillis = Double.isNaN(h.latencyMillis)
+                ? latencyMillis : h.latencyMillis + settings.getEwmaAlpha() * (latencyMillis - h.latencyMillis);
+        h.errorRate = decayedErrorRate(h, clock.getAsLong()) * (1 - settings.getEwmaAlpha());
+        h.updatedAt = clock.getAsLong();
+        h.successes++;
+    }
+
+    public synchronized void recordFailure(LlmProvider provider) {
+        Health h = health.get(provider.getName());
+        h.errorRate = decayedErrorRate(h, clock.getAsLong()) * (1 - settings.getEwmaAlpha()) + settings.getEwmaAlpha();
+        h.updatedAt = clock.getAsLong();
+        h.failures++;
+    }
+
+    public synchronized Map<String, Object> getStatistics() {
+        long now = clock.getAsLong();
+        double meanLatency = meanSampledLatency();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (LlmProvider provider : providers) {
+            Health h = health.get(provider.getName());
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("available", provider.isAvailable());
+            entry.put("latencyMillis", Double.isNaN(h.latencyMillis) ? null : Math.round(h.latencyMillis));
+            entry.put("errorRate", Math.round(decayedErrorRate(h, now) * 1000) / 1000.0);
+            entry.put("rateLimitHeadroom", provider.getRateLimitHeadroom());
+            entry.put("score", Math.round(score(h, provider.getRateLimitHeadroom(), meanLatency, now)));
+            entry.put("successes", h.successes);
+            entry.put("failures", h.failures);
+            stats.put(provider.getName(), entry);
+        }
+        return stats;
+    }
+
+    // Caller holds the lock
+    private double score(Health h, double headroom, double meanLatency, long now) {
+        // Not measured yet: assume average so it gets tried without jumping the queue
+        double latency = Double.isNaN(h.latencyMillis) ? meanLatency : h.latencyMillis;
+        double errorRate = decayedErrorRate(h, now);
+        double score = latency + errorRate * settings.getErrorCostMillis();
+        return headroom < settings.getLowHeadroom() ? score * settings.getLowHeadroomPenalty() : score;
+    }
+
+    private double decayedErrorRate(Health h, long now) {
+        if (h.errorRate == 0 || h.updatedAt == 0) {
+            return h.errorRate;
+        }
+        return h.errorRate * Math.pow(0.5, (double) Math.max(0, now - h.updatedAt) / settings.getErrorHalfLifeMillis());
+    }
+
+    private double meanSampledLatency() {
+        double sum = 0;
+        int sampled = 0;
+        for (Health h : health.values()) {
+            if (!Double.isNaN(h.latencyMillis)) {
+                sum += h.latencyMillis;
+                sampled++;
+            }
+        }
+        return sampled == 0 ? 0 : sum / sampled;
+    }
+}
@@ -0,0 +1,586 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.exception.AIProviderException;
+import com.example.Smart.Workplace.Management.Portal.exception.ServiceOverloadedException;
+import com.example.Smart.Workplace.Management.Portal.model.Role;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Entry point for LLM calls: fair scheduling, request coalescing, provider routing and usage accounting
+ * Groq is always configured; a second OpenAI-compatible provider is added when llm.openai.api.key is set.
+ * The router picks the provider per call and a failed call moves on to the next one while the
+ * deadline allows (streams only until the first token); a provider that is not the last one only
+ * gets llm.failover.provider-share of the remaining deadline, so one that hangs still leaves time
+ * to fail over. Each provider has its own retry, breaker, hedge and rate-limit settings under its
+ * prefix (groq.* and llm.openai.*); the scheduler admits up to the sum of their rate limits.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LlmService {
+
+    private static final String GENERIC_ERROR = "Sorry, I encountered an error. Please try again.";
+
+    /**
+     * Receives a streamed completion; called on an OkHttp dispatcher thread
+     */
+    public interface StreamListener {
+        void onToken(String token);
+
+        void onComplete(String fullResponse);
+
+        /**
+         * The finished stream with the provider's token usage, where reported
+         */
+        default void onComplete(LlmCompletion completion) {
+            onComplete(completion.content());
+        }
+
+        void onError(String userMessage, Throwable cause);
+    }
+
+    @Value("${groq.api.key}")
+    private String apiKey;
+
+    @Value("${groq.model:llama-3.1-70b-versatile}")
+    private String model;
+
+    @Value("${groq.model.fast:llama-3.1-8b-instant}")
+    private String fastModel;
+
+    @Value("${groq.api.url:https://api.groq.com/openai/v1/chat/completions}")
+    private String apiUrl;
+
+    @Value("${llm.openai.name:openai}")
+    private String openAiName;
+
+    // Empty = no second provider
+    @Value("${llm.openai.api.key:}")
+    private String openAiApiKey;
+
+    @Value("${llm.openai.api.url:https://api.openai.com/v1/chat/completions}")
+    private String openAiApiUrl;
+
+    @Value("${llm.openai.model:gpt-4o-mini}")
+    private String openAiModel;
+
+    @Value("${llm.openai.model.fast:gpt-4o-mini}")
+    private String openAiFastModel;
+
+    @Value("${llm.router.ewma-alpha:0.2}")
+    private double routerEwmaAlpha;
+
+    @Value("${llm.router.error-cost-ms:10000}")
+    private long routerErrorCostMillis;
+
+    @Value("${llm.router.exploration-rate:0.05}")
+    private double routerExplorationRate;
+
+    @Value("${llm.router.error-half-life-ms:60000}")
+    private long routerErrorHalfLifeMillis;
+
+    @Value("${llm.openai.rate-limit.requests-per-minute:500}")
+    private long openAiRequestsPerMinute;
+
+    @Value("${llm.openai.rate-limit.tokens-per-minute:200000}")
+    private long openAiTokensPerMinute;
+
+    // A completion only fails over while at least this much of its deadline is left
+    @Value("${llm.failover.min-remaining-ms:2000}")
+    private long failoverMinRemainingMillis;
+
+    // Most of the remaining deadline a provider gets while another could still be tried
+    @Value("${llm.failover.provider-share:0.5}")
+    private double failoverProviderShare;
+
+    @Value("${groq.max-concurrency:16}")
+    private int maxConcurrency;
+
+    @Value("${groq.max-queued:32}")
+    private int maxQueued;
+
+    // Overall deadline for a non-streamed completion across all attempts, below the servlet async timeout
+    @Value("${groq.call-timeout-ms:25000}")
+    private long callTimeoutMillis;
+
+    @Value("${groq.single-flight.max-waiters:500}")
+    private int singleFlightMaxWaiters;
+
+    // Provider rate limit the scheduler keeps under
+    @Value("${groq.rate-limit.requests-per-minute:1000}")
+    private long requestsPerMinute;
+
+    @Value("${groq.rate-limit.tokens-per-minute:300000}")
+    private long tokensPerMinute;
+
+    @Value("${groq.fair.max-concurrency-per-user:2}")
+    private int maxConcurrencyPerUser;
+
+    @Value("${groq.fair.max-queued-per-user:4}")
+    private int maxQueuedPerUser;
+
+    @Value("${groq.fair.user-tokens-per-minute:20000}")
+    private long userTokensPerMinute;
+
+    @Value("${groq.fair.quantum-tokens:1000}")
+    private long quantumTokens;
+
+    @Value("${groq.fair.max-queue-wait-ms:20000}")
+    private long maxQueueWaitMillis;
+
+    @Value("${groq.fair.weight.employee:1}")
+    private int employeeWeight;
+
+    @Value("${groq.fair.weight.manager:2}")
+    private int managerWeight;
+
+    @Value("${groq.fair.weight.admin:2}")
+    private int adminWeight;
+
+    @Value("${groq.fair.weight.system:0.5}")
+    private double systemWeight;
+
+    private final TokenEstimator tokenEstimator;
+    private final LlmUsageRecorder usageRecorder;
+    private final Environment environment;
+
+    private Dispatcher dispatcher;
+    private FairLlmScheduler scheduler;
+    private List<LlmProvider> providers;
+    private LlmRouter router;
+    private SingleFlight<String, LlmCompletion> singleFlight;
+
+    /**
+     * All calls run on a dedicated, bounded dispatcher instead of servlet threads
+     * A per-user fair queue decides which call goes next: at most max-concurrency calls are in
+     * flight and max-queued wait (max-queued-per-user per user); anything beyond is rejected.
+     */
+    @PostConstruct
+    void init() {
+        ExecutorService executor = Executors.newCachedThreadPool(new CustomizableThreadFactory("llm-call-"));
+        dispatcher = new Dispatcher(executor);
+        dispatcher.setMaxRequests(maxConcurrency);
+        dispatcher.setMaxRequestsPerHost(maxConcurrency);
+        boolean secondProvider = !openAiApiKey.isBlank();
+        scheduler = new FairLlmScheduler(FairLlmScheduler.Settings.builder()
+                .maxConcurrency(maxConcurrency)
+                .maxQueued(maxQueued)
+                .maxConcurrencyPerUser(maxConcurrencyPerUser)
+                .maxQueuedPerUser(maxQueuedPerUser)
+                .userTokensPerMinute(userTokensPerMinute)
+                .requestsPerMinute(requestsPerMinute + (secondProvider ? openAiRequestsPerMinute : 0))
+                .tokensPerMinute(tokensPerMinute + (secondProvider ? openAiTokensPerMinute : 0))
+                .quantumTokens(quantumTokens)
+                .maxQueueWaitMillis(maxQueueWaitMillis)
+                .roleWeights(Map.of(Role.EMPLOYEE, employeeWeight, Role.MANAGER, managerWeight, Role.ADMIN, adminWeight))
+                .systemWeight(systemWeight)
+                .build());
+
+        // No client-wide call timeout: the executor sets one per attempt from the remaining deadline
+        OkHttpClient client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(maxConcurrency, 5, TimeUnit.MINUTES))
+                .connectTimeout(30, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .build();
+
+        providers = new ArrayList<>();
+        providers.add(new GroqProvider(OpenAiCompatibleProvider.Settings.builder()
+                .name("groq").url(apiUrl).apiKey(apiKey).model(model).fastModel(fastModel)
+                .requestsPerMinute(requestsPerMinute).tokensPerMinute(tokensPerMinute).build(),
+                client, resilience("groq"), LlmService::friendlyMessage));
+        if (secondProvider) {
+            providers.add(new OpenAiCompatibleProvider(OpenAiCompatibleProvider.Settings.builder()
+                    .name(openAiName).url(openAiApiUrl).apiKey(openAiApiKey).model(openAiModel).fastModel(openAiFastModel)
+                    .requestsPerMinute(openAiRequestsPerMinute).tokensPerMinute(openAiTokensPerMinute).build(),
+                    client, resilience("llm.openai"), LlmService::friendlyMessage));
+        }
+        router = new LlmRouter(providers, LlmRouter.Settings.builder()
+                .ewmaAlpha(routerEwmaAlpha)
+                .errorCostMillis(routerErrorCostMillis)
+                .explorationRate(routerExplorationRate)
+                .errorHalfLifeMillis(routerErrorHalfLifeMillis)
+                .build());
+        singleFlight = new SingleFlight<>(singleFlightMaxWaiters);
+        log.info("LLM providers: {}", providers.stream().map(LlmProvider::getName).toList());
+    }
+
+    /**
+     * Retry, breaker and hedge settings of one provider, e.g. groq.retry.max-attempts
+     */
+    private ResilientHttpExecutor.Settings resilience(String prefix) {
+        return ResilientHttpExecutor.Settings.builder()
+                .maxAttempts(environment.getProperty(prefix + ".retry.max-attempts", Integer.class, 3))
+                .baseBackoffMillis(environment.getProperty(prefix + ".retry.base-backoff-ms", Long.class, 250L))
+                .maxBackoffMillis(environment.getProperty(prefix + ".retry.max-backoff-ms", Long.class, 4000L))
+                .maxRetryAfterMillis(environment.getProperty(prefix + ".retry.max-retry-after-ms", Long.class, 10000L))
+                .retryBudgetRatio(environment.getProperty(prefix + ".retry.budget-ratio", Double.class, 0.2))
+                .retryBudgetMinPerSecond(environment.getProperty(prefix + ".retry.budget-min-per-second", Double.class, 1.0))
+                .breakerWindowSize(environment.getProperty(prefix + ".breaker.window-size", Integer.class, 20))
+                .breakerMinimumCalls(environment.getProperty(prefix + ".breaker.minimum-calls", Integer.class, 10))
+                .breakerFailureRate(environment.getProperty(prefix + ".breaker.failure-rate", Double.class, 0.5))
+                .breakerOpenMillis(environment.getProperty(prefix + ".breaker.open-ms", Long.class, 30000L))
+                .hedgeEnabled(environment.getProperty(prefix + ".hedge.enabled", Boolean.class, false))
+                .hedgeMinDelayMillis(environment.getProperty(prefix + ".hedge.min-delay-ms", Long.class, 1000L))
+                .hedgeMinSamples(environment.getProperty(prefix + ".hedge.min-samples", Long.class, 50L))
+                .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.close();
+        providers.forEach(LlmProvider::close);
+        dispatcher.cancelAll();
+        dispatcher.executorService().shutdown();
+    }
+
+    /**
+     * Non-blocking completion with retries, circuit breaking, failover and (optionally) hedging;
+     * failures complete the future with an AIProviderException carrying a friendly message
+     * Identical requests already in flight (same tier and prompt) share that call and its
+     * scheduling slot, so a burst of the same question costs one upstream request (and its usage
+     * is recorded once, for the caller that made it).
+     *
+     * @throws ServiceOverloadedException when the user's lane or the global queue is full
+     */
+    public CompletableFuture<String> getChatCompletionAsync(LlmRequest llmRequest) {
+        return getCompletionAsync(llmRequest).thenApply(LlmCompletion::content);
+    }
+
+    /**
+     * As getChatCompletionAsync, with the token usage the provider reported (-1 where it did not)
+     */
+    public CompletableFuture<LlmCompletion> getCompletionAsync(LlmRequest llmRequest) {
+        return singleFlight.execute(requestKey(llmRequest), () -> scheduler.submit(
+                        llmRequest.getUserId(), llmRequest.getRole(), estimateTokens(llmRequest),
+                        () -> completeVia(router.rank(), 0, llmRequest, System.currentTimeMillis() + callTimeoutMillis)),
+                        callTimeoutMillis)
+                .exceptionally(error -> {
+                    throw asProviderError(error);
+                });
+    }
+
+    /**
+     * Stream a completion token by token (stream: true); run the returned canceller to stop early
+     * Only establishing the stream is retried or failed over; once tokens flow, a failure ends the stream.
+     * A stream holds one concurrency slot for its whole duration.
+     *
+     * @throws ServiceOverloadedException when the user's lane or the global queue is full
+     */
+    public Runnable streamChatCompletion(LlmRequest llmRequest, StreamListener listener) {
+        AtomicReference<LlmProvider.StreamCall> current = new AtomicReference<>();
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        CompletableFuture<Void> scheduled = scheduler.submit(
+                llmRequest.getUserId(), llmRequest.getRole(), estimateTokens(llmRequest), () -> {
+                    CompletableFuture<Void> done = new CompletableFuture<>();
+                    streamVia(router.rank(), 0, llmRequest, listener, current, cancelled, done);
+                    return done;
+                });
+
+        // Never started: expired in the queue
+        scheduled.whenComplete((ignored, error) -> {
+            if (error != null && current.get() == null && !(error instanceof CancellationException)) {
+                listener.onError(error instanceof ServiceOverloadedException ? error.getMessage() : GENERIC_ERROR, error);
+            }
+        });
+
+        return () -> {
+            cancelled.set(true);
+            scheduled.cancel(false);
+            LlmProvider.StreamCall call = current.get();
+            if (call != null) {
+                call.cancel();
+            }
+        };
+    }
+
+    public int getActiveCalls() {
+        return scheduler.getRunning();
+    }
+
+    public int getQueuedCalls() {
+        return scheduler.getQueued();
+    }
+
+    public Map<String, Object> getResilienceStatistics() {
+        Map<String, Object> perProvider = new LinkedHashMap<>();
+        providers.forEach(provider -> perProvider.put(provider.getName(), provider.getStatistics()));
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("providers", perProvider);
+        stats.put("routing", router.getStatistics());
+        stats.put("singleFlight", singleFlight.getStatistics());
+        stats.put("scheduler", scheduler.getStatistics());
+        return stats;
+    }
+
+    /**
+     * Try providers in ranked order until one answers or the deadline runs short
+     */
+    private CompletableFuture<LlmCompletion> completeVia(List<LlmProvider> ranked, int index, LlmRequest llmRequest,
+                                                         long deadline) {
+        ranked = withBudgetFirst(ranked, index, estimateTokens(llmRequest));
+        LlmProvider provider = ranked.get(index);
+        String providerModel = provider.getModel(llmRequest.getTier());
+        long startedNanos = System.nanoTime();
+        List<LlmProvider> order = ranked;
+
+        return provider.complete(llmRequest, providerModel, attemptTimeoutMillis(deadline, index + 1 < ranked.size()))
+                .handle((completion, error) -> {
+                    recordUsage(llmRequest, providerModel, false, startedNanos, completion, error, false);
+                    if (error == null) {
+                        router.recordSuccess(provider, System.nanoTime() - startedNanos);
+                        return CompletableFuture.completedFuture(completion);
+                    }
+                    router.recordFailure(provider);
+                    if (index + 1 < order.size() && isFailoverable(error)
+                            && deadline - System.currentTimeMillis() >= failoverMinRemainingMillis) {
+                        log.warn("{} failed ({}), failing over to {}", provider.getName(),
+                                unwrap(error).getMessage(), order.get(index + 1).getName());
+                        return completeVia(order, index + 1, llmRequest, deadline);
+                    }
+                    return CompletableFuture.<LlmCompletion>failedFuture(error);
+                })
+                .thenCompose(Function.identity());
+    }
+
+    /**
+     * Open the stream on the best provider; if it fails before the first token, try the next one
+     */
+    private void streamVia(List<LlmProvider> ranked, int index, LlmRequest llmRequest, StreamListener listener,
+                           AtomicReference<LlmProvider.StreamCall> current, AtomicBoolean cancelled,
+                           CompletableFuture<Void> done) {
+        ranked = withBudgetFirst(ranked, index, estimateTokens(llmRequest));
+        List<LlmProvider> order = ranked;
+        LlmProvider provider = ranked.get(index);
+        String providerModel = provider.getModel(llmRequest.getTier());
+        long startedNanos = System.nanoTime();
+
+        LlmProvider.StreamCall call = provider.stream(llmRequest, providerModel, listener::onToken);
+        current.set(call);
+        if (cancelled.get()) {
+            call.cancel(); // cancelled while this provider was being picked
+        }
+
+        call.result().whenComplete((completion, error) -> {
+            if (error == null) {
+                long firstToken = completion.timeToFirstTokenNanos();
+                router.recordSuccess(provider, firstToken >= 0 ? firstToken : System.nanoTime() - startedNanos);
+                recordUsage(llmRequest, providerModel, true, startedNanos, completion, null, false);
+                listener.onComplete(completion);
+                done.complete(null);
+                return;
+            }
+
+            LlmCompletion partial = call.partial();
+            boolean wasCancelled = cancelled.get() || call.isCancelled() || unwrap(error) instanceof CancellationException;
+            // Never reached the provider (no response) counts no tokens
+            recordUsage(llmRequest, providerModel, true, startedNanos,
+                    partial.timeToFirstTokenNanos() >= 0 || partial.promptTokens() >= 0 ? partial : null, error, wasCancelled);
+            if (wasCancelled) {
+                log.debug("Streaming call cancelled");
+                done.complete(null);
+                return;
+            }
+
+            router.recordFailure(provider);
+            if (partial.content().isEmpty() && index + 1 < order.size() && isFailoverable(error)) {
+                log.warn("{} stream failed before the first token ({}), failing over to {}", provider.getName(),
+                        unwrap(error).getMessage(), order.get(index + 1).getName());
+                streamVia(order, index + 1, llmRequest, listener, current, cancelled, done);
+                return;
+            }
+            reportStreamFailure(error, listener);
+            done.complete(null);
+        });
+    }
+
+    /**
+     * The first provider from index on with room in its own rate limit moves to index
+     * When none has room the order stays: the scheduler's admission budget still bounds the total.
+     */
+    private static List<LlmProvider> withBudgetFirst(List<LlmProvider> ranked, int index, long estimatedTokens) {
+        for (int i = index; i < ranked.size(); i++) {
+            if (ranked.get(i).reserve(estimatedTokens)) {
+                if (i == index) {
+                    return ranked;
+                }
+                List<LlmProvider> reordered = new ArrayList<>(ranked);
+                reordered.add(index, reordered.remove(i));
+                return reordered;
+            }
+        }
+        return ranked;
+    }
+
+    /**
+     * The remaining deadline, or only a share of it while another provider could take over
+     */
+    private long attemptTimeoutMillis(long deadline, boolean canFailOver) {
+        long remaining = Math.max(1, deadline - System.currentTimeMillis());
+        if (!canFailOver || remaining <= failoverMinRemainingMillis) {
+            return remaining;
+        }
+        long share = (long) (remaining * failoverProviderShare);
+        return Math.max(1, Math.min(share, remaining - failoverMinRemainingMillis));
+    }
+
+    /**
+     * Another provider may succeed on I/O errors, auth problems, rate limits and server errors,
+     * but not on a request the API rejected as invalid
+     */
+    private static boolean isFailoverable(Throwable error) {
+        if (!(unwrap(error) instanceof AIProviderException providerError)) {
+            return true;
+        }
+        int status = providerError.getStatusCode();
+        return status == 0 || status == 401 || status == 403 || status == 408 || status == 429 || status >= 500;
+    }
+
+    /**
+     * Tokens the call may consume: the prompt as sent plus the full completion allowance
+     */
+    private long estimateTokens(LlmRequest llmRequest) {
+        long tokens = tokenEstimator.estimateMessage(llmRequest.getSystemPrompt())
+                + tokenEstimator.estimateMessage(llmRequest.getUserMessage());
+        for (LlmRequest.Message previous : llmRequest.getHistory()) {
+            tokens += tokenEstimator.estimateMessage(previous.content());
+        }
+        return tokens + llmRequest.getMaxTokens();
+    }
+
+    /**
+     * Hand one finished upstream call to the usage recorder
+     * Token counts come from the provider's usage block. A stream that broke off mid-way has none,
+     * so its prompt and the content that arrived are estimated locally; a call that never got a
+     * response (completion == null) counts no tokens.
+     */
+    private void recordUsage(LlmRequest llmRequest, String providerModel, boolean streaming, long startedNanos,
+                             LlmCompletion completion, Throwable error, boolean cancelled) {
+        try {
+            long promptTokens = 0;
+            long completionTokens = 0;
+            if (completion != null) {
+                promptTokens = completion.promptTokens() >= 0
+                        ? completion.promptTokens() : estimateTokens(llmRequest) - llmRequest.getMaxTokens();
+                completionTokens = completion.completionTokens() >= 0
+                        ? completion.completionTokens() : tokenEstimator.estimate(completion.content());
+            }
+            usageRecorder.record(LlmUsageRecorder.Call.builder()
+                    .userId(llmRequest.getUserId())
+                    .role(llmRequest.getRole())
+                    .model(providerModel)
+                    .streaming(streaming)
+                    .status(error == null ? 200 : upstreamStatus(error))
+                    .cancelled(cancelled || unwrap(error) instanceof CancellationException)
+                    .latencyNanos(System.nanoTime() - startedNanos)
+                    .timeToFirstTokenNanos(completion != null ? completion.timeToFirstTokenNanos() : -1)
+                    .promptTokens(promptTokens)
+                    .completionTokens(completionTokens)
+                    .build());
+        } catch (RuntimeException e) {
+            log.warn("Could not record LLM usage", e);
+        }
+    }
+
+    private static int upstreamStatus(Throwable error) {
+        return unwrap(error) instanceof AIProviderException providerError ? providerError.getStatusCode() : 0;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static void reportStreamFailure(Throwable error, StreamListener listener) {
+        if (unwrap(error) instanceof AIProviderException providerError) {
+            listener.onError(providerError.getMessage(), providerError);
+            return;
+        }
+        log.error("Error calling API (stream)", error);
+        listener.onError(GENERIC_ERROR, error);
+    }
+
+    /**
+     * A waiter that gave up, or a call that expired in the queue, gets the usual friendly failure
+     */
+    private static CompletionException asProviderError(Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof TimeoutException) {
+            return new CompletionException(new AIProviderException(friendlyMessage(0), 0, cause));
+        }
+        if (cause instanceof ServiceOverloadedException) {
+            // Waited too long in the fair queue
+            return new CompletionException(new AIProviderException(cause.getMessage(), 503, cause));
+        }
+        return error instanceof CompletionException completionError ? completionError : new CompletionException(error);
+    }
+
+    /**
+     * Coalescing key: the same prompt for the same tier gets the same answer from whichever provider
+     */
+    private static String requestKey(LlmRequest llmRequest) {
+        StringBuilder key = new StringBuilder()
+                .append(llmRequest.getTier()).append('\u0000')
+                .append(llmRequest.getTemperature()).append('\u0000')
+                .append(llmRequest.getMaxTokens()).append('\u0000')
+                .append(llmRequest.getSystemPrompt()).append('\u0000');
+        for (LlmRequest.Message previous : llmRequest.getHistory()) {
+            key.append(previous.role()).append('\u0000').append(previous.content()).append('\u0000');
+        }
+        key.append(llmRequest.getUserMessage());
+        return llmRequest.getTier() + "|" + sha256(key.toString());
+    }
+
+    private static String sha256(String text) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * User-facing message for a failed call by upstream status (0 = I/O error)
+     */
+    static String friendlyMessage(int status) {
+        return switch (status) {
+            case 0 -> GENERIC_ERROR;
+            case 429 -> "⚠️ I'm experiencing high demand right now. Please try again in a moment.";
+            case 401 -> "⚠️ Authentication error. Please contact your administrator.";
+            case 503 -> "⚠️ The AI assistant is temporarily unavailable. Please try again in a little while.";
+            default -> "⚠️ I'm having trouble connecting. Please try again.";
+        };
+    }
+}
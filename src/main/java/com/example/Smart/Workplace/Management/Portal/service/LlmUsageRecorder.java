@@ -0,0 +1,325 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.Role;
+import com.example.Smart.Workplace.Management.Portal.repository.LlmUsageDailyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Latency, token and cost accounting for upstream LLM calls
+ * Every call is published as Micrometer meters tagged by model, role and status only, so the
+ * series count stays bounded. Per-user figures are summed in memory per day x user x model and
+ * upserted into llm_usage_daily on a schedule, which is what the admin rollup reads.
+ */
+@Component
+@Slf4j
+public class LlmUsageRecorder {
+
+    private static final String UPSERT_SQL = "INSERT INTO llm_usage_daily " +
+            "(usage_date, user_id, model, request_count, error_count, prompt_tokens, completion_tokens, cost_usd, total_latency_ms) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (usage_date, user_id, model) DO UPDATE SET " +
+            "request_count = llm_usage_daily.request_count + EXCLUDED.request_count, " +
+            "error_count = llm_usage_daily.error_count + EXCLUDED.error_count, " +
+            "prompt_tokens = llm_usage_daily.prompt_tokens + EXCLUDED.prompt_tokens, " +
+            "completion_tokens = llm_usage_daily.completion_tokens + EXCLUDED.completion_tokens, " +
+            "cost_usd = llm_usage_daily.cost_usd + EXCLUDED.cost_usd, " +
+            "total_latency_ms = llm_usage_daily.total_latency_ms + EXCLUDED.total_latency_ms";
+
+    private static final Set<String> GROUPINGS = Set.of("day", "model", "user");
+    private static final long SYSTEM_USER_ID = 0L;
+    private static final int MAX_RANGE_DAYS = 366;
+    private static final double TOKENS_PER_PRICE_UNIT = 1_000_000.0;
+
+    /**
+     * One finished upstream call
+     *
+     * @param status                upstream HTTP status, 0 for I/O errors and timeouts
+     * @param timeToFirstTokenNanos streams only, -1 when no token arrived
+     */
+    @Builder
+    public record Call(Long userId, Role role, String model, boolean streaming, int status, boolean cancelled,
+                       long latencyNanos, long timeToFirstTokenNanos, long promptTokens, long completionTokens) {
+
+        boolean failed() {
+            return !cancelled && (status < 200 || status >= 300);
+        }
+    }
+
+    /**
+     * USD per million prompt and completion tokens
+     */
+    record Price(double prompt, double completion) {
+    }
+
+    private record Key(LocalDate day, long userId, String model) {
+    }
+
+    private static final class Totals {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder promptTokens = new LongAdder();
+        private final LongAdder completionTokens = new LongAdder();
+        private final LongAdder latencyMillis = new LongAdder();
+        private final DoubleAdder costUsd = new DoubleAdder();
+
+        void add(Totals other) {
+            requests.add(other.requests.sum());
+            errors.add(other.errors.sum());
+            promptTokens.add(other.promptTokens.sum());
+            completionTokens.add(other.completionTokens.sum());
+            latencyMillis.add(other.latencyMillis.sum());
+            costUsd.add(other.costUsd.sum());
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LlmUsageDailyRepository usageRepository;
+    private final Map<String, Price> pricing;
+
+    // Recorders share the read lock; a flush takes the write lock only to swap the map
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private Map<Key, Totals> unflushed = new ConcurrentHashMap<>();
+    private final Set<String> unpricedModels = ConcurrentHashMap.newKeySet();
+
+    public LlmUsageRecorder(
+            MeterRegistry meterRegistry,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            LlmUsageDailyRepository usageRepository,
+            @Value("${ai.pricing:llama-3.1-70b-versatile=0.59/0.79,llama-3.3-70b-versatile=0.59/0.79,llama-3.1-8b-instant=0.05/0.08}")
+            String pricing) {
+        this.meterRegistry = meterRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.usageRepository = usageRepository;
+        this.pricing = parsePricing(pricing);
+    }
+
+    public void record(Call call) {
+        String role = call.role() != null ? call.role().name() : "SYSTEM";
+        String status = call.cancelled() ? "cancelled" : String.valueOf(call.status());
+        double cost = cost(call.model(), call.promptTokens(), call.completionTokens());
+
+        Timer.builder("llm.request.duration")
+                .description("Upstream LLM call latency, including retries")
+                .tags("model", call.model(), "role", role, "mode", call.streaming() ? "stream" : "completion",
+                        "status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(call.latencyNanos(), TimeUnit.NANOSECONDS);
+        if (call.timeToFirstTokenNanos() >= 0) {
+            Timer.builder("llm.stream.time-to-first-token")
+                    .tags("model", call.model(), "role", role)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(call.timeToFirstTokenNanos(), TimeUnit.NANOSECONDS);
+        }
+        Counter.builder("llm.tokens").tags("model", call.model(), "role", role, "type", "prompt")
+                .register(meterRegistry).increment(call.promptTokens());
+        Counter.builder("llm.tokens").tags("model", call.model(), "role", role, "type", "completion")
+                .register(meterRegistry).increment(call.completionTokens());
+        Counter.builder("llm.cost").baseUnit("usd").tags("model", call.model(), "role", role)
+                .register(meterRegistry).increment(cost);
+
+        Key key = new Key(LocalDate.now(), call.userId() != null ? call.userId() : SYSTEM_USER_ID, call.model());
+        swapLock.readLock().lock();
+        try {
+            Totals totals = unflushed.computeIfAbsent(key, k -> new Totals());
+            totals.requests.increment();
+            if (call.failed()) {
+                totals.errors.increment();
+            }
+            totals.promptTokens.add(call.promptTokens());
+            totals.completionTokens.add(call.completionTokens());
+            totals.latencyMillis.add(TimeUnit.NANOSECONDS.toMillis(call.latencyNanos()));
+            totals.costUsd.add(cost);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Upsert the in-memory totals into llm_usage_daily as one JDBC batch
+     * On failure the totals are put back and retried on the next tick.
+     */
+    @Scheduled(fixedDelayString = "${ai.usage.flush-interval-ms:60000}")
+    @PreDestroy
+    public synchronized void flush() {
+        Map<Key, Totals> drained;
+        swapLock.writeLock().lock();
+        try {
+            drained = unflushed;
+            unflushed = new ConcurrentHashMap<>();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<Key, Totals>> rows = new ArrayList<>(drained.entrySet());
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, row) -> {
+                        Key key = row.getKey();
+                        Totals totals = row.getValue();
+                        ps.setDate(1, Date.valueOf(key.day()));
+                        ps.setLong(2, key.userId());
+                        ps.setString(3, key.model());
+                        ps.setLong(4, totals.requests.sum());
+                        ps.setLong(5, totals.errors.sum());
+                        ps.setLong(6, totals.promptTokens.sum());
+                        ps.setLong(7, totals.completionTokens.sum());
+                        ps.setBigDecimal(8, BigDecimal.valueOf(totals.costUsd.sum()).setScale(6, RoundingMode.HALF_UP));
+                        ps.setLong(9, totals.latencyMillis.sum());
+                    }));
+        } catch (DataAccessException e) {
+            log.warn("Could not flush {} LLM usage row(s), keeping them for the next attempt", rows.size(), e);
+            swapLock.readLock().lock();
+            try {
+                rows.forEach(row -> unflushed.computeIfAbsent(row.getKey(), k -> new Totals()).add(row.getValue()));
+            } finally {
+                swapLock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Requests, errors, tokens, cost and mean latency between two days (inclusive),
+     * grouped by day, model or user, with overall totals
+     */
+    public Map<String, Object> getUsage(LocalDate from, LocalDate to, String groupBy) {
+        String grouping = groupBy.toLowerCase(Locale.ROOT);
+        if (!GROUPINGS.contains(grouping)) {
+            throw new IllegalArgumentException("groupBy must be one of day, model, user");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+        flush();
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        long[] totals = new long[5];
+        BigDecimal totalCost = BigDecimal.ZERO;
+        List<Object[]> results = switch (grouping) {
+            case "day" -> usageRepository.rollupByDay(from, to);
+            case "model" -> usageRepository.rollupByModel(from, to);
+            default -> usageRepository.rollupByUser(from, to);
+        };
+        for (Object[] result : results) {
+            int metrics = result.length - 6;
+            Map<String, Object> row = new LinkedHashMap<>();
+            switch (grouping) {
+                case "day" -> row.put("day", result[0].toString());
+                case "model" -> row.put("model", result[0]);
+                default -> {
+                    row.put("userId", result[0]);
+                    row.put("name", result[1] + " " + result[2]);
+                    row.put("role", result[3]);
+                }
+            }
+            row.putAll(usageFigures(result, metrics));
+            rows.add(row);
+
+            totals[0] += ((Number) result[metrics]).longValue();
+            totals[1] += ((Number) result[metrics + 1]).longValue();
+            totals[2] += ((Number) result[metrics + 2]).longValue();
+            totals[3] += ((Number) result[metrics + 3]).longValue();
+            totals[4] += ((Number) result[metrics + 5]).longValue();
+            totalCost = totalCost.add((BigDecimal) result[metrics + 4]);
+        }
+
+        Map<String, Object> usage = new LinkedHashMap<>();
+        usage.put("from", from.toString());
+        usage.put("to", to.toString());
+        usage.put("groupBy", grouping);
+        usage.put("totals", usageFigures(new Object[]{totals[0], totals[1], totals[2], totals[3], totalCost, totals[4]}, 0));
+        usage.put("rows", rows);
+        return usage;
+    }
+
+    double cost(String model, long promptTokens, long completionTokens) {
+        Price price = pricing.get(model);
+        if (price == null) {
+            if (unpricedModels.add(model)) {
+                log.warn("No price configured for model {} (ai.pricing), its cost is reported as 0", model);
+            }
+            return 0;
+        }
+        return (promptTokens * price.prompt() + completionTokens * price.completion()) / TOKENS_PER_PRICE_UNIT;
+    }
+
+    /**
+     * Parse "model=promptPrice/completionPrice,..." with prices in USD per million tokens
+     */
+    static Map<String, Price> parsePricing(String spec) {
+        Map<String, Price> prices = new HashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return prices;
+        }
+        for (String entry : spec.split(",")) {
+            String[] modelAndPrices = entry.trim().split("=", 2);
+            String[] parts = modelAndPrices.length == 2 ? modelAndPrices[1].split("/", 2) : new String[0];
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid ai.pricing entry '" + entry + "', expected model=prompt/completion");
+            }
+            prices.put(modelAndPrices[0].trim(),
+                    new Price(Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim())));
+        }
+        return prices;
+    }
+
+    /**
+     * Figures from [requests, errors, promptTokens, completionTokens, costUsd, totalLatencyMs] starting at offset
+     */
+    private static Map<String, Object> usageFigures(Object[] result, int offset) {
+        long requests = ((Number) result[offset]).longValue();
+        long errors = ((Number) result[offset + 1]).longValue();
+        long latencyMillis = ((Number) result[offset + 5]).longValue();
+
+        Map<String, Object> figures = new LinkedHashMap<>();
+        figures.put("requests", requests);
+        figures.put("errors", errors);
+        figures.put("errorRate", requests == 0 ? 0.0 : Math.round(errors * 1000.0 / requests) / 1000.0);
+        figures.put("promptTokens", ((Number) result[offset + 2]).longValue());
+        figures.put("completionTokens", ((Number) result[offset + 3]).longValue());
+        figures.put("costUsd", ((BigDecimal) result[offset + 4]).setScale(4, RoundingMode.HALF_UP));
+        figures.put("avgLatencyMs", requests == 0 ? 0 : latencyMillis / requests);
+        return figures;
+    }
+}
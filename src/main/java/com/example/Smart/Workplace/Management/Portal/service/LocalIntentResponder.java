@@ -0,0 +1,123 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.ChatIntent;
+import com.example.Smart.Workplace.Management.Portal.model.Complaint;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintStatus;
+import com.example.Smart.Workplace.Management.Portal.model.LeaveRequest;
+import com.example.Smart.Workplace.Management.Portal.model.LeaveStatus;
+import com.example.Smart.Workplace.Management.Portal.model.User;
+import com.example.Smart.Workplace.Management.Portal.repository.ComplaintRepository;
+import com.example.Smart.Workplace.Management.Portal.repository.LeaveRequestRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Answers structured assistant intents straight from the database, no LLM involved
+ */
+@Component
+@RequiredArgsConstructor
+public class LocalIntentResponder {
+
+    private static final int MAX_LISTED = 5;
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("EEE d MMM yyyy");
+
+    private final LeaveService leaveService;
+    private final LeaveRequestRepository leaveRequestRepository;
+    private final ComplaintRepository complaintRepository;
+
+    /**
+     * Answer for a data intent, or null for intents that need the LLM
+     */
+    public String answer(ChatIntent intent, User user) {
+        return switch (intent) {
+            case LEAVE_BALANCE -> leaveBalance(user);
+            case PENDING_LEAVES -> pendingLeaves(user);
+            case UPCOMING_LEAVES -> upcomingLeaves(user);
+            case COMPLAINT_STATUS -> complaintStatus(user);
+            case GENERAL -> null;
+        };
+    }
+
+    private String leaveBalance(User user) {
+        int allowance = leaveService.getAnnualAllowanceDays();
+        long used = leaveService.getUsedLeaveDaysThisYear(user.getId());
+        long pending = leaveRequestRepository.countByEmployeeIdAndStatus(user.getId(), LeaveStatus.PENDING);
+
+        StringBuilder answer = new StringBuilder()
+                .append("You have ").append(Math.max(allowance - used, 0)).append(" of your ").append(allowance)
+                .append(" annual leave days remaining for ").append(LocalDate.now().getYear())
+                .append(" (").append(used).append(" approved so far).");
+        if (pending > 0) {
+            answer.append(" ").append(pending).append(pending == 1 ? " request is" : " requests are")
+                    .append(" still waiting for approval.");
+        }
+        return answer.toString();
+    }
+
+    private String pendingLeaves(User user) {
+        List<LeaveRequest> pending = leaveRequestRepository.findPendingByEmployeeId(user.getId()).stream()
+                .sorted(Comparator.comparing(LeaveRequest::getStartDate))
+                .toList();
+        if (pending.isEmpty()) {
+            return "You have no leave requests waiting for approval.";
+        }
+        return listLeaves("You have " + pending.size() + " leave request(s) waiting for approval:", pending);
+    }
+
+    private String upcomingLeaves(User user) {
+        List<LeaveRequest> upcoming = leaveRequestRepository
+                .findByEmployeeIdAndStatusAndEndDateGreaterThanEqualOrderByStartDateAsc(
+                        user.getId(), LeaveStatus.APPROVED, LocalDate.now());
+        if (upcoming.isEmpty()) {
+            return "You have no approved leave coming up.";
+        }
+        return listLeaves("Your upcoming approved leave:", upcoming);
+    }
+
+    private String complaintStatus(User user) {
+        List<Complaint> complaints = complaintRepository.findByUserId(user.getId());
+        if (complaints.isEmpty()) {
+            return "You have not filed any complaints.";
+        }
+
+        List<Complaint> active = complaints.stream()
+                .filter(c -> c.getStatus() == ComplaintStatus.OPEN || c.getStatus() == ComplaintStatus.IN_PROGRESS)
+                .sorted(Comparator.comparing(Complaint::getSubmittedAt, Comparator.nullsLast(Comparator.reverseOrder())))
+                .toList();
+        long closed = complaints.size() - active.size();
+
+        StringBuilder answer = new StringBuilder();
+        if (active.isEmpty()) {
+            answer.append("None of your complaints are open.");
+        } else {
+            answer.append("You have ").append(active.size()).append(" open complaint(s):");
+            active.stream().limit(MAX_LISTED).forEach(c -> answer.append("\n- #").append(c.getId())
+                    .append(" \"").append(c.getTitle()).append("\": ").append(c.getStatus())
+                    .append(c.getAssignedTo() != null ? ", handled by " + c.getAssignedTo().getFullName() : ", not yet assigned"));
+            if (active.size() > MAX_LISTED) {
+                answer.append("\n...and ").append(active.size() - MAX_LISTED).append(" more.");
+            }
+        }
+        if (closed > 0) {
+            answer.append("\n").append(closed).append(" complaint(s) have been resolved or closed.");
+        }
+        return answer.toString();
+    }
+
+    private static String listLeaves(String heading, List<LeaveRequest> leaves) {
+        StringBuilder answer = new StringBuilder(heading);
+        leaves.stream().limit(MAX_LISTED).forEach(leave -> answer.append("\n- ")
+                .append(leave.getStartDate().format(DATE)).append(" to ").append(leave.getEndDate().format(DATE))
+                .append(" (").append(ChronoUnit.DAYS.between(leave.getStartDate(), leave.getEndDate()) + 1).append(" days)"));
+        if (leaves.size() > MAX_LISTED) {
+            answer.append("\n...and ").append(leaves.size() - MAX_LISTED).append(" more.");
+        }
+        return answer.toString();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-bucketed histogram for positive durations/values
+ * Bucket i covers [GAMMA^i, GAMMA^(i+1)), so every quantile is reported within ~5% relative error
+ * with a fixed 200-slot footprint. Histograms with the same layout merge by adding counts.
+ * Recording is lock-free.
+ */
+public class LogHistogram {
+
+    private static final double GAMMA = 1.1;
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final int BUCKETS = 200; // 1.1^200 ~ 1.9e8, i.e. ~6 years in seconds
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    public void record(long value) {
+        long clamped = Math.max(value, 0);
+        counts.incrementAndGet(bucketOf(clamped));
+        count.increment();
+        sum.add(clamped);
+    }
+
+    /**
+     * Add all counts of another histogram into this one
+     */
+    public void merge(LogHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) {
+                counts.addAndGet(i, c);
+            }
+        }
+        count.add(other.count.sum());
+        sum.add(other.sum.sum());
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Approximate value at the given quantile (0..1), 0 when empty
+     */
+    public double percentile(double quantile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return bucketMidpoint(i);
+            }
+        }
+        return bucketMidpoint(BUCKETS - 1);
+    }
+
+    private static int bucketOf(long value) {
+        if (value <= 1) {
+            return 0;
+        }
+        return Math.min((int) (Math.log(value) / LOG_GAMMA), BUCKETS - 1);
+    }
+
+    private static double bucketMidpoint(int bucket) {
+        if (bucket == 0) {
+            return 1;
+        }
+        return Math.pow(GAMMA, bucket) * (1 + GAMMA) / 2;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Continuously refilled per-minute budget; a request larger than the whole budget runs once it is full
+ * Not thread-safe: callers hold their own lock.
+ */
+final class MinuteBudget {
+
+    private static final long MILLIS_PER_MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    private final double capacity;
+    private double available;
+    private long lastRefill;
+
+    MinuteBudget(long perMinute, long now) {
+        this.capacity = perMinute;
+        this.available = perMinute;
+        this.lastRefill = now;
+    }
+
+    void refill(long now) {
+        available = Math.min(capacity, available + (now - lastRefill) * capacity / MILLIS_PER_MINUTE);
+        lastRefill = now;
+    }
+
+    boolean canAfford(long amount) {
+        return available >= Math.min(amount, capacity);
+    }
+
+    void charge(long amount) {
+        available -= amount;
+    }
+
+    boolean isFull() {
+        return available >= capacity;
+    }
+
+    double getAvailable() {
+        return available;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+/**
+ * Size of model a request needs; every provider maps each tier to one of its models
+ */
+public enum ModelTier {
+    // Short, factual answers where latency matters more than depth
+    FAST,
+    // Open-ended answers
+    STANDARD
+}
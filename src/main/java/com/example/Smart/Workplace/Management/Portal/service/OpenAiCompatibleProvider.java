@@ -0,0 +1,379 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.exception.AIProviderException;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Provider for any endpoint speaking the OpenAI chat completions protocol
+ * Calls go through a ResilientHttpExecutor of their own, so retries and the circuit breaker are
+ * per provider. The x-ratelimit-* headers of every successful response are kept as headroom.
+ */
+@Slf4j
+public class OpenAiCompatibleProvider implements LlmProvider {
+
+    private static final String SSE_DATA_PREFIX = "data:";
+    private static final String SSE_DONE = "[DONE]";
+    private static final MediaType JSON = MediaType.parse("application/json");
+    // Reported limits reset within a minute (tokens) or a day (requests); stop trusting stale ones
+    private static final long HEADROOM_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    @Getter
+    @Builder
+    public static class Settings {
+        private final String name;
+        private final String url;
+        private final String apiKey;
+        private final String model;
+        // Model for ModelTier.FAST, the standard model when not set
+        private final String fastModel;
+        // This endpoint's own rate limit, kept under by reserve()
+        @Builder.Default
+        private final long requestsPerMinute = 1000;
+        @Builder.Default
+        private final long tokensPerMinute = 300000;
+    }
+
+    private final Settings settings;
+    private final OkHttpClient client;
+    private final ResilientHttpExecutor executor;
+    private final IntFunction<String> userMessageForStatus;
+    private final Gson gson = new Gson();
+
+    private volatile double headroom = 1;
+    private volatile long headroomObservedAt;
+
+    // Guarded by this
+    private final MinuteBudget requestBudget;
+    private final MinuteBudget tokenBudget;
+
+    public OpenAiCompatibleProvider(Settings settings, OkHttpClient client,
+                                    ResilientHttpExecutor.Settings resilience, IntFunction<String> userMessageForStatus) {
+        this.settings = settings;
+        this.client = client;
+        this.executor = new ResilientHttpExecutor(settings.getName(), resilience, userMessageForStatus);
+        this.userMessageForStatus = userMessageForStatus;
+        long now = System.currentTimeMillis();
+        this.requestBudget = new MinuteBudget(settings.getRequestsPerMinute(), now);
+        this.tokenBudget = new MinuteBudget(settings.getTokensPerMinute(), now);
+    }
+
+    @Override
+    public String getName() {
+        return settings.getName();
+    }
+
+    @Override
+    public String getModel(ModelTier tier) {
+        return tier == ModelTier.FAST && settings.getFastModel() != null && !settings.getFastModel().isBlank()
+                ? settings.getFastModel() : settings.getModel();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return executor.getCircuitState() != CircuitBreaker.State.OPEN;
+    }
+
+    @Override
+    public double getRateLimitHeadroom() {
+        return System.currentTimeMillis() - headroomObservedAt > HEADROOM_TTL_MILLIS ? 1 : headroom;
+    }
+
+    @Override
+    public synchronized boolean reserve(long estimatedTokens) {
+        long now = System.currentTimeMillis();
+        requestBudget.refill(now);
+        tokenBudget.refill(now);
+        if (!requestBudget.canAfford(1) || !tokenBudget.canAfford(estimatedTokens)) {
+            return false;
+        }
+        requestBudget.charge(1);
+        tokenBudget.charge(estimatedTokens);
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<LlmCompletion> complete(LlmRequest request, String model, long timeoutMillis) {
+        return executor.execute(client, buildRequest(requestBody(request, model, false)), timeoutMillis, true)
+                .response()
+                .thenApply(this::parseCompletion);
+    }
+
+    @Override
+    public StreamCall stream(LlmRequest request, String model, Consumer<String> onToken) {
+        ResilientHttpExecutor.Execution execution =
+                executor.execute(client, buildRequest(requestBody(request, model, true)), 0, false);
+        Stream stream = new Stream(execution);
+
+        execution.response().whenComplete((response, error) -> {
+            if (error != null) {
+                stream.result.completeExceptionally(error);
+                return;
+            }
+            observeRateLimits(response);
+            try (response) {
+                readStream(response.body().source(), onToken, stream);
+                stream.result.complete(stream.partial());
+            } catch (IOException | RuntimeException e) {
+                stream.result.completeExceptionally(execution.isCancelled()
+                        ? new CancellationException("Stream cancelled")
+                        : new AIProviderException(userMessageForStatus.apply(0), 0, e));
+            }
+        });
+        return stream;
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>(executor.getStatistics());
+        stats.put("model", settings.getModel());
+        stats.put("fastModel", getModel(ModelTier.FAST));
+        stats.put("rateLimitHeadroom", getRateLimitHeadroom());
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            requestBudget.refill(now);
+            tokenBudget.refill(now);
+            stats.put("requestBudgetAvailable", Math.round(requestBudget.getAvailable()));
+            stats.put("tokenBudgetAvailable", Math.round(tokenBudget.getAvailable()));
+        }
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    /**
+     * The usage block of a response or final stream chunk, null when absent
+     */
+    protected JsonObject usageOf(JsonObject response) {
+        if (response.has("usage") && response.get("usage").isJsonObject()) {
+            return response.getAsJsonObject("usage");
+        }
+        return null;
+    }
+
+    private LlmCompletion parseCompletion(Response response) {
+        observeRateLimits(response);
+        try (response) {
+            JsonObject jsonResponse = gson.fromJson(response.body().string(), JsonObject.class);
+            String content = jsonResponse
+                    .getAsJsonArray("choices")
+                    .get(0).getAsJsonObject()
+                    .getAsJsonObject("message")
+                    .get("content").getAsString();
+            JsonObject usage = usageOf(jsonResponse);
+            return new LlmCompletion(content, tokenCount(usage, "prompt_tokens"), tokenCount(usage, "completion_tokens"), -1);
+        } catch (IOException | RuntimeException e) {
+            log.error("Error calling {} API", getName(), e);
+            throw new CompletionException(new AIProviderException(userMessageForStatus.apply(0), 0, e));
+        }
+    }
+
+    /**
+     * Remaining share of the tighter of the request and token limits, from x-ratelimit-* headers
+     */
+    private void observeRateLimits(Response response) {
+        double requests = share(response.header("x-ratelimit-remaining-requests"), response.header("x-ratelimit-limit-requests"));
+        double tokens = share(response.header("x-ratelimit-remaining-tokens"), response.header("x-ratelimit-limit-tokens"));
+        if (!Double.isNaN(requests) || !Double.isNaN(tokens)) {
+            headroom = Math.min(Double.isNaN(requests) ? 1 : requests, Double.isNaN(tokens) ? 1 : tokens);
+            headroomObservedAt = System.currentTimeMillis();
+        }
+    }
+
+    private static double share(String remaining, String limit) {
+        try {
+            double max = limit != null ? Double.parseDouble(limit.trim()) : 0;
+            return remaining != null && max > 0 ? Math.max(0, Double.parseDouble(remaining.trim()) / max) : Double.NaN;
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Read the SSE body line by line, forwarding each content delta as soon as it arrives
+     * The usage block comes with the last chunk (stream_options.include_usage).
+     */
+    private void readStream(BufferedSource source, Consumer<String> onToken, Stream stream) throws IOException {
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (!line.startsWith(SSE_DATA_PREFIX)) {
+                continue; // blank separators, comments, other fields
+            }
+            String data = line.substring(SSE_DATA_PREFIX.length()).trim();
+            if (data.equals(SSE_DONE)) {
+                break;
+            }
+            String token = extractDeltaContent(data);
+            if (token != null && !token.isEmpty()) {
+                stream.append(token);
+                onToken.accept(token);
+            }
+            if (data.contains("\"usage\"")) {
+                stream.usage(usageOf(gson.fromJson(data, JsonObject.class)));
+            }
+        }
+    }
+
+    /**
+     * Pull choices[0].delta.content out of one chunk with the streaming reader, skipping everything else
+     */
+    private static String extractDeltaContent(String chunk) throws IOException {
+        try (JsonReader reader = new JsonReader(new StringReader(chunk))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("choices") || reader.peek() != JsonToken.BEGIN_ARRAY) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                if (!reader.hasNext()) {
+                    return null;
+                }
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (!reader.nextName().equals("delta") || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if (reader.nextName().equals("content") && reader.peek() == JsonToken.STRING) {
+                            return reader.nextString();
+                        }
+                        reader.skipValue();
+                    }
+                    return null;
+                }
+                return null;
+            }
+            return null;
+        }
+    }
+
+    private static long tokenCount(JsonObject usage, String field) {
+        return usage != null && usage.has(field) && usage.get(field).isJsonPrimitive() ? usage.get(field).getAsLong() : -1;
+    }
+
+    String requestBody(LlmRequest llmRequest, String model, boolean stream) {
+        JsonObject requestBody = new JsonObject();
+        requestBody.addProperty("model", model);
+
+        JsonArray messages = new JsonArray();
+
+        // System message
+        messages.add(message("system", llmRequest.getSystemPrompt()));
+
+        // Earlier turns of the conversation
+        for (LlmRequest.Message previous : llmRequest.getHistory()) {
+            messages.add(message(previous.role(), previous.content()));
+        }
+
+        // User message
+        messages.add(message("user", llmRequest.getUserMessage()));
+
+        requestBody.add("messages", messages);
+        requestBody.addProperty("temperature", llmRequest.getTemperature());
+        requestBody.addProperty("max_tokens", llmRequest.getMaxTokens());
+        if (stream) {
+            requestBody.addProperty("stream", true);
+            JsonObject streamOptions = new JsonObject();
+            streamOptions.addProperty("include_usage", true);
+            requestBody.add("stream_options", streamOptions);
+        }
+
+        return requestBody.toString();
+    }
+
+    private Request buildRequest(String payload) {
+        return new Request.Builder()
+                .url(settings.getUrl())
+                .addHeader("Authorization", "Bearer " + settings.getApiKey())
+                .addHeader("Content-Type", "application/json")
+                .post(RequestBody.create(payload, JSON))
+                .build();
+    }
+
+    private static JsonObject message(String role, String content) {
+        JsonObject message = new JsonObject();
+        message.addProperty("role", role);
+        message.addProperty("content", content);
+        return message;
+    }
+
+    /**
+     * What a stream has delivered so far, kept so a failed or cancelled stream can still be accounted
+     */
+    private static final class Stream implements StreamCall {
+        private final ResilientHttpExecutor.Execution execution;
+        private final CompletableFuture<LlmCompletion> result = new CompletableFuture<>();
+        private final long startedNanos = System.nanoTime();
+        private final StringBuilder content = new StringBuilder();
+        private long timeToFirstTokenNanos = -1;
+        private JsonObject usage;
+
+        Stream(ResilientHttpExecutor.Execution execution) {
+            this.execution = execution;
+        }
+
+        synchronized void append(String token) {
+            if (timeToFirstTokenNanos < 0) {
+                timeToFirstTokenNanos = System.nanoTime() - startedNanos;
+            }
+            content.append(token);
+        }
+
+        synchronized void usage(JsonObject usage) {
+            if (usage != null) {
+                this.usage = usage;
+            }
+        }
+
+        @Override
+        public CompletableFuture<LlmCompletion> result() {
+            return result;
+        }
+
+        @Override
+        public synchronized LlmCompletion partial() {
+            return new LlmCompletion(content.toString(), tokenCount(usage, "prompt_tokens"),
+                    tokenCount(usage, "completion_tokens"), timeToFirstTokenNanos);
+        }
+
+        @Override
+        public void cancel() {
+            execution.cancel();
+            result.cancel(false);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return execution.isCancelled();
+        }
+    }
+}
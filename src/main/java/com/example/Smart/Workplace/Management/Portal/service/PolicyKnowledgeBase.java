@@ -0,0 +1,374 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.PolicyDocument;
+import com.example.Smart.Workplace.Management.Portal.repository.PolicyDocumentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Company policy text, chunked and indexed with BM25 for retrieval into the assistant prompt
+ * Documents come from markdown files (ai.policies.location) and the policy_documents table. Each
+ * one is split at its headings, and long sections at paragraph then sentence boundaries, into
+ * chunks of at most ai.policies.chunk-tokens. A question pulls in only the best top-k chunks that
+ * fit the token budget. The index is immutable and swapped whole on reload.
+ */
+@Component
+@Slf4j
+public class PolicyKnowledgeBase {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Pattern HEADING = Pattern.compile("^(#{1,6})\\s+(.+?)\\s*#*\\s*$");
+    private static final Pattern PARAGRAPH_BREAK = Pattern.compile("\\n\\s*\\n");
+    private static final Pattern SENTENCE_BREAK = Pattern.compile("(?<=[.!?])\\s+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "the", "is", "are", "was", "were", "be", "been", "on", "in", "at", "to", "of",
+            "for", "and", "or", "it", "its", "this", "that", "with", "my", "our", "we", "i", "me", "you",
+            "your", "do", "does", "did", "can", "could", "should", "would", "will", "what", "how", "when",
+            "who", "which", "there", "have", "has", "had", "if", "as", "by", "from", "any", "about", "am");
+
+    /**
+     * One retrievable piece of a document; section is the heading path
+     */
+    public record Chunk(String document, String section, String text, int tokens) {
+    }
+
+    public record Match(Chunk chunk, double score) {
+    }
+
+    record Document(String title, String source, String content) {
+    }
+
+    private record Posting(int chunk, int frequency) {
+    }
+
+    private record Index(List<Document> documents, List<Chunk> chunks, Map<String, Posting[]> postings,
+                         int[] lengths, double averageLength) {
+
+        static final Index EMPTY = new Index(List.of(), List.of(), Map.of(), new int[0], 0);
+    }
+
+    private final ResourcePatternResolver resourceResolver;
+    private final PolicyDocumentRepository policyDocumentRepository;
+    private final TokenEstimator tokenEstimator;
+    private final AssistantResponseCache responseCache;
+    private final String location;
+    private final int chunkTokens;
+    private final int topK;
+    private final int tokenBudget;
+    private final double minScore;
+
+    private volatile Index index = Index.EMPTY;
+
+    public PolicyKnowledgeBase(
+            ResourcePatternResolver resourceResolver,
+            PolicyDocumentRepository policyDocumentRepository,
+            TokenEstimator tokenEstimator,
+            AssistantResponseCache responseCache,
+            @Value("${ai.policies.location:file:data/policies/*.md}") String location,
+            @Value("${ai.policies.chunk-tokens:200}") int chunkTokens,
+            @Value("${ai.policies.top-k:4}") int topK,
+            @Value("${ai.policies.token-budget:600}") int tokenBudget,
+            @Value("${ai.policies.min-score:1.0}") double minScore) {
+        this.resourceResolver = resourceResolver;
+        this.policyDocumentRepository = policyDocumentRepository;
+        this.tokenEstimator = tokenEstimator;
+        this.responseCache = responseCache;
+        this.location = location;
+        this.chunkTokens = chunkTokens;
+        this.topK = topK;
+        this.tokenBudget = tokenBudget;
+        this.minScore = minScore;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPolicies() {
+        reload();
+    }
+
+    /**
+     * Re-read files and table and swap in a fresh index; cached answers may quote old policy, so they go too
+     */
+    public synchronized void reload() {
+        List<Document> documents = new ArrayList<>(readFiles());
+        for (PolicyDocument policy : policyDocumentRepository.findAll()) {
+            documents.add(new Document(policy.getTitle(), "db:" + policy.getId(), policy.getContent()));
+        }
+        rebuild(documents);
+        responseCache.invalidateAll();
+        log.info("Policy knowledge base loaded: {} document(s), {} chunk(s)", documents.size(), index.chunks().size());
+    }
+
+    /**
+     * Create or replace a policy document by title
+     */
+    public PolicyDocument save(String title, String content) {
+        if (title == null || title.isBlank() || content == null || content.isBlank()) {
+            throw new IllegalArgumentException("Policy title and content are required");
+        }
+        PolicyDocument policy = policyDocumentRepository.findByTitleIgnoreCase(title.trim())
+                .orElseGet(() -> PolicyDocument.builder().title(title.trim()).build());
+        policy.setContent(content);
+        PolicyDocument saved = policyDocumentRepository.save(policy);
+        reload();
+        return saved;
+    }
+
+    public void delete(Long id) {
+        if (!policyDocumentRepository.existsById(id)) {
+            throw new IllegalArgumentException("Policy document not found");
+        }
+        policyDocumentRepository.deleteById(id);
+        reload();
+    }
+
+    /**
+     * Best chunks for a question, highest score first, at most top-k and within the token budget
+     */
+    public List<Match> search(String query) {
+        Index current = index;
+        if (current.chunks().isEmpty() || query == null) {
+            return List.of();
+        }
+
+        double[] scores = new double[current.chunks().size()];
+        int documentCount = current.chunks().size();
+        for (String term : new LinkedHashSet<>(terms(query))) {
+            Posting[] postings = current.postings().get(term);
+            if (postings == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (documentCount - postings.length + 0.5) / (postings.length + 0.5));
+            for (Posting posting : postings) {
+                double norm = K1 * (1 - B + B * current.lengths()[posting.chunk()] / current.averageLength());
+                scores[posting.chunk()] += idf * posting.frequency() * (K1 + 1) / (posting.frequency() + norm);
+            }
+        }
+
+        List<Match> candidates = new ArrayList<>();
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] >= minScore) {
+                candidates.add(new Match(current.chunks().get(i), scores[i]));
+            }
+        }
+        candidates.sort(Comparator.comparingDouble(Match::score).reversed());
+
+        List<Match> selected = new ArrayList<>();
+        int tokens = 0;
+        for (Match match : candidates) {
+            if (selected.size() == topK) {
+                break;
+            }
+            if (tokens + match.chunk().tokens() <= tokenBudget) {
+                selected.add(match);
+                tokens += match.chunk().tokens();
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Policy excerpts for the system prompt, best first, empty when nothing relevant is indexed
+     */
+    public List<String> excerpts(String question) {
+        return search(question).stream()
+                .map(match -> "[" + match.chunk().section() + "]\n" + match.chunk().text())
+                .toList();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Index current = index;
+        Map<String, Integer> chunksPerDocument = new LinkedHashMap<>();
+        current.chunks().forEach(chunk -> chunksPerDocument.merge(chunk.document(), 1, Integer::sum));
+
+        List<Map<String, Object>> documents = new ArrayList<>();
+        for (Document document : current.documents()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("title", document.title());
+            entry.put("source", document.source());
+            entry.put("chunks", chunksPerDocument.getOrDefault(document.title(), 0));
+            documents.add(entry);
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("location", location);
+        stats.put("documents", documents);
+        stats.put("chunks", current.chunks().size());
+        stats.put("terms", current.postings().size());
+        stats.put("averageChunkTerms", Math.round(current.averageLength() * 10) / 10.0);
+        return stats;
+    }
+
+    void rebuild(List<Document> documents) {
+        List<Chunk> chunks = new ArrayList<>();
+        for (Document document : documents) {
+            chunks.addAll(chunk(document));
+        }
+
+        Map<String, List<Posting>> postings = new HashMap<>();
+        int[] lengths = new int[chunks.size()];
+        long totalLength = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i);
+            // Headings count as content, so "Sick leave" sections match "sick leave" questions
+            List<String> terms = terms(chunk.section() + " " + chunk.text());
+            Map<String, Integer> frequencies = new HashMap<>();
+            terms.forEach(term -> frequencies.merge(term, 1, Integer::sum));
+            int chunkIndex = i;
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, t -> new ArrayList<>()).add(new Posting(chunkIndex, frequency)));
+            lengths[i] = terms.size();
+            totalLength += terms.size();
+        }
+
+        Map<String, Posting[]> compact = new HashMap<>(postings.size() * 2);
+        postings.forEach((term, list) -> compact.put(term, list.toArray(Posting[]::new)));
+        index = new Index(List.copyOf(documents), List.copyOf(chunks), compact, lengths,
+                chunks.isEmpty() ? 0 : (double) totalLength / chunks.size());
+    }
+
+    /**
+     * Split at headings, then pack paragraphs (or sentences of an oversized paragraph) up to chunk-tokens
+     */
+    List<Chunk> chunk(Document document) {
+        List<Chunk> chunks = new ArrayList<>();
+        String[] headings = new String[6];
+        StringBuilder body = new StringBuilder();
+
+        for (String line : document.content().replace("\r\n", "\n").split("\n")) {
+            Matcher heading = HEADING.matcher(line);
+            if (!heading.matches()) {
+                body.append(line).append('\n');
+                continue;
+            }
+            addSection(document, headings, body.toString(), chunks);
+            body.setLength(0);
+            int level = heading.group(1).length();
+            headings[level - 1] = heading.group(2);
+            Arrays.fill(headings, level, headings.length, null);
+        }
+        addSection(document, headings, body.toString(), chunks);
+        return chunks;
+    }
+
+    private void addSection(Document document, String[] headings, String body, List<Chunk> chunks) {
+        if (body.isBlank()) {
+            return;
+        }
+        List<String> path = new ArrayList<>(List.of(document.title()));
+        for (String heading : headings) {
+            if (heading != null && !heading.equalsIgnoreCase(document.title())) {
+                path.add(heading);
+            }
+        }
+        String section = String.join(" > ", path);
+
+        List<String> pieces = new ArrayList<>();
+        for (String paragraph : PARAGRAPH_BREAK.split(body.trim())) {
+            if (tokenEstimator.estimate(paragraph) <= chunkTokens) {
+                pieces.add(paragraph.trim());
+            } else {
+                for (String sentence : SENTENCE_BREAK.split(paragraph.trim())) {
+                    pieces.add(sentence.trim());
+                }
+            }
+        }
+
+        StringBuilder text = new StringBuilder();
+        int tokens = 0;
+        for (String piece : pieces) {
+            int pieceTokens = tokenEstimator.estimate(piece);
+            if (text.length() > 0 && tokens + pieceTokens > chunkTokens) {
+                chunks.add(new Chunk(document.title(), section, text.toString(), tokens));
+                text.setLength(0);
+                tokens = 0;
+            }
+            text.append(text.length() > 0 ? "\n" : "").append(piece);
+            tokens += pieceTokens;
+        }
+        if (text.length() > 0) {
+            chunks.add(new Chunk(document.title(), section, text.toString(), tokens));
+        }
+    }
+
+    private List<Document> readFiles() {
+        List<Document> documents = new ArrayList<>();
+        try {
+            for (Resource resource : resourceResolver.getResources(location)) {
+                if (!resource.isReadable()) {
+                    continue;
+                }
+                String content = resource.getContentAsString(StandardCharsets.UTF_8);
+                documents.add(new Document(titleOf(resource, content), resource.getDescription(), content));
+            }
+        } catch (IOException e) {
+            log.warn("Could not read policy files from {}", location, e);
+        }
+        return documents;
+    }
+
+    /**
+     * First top-level heading, else the file name without extension
+     */
+    private static String titleOf(Resource resource, String content) {
+        for (String line : content.split("\n")) {
+            Matcher heading = HEADING.matcher(line.trim());
+            if (heading.matches() && heading.group(1).length() == 1) {
+                return heading.group(2);
+            }
+        }
+        String fileName = resource.getFilename() != null ? resource.getFilename() : "Policy";
+        int dot = fileName.lastIndexOf('.');
+        return (dot > 0 ? fileName.substring(0, dot) : fileName).replace('-', ' ').replace('_', ' ');
+    }
+
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() > 1 && !STOP_WORDS.contains(token)) {
+                terms.add(stem(token));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Light suffix stripping so "requests"/"requested"/"requesting" meet
+     */
+    private static String stem(String token) {
+        if (token.length() > 5 && token.endsWith("ing")) {
+            return token.substring(0, token.length() - 3);
+        }
+        if (token.length() > 4 && token.endsWith("ies")) {
+            return token.substring(0, token.length() - 3) + "y";
+        }
+        if (token.length() > 4 && token.endsWith("ed")) {
+            return token.substring(0, token.length() - 2);
+        }
+        if (token.length() > 3 && token.endsWith("s") && !token.endsWith("ss")) {
+            return token.substring(0, token.length() - 1);
+        }
+        return token;
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.Role;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Puts a chat prompt together within a fixed token budget per request
+ * The instructions with the user's context and the question itself always go in. What is left of
+ * the prompt budget is filled in priority order: policy excerpts, best first; conversation turns,
+ * newest first; then the summary of older turns. Whatever does not fit is dropped. max_tokens
+ * gets the rest of the request budget, capped per model tier, so prompt plus answer stay bounded.
+ */
+@Component
+@Slf4j
+public class PromptAssembler {
+
+    private static final String POLICY_HEADER = "COMPANY POLICY EXCERPTS:\n";
+    private static final String SUMMARY_HEADER = "EARLIER IN THIS CONVERSATION:\n";
+
+    /**
+     * The parts of one prompt; the instructions already contain the user context
+     */
+    @Builder
+    public record Prompt(String instructions,
+                         List<String> policyExcerpts,
+                         String summary,
+                         List<ConversationMemory.Turn> history,
+                         String userMessage,
+                         ModelTier tier,
+                         Long userId,
+                         Role role) {
+    }
+
+    /**
+     * The request to send, with the prompt's size as counted locally
+     */
+    public record Assembled(LlmRequest request, int promptTokens) {
+    }
+
+    private final TokenEstimator tokenEstimator;
+    private final int requestTokens;
+    private final int maxMessageTokens;
+    private final int minCompletionTokens;
+    private final int maxCompletionTokens;
+    private final int maxFastCompletionTokens;
+
+    private final AtomicLong assembled = new AtomicLong();
+    private final AtomicLong trimmed = new AtomicLong();
+    private final AtomicLong droppedExcerpts = new AtomicLong();
+    private final AtomicLong droppedTurns = new AtomicLong();
+    private final AtomicLong droppedSummaries = new AtomicLong();
+    private final AtomicLong rejectedMessages = new AtomicLong();
+    private final AtomicLong promptTokensTotal = new AtomicLong();
+
+    public PromptAssembler(
+            TokenEstimator tokenEstimator,
+            @Value("${ai.prompt.request-tokens:4096}") int requestTokens,
+            @Value("${ai.prompt.max-message-tokens:1000}") int maxMessageTokens,
+            @Value("${ai.prompt.min-completion-tokens:256}") int minCompletionTokens,
+            @Value("${ai.prompt.max-completion-tokens:1000}") int maxCompletionTokens,
+            @Value("${ai.prompt.max-completion-tokens.fast:400}") int maxFastCompletionTokens) {
+        this.tokenEstimator = tokenEstimator;
+        this.requestTokens = requestTokens;
+        this.maxMessageTokens = maxMessageTokens;
+        this.minCompletionTokens = minCompletionTokens;
+        this.maxCompletionTokens = maxCompletionTokens;
+        this.maxFastCompletionTokens = maxFastCompletionTokens;
+    }
+
+    /**
+     * Reject a question too long to answer within the budget, before anything is done with it
+     */
+    public void requireWithinLimit(String message) {
+        // Every token is at least one UTF-8 byte (not one char: an emoji alone can be several tokens),
+        // so only messages longer than that in bytes need counting
+        if (message != null && utf8Length(message) > maxMessageTokens && tokenEstimator.estimate(message) > maxMessageTokens) {
+            rejectedMessages.incrementAndGet();
+            throw new IllegalArgumentException("Message is too long, please keep it under about "
+                    + maxMessageTokens * 3 / 4 + " words");
+        }
+    }
+
+    public Assembled assemble(Prompt prompt) {
+        int budget = requestTokens - minCompletionTokens;
+        int used = tokenEstimator.estimateMessage(prompt.instructions())
+                + tokenEstimator.estimateMessage(prompt.userMessage());
+
+        List<String> excerpts = new ArrayList<>();
+        List<String> candidates = prompt.policyExcerpts() == null ? List.of() : prompt.policyExcerpts();
+        for (String excerpt : candidates) {
+            int cost = tokenEstimator.estimate(excerpt) + (excerpts.isEmpty() ? tokenEstimator.estimate(POLICY_HEADER) : 0);
+            // Skip, not stop: a shorter excerpt further down may still fit
+            if (used + cost <= budget) {
+                excerpts.add(excerpt);
+                used += cost;
+            }
+        }
+
+        Deque<ConversationMemory.Turn> turns = new ArrayDeque<>();
+        List<ConversationMemory.Turn> history = prompt.history() == null ? List.of() : prompt.history();
+        for (int i = history.size() - 1; i >= 0; i--) {
+            ConversationMemory.Turn turn = history.get(i);
+            int cost = tokenEstimator.estimateMessage(turn.question()) + tokenEstimator.estimateMessage(turn.answer());
+            // Stop at the first that does not fit: a gap in the middle of the conversation confuses the model
+            if (used + cost > budget) {
+                break;
+            }
+            turns.addFirst(turn);
+            used += cost;
+        }
+
+        String summary = prompt.summary() == null || prompt.summary().isEmpty() ? null : prompt.summary();
+        if (summary != null && used + tokenEstimator.estimate(SUMMARY_HEADER + summary) > budget) {
+            summary = null;
+        }
+
+        StringBuilder systemPrompt = new StringBuilder(prompt.instructions());
+        if (!excerpts.isEmpty()) {
+            systemPrompt.append("\n\n").append(POLICY_HEADER).append(String.join("\n\n", excerpts));
+        }
+        if (summary != null) {
+            systemPrompt.append("\n\n").append(SUMMARY_HEADER).append(summary);
+        }
+
+        LlmRequest.LlmRequestBuilder request = LlmRequest.builder()
+                .systemPrompt(systemPrompt.toString())
+                .userMessage(prompt.userMessage())
+                .tier(prompt.tier())
+                .userId(prompt.userId())
+                .role(prompt.role());
+        int promptTokens = tokenEstimator.estimateMessage(systemPrompt.toString())
+                + tokenEstimator.estimateMessage(prompt.userMessage());
+        for (ConversationMemory.Turn turn : turns) {
+            request.historyMessage(new LlmRequest.Message(LlmRequest.ROLE_USER, turn.question()));
+            request.historyMessage(new LlmRequest.Message(LlmRequest.ROLE_ASSISTANT, turn.answer()));
+            promptTokens += tokenEstimator.estimateMessage(turn.question()) + tokenEstimator.estimateMessage(turn.answer());
+        }
+        request.maxTokens(completionTokens(prompt.tier(), promptTokens));
+
+        recordTrimming(candidates.size() - excerpts.size(), history.size() - turns.size(),
+                prompt.summary() != null && !prompt.summary().isEmpty() && summary == null);
+        assembled.incrementAndGet();
+        promptTokensTotal.addAndGet(promptTokens);
+        return new Assembled(request.build(), promptTokens);
+    }
+
+    public Map<String, Object> getStatistics() {
+        long count = assembled.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requestTokens", requestTokens);
+        stats.put("maxMessageTokens", maxMessageTokens);
+        stats.put("maxCompletionTokens", maxCompletionTokens);
+        stats.put("maxFastCompletionTokens", maxFastCompletionTokens);
+        stats.put("assembled", count);
+        stats.put("meanPromptTokens", count == 0 ? 0 : promptTokensTotal.get() / count);
+        stats.put("trimmed", trimmed.get());
+        stats.put("droppedExcerpts", droppedExcerpts.get());
+        stats.put("droppedTurns", droppedTurns.get());
+        stats.put("droppedSummaries", droppedSummaries.get());
+        stats.put("rejectedMessages", rejectedMessages.get());
+        return stats;
+    }
+
+    /**
+     * Whatever the request budget leaves, within the tier's cap and never below the floor
+     */
+    private int completionTokens(ModelTier tier, int promptTokens) {
+        int cap = tier == ModelTier.FAST ? maxFastCompletionTokens : maxCompletionTokens;
+        return Math.max(minCompletionTokens, Math.min(cap, requestTokens - promptTokens));
+    }
+
+    private void recordTrimming(int excerpts, int turns, boolean summary) {
+        if (excerpts == 0 && turns == 0 && !summary) {
+            return;
+        }
+        trimmed.incrementAndGet();
+        droppedExcerpts.addAndGet(excerpts);
+        droppedTurns.addAndGet(turns);
+        if (summary) {
+            droppedSummaries.incrementAndGet();
+        }
+        log.debug("Prompt over budget: dropped {} policy excerpts, {} turns{}",
+                excerpts, turns, summary ? " and the summary" : "");
+    }
+
+    private static long utf8Length(String text) {
+        long bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                // The pair is one 4-byte code point
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the SQL statements and database time of each HTTP request against a budget
+ * Every statement on the proxied DataSource is reported here; it is charged to the request bound
+ * to the calling thread, if any (scheduled jobs and write-behind flushes run unbound). Requests
+ * over db.budget.max-queries statements or db.budget.max-time-ms are logged with their
+ * slowest statement and the statement they repeated most (the signature of an N+1), and kept for
+ * /api/admin/db/queries. Parameter values are reduced to their types so no data is retained.
+ * An async request is charged on the dispatch that starts it and the one that writes its result;
+ * statements run on other threads in between (e.g. a CompletableFuture callback) are not counted.
+ */
+@Component
+@Slf4j
+public class QueryTracker implements QueryExecutionListener {
+
+    private static final String STARTED_AT = QueryTracker.class.getName() + ".startedAt";
+    private static final int MAX_SQL_LENGTH = 500;
+    // Distinct statements counted per request for repeat detection; more than this is its own problem
+    private static final int MAX_DISTINCT_STATEMENTS = 200;
+
+    /**
+     * Statements and time charged to one request so far; only touched by the request's thread
+     */
+    public static final class RequestQueries {
+        private int count;
+        private long nanos;
+        private String slowestSql;
+        private String slowestParameters;
+        private long slowestNanos = -1;
+        private final Map<String, Integer> repeats = new HashMap<>();
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+
+    /**
+     * A request that went over budget
+     */
+    public record Offender(String endpoint, int queries, long dbMillis, String slowestSql, String slowestParameters,
+                           long slowestMillis, String mostRepeatedSql, int mostRepeatedCount, LocalDateTime at) {
+    }
+
+    private static final class EndpointStats {
+        private long requests;
+        private long overBudget;
+        private long queries;
+        private long nanos;
+        private int maxQueries;
+        private long maxNanos;
+    }
+
+    private static final ThreadLocal<RequestQueries> CURRENT = new ThreadLocal<>();
+
+    private final int maxQueries;
+    private final long maxNanos;
+    private final int keepOffenders;
+
+    private final Deque<Offender> offenders = new ArrayDeque<>();
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    public QueryTracker(
+            @Value("${db.budget.max-queries:20}") int maxQueries,
+            @Value("${db.budget.max-time-ms:200}") long maxTimeMillis,
+            @Value("${db.budget.offenders:50}") int keepOffenders) {
+        this.maxQueries = maxQueries;
+        this.maxNanos = TimeUnit.MILLISECONDS.toNanos(maxTimeMillis);
+        this.keepOffenders = keepOffenders;
+    }
+
+    /**
+     * Start charging statements on this thread to a new request
+     */
+    public RequestQueries begin() {
+        RequestQueries queries = new RequestQueries();
+        CURRENT.set(queries);
+        return queries;
+    }
+
+    /**
+     * Stop charging this thread while an async request waits for its result
+     */
+    public void suspend() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Charge this thread to a request again, e.g. on the async dispatch that writes its result
+     */
+    public RequestQueries resume(RequestQueries queries) {
+        CURRENT.set(queries);
+        return queries;
+    }
+
+    /**
+     * Stop charging, then check the request against the budget
+     *
+     * @param endpoint method and handler pattern, e.g. "GET /api/leave/{id}"
+     */
+    public void end(RequestQueries queries, String endpoint) {
+        CURRENT.remove();
+        boolean over = queries.count > maxQueries || queries.nanos > maxNanos;
+
+        EndpointStats stats = endpoints.computeIfAbsent(endpoint, key -> new EndpointStats());
+        synchronized (stats) {
+            stats.requests++;
+            stats.queries += queries.count;
+            stats.nanos += queries.nanos;
+            stats.maxQueries = Math.max(stats.maxQueries, queries.count);
+            stats.maxNanos = Math.max(stats.maxNanos, queries.nanos);
+            if (over) {
+                stats.overBudget++;
+            }
+        }
+        if (!over) {
+            return;
+        }
+
+        Map.Entry<String, Integer> repeated = queries.repeats.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElse(null);
+        Offender offender = new Offender(endpoint, queries.count, TimeUnit.NANOSECONDS.toMillis(queries.nanos),
+                queries.slowestSql, queries.slowestParameters, TimeUnit.NANOSECONDS.toMillis(queries.slowestNanos),
+                repeated != null && repeated.getValue() > 1 ? repeated.getKey() : null,
+                repeated != null ? repeated.getValue() : 0, LocalDateTime.now());
+        log.warn("{} over query budget: {} statements, {} ms in the database; slowest ({} ms): {} {}; most repeated ({}x): {}",
+                endpoint, offender.queries(), offender.dbMillis(), offender.slowestMillis(), offender.slowestSql(),
+                offender.slowestParameters(), offender.mostRepeatedCount(), offender.mostRepeatedSql());
+        synchronized (offenders) {
+            offenders.addFirst(offender);
+            while (offenders.size() > keepOffenders) {
+                offenders.removeLast();
+            }
+        }
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (CURRENT.get() != null) {
+            execInfo.addCustomValue(STARTED_AT, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RequestQueries queries = CURRENT.get();
+        Long startedAt = execInfo.getCustomValue(STARTED_AT, Long.class);
+        if (queries == null || startedAt == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startedAt;
+        queries.count++;
+        queries.nanos += elapsed;
+
+        for (QueryInfo query : queryInfoList) {
+            String sql = abbreviate(query.getQuery());
+            if (queries.repeats.size() < MAX_DISTINCT_STATEMENTS || queries.repeats.containsKey(sql)) {
+                queries.repeats.merge(sql, 1, Integer::sum);
+            }
+        }
+        if (elapsed > queries.slowestNanos && !queryInfoList.isEmpty()) {
+            QueryInfo query = queryInfoList.get(0);
+            queries.slowestNanos = elapsed;
+            queries.slowestSql = abbreviate(query.getQuery());
+            queries.slowestParameters = parameterShape(query, execInfo.isBatch() ? execInfo.getBatchSize() : 1);
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        List<Map<String, Object>> byEndpoint = new ArrayList<>();
+        endpoints.forEach((endpoint, stats) -> {
+            synchronized (stats) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("endpoint", endpoint);
+                entry.put("requests", stats.requests);
+                entry.put("overBudget", stats.overBudget);
+                entry.put("meanQueries", stats.requests == 0 ? 0 : Math.round(10.0 * stats.queries / stats.requests) / 10.0);
+                entry.put("maxQueries", stats.maxQueries);
+                entry.put("meanDbMillis", stats.requests == 0 ? 0
+                        : Math.round(10.0 * stats.nanos / stats.requests / TimeUnit.MILLISECONDS.toNanos(1)) / 10.0);
+                entry.put("maxDbMillis", TimeUnit.NANOSECONDS.toMillis(stats.maxNanos));
+                byEndpoint.add(entry);
+            }
+        });
+        byEndpoint.sort(Comparator.comparing((Map<String, Object> entry) -> (Long) entry.get("overBudget")).reversed()
+                .thenComparing(entry -> (Integer) entry.get("maxQueries"), Comparator.reverseOrder()));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxQueries", maxQueries);
+        stats.put("maxDbMillis", TimeUnit.NANOSECONDS.toMillis(maxNanos));
+        stats.put("endpoints", byEndpoint);
+        synchronized (offenders) {
+            stats.put("recent", List.copyOf(offenders));
+        }
+        return stats;
+    }
+
+    /**
+     * Types of the bound parameters in order, e.g. "(Long, String, null)"; batches add " x N"
+     */
+    private static String parameterShape(QueryInfo query, int batchSize) {
+        if (query.getParametersList().isEmpty()) {
+            return "()";
+        }
+        List<ParameterSetOperation> parameters = new ArrayList<>(query.getParametersList().get(0));
+        parameters.sort(Comparator.comparing(operation -> operation.getArgs()[0] instanceof Integer index ? index : 0));
+        StringJoiner shape = new StringJoiner(", ", "(", ")");
+        for (ParameterSetOperation operation : parameters) {
+            Object[] args = operation.getArgs();
+            Object value = args.length > 1 ? args[1] : null;
+            shape.add(ParameterSetOperation.isSetNullParameterOperation(operation) || value == null
+                    ? "null" : value.getClass().getSimpleName());
+        }
+        return batchSize > 1 ? shape + " x " + batchSize : shape.toString();
+    }
+
+    private static String abbreviate(String sql) {
+        String flat = sql == null ? "" : sql.replaceAll("\\s+", " ").trim();
+        return flat.length() <= MAX_SQL_LENGTH ? flat : flat.substring(0, MAX_SQL_LENGTH) + "...";
+    }
+}
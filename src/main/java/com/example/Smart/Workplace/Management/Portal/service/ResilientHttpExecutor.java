@@ -0,0 +1,409 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.exception.AIProviderException;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Async OkHttp execution with a circuit breaker, budgeted jittered retries, Retry-After and hedging
+ * Retries cover I/O errors, 429 and 5xx, with full-jitter exponential backoff (or the server's
+ * Retry-After), and only while the shared retry budget and the overall deadline allow. A 429 also
+ * pauses the breaker so no other caller hits the upstream before Retry-After. With hedging on, a
+ * second identical request is sent once the first has been outstanding longer than the recent p95
+ * latency; the first success wins and the other call is cancelled.
+ */
+@Slf4j
+public class ResilientHttpExecutor implements AutoCloseable {
+
+    private static final long ROTATE_LATENCY_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(2);
+    private static final int ERROR_BODY_PEEK_BYTES = 2048;
+
+    @Getter
+    @Builder
+    public static class Settings {
+        @Builder.Default
+        private final int maxAttempts = 3;
+        @Builder.Default
+        private final long baseBackoffMillis = 250;
+        @Builder.Default
+        private final long maxBackoffMillis = 4000;
+        @Builder.Default
+        private final long maxRetryAfterMillis = 10000;
+        @Builder.Default
+        private final double retryBudgetRatio = 0.2;
+        @Builder.Default
+        private final double retryBudgetMinPerSecond = 1;
+        @Builder.Default
+        private final double retryBudgetMax = 20;
+        @Builder.Default
+        private final int breakerWindowSize = 20;
+        @Builder.Default
+        private final int breakerMinimumCalls = 10;
+        @Builder.Default
+        private final double breakerFailureRate = 0.5;
+        @Builder.Default
+        private final long breakerOpenMillis = 30000;
+        @Builder.Default
+        private final boolean hedgeEnabled = false;
+        @Builder.Default
+        private final long hedgeMinDelayMillis = 1000;
+        @Builder.Default
+        private final long hedgeMinSamples = 50;
+    }
+
+    /**
+     * One logical request; cancel() stops every attempt, including a response being streamed
+     */
+    public static final class Execution {
+        private final CompletableFuture<Response> response = new CompletableFuture<>();
+        private final List<Call> calls = new CopyOnWriteArrayList<>();
+        private volatile boolean cancelled;
+
+        public CompletableFuture<Response> response() {
+            return response;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            calls.forEach(Call::cancel);
+            response.completeExceptionally(new CancellationException("Cancelled by caller"));
+        }
+    }
+
+    private final String name;
+    private final Settings settings;
+    private final IntFunction<String> userMessageForStatus;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryBudget retryBudget;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile LogHistogram latencyCurrent = new LogHistogram();
+    private volatile LogHistogram latencyPrevious = new LogHistogram();
+    private volatile long latencyWindowStart = System.currentTimeMillis();
+
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong hedgesSent = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+
+    /**
+     * @param userMessageForStatus friendly message for a failed call by upstream status (0 = I/O error)
+     */
+    public ResilientHttpExecutor(String name, Settings settings, IntFunction<String> userMessageForStatus) {
+        this.name = name;
+        this.settings = settings;
+        this.userMessageForStatus = userMessageForStatus;
+        this.circuitBreaker = new CircuitBreaker(name, settings.getBreakerWindowSize(), settings.getBreakerMinimumCalls(),
+                settings.getBreakerFailureRate(), settings.getBreakerOpenMillis(), System::currentTimeMillis);
+        this.retryBudget = new RetryBudget(settings.getRetryBudgetRatio(), settings.getRetryBudgetMinPerSecond(),
+                settings.getRetryBudgetMax(), System::currentTimeMillis);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory(name + "-retry-"));
+    }
+
+    /**
+     * Execute with retries; the future completes with a successful (2xx) response the caller must close,
+     * or fails with AIProviderException
+     *
+     * @param deadlineMillis total time allowed across all attempts, 0 for none (streams)
+     * @param hedge          whether this request may be hedged (only for idempotent, non-streamed calls)
+     */
+    public Execution execute(OkHttpClient client, Request request, long deadlineMillis, boolean hedge) {
+        Execution execution = new Execution();
+        retryBudget.recordRequest();
+        long deadline = deadlineMillis > 0 ? System.currentTimeMillis() + deadlineMillis : Long.MAX_VALUE;
+        new Attempt(client, request, execution, 1, deadline, hedge && settings.isHedgeEnabled()).start();
+        return execution;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("circuitBreaker", circuitBreaker.getStatistics());
+        stats.put("retryBudget", retryBudget.getStatistics());
+        stats.put("retries", retries.get());
+        stats.put("hedgesSent", hedgesSent.get());
+        stats.put("hedgesWon", hedgesWon.get());
+        stats.put("latencyP50Ms", Math.round(recentLatency().percentile(0.50)));
+        stats.put("latencyP95Ms", Math.round(recentLatency().percentile(0.95)));
+        stats.put("hedgeDelayMs", hedgeDelayMillis());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Outcome of one failed call; pauseMillis is how long this executor's breaker now rejects calls
+     */
+    private record Failure(int status, long retryAfterMillis, long pauseMillis, Throwable cause) {
+
+        boolean retryable() {
+            return status == 0 || status == 429 || status >= 500;
+        }
+    }
+
+    /**
+     * One attempt: the primary call plus, possibly, a hedge; settles once
+     */
+    private final class Attempt {
+        private final OkHttpClient client;
+        private final Request request;
+        private final Execution execution;
+        private final int number;
+        private final long deadline;
+        private final boolean hedge;
+
+        private int outstanding;
+        private boolean settled;
+        private Failure lastFailure;
+
+        Attempt(OkHttpClient client, Request request, Execution execution, int number, long deadline, boolean hedge) {
+            this.client = client;
+            this.request = request;
+            this.execution = execution;
+            this.number = number;
+            this.deadline = deadline;
+            this.hedge = hedge;
+        }
+
+        void start() {
+            if (execution.isCancelled()) {
+                return;
+            }
+            if (!circuitBreaker.tryAcquirePermission()) {
+                log.warn("{} circuit {}, failing fast", name, circuitBreaker.getState());
+                execution.response.completeExceptionally(
+                        new AIProviderException(userMessageForStatus.apply(503), 503, null));
+                return;
+            }
+            synchronized (this) {
+                launch(false);
+            }
+
+            long hedgeDelay = hedge ? hedgeDelayMillis() : 0;
+            if (hedgeDelay > 0) {
+                scheduler.schedule(this::sendHedge, hedgeDelay, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private synchronized void sendHedge() {
+            if (settled || execution.isCancelled() || System.currentTimeMillis() >= deadline) {
+                return;
+            }
+            if (!retryBudget.tryWithdraw() || !circuitBreaker.tryAcquirePermission()) {
+                return;
+            }
+            hedgesSent.incrementAndGet();
+            log.debug("{} hedging slow request (attempt {})", name, number);
+            launch(true);
+        }
+
+        // Caller holds the lock
+        private void launch(boolean isHedge) {
+            Call call = client.newCall(request);
+            if (deadline != Long.MAX_VALUE) {
+                call.timeout().timeout(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            }
+            execution.calls.add(call);
+            outstanding++;
+            long startNanos = System.nanoTime();
+
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    // A call timeout also marks the call cancelled, so ask who cancelled it
+                    if (execution.isCancelled() || isSettled()) {
+                        circuitBreaker.releasePermission();
+                        callEnded(null);
+                        return;
+                    }
+                    circuitBreaker.onFailure();
+                    callEnded(new Failure(0, 0, 0, e));
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    if (response.isSuccessful()) {
+                        circuitBreaker.onSuccess();
+                        recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                        succeeded(call, response, isHedge);
+                        return;
+                    }
+                    callEnded(failureOf(response));
+                }
+            });
+        }
+
+        private synchronized boolean isSettled() {
+            return settled;
+        }
+
+        private void succeeded(Call winner, Response response, boolean isHedge) {
+            synchronized (this) {
+                if (settled) {
+                    response.close();
+                    return;
+                }
+                settled = true;
+            }
+            if (isHedge) {
+                hedgesWon.incrementAndGet();
+            }
+            // Cancel the slower twin; the winner's body is still to be read
+            execution.calls.stream().filter(call -> call != winner).forEach(Call::cancel);
+            if (!execution.response.complete(response)) {
+                response.close(); // cancelled meanwhile
+            }
+        }
+
+        private void callEnded(Failure failure) {
+            synchronized (this) {
+                if (failure != null) {
+                    lastFailure = failure;
+                }
+                outstanding--;
+                if (settled || outstanding > 0) {
+                    return;
+                }
+                settled = true;
+            }
+            if (lastFailure == null || execution.isCancelled()) {
+                return; // every call was cancelled by the caller
+            }
+            retryOrFail(lastFailure);
+        }
+
+        private void retryOrFail(Failure failure) {
+            // Full jitter, but never inside our own pause: the retry would only be rejected by the breaker
+            long backoff = Math.min(settings.getMaxBackoffMillis(), settings.getBaseBackoffMillis() << Math.min(number - 1, 20));
+            long delay = failure.retryAfterMillis() > 0
+                    ? failure.retryAfterMillis()
+                    : failure.pauseMillis()
+                    + ThreadLocalRandom.current().nextLong(Math.max(backoff - failure.pauseMillis(), 0) + 1);
+
+            boolean canRetry = failure.retryable()
+                    && number < settings.getMaxAttempts()
+                    && failure.retryAfterMillis() <= settings.getMaxRetryAfterMillis()
+                    && System.currentTimeMillis() + delay < deadline;
+            if (canRetry && retryBudget.tryWithdraw()) {
+                retries.incrementAndGet();
+                log.info("{} attempt {} failed (status {}), retrying in {} ms", name, number, failure.status(), delay);
+                scheduler.schedule(() -> new Attempt(client, request, execution, number + 1, deadline, hedge).start(),
+                        delay, TimeUnit.MILLISECONDS);
+                return;
+            }
+
+            log.error("{} request failed after {} attempt(s), last status {}", name, number, failure.status(), failure.cause());
+            execution.response.completeExceptionally(new AIProviderException(
+                    userMessageForStatus.apply(failure.status()), failure.status(), failure.cause()));
+        }
+    }
+
+    /**
+     * Classify a non-2xx response and update the breaker; 4xx other than 429 means the upstream is up
+     */
+    private Failure failureOf(Response response) {
+        try (response) {
+            int status = response.code();
+            String body;
+            try {
+                body = response.peekBody(ERROR_BODY_PEEK_BYTES).string();
+            } catch (IOException e) {
+                body = "<unreadable>";
+            }
+            log.warn("{} call failed: {} - {}", name, status, body);
+
+            long retryAfterMillis = 0;
+            long pauseMillis = 0;
+            if (status == 429) {
+                retryAfterMillis = parseRetryAfterMillis(response.header("Retry-After"));
+                pauseMillis = retryAfterMillis > 0 ? retryAfterMillis : settings.getBaseBackoffMillis();
+                circuitBreaker.pauseFor(pauseMillis);
+                circuitBreaker.releasePermission();
+            } else if (status >= 500) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            return new Failure(status, retryAfterMillis, pauseMillis, null);
+        }
+    }
+
+    /**
+     * Retry-After as delta-seconds; HTTP-date values are rare for APIs and fall back to backoff
+     */
+    static long parseRetryAfterMillis(String header) {
+        if (header == null) {
+            return 0;
+        }
+        try {
+            return (long) (Double.parseDouble(header.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void recordLatency(long millis) {
+        long now = System.currentTimeMillis();
+        if (now - latencyWindowStart > ROTATE_LATENCY_WINDOW_MILLIS) {
+            synchronized (this) {
+                if (now - latencyWindowStart > ROTATE_LATENCY_WINDOW_MILLIS) {
+                    latencyPrevious = latencyCurrent;
+                    latencyCurrent = new LogHistogram();
+                    latencyWindowStart = now;
+                }
+            }
+        }
+        latencyCurrent.record(millis);
+    }
+
+    /**
+     * Latency over the current and previous window (2-4 minutes)
+     */
+    private LogHistogram recentLatency() {
+        LogHistogram recent = new LogHistogram();
+        recent.merge(latencyPrevious);
+        recent.merge(latencyCurrent);
+        return recent;
+    }
+
+    /**
+     * Recent p95, floored at the configured minimum; 0 (no hedging) until enough samples exist
+     */
+    private long hedgeDelayMillis() {
+        LogHistogram recent = recentLatency();
+        if (recent.getCount() < settings.getHedgeMinSamples()) {
+            return 0;
+        }
+        return Math.max(settings.getHedgeMinDelayMillis(), Math.round(recent.percentile(0.95)));
+    }
+}
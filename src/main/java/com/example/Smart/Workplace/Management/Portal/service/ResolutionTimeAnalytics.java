@@ -0,0 +1,158 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.Complaint;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintPriority;
+import com.example.Smart.Workplace.Management.Portal.repository.ComplaintRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolution-time percentiles (resolvedAt - submittedAt) kept in memory
+ * One mergeable log histogram per category x priority x month of resolution, plus one per
+ * submitter department. Loaded once at startup, then updated as complaints are resolved.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ResolutionTimeAnalytics {
+
+    private static final String UNCATEGORIZED = "Uncategorized";
+    private static final double SECONDS_PER_HOUR = 3600.0;
+
+    private final ComplaintRepository complaintRepository;
+
+    private final Map<Key, LogHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LogHistogram> byDepartment = new ConcurrentHashMap<>();
+
+    private record Key(String category, ComplaintPriority priority, YearMonth month) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadResolvedComplaints() {
+        List<Object[]> rows = complaintRepository.findResolutionTimes();
+        for (Object[] row : rows) {
+            record((String) row[0], (ComplaintPriority) row[1], (LocalDateTime) row[2],
+                    (LocalDateTime) row[3], (String) row[4]);
+        }
+        log.info("Resolution-time analytics loaded from {} resolved complaints", rows.size());
+    }
+
+    /**
+     * Record a complaint that has just been resolved, once the current transaction commits
+     * (immediately if there is none), so a rolled-back resolution is never counted
+     */
+    public void recordAfterCommit(Complaint complaint) {
+        // Read now: the entity and its user may be detached by the time the commit completes
+        String category = complaint.getCategory();
+        ComplaintPriority priority = complaint.getPriority();
+        LocalDateTime submittedAt = complaint.getSubmittedAt();
+        LocalDateTime resolvedAt = complaint.getResolvedAt();
+        String department = complaint.getUser().getDepartment();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(category, priority, submittedAt, resolvedAt, department);
+                }
+            });
+        } else {
+            record(category, priority, submittedAt, resolvedAt, department);
+        }
+    }
+
+    /**
+     * Percentiles for the last N months, optionally filtered, with a per-month trend
+     * and a category x priority breakdown
+     */
+    public Map<String, Object> getSummary(String category, ComplaintPriority priority, int months) {
+        YearMonth from = YearMonth.now().minusMonths(Math.max(months, 1) - 1L);
+
+        LogHistogram overall = new LogHistogram();
+        Map<YearMonth, LogHistogram> trend = new TreeMap<>();
+        Map<String, LogHistogram> breakdown = new TreeMap<>();
+
+        histograms.forEach((key, histogram) -> {
+            if (key.month().isBefore(from)
+                    || (category != null && !key.category().equalsIgnoreCase(category))
+                    || (priority != null && key.priority() != priority)) {
+                return;
+            }
+            overall.merge(histogram);
+            trend.computeIfAbsent(key.month(), m -> new LogHistogram()).merge(histogram);
+            breakdown.computeIfAbsent(key.category() + " / " + key.priority(), k -> new LogHistogram()).merge(histogram);
+        });
+
+        List<Map<String, Object>> trendData = new ArrayList<>();
+        trend.forEach((month, histogram) -> {
+            Map<String, Object> point = percentiles(histogram);
+            point.put("month", month.toString());
+            trendData.add(point);
+        });
+
+        Map<String, Object> breakdownData = new LinkedHashMap<>();
+        breakdown.forEach((group, histogram) -> breakdownData.put(group, percentiles(histogram)));
+
+        Map<String, Object> summary = percentiles(overall);
+        summary.put("from", from.toString());
+        summary.put("trend", trendData);
+        summary.put("breakdown", breakdownData);
+        return summary;
+    }
+
+    /**
+     * Mean resolution time in days for complaints submitted by a department, null if none resolved
+     */
+    public Double getAverageResolutionDays(String department) {
+        LogHistogram histogram = department != null ? byDepartment.get(department) : null;
+        if (histogram == null || histogram.getCount() == 0) {
+            return null;
+        }
+        return histogram.getMean() / (SECONDS_PER_HOUR * 24);
+    }
+
+    private void record(String category, ComplaintPriority priority, LocalDateTime submittedAt,
+                        LocalDateTime resolvedAt, String department) {
+        if (submittedAt == null || resolvedAt == null) {
+            return;
+        }
+        long seconds = Duration.between(submittedAt, resolvedAt).getSeconds();
+        String normalizedCategory = category == null || category.isBlank() ? UNCATEGORIZED : category.trim();
+        Key key = new Key(normalizedCategory, SlaPolicy.normalize(priority), YearMonth.from(resolvedAt));
+
+        histograms.computeIfAbsent(key, k -> new LogHistogram()).record(seconds);
+        if (department != null) {
+            byDepartment.computeIfAbsent(department, d -> new LogHistogram()).record(seconds);
+        }
+    }
+
+    private static Map<String, Object> percentiles(LogHistogram histogram) {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("count", histogram.getCount());
+        stats.put("meanHours", hours(histogram.getMean()));
+        stats.put("p50Hours", hours(histogram.percentile(0.50)));
+        stats.put("p90Hours", hours(histogram.percentile(0.90)));
+        stats.put("p99Hours", hours(histogram.percentile(0.99)));
+        return stats;
+    }
+
+    private static double hours(double seconds) {
+        return Math.round(seconds / SECONDS_PER_HOUR * 10) / 10.0;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Caps retries (and hedges) at a fraction of real traffic so a failing upstream is not hit by a retry storm
+ * Every original request deposits ratio tokens, every retry withdraws one; a small per-second
+ * allowance keeps retries possible at low traffic. The balance is capped.
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double minPerSecond;
+    private final double maxBalance;
+    private final LongSupplier clock;
+
+    private double balance;
+    private long lastRefill;
+    private long granted;
+    private long denied;
+
+    public RetryBudget(double ratio, double minPerSecond, double maxBalance, LongSupplier clock) {
+        this.ratio = ratio;
+        this.minPerSecond = minPerSecond;
+        this.maxBalance = maxBalance;
+        this.clock = clock;
+        this.balance = maxBalance;
+        this.lastRefill = clock.getAsLong();
+    }
+
+    public synchronized void recordRequest() {
+        balance = Math.min(maxBalance, balance + ratio);
+    }
+
+    public synchronized boolean tryWithdraw() {
+        long now = clock.getAsLong();
+        balance = Math.min(maxBalance, balance + (now - lastRefill) / 1000.0 * minPerSecond);
+        lastRefill = now;
+        if (balance >= 1) {
+            balance -= 1;
+            granted++;
+            return true;
+        }
+        denied++;
+        return false;
+    }
+
+    public synchronized Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("balance", Math.round(balance * 10) / 10.0);
+        stats.put("granted", granted);
+        stats.put("denied", denied);
+        return stats;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls with the same key into one upstream future
+ * The first caller (leader) starts the call; callers arriving while it is in flight join it
+ * instead of starting their own. A flight accepts at most max-waiters callers, after which the
+ * next caller leads a fresh flight. Each caller gets its own copy of the shared future bounded by
+ * its own timeout, so a caller giving up never affects the others, while the upstream outcome
+ * (result, error or upstream timeout) reaches every waiter.
+ */
+public class SingleFlight<K, V> {
+
+    private static final class Flight<V> {
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger(1);
+
+        boolean tryJoin(int maxWaiters) {
+            int current;
+            do {
+                current = waiters.get();
+                if (current >= maxWaiters) {
+                    return false;
+                }
+            } while (!waiters.compareAndSet(current, current + 1));
+            return true;
+        }
+    }
+
+    private final int maxWaiters;
+    private final Map<K, Flight<V>> flights = new ConcurrentHashMap<>();
+
+    private final LongAdder started = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+
+    public SingleFlight(int maxWaiters) {
+        this.maxWaiters = Math.max(1, maxWaiters);
+    }
+
+    /**
+     * Join the in-flight call for key, or start one with upstream
+     * An exception thrown by upstream itself (e.g. admission rejected) is rethrown to the leader
+     * and fails every caller that joined in the meantime.
+     *
+     * @param timeoutMillis how long this caller waits, 0 for no limit
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> upstream, long timeoutMillis) {
+        while (true) {
+            Flight<V> existing = flights.get(key);
+            if (existing != null) {
+                if (existing.tryJoin(maxWaiters)) {
+                    coalesced.increment();
+                    return waiterView(existing, timeoutMillis);
+                }
+                overflowed.increment();
+            }
+
+            Flight<V> flight = new Flight<>();
+            boolean installed = existing == null
+                    ? flights.putIfAbsent(key, flight) == null
+                    : flights.replace(key, existing, flight);
+            if (!installed) {
+                continue; // lost the race, try joining the winner
+            }
+
+            started.increment();
+            CompletableFuture<V> call;
+            try {
+                call = upstream.get();
+            } catch (RuntimeException e) {
+                flights.remove(key, flight);
+                flight.result.completeExceptionally(e);
+                throw e;
+            }
+            call.whenComplete((value, error) -> {
+                // Unregister first so nobody joins a settled flight
+                flights.remove(key, flight);
+                if (error != null) {
+                    flight.result.completeExceptionally(error);
+                } else {
+                    flight.result.complete(value);
+                }
+            });
+            return waiterView(flight, timeoutMillis);
+        }
+    }
+
+    public int getInFlight() {
+        return flights.size();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("inFlight", flights.size());
+        stats.put("upstreamCalls", started.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("waiterCapOverflows", overflowed.sum());
+        return stats;
+    }
+
+    private CompletableFuture<V> waiterView(Flight<V> flight, long timeoutMillis) {
+        CompletableFuture<V> view = flight.result.copy();
+        return timeoutMillis > 0 ? view.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS) : view;
+    }
+}
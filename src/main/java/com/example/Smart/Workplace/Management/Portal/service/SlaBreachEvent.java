@@ -0,0 +1,16 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintPriority;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by the SLA monitor when a complaint misses a response or resolution target
+ */
+public record SlaBreachEvent(Long complaintId, Kind kind, ComplaintPriority priority, LocalDateTime deadline) {
+
+    public enum Kind {
+        RESPONSE,
+        RESOLUTION
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.Complaint;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintEventType;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintPriority;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintStatus;
+import com.example.Smart.Workplace.Management.Portal.model.Role;
+import com.example.Smart.Workplace.Management.Portal.model.User;
+import com.example.Smart.Workplace.Management.Portal.repository.ComplaintRepository;
+import com.example.Smart.Workplace.Management.Portal.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.mail.MailException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reacts to SLA breaches: records the breach, escalates priority and notifies staff
+ * Breaches are handled on a thread of their own so the SLA ticker never waits on the database or
+ * SMTP; mail goes out only after the breach is committed. An escalated complaint is re-tracked so
+ * its resolution timer follows the new priority's target.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SlaBreachHandler {
+
+    private final ComplaintRepository complaintRepository;
+    private final UserRepository userRepository;
+    private final ComplaintEventLog complaintEventLog;
+    private final ObjectProvider<JavaMailSender> mailSender;
+    private final SlaMonitorService slaMonitorService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("sla-breach-"));
+
+    @Value("${complaint.sla.auto-escalate:true}")
+    private boolean autoEscalate;
+
+    @Value("${complaint.sla.notify-from:noreply@smartworkplace.local}")
+    private String notifyFrom;
+
+    /**
+     * The escalated complaint (if any) and the notifications to send once the breach is committed
+     */
+    private record Outcome(Complaint escalated, List<SimpleMailMessage> notifications) {
+    }
+
+    @EventListener
+    public void onBreach(SlaBreachEvent event) {
+        try {
+            executor.execute(() -> handle(event));
+        } catch (RejectedExecutionException e) {
+            log.warn("Shutting down - SLA {} breach on complaint {} not handled", event.kind(), event.complaintId());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(SlaBreachEvent event) {
+        try {
+            Outcome outcome = transactionTemplate.execute(status -> recordBreach(event));
+            if (outcome == null) {
+                return;
+            }
+            if (outcome.escalated() != null) {
+                slaMonitorService.track(outcome.escalated());
+            }
+            send(outcome.notifications(), event);
+        } catch (RuntimeException e) {
+            log.error("Failed to handle SLA breach for complaint {}", event.complaintId(), e);
+        }
+    }
+
+    /**
+     * Mark the breach with a guarded update rather than saving the loaded entity
+     * A resolve that commits between the read and the update makes the guard miss, so the breach is
+     * dropped instead of reopening the complaint.
+     */
+    private Outcome recordBreach(SlaBreachEvent event) {
+        Complaint complaint = complaintRepository.findById(event.complaintId()).orElse(null);
+        if (complaint == null || (complaint.getStatus() != ComplaintStatus.OPEN
+                && complaint.getStatus() != ComplaintStatus.IN_PROGRESS)) {
+            return null;
+        }
+
+        ComplaintPriority previous = SlaPolicy.normalize(complaint.getPriority());
+        boolean escalate = autoEscalate && previous != ComplaintPriority.URGENT;
+        ComplaintPriority priority = escalate ? previous.escalate() : previous;
+        LocalDateTime now = LocalDateTime.now();
+        int updated = event.kind() == SlaBreachEvent.Kind.RESPONSE
+                ? complaintRepository.markResponseBreached(complaint.getId(), priority, now)
+                : complaintRepository.markResolutionBreached(complaint.getId(), priority, now);
+        if (updated == 0) {
+            return null;
+        }
+
+        if (escalate) {
+            log.info("Complaint {} escalated from {} to {}", complaint.getId(), previous, priority);
+        }
+        complaintEventLog.record(complaint.getId(), ComplaintEventType.ESCALATED, null, null, null, null,
+                String.format("SLA %s breach, priority %s -> %s",
+                        event.kind().name().toLowerCase(), previous, priority));
+
+        // The update cleared the persistence context, so read back what it wrote
+        Complaint marked = complaintRepository.findById(complaint.getId()).orElseThrow();
+        return new Outcome(escalate ? marked : null, notifications(marked, event));
+    }
+
+    /**
+     * Mail for the assignee, or all active admins if nobody is assigned yet
+     */
+    private List<SimpleMailMessage> notifications(Complaint complaint, SlaBreachEvent event) {
+        List<User> recipients = complaint.getAssignedTo() != null
+                ? List.of(complaint.getAssignedTo())
+                : userRepository.findByRoleAndActive(Role.ADMIN, true);
+
+        List<SimpleMailMessage> messages = new ArrayList<>();
+        for (User recipient : recipients) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(notifyFrom);
+            message.setTo(recipient.getEmail());
+            message.setSubject("SLA breach: complaint #" + complaint.getId());
+            message.setText(String.format(
+                    "Complaint #%d \"%s\" missed its %s target (deadline %s).%nCurrent priority: %s, status: %s.",
+                    complaint.getId(), complaint.getTitle(), event.kind().name().toLowerCase(),
+                    event.deadline(), complaint.getPriority(), complaint.getStatus()));
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private void send(List<SimpleMailMessage> messages, SlaBreachEvent event) {
+        JavaMailSender sender = mailSender.getIfAvailable();
+        if (sender == null) {
+            log.warn("Mail not configured - SLA {} breach on complaint {} not emailed to {} recipient(s)",
+                    event.kind(), event.complaintId(), messages.size());
+            return;
+        }
+        for (SimpleMailMessage message : messages) {
+            try {
+                sender.send(message);
+            } catch (MailException e) {
+                log.error("Failed to send SLA breach notification to {}", String.join(", ", message.getTo()), e);
+            }
+        }
+    }
+}
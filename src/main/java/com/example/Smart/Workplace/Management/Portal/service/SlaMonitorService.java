@@ -0,0 +1,288 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.Complaint;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintPriority;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintStatus;
+import com.example.Smart.Workplace.Management.Portal.repository.ComplaintRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Watches open complaints against their SLA targets
+ * Pending deadlines live in a hierarchical timer wheel loaded once at startup,
+ * so the periodic tick does O(1) work regardless of how many complaints are open.
+ * Timer changes made from a transaction are applied once it commits, so a rollback leaves the
+ * wheel as it was; late breaches are still flagged on the entity inside the transaction.
+ */
+@Service
+@Slf4j
+public class SlaMonitorService {
+
+    private final ComplaintRepository complaintRepository;
+    private final SlaPolicy slaPolicy;
+    private final ApplicationEventPublisher eventPublisher;
+    private final HierarchicalTimerWheel<SlaBreachEvent> timerWheel;
+
+    /**
+     * Pending timers per complaint, used to cancel them when the complaint progresses
+     */
+    private final Map<Long, TrackedComplaint> tracked = new ConcurrentHashMap<>();
+
+    public SlaMonitorService(
+            ComplaintRepository complaintRepository,
+            SlaPolicy slaPolicy,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${complaint.sla.tick-ms:60000}") long tickMillis) {
+        this.complaintRepository = complaintRepository;
+        this.slaPolicy = slaPolicy;
+        this.eventPublisher = eventPublisher;
+        // 4 levels of 64 slots span 64^4 ticks (~31 years at one-minute ticks)
+        this.timerWheel = new HierarchicalTimerWheel<>(tickMillis, 4, System.currentTimeMillis());
+    }
+
+    /**
+     * Load deadlines for every open/in-progress complaint once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadActiveComplaints() {
+        List<Object[]> rows = complaintRepository.findActiveForSlaTracking();
+        for (Object[] row : rows) {
+            track((Long) row[0], (ComplaintPriority) row[1], (ComplaintStatus) row[2],
+                    (LocalDateTime) row[3], row[4] != null, row[5] != null, row[6] != null);
+        }
+        log.info("SLA monitor tracking {} active complaints", tracked.size());
+    }
+
+    /**
+     * Start tracking a newly submitted complaint, or re-track one whose priority changed
+     */
+    public void track(Complaint complaint) {
+        trackAfterCommit(complaint, complaint.getSubmittedAt());
+    }
+
+    /**
+     * A resolved or closed complaint was reopened
+     * Its targets run again from now, so time spent resolved does not count against it
+     */
+    public void recordReopen(Complaint complaint) {
+        trackAfterCommit(complaint, LocalDateTime.now());
+    }
+
+    /**
+     * Complaint was picked up (assigned / moved to IN_PROGRESS)
+     * Cancels the response timer and flags a late response that the ticker has not caught yet
+     */
+    public void recordResponse(Complaint complaint) {
+        TrackedComplaint entry = tracked.get(complaint.getId());
+        if (entry == null || entry.response == null) {
+            return;
+        }
+        // A timer the ticker already fired is nulled, so a pending past deadline is a breach nobody recorded
+        if (isPast(entry.response) && complaint.getResponseBreachedAt() == null) {
+            complaint.setResponseBreachedAt(LocalDateTime.now());
+        }
+        Long complaintId = complaint.getId();
+        afterCommit(() -> cancelResponse(complaintId));
+    }
+
+    /**
+     * Complaint was resolved or closed - stop tracking it entirely
+     */
+    public void recordResolution(Complaint complaint) {
+        recordResponse(complaint);
+        TrackedComplaint entry = tracked.get(complaint.getId());
+        if (entry == null || entry.resolution == null) {
+            return;
+        }
+        if (isPast(entry.resolution) && complaint.getResolutionBreachedAt() == null) {
+            complaint.setResolutionBreachedAt(LocalDateTime.now());
+        }
+        Long complaintId = complaint.getId();
+        afterCommit(() -> cancelAll(complaintId));
+    }
+
+    /**
+     * Stop tracking a complaint without recording anything (e.g. deleted)
+     */
+    public void untrack(Long complaintId) {
+        afterCommit(() -> cancelAll(complaintId));
+    }
+
+    /**
+     * Advance the timer wheel and publish breach events for expired deadlines
+     */
+    @Scheduled(fixedDelayString = "${complaint.sla.tick-ms:60000}")
+    public void tick() {
+        List<SlaBreachEvent> breaches = timerWheel.advance(System.currentTimeMillis());
+        for (SlaBreachEvent breach : breaches) {
+            TrackedComplaint entry = tracked.get(breach.complaintId());
+            if (entry != null) {
+                if (breach.kind() == SlaBreachEvent.Kind.RESPONSE) {
+                    entry.response = null;
+                } else {
+                    tracked.remove(breach.complaintId());
+                }
+            }
+
+            log.warn("SLA {} breach for complaint {} (priority {})",
+                    breach.kind(), breach.complaintId(), breach.priority());
+            // Listeners hand the breach off to their own thread
+            eventPublisher.publishEvent(breach);
+        }
+    }
+
+    /**
+     * SLA compliance per priority (historical, from the breach columns) plus live tracking counts
+     */
+    public Map<String, Object> getComplianceStatistics() {
+        Map<ComplaintPriority, Map<String, Object>> byPriority = new EnumMap<>(ComplaintPriority.class);
+        long total = 0;
+        long breached = 0;
+
+        for (Object[] row : complaintRepository.getSlaStatisticsByPriority()) {
+            ComplaintPriority priority = SlaPolicy.normalize((ComplaintPriority) row[0]);
+            long count = ((Number) row[1]).longValue();
+            long responseBreaches = row[2] != null ? ((Number) row[2]).longValue() : 0;
+            long resolutionBreaches = row[3] != null ? ((Number) row[3]).longValue() : 0;
+
+            Map<String, Object> stat = byPriority.computeIfAbsent(priority, p -> newPriorityStat());
+            stat.merge("total", count, (a, b) -> (Long) a + (Long) b);
+            stat.merge("responseBreaches", responseBreaches, (a, b) -> (Long) a + (Long) b);
+            stat.merge("resolutionBreaches", resolutionBreaches, (a, b) -> (Long) a + (Long) b);
+            total += count;
+            breached += resolutionBreaches;
+        }
+
+        for (TrackedComplaint entry : tracked.values()) {
+            Map<String, Object> stat = byPriority.computeIfAbsent(entry.priority, p -> newPriorityStat());
+            stat.merge("tracked", 1L, (a, b) -> (Long) a + (Long) b);
+        }
+
+        byPriority.values().forEach(stat -> {
+            long count = (Long) stat.get("total");
+            long responseBreaches = (Long) stat.get("responseBreaches");
+            long resolutionBreaches = (Long) stat.get("resolutionBreaches");
+            stat.put("responseCompliance", percentage(count - responseBreaches, count));
+            stat.put("resolutionCompliance", percentage(count - resolutionBreaches, count));
+        });
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("priorities", byPriority);
+        result.put("overallResolutionCompliance", percentage(total - breached, total));
+        result.put("pendingTimers", timerWheel.size());
+        return result;
+    }
+
+    private void trackAfterCommit(Complaint complaint, LocalDateTime start) {
+        // Read now: the entity may be detached by the time the commit completes
+        Long id = complaint.getId();
+        ComplaintPriority priority = complaint.getPriority();
+        ComplaintStatus status = complaint.getStatus();
+        boolean assigned = complaint.isAssigned();
+        boolean responseBreached = complaint.getResponseBreachedAt() != null;
+        boolean resolutionBreached = complaint.getResolutionBreachedAt() != null;
+        afterCommit(() -> track(id, priority, status, start, assigned, responseBreached, resolutionBreached));
+    }
+
+    private void cancelResponse(Long complaintId) {
+        TrackedComplaint entry = tracked.get(complaintId);
+        if (entry != null) {
+            timerWheel.cancel(entry.response);
+            entry.response = null;
+        }
+    }
+
+    private void cancelAll(Long complaintId) {
+        TrackedComplaint entry = tracked.remove(complaintId);
+        if (entry != null) {
+            timerWheel.cancel(entry.response);
+            timerWheel.cancel(entry.resolution);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void track(Long id, ComplaintPriority priority, ComplaintStatus status, LocalDateTime submittedAt,
+                       boolean assigned, boolean responseBreached, boolean resolutionBreached) {
+        if (status != ComplaintStatus.OPEN && status != ComplaintStatus.IN_PROGRESS) {
+            return;
+        }
+        ComplaintPriority effective = SlaPolicy.normalize(priority);
+        LocalDateTime start = submittedAt != null ? submittedAt : LocalDateTime.now();
+        TrackedComplaint entry = new TrackedComplaint(effective);
+
+        if (!assigned && status == ComplaintStatus.OPEN && !responseBreached) {
+            LocalDateTime deadline = start.plus(slaPolicy.getResponseTarget(effective));
+            entry.response = timerWheel.schedule(
+                    new SlaBreachEvent(id, SlaBreachEvent.Kind.RESPONSE, effective, deadline), toMillis(deadline));
+        }
+        if (!resolutionBreached) {
+            LocalDateTime deadline = start.plus(slaPolicy.getResolutionTarget(effective));
+            entry.resolution = timerWheel.schedule(
+                    new SlaBreachEvent(id, SlaBreachEvent.Kind.RESOLUTION, effective, deadline), toMillis(deadline));
+        }
+
+        TrackedComplaint previous = tracked.put(id, entry);
+        if (previous != null) {
+            timerWheel.cancel(previous.response);
+            timerWheel.cancel(previous.resolution);
+        }
+    }
+
+    private static Map<String, Object> newPriorityStat() {
+        Map<String, Object> stat = new HashMap<>();
+        stat.put("total", 0L);
+        stat.put("responseBreaches", 0L);
+        stat.put("resolutionBreaches", 0L);
+        stat.put("tracked", 0L);
+        return stat;
+    }
+
+    private static boolean isPast(HierarchicalTimerWheel.Timeout<SlaBreachEvent> timeout) {
+        return timeout.getDeadlineMillis() <= System.currentTimeMillis();
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static String percentage(long part, long total) {
+        return String.format("%.1f%%", total > 0 ? part * 100.0 / total : 100.0);
+    }
+
+    private static final class TrackedComplaint {
+        private final ComplaintPriority priority;
+        private volatile HierarchicalTimerWheel.Timeout<SlaBreachEvent> response;
+        private volatile HierarchicalTimerWheel.Timeout<SlaBreachEvent> resolution;
+
+        private TrackedComplaint(ComplaintPriority priority) {
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintPriority;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Service-level targets per complaint priority
+ * Response = time until the complaint is assigned / picked up
+ * Resolution = time until the complaint is resolved or closed
+ */
+@Component
+public class SlaPolicy {
+
+    private final Map<ComplaintPriority, Duration> responseTargets = new EnumMap<>(ComplaintPriority.class);
+    private final Map<ComplaintPriority, Duration> resolutionTargets = new EnumMap<>(ComplaintPriority.class);
+
+    public SlaPolicy(
+            @Value("#{${complaint.sla.response-minutes:{LOW:1440,MEDIUM:480,HIGH:120,URGENT:30}}}")
+            Map<String, Integer> responseMinutes,
+            @Value("#{${complaint.sla.resolution-minutes:{LOW:10080,MEDIUM:4320,HIGH:1440,URGENT:240}}}")
+            Map<String, Integer> resolutionMinutes) {
+        for (ComplaintPriority priority : ComplaintPriority.values()) {
+            responseTargets.put(priority, minutes(responseMinutes, priority));
+            resolutionTargets.put(priority, minutes(resolutionMinutes, priority));
+        }
+    }
+
+    public Duration getResponseTarget(ComplaintPriority priority) {
+        return responseTargets.get(normalize(priority));
+    }
+
+    public Duration getResolutionTarget(ComplaintPriority priority) {
+        return resolutionTargets.get(normalize(priority));
+    }
+
+    /**
+     * Complaints submitted without a priority are treated as MEDIUM
+     */
+    public static ComplaintPriority normalize(ComplaintPriority priority) {
+        return priority != null ? priority : ComplaintPriority.MEDIUM;
+    }
+
+    private static Duration minutes(Map<String, Integer> targets, ComplaintPriority priority) {
+        Integer value = targets.get(priority.name());
+        if (value == null || value <= 0) {
+            throw new IllegalArgumentException("Missing SLA target for priority " + priority);
+        }
+        return Duration.ofMinutes(value);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local count of how many tokens a text costs the model
+ * Runs a byte-pair encoder over the text. Llama 3 uses a tiktoken-style BPE that extends the
+ * cl100k_base vocabulary, so that encoding counts within a few percent of what the provider bills.
+ * Chat messages add a fixed overhead for the role and format tokens.
+ */
+@Component
+public class TokenEstimator {
+
+    private static final int MESSAGE_OVERHEAD = 4;
+    private static final String DEFAULT_ENCODING = "cl100k_base";
+
+    // Vocabularies are parsed once, on first use, and shared by every estimator in the JVM
+    private static final EncodingRegistry ENCODINGS = Encodings.newLazyEncodingRegistry();
+
+    private final Encoding encoding;
+
+    public TokenEstimator() {
+        this(DEFAULT_ENCODING);
+    }
+
+    @Autowired
+    public TokenEstimator(@Value("${ai.tokens.encoding:" + DEFAULT_ENCODING + "}") String encodingName) {
+        this.encoding = ENCODINGS.getEncoding(encodingName)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown token encoding: " + encodingName));
+    }
+
+    public int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        // Ordinary: text that looks like a special token is counted as text, never rejected
+        return encoding.countTokensOrdinary(text);
+    }
+
+    /**
+     * Estimate for one chat message including the role/format overhead
+     */
+    public int estimateMessage(String content) {
+        return estimate(content) + MESSAGE_OVERHEAD;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-user snapshot of the figures the AI assistant puts in its prompt
+ * Built with one aggregate query and kept until the user's leaves or complaints change, so
+ * building a personal prompt is a memory read. Invalidation happens after the writing
+ * transaction commits, otherwise a concurrent chat could re-cache the old figures.
+ * The snapshot is also dropped at the turn of the year, when the used-days figure resets.
+ */
+@Component
+@Slf4j
+public class UserContextCache implements MeterBinder {
+
+    /**
+     * Profile and leave/complaint figures of one user at one point in time
+     */
+    public record Snapshot(String fullName, String email, String role, String department,
+                           long totalLeaves, long pendingLeaves, long approvedLeaves, long rejectedLeaves,
+                           long usedLeaveDaysThisYear, long openComplaints, int year) {
+    }
+
+    private final UserRepository userRepository;
+    private final Cache<Long, Snapshot> cache;
+
+    public UserContextCache(
+            UserRepository userRepository,
+            @Value("${ai.context.max-users:10000}") long maxUsers,
+            @Value("${ai.context.ttl-minutes:60}") long ttlMinutes) {
+        this.userRepository = userRepository;
+        // The TTL only bounds staleness from writes that bypass the services (e.g. manual SQL)
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Cached snapshot, loaded with a single query on a miss
+     *
+     * @throws IllegalArgumentException if the user does not exist
+     */
+    public Snapshot get(Long userId) {
+        Snapshot snapshot = cache.get(userId, this::load);
+        if (snapshot.year() != Year.now().getValue()) {
+            cache.invalidate(userId);
+            snapshot = cache.get(userId, this::load);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Drop the user's snapshot once the current transaction commits (immediately if there is none)
+     */
+    public void invalidateAfterCommit(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(userId);
+                }
+            });
+        } else {
+            cache.invalidate(userId);
+        }
+    }
+
+    /**
+     * Snapshot cache hits, misses and evictions, as cache.* meters
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "ai.user-context");
+    }
+
+    public Map<String, Object> getStatistics() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRatio", Math.round(stats.hitRate() * 1000) / 1000.0);
+        return result;
+    }
+
+    private Snapshot load(Long userId) {
+        int year = Year.now().getValue();
+        List<Object[]> rows = userRepository.findAssistantContext(
+                userId, LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("User not found with ID: " + userId);
+        }
+        Object[] row = rows.get(0);
+        log.debug("Loaded assistant context for user {}", userId);
+        return new Snapshot(
+                row[0] + " " + row[1],
+                (String) row[2],
+                (String) row[3],
+                (String) row[4],
+                toLong(row[5]),
+                toLong(row[6]),
+                toLong(row[7]),
+                toLong(row[8]),
+                toLong(row[9]),
+                toLong(row[10]),
+                year);
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0;
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory ring buffer drained by a background writer thread in batches
+ * Producers never block: when the buffer is full, or a batch cannot be written,
+ * the items are appended to a spill file (JSON lines, fsync'd). The writer thread replays it after
+ * the first batch that succeeds following a spill, and any leftovers are replayed on the next start.
+ * Overflow is handed to a spill thread, so producers never wait on the disk either. Replay is
+ * at-least-once: a crash in the middle of a replay writes the already replayed items again.
+ */
+@Slf4j
+public class WriteBehindBuffer<T> implements AutoCloseable {
+
+    /**
+     * Persists one batch, typically as a single JDBC batch inside one transaction
+     */
+    @FunctionalInterface
+    public interface BatchWriter<T> {
+        void write(List<T> batch) throws Exception;
+    }
+
+    private final String name;
+    private final BlockingQueue<T> queue;
+    private final BlockingQueue<T> overflow;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final BatchWriter<T> writer;
+    private final Path spillFile;
+    private final ObjectMapper objectMapper;
+    private final Class<T> type;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final Object replayLock = new Object();
+
+    private volatile List<T> inFlight = Collections.emptyList();
+    private volatile boolean spillPending;
+    private volatile boolean running;
+    private Thread drainThread;
+    private Thread spillThread;
+
+    public WriteBehindBuffer(String name, int capacity, int batchSize, long flushIntervalMillis,
+                             BatchWriter<T> writer, Path spillFile, ObjectMapper objectMapper, Class<T> type) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.overflow = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.writer = writer;
+        this.spillFile = spillFile;
+        this.objectMapper = objectMapper;
+        this.type = type;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        drainThread = new Thread(this::drainLoop, name + "-writer");
+        drainThread.setDaemon(true);
+        drainThread.start();
+        spillThread = new Thread(this::spillLoop, name + "-spill");
+        spillThread.setDaemon(true);
+        spillThread.start();
+    }
+
+    /**
+     * Enqueue an item without blocking the caller
+     */
+    public void offer(T item) {
+        if (queue.offer(item) || overflow.offer(item)) {
+            return;
+        }
+        // Both full: the spill thread is far behind, so this caller pays for the disk write
+        log.warn("{} buffer and overflow full, spilling item to {} on the caller's thread", name, spillFile);
+        spill(List.of(item));
+    }
+
+    /**
+     * Items accepted but not yet persisted (buffered, being written or about to be spilled)
+     * The batch being written is listed until the writer returns, so it may already be committed.
+     */
+    public List<T> pending() {
+        List<T> pending = new ArrayList<>(inFlight);
+        pending.addAll(queue);
+        pending.addAll(overflow);
+        return pending;
+    }
+
+    /**
+     * Write back anything left in the spill file from a previous run or a database outage
+     * A replay file left by a run that died mid-replay goes first. Lines that do not parse, such as
+     * the torn last line of a hard kill, are moved to a .rejected file instead of stopping the replay.
+     */
+    public void replaySpill() {
+        synchronized (replayLock) {
+            Path replaying = spillFile.resolveSibling(spillFile.getFileName() + ".replay");
+            if (Files.exists(replaying)) {
+                log.warn("{} found {} from an interrupted replay, replaying it first", name, replaying);
+                if (!replay(replaying)) {
+                    return;
+                }
+            }
+            // Under the spill lock, so no append is still writing into the file being moved
+            synchronized (this) {
+                if (!Files.exists(spillFile)) {
+                    return;
+                }
+                try {
+                    Files.move(spillFile, replaying, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    log.error("{} could not move spill file {} aside for replay", name, spillFile, e);
+                    return;
+                }
+            }
+            replay(replaying);
+        }
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getSpilledCount() {
+        return spilled.get();
+    }
+
+    /**
+     * Spilled lines that could not be read back and were set aside
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Stop the writer thread and drain everything still buffered
+     */
+    @Override
+    public void close() {
+        running = false;
+        // No interrupt: let an in-progress batch or spill finish, the poll timeouts end the loops
+        join(drainThread);
+        join(spillThread);
+
+        List<T> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (int from = 0; from < remaining.size(); from += batchSize) {
+            flush(remaining.subList(from, Math.min(from + batchSize, remaining.size())));
+        }
+        List<T> overflowed = new ArrayList<>();
+        overflow.drainTo(overflowed);
+        if (!overflowed.isEmpty()) {
+            spill(overflowed);
+        }
+    }
+
+    private static void join(Thread thread) {
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Replay one file and delete it; false when it could not be read and was left for the next start
+     */
+    private boolean replay(Path replaying) {
+        List<T> items = new ArrayList<>();
+        List<String> unreadable = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(replaying, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    items.add(objectMapper.readValue(line, type));
+                } catch (IOException e) {
+                    unreadable.add(line);
+                }
+            }
+        } catch (IOException e) {
+            log.error("{} could not read spill file {}, leaving it for the next start", name, replaying, e);
+            return false;
+        }
+        if (!unreadable.isEmpty()) {
+            reject(unreadable);
+        }
+
+        for (int from = 0; from < items.size(); from += batchSize) {
+            flush(items.subList(from, Math.min(from + batchSize, items.size())));
+        }
+        try {
+            Files.deleteIfExists(replaying);
+        } catch (IOException e) {
+            log.warn("{} could not delete replayed spill file {}", name, replaying, e);
+        }
+        log.info("{} replayed {} spilled item(s), {} unreadable", name, items.size(), unreadable.size());
+        return true;
+    }
+
+    private void reject(List<String> lines) {
+        Path rejectFile = spillFile.resolveSibling(spillFile.getFileName() + ".rejected");
+        try {
+            Files.write(rejectFile, lines, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            rejected.addAndGet(lines.size());
+            log.warn("{} set {} unreadable spilled line(s) aside in {}", name, lines.size(), rejectFile);
+        } catch (IOException e) {
+            log.error("{} dropped {} unreadable spilled line(s)", name, lines.size(), e);
+        }
+    }
+
+    private void spillLoop() {
+        List<T> items = new ArrayList<>();
+        while (running) {
+            try {
+                T first = overflow.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                items.add(first);
+                overflow.drainTo(items);
+                log.warn("{} buffer full, spilling {} item(s) to {}", name, items.size(), spillFile);
+                spill(items);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                items.clear();
+            }
+        }
+    }
+
+    private void drainLoop() {
+        List<T> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                T first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                inFlight = List.copyOf(batch);
+                // The database is back: write back what was spilled instead of waiting for a restart
+                if (flush(batch) && spillPending) {
+                    spillPending = false;
+                    replaySpill();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                if (!batch.isEmpty()) {
+                    batch.clear();
+                    inFlight = Collections.emptyList();
+                }
+            }
+        }
+    }
+
+    /**
+     * Write one batch, spilling it on failure; true if it reached the database
+     */
+    private boolean flush(List<T> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        try {
+            writer.write(batch);
+            written.addAndGet(batch.size());
+            batches.incrementAndGet();
+            return true;
+        } catch (Exception e) {
+            log.error("{} failed to write batch of {}, spilling to {}", name, batch.size(), spillFile, e);
+            spill(batch);
+            return false;
+        }
+    }
+
+    private synchronized void spill(List<T> items) {
+        try {
+            if (spillFile.getParent() != null) {
+                Files.createDirectories(spillFile.getParent());
+            }
+            try (FileOutputStream out = new FileOutputStream(spillFile.toFile(), true);
+                 Writer fileWriter = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+                for (T item : items) {
+                    fileWriter.write(objectMapper.writeValueAsString(item));
+                    fileWriter.write('\n');
+                }
+                fileWriter.flush();
+                out.getChannel().force(false);
+            }
+            spilled.addAndGet(items.size());
+            spillPending = true;
+        } catch (IOException e) {
+            log.error("{} lost {} item(s): spill file {} is not writable", name, items.size(), spillFile, e);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.Smart.Workplace.Management.Portal.config;
+
+import com.example.Smart.Workplace.Management.Portal.service.QueryTracker;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ServletResponse;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryBudgetFilterTest {
+
+    private final QueryTracker tracker = new QueryTracker(20, 10_000, 10);
+    private final QueryBudgetFilter filter = new QueryBudgetFilter(tracker);
+
+    @Test
+    void reportsTheStatementsOfARequest() throws Exception {
+        MockHttpServletRequest request = request();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            runQuery();
+            res.getWriter().write("{}");
+        });
+
+        assertEquals(1, endpointStats().get("maxQueries"));
+        assertEquals(1, response.getHeaders("Server-Timing").size());
+        assertTrue(response.getHeader("Server-Timing").endsWith("desc=\"1 queries\""));
+    }
+
+    @Test
+    void chargesAnAsyncRequestAcrossBothDispatches() throws Exception {
+        MockHttpServletRequest request = request();
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<ServletResponse> asyncResponse = new AtomicReference<>();
+
+        filter.doFilter(request, response, (req, res) -> {
+            runQuery();
+            asyncResponse.set(res);
+            req.startAsync(req, res);
+        });
+        // Nothing is checked while the result is pending, and a statement on another thread is not charged
+        assertEquals(List.of(), tracker.getStatistics().get("endpoints"));
+        assertNull(response.getHeader("Server-Timing"));
+        runQuery();
+
+        request.setAsyncStarted(false);
+        request.setDispatcherType(DispatcherType.ASYNC);
+        // As the container does, the async dispatch gets the response the initial one started async with
+        filter.doFilter(request, asyncResponse.get(), (req, res) -> {
+            runQuery();
+            res.getWriter().write("{}");
+        });
+
+        Map<?, ?> stats = endpointStats();
+        assertEquals(1L, stats.get("requests"));
+        assertEquals(2, stats.get("maxQueries"));
+        assertEquals(1, response.getHeaders("Server-Timing").size());
+        assertTrue(response.getHeader("Server-Timing").endsWith("desc=\"2 queries\""));
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/ai-assistant/chat");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/ai-assistant/chat");
+        return request;
+    }
+
+    private Map<?, ?> endpointStats() {
+        List<?> endpoints = (List<?>) tracker.getStatistics().get("endpoints");
+        assertEquals(1, endpoints.size());
+        return (Map<?, ?>) endpoints.get(0);
+    }
+
+    private void runQuery() {
+        QueryInfo query = new QueryInfo("select 1");
+        ExecutionInfo execution = new ExecutionInfo();
+        tracker.beforeQuery(execution, List.of(query));
+        tracker.afterQuery(execution, List.of(query));
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.Smart.Workplace.Management.Portal.controller;
+
+import com.example.Smart.Workplace.Management.Portal.model.Role;
+import com.example.Smart.Workplace.Management.Portal.model.User;
+import com.example.Smart.Workplace.Management.Portal.repository.UserRepository;
+import com.example.Smart.Workplace.Management.Portal.service.UserContextCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdminControllerTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserContextCache userContextCache = mock(UserContextCache.class);
+    private final AdminController adminController = new AdminController(userRepository, null, null, null, null,
+            null, null, null, null, null, null, null, null, userContextCache);
+
+    @BeforeEach
+    void setUp() {
+        User user = User.builder().id(7L).email("jane@example.com").role(Role.EMPLOYEE).active(true).build();
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void roleChangeDropsTheAssistantSnapshot() {
+        adminController.updateUserRole(7L, Role.MANAGER);
+
+        InOrder order = inOrder(userRepository, userContextCache);
+        order.verify(userRepository).save(any(User.class));
+        order.verify(userContextCache).invalidateAfterCommit(7L);
+    }
+
+    @Test
+    void statusChangeDropsTheAssistantSnapshot() {
+        adminController.toggleUserStatus(7L);
+
+        InOrder order = inOrder(userRepository, userContextCache);
+        order.verify(userRepository).save(any(User.class));
+        order.verify(userContextCache).invalidateAfterCommit(7L);
+    }
+
+    @Test
+    void softDeleteDropsTheAssistantSnapshot() {
+        adminController.deleteUser(7L);
+
+        InOrder order = inOrder(userRepository, userContextCache);
+        order.verify(userRepository).save(any(User.class));
+        order.verify(userContextCache).invalidateAfterCommit(7L);
+    }
+}
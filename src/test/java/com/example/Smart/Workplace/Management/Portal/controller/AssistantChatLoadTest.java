@@ -0,0 +1,303 @@
+package com.example.Smart.Workplace.Management.Portal.controller;
+
+import com.example.Smart.Workplace.Management.Portal.model.Role;
+import com.example.Smart.Workplace.Management.Portal.model.User;
+import com.example.Smart.Workplace.Management.Portal.repository.UserRepository;
+import com.example.Smart.Workplace.Management.Portal.security.JwtService;
+import com.example.Smart.Workplace.Management.Portal.service.ChatTranscriptLog;
+import com.example.Smart.Workplace.Management.Portal.service.IntentClassifier;
+import com.example.Smart.Workplace.Management.Portal.service.LlmService;
+import com.example.Smart.Workplace.Management.Portal.service.LlmStubServer;
+import com.example.Smart.Workplace.Management.Portal.service.LogHistogram;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tomcat.util.threads.ThreadPoolExecutor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replays a corpus of chat prompts against POST /api/ai-assistant/chat at a fixed concurrency
+ * Groq is replaced by an in-process stub with log-normal latency and optional error injection,
+ * so no API key or network is needed; the database comes from the usual application properties.
+ * Reports throughput, latency percentiles (apart for prompts the classifier answers locally, which
+ * never reach the model) and how saturated the servlet and Groq pools get. The load-user-N accounts
+ * and everything they wrote are deleted afterwards.
+ * Run with: mvn test -Pload [-Dload.concurrency=64 -Dload.requests=2000 ...]
+ */
+@Tag("load")
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class AssistantChatLoadTest {
+
+    private static final int CONCURRENCY = intProperty("load.concurrency", 32);
+    private static final int REQUESTS = intProperty("load.requests", 500);
+    private static final int USERS = intProperty("load.users", 20);
+
+    private static final LlmStubServer STUB = new LlmStubServer(LlmStubServer.Settings.builder()
+            .medianLatencyMillis(longProperty("load.stub.median-ms", 600))
+            .p99LatencyMillis(longProperty("load.stub.p99-ms", 3000))
+            .completionTokens(intProperty("load.stub.completion-tokens", 150))
+            .rateLimitRate(doubleProperty("load.stub.rate-limit-rate", 0))
+            .serverErrorRate(doubleProperty("load.stub.server-error-rate", 0))
+            .disconnectRate(doubleProperty("load.stub.disconnect-rate", 0))
+            .build());
+
+    @DynamicPropertySource
+    static void pointGroqAtStub(DynamicPropertyRegistry registry) throws IOException {
+        STUB.start();
+        registry.add("groq.api.url", STUB::url);
+        registry.add("groq.api.key", () -> "load-test");
+        // Every replayed prompt should reach the model path, and the run measures the app, not the quotas
+        registry.add("ai.cache.max-size", () -> System.getProperty("load.cache-size", "0"));
+        registry.add("groq.rate-limit.requests-per-minute", () -> System.getProperty("load.rpm", "1000000"));
+        registry.add("groq.rate-limit.tokens-per-minute", () -> System.getProperty("load.tpm", "1000000000"));
+        registry.add("groq.fair.user-tokens-per-minute", () -> System.getProperty("load.user-tpm", "100000000"));
+    }
+
+    @AfterAll
+    static void stopStub() throws IOException {
+        STUB.close();
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private LlmService llmService;
+
+    @Autowired
+    private ServletWebServerApplicationContext webServerContext;
+
+    @Autowired
+    private IntentClassifier intentClassifier;
+
+    @Autowired
+    private ChatTranscriptLog chatTranscriptLog;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<User> users = new ArrayList<>();
+
+    @AfterEach
+    void deleteLoadUsers() throws InterruptedException {
+        // Transcripts are written behind the response; let them land so they are deleted too
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (users.stream().anyMatch(user -> !chatTranscriptLog.pending(user.getId()).isEmpty())
+                && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        for (User user : users) {
+            jdbcTemplate.update("DELETE FROM chat_messages WHERE user_id = ?", user.getId());
+            jdbcTemplate.update("DELETE FROM llm_usage_daily WHERE user_id = ?", user.getId());
+        }
+        userRepository.deleteAll(users);
+        users.clear();
+    }
+
+    @Test
+    void replayChatPrompts() throws Exception {
+        List<String> prompts = loadPrompts();
+        // Answered from the user's own data without a model call; their latency is reported apart
+        Set<String> localPrompts = prompts.stream()
+                .filter(prompt -> intentClassifier.isLocallyAnswerable(intentClassifier.classify(prompt)))
+                .collect(Collectors.toSet());
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = loadUser(i);
+            users.add(user);
+            tokens.add(jwtService.generateToken(user));
+        }
+
+        ThreadPoolExecutor servletPool = (ThreadPoolExecutor) ((TomcatWebServer) webServerContext.getWebServer())
+                .getTomcat().getConnector().getProtocolHandler().getExecutor();
+        Saturation saturation = new Saturation();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> saturation.sample(servletPool.getActiveCount(),
+                llmService.getActiveCalls(), llmService.getQueuedCalls()), 0, 50, TimeUnit.MILLISECONDS);
+
+        HttpClient http = HttpClient.newBuilder().executor(Executors.newFixedThreadPool(CONCURRENCY)).build();
+        URI chat = URI.create("http://localhost:" + port + "/api/ai-assistant/chat");
+        LogHistogram latencies = new LogHistogram();
+        LogHistogram modelLatencies = new LogHistogram();
+        LogHistogram localLatencies = new LogHistogram();
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        AtomicInteger next = new AtomicInteger();
+
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+        long started = System.nanoTime();
+        for (int c = 0; c < CONCURRENCY; c++) {
+            clients.execute(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < REQUESTS) {
+                    String prompt = prompts.get(i % prompts.size());
+                    String body = "{\"message\":" + jsonString(prompt) + "}";
+                    HttpRequest request = HttpRequest.newBuilder(chat)
+                            .timeout(Duration.ofSeconds(60))
+                            .header("Content-Type", "application/json")
+                            .header("Authorization", "Bearer " + tokens.get(i % tokens.size()))
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build();
+                    long sent = System.nanoTime();
+                    int status;
+                    try {
+                        status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (IOException e) {
+                        status = 0;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sent);
+                    latencies.record(millis);
+                    (localPrompts.contains(prompt) ? localLatencies : modelLatencies).record(millis);
+                    statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+                }
+            });
+        }
+        clients.shutdown();
+        assertTrue(clients.awaitTermination(30, TimeUnit.MINUTES), "load run did not finish");
+        double seconds = (System.nanoTime() - started) / 1e9;
+        sampler.shutdownNow();
+        sampler.awaitTermination(1, TimeUnit.SECONDS);
+
+        Map<Integer, Long> statusCounts = new TreeMap<>();
+        statuses.forEach((status, count) -> statusCounts.put(status, count.sum()));
+        log.info(String.format("""
+
+                ==== /api/ai-assistant/chat load run ====
+                requests      %d at concurrency %d over %d users, %.1f s
+                throughput    %.1f req/s
+                latency ms    all    p50 %.0f  p90 %.0f  p99 %.0f  mean %.0f
+                              model  p50 %.0f  p90 %.0f  p99 %.0f  mean %.0f  (%d requests)
+                              local  p50 %.0f  p90 %.0f  p99 %.0f  mean %.0f  (%d requests)
+                statuses      %s
+                stub calls    %d (%d injected errors)
+                servlet pool  busy peak %d / max %d, mean %.1f
+                groq calls    in flight peak %d, queued peak %d""",
+                REQUESTS, CONCURRENCY, USERS, seconds,
+                REQUESTS / seconds,
+                latencies.percentile(0.50), latencies.percentile(0.90), latencies.percentile(0.99), latencies.getMean(),
+                modelLatencies.percentile(0.50), modelLatencies.percentile(0.90), modelLatencies.percentile(0.99),
+                modelLatencies.getMean(), modelLatencies.getCount(),
+                localLatencies.percentile(0.50), localLatencies.percentile(0.90), localLatencies.percentile(0.99),
+                localLatencies.getMean(), localLatencies.getCount(),
+                statusCounts,
+                STUB.getRequestCount(), STUB.getInjectedErrorCount(),
+                saturation.servletPeak, servletPool.getMaximumPoolSize(), saturation.servletMean(),
+                saturation.groqActivePeak, saturation.groqQueuedPeak));
+
+        assertEquals(REQUESTS, latencies.getCount());
+        String maxP99 = System.getProperty("load.max-p99-ms");
+        if (maxP99 != null) {
+            assertTrue(modelLatencies.percentile(0.99) <= Double.parseDouble(maxP99), "model p99 above load.max-p99-ms");
+        }
+    }
+
+    private User loadUser(int index) {
+        String email = "load-user-" + index + "@load.test";
+        return userRepository.findByEmail(email).orElseGet(() -> userRepository.save(User.builder()
+                .firstName("Load")
+                .lastName("User " + index)
+                .email(email)
+                .password(passwordEncoder.encode("load-test"))
+                .role(Role.EMPLOYEE)
+                .department("Load Testing")
+                .build()));
+    }
+
+    private static List<String> loadPrompts() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Objects.requireNonNull(
+                AssistantChatLoadTest.class.getResourceAsStream("/load/chat-prompts.txt")), StandardCharsets.UTF_8))) {
+            return reader.lines().filter(line -> !line.isBlank() && !line.startsWith("#")).toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String jsonString(String text) {
+        return "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(System.getProperty(name, String.valueOf(defaultValue)));
+    }
+
+    private static long longProperty(String name, long defaultValue) {
+        return Long.parseLong(System.getProperty(name, String.valueOf(defaultValue)));
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        return Double.parseDouble(System.getProperty(name, String.valueOf(defaultValue)));
+    }
+
+    /**
+     * Peak and mean pool usage over the run, sampled every 50 ms
+     */
+    private static final class Saturation {
+        private int servletPeak;
+        private long servletSum;
+        private long samples;
+        private int groqActivePeak;
+        private int groqQueuedPeak;
+
+        synchronized void sample(int servletBusy, int groqActive, int groqQueued) {
+            servletPeak = Math.max(servletPeak, servletBusy);
+            servletSum += servletBusy;
+            samples++;
+            groqActivePeak = Math.max(groqActivePeak, groqActive);
+            groqQueuedPeak = Math.max(groqQueuedPeak, groqQueued);
+        }
+
+        synchronized double servletMean() {
+            return samples == 0 ? 0 : (double) servletSum / samples;
+        }
+    }
+}
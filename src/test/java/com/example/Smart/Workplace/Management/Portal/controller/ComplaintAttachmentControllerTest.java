@@ -0,0 +1,158 @@
+package com.example.Smart.Workplace.Management.Portal.controller;
+
+import com.example.Smart.Workplace.Management.Portal.dto.ComplaintAttachmentDto;
+import com.example.Smart.Workplace.Management.Portal.service.AttachmentStorage;
+import com.example.Smart.Workplace.Management.Portal.service.ComplaintAttachmentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ComplaintAttachmentControllerTest {
+
+    private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII);
+
+    private final ComplaintAttachmentService attachmentService = mock(ComplaintAttachmentService.class);
+    private final Authentication authentication = new UsernamePasswordAuthenticationToken("jane@example.com", null);
+
+    @TempDir
+    Path directory;
+
+    private ComplaintAttachmentController controller;
+    private String etag;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.createDirectories(directory.resolve("tmp"));
+        AttachmentStorage storage = new AttachmentStorage(directory.toString(), 1024);
+        AttachmentStorage.StoredBlob blob = storage.store(new ByteArrayInputStream(CONTENT));
+        etag = "\"" + blob.sha256() + "\"";
+        ComplaintAttachmentDto attachment = ComplaintAttachmentDto.builder()
+                .id(3L)
+                .complaintId(1L)
+                .fileName("report.txt")
+                .contentType("text/plain")
+                .sizeBytes(blob.sizeBytes())
+                .sha256(blob.sha256())
+                .build();
+        when(attachmentService.getDownload(1L, 3L, "jane@example.com"))
+                .thenReturn(new ComplaintAttachmentService.AttachmentDownload(attachment, storage.resolve(blob.sha256())));
+        controller = new ComplaintAttachmentController(attachmentService, storage);
+    }
+
+    @Test
+    void sendsTheWholeFileWithoutARange() throws Exception {
+        MockHttpServletResponse response = download(new MockHttpServletRequest());
+
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT.length, response.getContentLengthLong());
+        assertEquals("0123456789abcdefghij", response.getContentAsString());
+        assertEquals(etag, response.getHeader(HttpHeaders.ETAG));
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+    }
+
+    @Test
+    void sendsTheRequestedRange() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        MockHttpServletResponse response = download(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 2-5/20", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(4, response.getContentLengthLong());
+        assertEquals("2345", response.getContentAsString());
+    }
+
+    @Test
+    void sendsASuffixRange() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+
+        MockHttpServletResponse response = download(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 17-19/20", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("hij", response.getContentAsString());
+    }
+
+    @Test
+    void honoursTheRangeWhenIfRangeMatches() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-");
+        request.addHeader(HttpHeaders.IF_RANGE, etag);
+
+        MockHttpServletResponse response = download(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 10-19/20", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("abcdefghij", response.getContentAsString());
+    }
+
+    @Test
+    void sendsTheWholeFileWhenIfRangeIsStale() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"" + "0".repeat(64) + "\"");
+
+        MockHttpServletResponse response = download(request);
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("0123456789abcdefghij", response.getContentAsString());
+    }
+
+    @Test
+    void rejectsARangePastTheEnd() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.RANGE, "bytes=20-");
+
+        MockHttpServletResponse response = download(request);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */20", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void ignoresMultipleRanges() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1,4-5");
+
+        MockHttpServletResponse response = download(request);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789abcdefghij", response.getContentAsString());
+    }
+
+    @Test
+    void answersNotModifiedForAMatchingETag() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+
+        MockHttpServletResponse response = download(request);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    private MockHttpServletResponse download(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.downloadAttachment(1L, 3L, authentication, request, response);
+        return response;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.Role;
+import com.example.Smart.Workplace.Management.Portal.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AssistantResponseCacheTest {
+
+    private static final User EMPLOYEE = user(Role.EMPLOYEE, "Finance");
+
+    private final AssistantResponseCache cache = new AssistantResponseCache(100, 60);
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', textBlock = """
+            What is my balance?
+            How many leave days are remaining?
+            What is the status of the laptop request?
+            How many sick days have I taken so far
+            Who approved leave on 12 March?
+            Is ticket 4711 resolved?
+            Can you email jane@example.com the policy?
+            """)
+    void personalQuestionsAreNeverCached(String question) {
+        assertNull(cache.keyFor(question, EMPLOYEE));
+        assertEquals(1L, cache.getStatistics().get("bypassedPersonal"));
+    }
+
+    @Test
+    void questionsWithNothingButFillerAreNotCached() {
+        assertNull(cache.keyFor("Hi, thanks!", EMPLOYEE));
+        assertNull(cache.keyFor(null, EMPLOYEE));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', textBlock = """
+            How many sick days do I get?
+            how many sick days do i get
+            Hi! How many SICK days do I get??
+            Could you please tell me how many sick days do I get, thanks
+            """)
+    void equivalentPhrasingsShareAKey(String question) {
+        assertEquals(cache.keyFor("How many sick days do I get?", EMPLOYEE), cache.keyFor(question, EMPLOYEE));
+    }
+
+    @Test
+    void roleAndDepartmentArePartOfTheKey() {
+        String question = "What is the remote work policy?";
+        String key = cache.keyFor(question, EMPLOYEE);
+
+        assertNotNull(key);
+        assertEquals(key, cache.keyFor(question, user(Role.EMPLOYEE, "FINANCE")));
+        assertNotEquals(key, cache.keyFor(question, user(Role.MANAGER, "Finance")));
+        assertNotEquals(key, cache.keyFor(question, user(Role.EMPLOYEE, "Engineering")));
+        assertNotEquals(key, cache.keyFor(question, user(Role.EMPLOYEE, null)));
+    }
+
+    @Test
+    void fingerprintDropsCaseAccentsPunctuationAndFiller() {
+        assertEquals("whats cafe policy", AssistantResponseCache.fingerprint("Hello, what's the CAFÉ policy?!"));
+        assertEquals("dress code", AssistantResponseCache.fingerprint("  dress   code "));
+        assertEquals("", AssistantResponseCache.fingerprint("Thank you!"));
+    }
+
+    @Test
+    void fingerprintKeepsWordOrder() {
+        assertNotEquals(AssistantResponseCache.fingerprint("manager approves leave"),
+                AssistantResponseCache.fingerprint("leave approves manager"));
+    }
+
+    private static User user(Role role, String department) {
+        return User.builder().role(role).department(department).build();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.dto.ChatHistoryItem;
+import com.example.Smart.Workplace.Management.Portal.dto.ChatHistoryPage;
+import com.example.Smart.Workplace.Management.Portal.model.User;
+import com.example.Smart.Workplace.Management.Portal.repository.ChatMessageRepository;
+import com.example.Smart.Workplace.Management.Portal.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.when;
+
+class ChatTranscriptLogTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 2, 9, 30);
+
+    private final ChatMessageRepository chatMessageRepository = mock(ChatMessageRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @TempDir
+    Path directory;
+
+    private ChatTranscriptLog transcriptLog;
+
+    @AfterEach
+    void tearDown() {
+        if (transcriptLog != null) {
+            transcriptLog.stop();
+        }
+    }
+
+    @Test
+    void alignsTheSequenceBeforeTheWriterCanInsert() {
+        transcriptLog = start();
+        transcriptLog.record(transcript(1L, "hello", NOW));
+
+        InOrder order = inOrder(jdbcTemplate, chatMessageRepository);
+        order.verify(jdbcTemplate).queryForObject(anyString(), eq(Long.class));
+        order.verify(chatMessageRepository, timeout(5000)).saveAll(any());
+    }
+
+    @Test
+    void pendingListsTheUsersUnwrittenTranscriptsNewestFirst() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(chatMessageRepository.saveAll(any())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        transcriptLog = start();
+
+        transcriptLog.record(transcript(1L, "first", NOW));
+        // The first is being written from here on and must still be listed
+        writing.await(5, TimeUnit.SECONDS);
+        transcriptLog.record(transcript(2L, "someone else", NOW.plusSeconds(1)));
+        transcriptLog.record(transcript(1L, "second", NOW.plusSeconds(2)));
+
+        assertEquals(List.of("second", "first"),
+                transcriptLog.pending(1L).stream().map(ChatTranscriptLog.Transcript::message).toList());
+        release.countDown();
+    }
+
+    @Test
+    void historyShowsATranscriptCommittedWhileReadingOnce() {
+        ChatTranscriptLog pendingLog = mock(ChatTranscriptLog.class);
+        ChatTranscriptLog.Transcript committing = transcript(1L, "how many days?", NOW.plusSeconds(5));
+        ChatTranscriptLog.Transcript queued = transcript(1L, "and next year?", NOW.plusSeconds(9));
+        when(pendingLog.pending(1L)).thenReturn(List.of(queued, committing));
+        // The query already sees the batch that was still in flight when pending was read
+        when(chatMessageRepository.findLatestHistory(eq(1L), any(Pageable.class))).thenReturn(List.of(
+                new ChatHistoryItem(12L, "how many days?", "answer", NOW.plusSeconds(5), "leave_balance"),
+                new ChatHistoryItem(11L, "hi", "hello", NOW, "greeting")));
+        when(userRepository.findByEmail("jane@example.com")).thenReturn(Optional.of(User.builder().id(1L).build()));
+
+        ChatHistoryPage page = assistant(pendingLog).getChatHistory("jane@example.com", null, 10);
+
+        assertEquals(List.of("and next year?", "how many days?", "hi"),
+                page.getItems().stream().map(ChatHistoryItem::message).toList());
+        assertNull(page.getItems().get(0).id());
+        assertEquals(12L, page.getItems().get(1).id());
+        InOrder order = inOrder(pendingLog, chatMessageRepository);
+        order.verify(pendingLog).pending(1L);
+        order.verify(chatMessageRepository).findLatestHistory(eq(1L), any(Pageable.class));
+    }
+
+    private ChatTranscriptLog start() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        ChatTranscriptLog started = new ChatTranscriptLog(chatMessageRepository, userRepository, transactionTemplate,
+                jdbcTemplate, new ObjectMapper().registerModule(new JavaTimeModule()));
+        ReflectionTestUtils.setField(started, "bufferCapacity", 16);
+        ReflectionTestUtils.setField(started, "batchSize", 1);
+        ReflectionTestUtils.setField(started, "flushIntervalMillis", 10L);
+        ReflectionTestUtils.setField(started, "spillFile", directory.resolve("transcripts.spill").toString());
+        started.start();
+        return started;
+    }
+
+    private AIAssistantService assistant(ChatTranscriptLog pendingLog) {
+        return new AIAssistantService(null, chatMessageRepository, userRepository, null, null, null, null, null,
+                null, pendingLog, null, null, null);
+    }
+
+    private static ChatTranscriptLog.Transcript transcript(Long userId, String message, LocalDateTime createdAt) {
+        return new ChatTranscriptLog.Transcript(userId, message, "answer", createdAt, "general", 0.9, null, null);
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.Complaint;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintAttachment;
+import com.example.Smart.Workplace.Management.Portal.model.Role;
+import com.example.Smart.Workplace.Management.Portal.model.User;
+import com.example.Smart.Workplace.Management.Portal.repository.ComplaintAttachmentRepository;
+import com.example.Smart.Workplace.Management.Portal.repository.ComplaintRepository;
+import com.example.Smart.Workplace.Management.Portal.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ComplaintAttachmentServiceTest {
+
+    private static final byte[] CONTENT = "meeting room projector is broken".getBytes(StandardCharsets.UTF_8);
+
+    private final ComplaintAttachmentRepository attachmentRepository = mock(ComplaintAttachmentRepository.class);
+    private final ComplaintRepository complaintRepository = mock(ComplaintRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ComplaintService complaintService = mock(ComplaintService.class);
+
+    @TempDir
+    Path directory;
+
+    private AttachmentStorage storage;
+    private ComplaintAttachmentService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        storage = new AttachmentStorage(directory.toString(), 1024);
+        storage.init();
+        service = new ComplaintAttachmentService(attachmentRepository, complaintRepository, userRepository,
+                complaintService, storage);
+        when(userRepository.findByEmail("jane@example.com")).thenReturn(Optional.of(User.builder().id(7L).build()));
+        when(complaintRepository.findById(1L)).thenReturn(Optional.of(Complaint.builder().id(1L).build()));
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void removesTheNewBlobWhenTheRowFailsToSave() throws Exception {
+        when(attachmentRepository.save(any(ComplaintAttachment.class)))
+                .thenThrow(new DataIntegrityViolationException("insert failed"));
+
+        assertThrows(DataIntegrityViolationException.class, this::upload);
+
+        assertFalse(Files.exists(blob()));
+    }
+
+    @Test
+    void keepsTheBlobWhenAnotherRowRefersToIt() throws Exception {
+        when(attachmentRepository.save(any(ComplaintAttachment.class)))
+                .thenThrow(new DataIntegrityViolationException("insert failed"));
+        when(attachmentRepository.existsBySha256(anyString())).thenReturn(true);
+
+        assertThrows(DataIntegrityViolationException.class, this::upload);
+
+        assertTrue(Files.exists(blob()));
+    }
+
+    @Test
+    void neverRemovesABlobThatWasAlreadyStored() throws Exception {
+        storage.store(new ByteArrayInputStream(CONTENT));
+        when(attachmentRepository.save(any(ComplaintAttachment.class)))
+                .thenThrow(new DataIntegrityViolationException("insert failed"));
+
+        assertThrows(DataIntegrityViolationException.class, this::upload);
+
+        assertTrue(Files.exists(blob()));
+        verify(attachmentRepository, never()).existsBySha256(anyString());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void deletingAComplaintRemovesItsAttachmentsFirstAndTheBlobAfterCommit() throws Exception {
+        String sha256 = storage.store(new ByteArrayInputStream(CONTENT)).sha256();
+        User admin = User.builder().id(9L).role(Role.ADMIN).build();
+        when(userRepository.findByEmail("admin@example.com")).thenReturn(Optional.of(admin));
+        when(complaintRepository.findById(1L))
+                .thenReturn(Optional.of(Complaint.builder().id(1L).user(User.builder().id(7L).build()).build()));
+        when(attachmentRepository.findBlobsByComplaintId(1L)).thenReturn(List.of(sha256));
+        when(attachmentRepository.deleteByComplaintId(1L)).thenReturn(1);
+        ObjectProvider<ComplaintAttachmentService> attachments = mock(ObjectProvider.class);
+        when(attachments.getObject()).thenReturn(service);
+        ComplaintService complaints = new ComplaintService(complaintRepository, userRepository,
+                mock(SlaMonitorService.class), mock(ComplaintEventLog.class), mock(ComplaintSimilarityIndex.class),
+                mock(ResolutionTimeAnalytics.class), mock(UserContextCache.class), attachments);
+
+        TransactionSynchronizationManager.initSynchronization();
+        complaints.deleteComplaint(1L, "admin@example.com");
+
+        InOrder order = inOrder(attachmentRepository, complaintRepository);
+        order.verify(attachmentRepository).deleteByComplaintId(1L);
+        order.verify(complaintRepository).deleteById(1L);
+        // A rollback would restore the rows, so the blob stays until the commit
+        assertTrue(Files.exists(blob()));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertFalse(Files.exists(blob()));
+    }
+
+    @Test
+    void deletingAComplaintKeepsABlobAnotherComplaintShares() throws Exception {
+        String sha256 = storage.store(new ByteArrayInputStream(CONTENT)).sha256();
+        when(attachmentRepository.findBlobsByComplaintId(1L)).thenReturn(List.of(sha256));
+        when(attachmentRepository.existsBySha256(sha256)).thenReturn(true);
+
+        service.deleteForComplaint(1L);
+
+        verify(attachmentRepository).deleteByComplaintId(1L);
+        assertTrue(Files.exists(blob()));
+    }
+
+    @Test
+    void deletingAComplaintWithoutAttachmentsIssuesNoDelete() {
+        when(attachmentRepository.findBlobsByComplaintId(1L)).thenReturn(List.of());
+
+        service.deleteForComplaint(1L);
+
+        verify(attachmentRepository, never()).deleteByComplaintId(any());
+    }
+
+    private void upload() throws Exception {
+        service.upload(1L, "projector.txt", "text/plain", CONTENT.length, new ByteArrayInputStream(CONTENT),
+                "jane@example.com");
+    }
+
+    private Path blob() throws Exception {
+        return storage.resolve(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(CONTENT)));
+    }
+}
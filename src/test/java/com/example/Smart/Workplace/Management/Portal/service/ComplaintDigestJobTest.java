@@ -0,0 +1,133 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.exception.AIProviderException;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintDigest;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintDigestChunk;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintPriority;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintStatus;
+import com.example.Smart.Workplace.Management.Portal.repository.ComplaintDigestChunkRepository;
+import com.example.Smart.Workplace.Management.Portal.repository.ComplaintDigestRepository;
+import com.example.Smart.Workplace.Management.Portal.repository.ComplaintRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ComplaintDigestJobTest {
+
+    private static final LocalDate WEEK = LocalDate.of(2026, 10, 5);
+
+    private final ComplaintRepository complaintRepository = mock(ComplaintRepository.class);
+    private final ComplaintDigestRepository digestRepository = mock(ComplaintDigestRepository.class);
+    private final ComplaintDigestChunkRepository chunkRepository = mock(ComplaintDigestChunkRepository.class);
+    private final LlmService llmService = mock(LlmService.class);
+
+    // In-memory checkpoint table
+    private final List<ComplaintDigestChunk> chunks = new ArrayList<>();
+    private final AtomicInteger calls = new AtomicInteger();
+    private ComplaintDigest saved;
+
+    @BeforeEach
+    void setUp() {
+        when(complaintRepository.findCategoriesSubmittedBetween(any(), any())).thenReturn(List.of("IT"));
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= 6; id++) {
+            rows.add(new Object[]{id, ComplaintPriority.MEDIUM, ComplaintStatus.OPEN, "Laptop issue " + id,
+                    "My laptop keeps freezing during video calls and the helpdesk has not replied yet."});
+        }
+        when(complaintRepository.findForDigest(any(), any(), eq("IT"), anyLong(), any())).thenReturn(rows);
+
+        when(digestRepository.findByWeekStart(WEEK)).thenAnswer(invocation -> Optional.ofNullable(saved));
+        when(digestRepository.save(any())).thenAnswer(invocation -> saved = invocation.getArgument(0));
+
+        when(chunkRepository.findByWeekStartAndCategoryAndChunkIndex(eq(WEEK), eq("IT"), anyInt()))
+                .thenAnswer(invocation -> chunks.stream()
+                        .filter(chunk -> chunk.getChunkIndex() == (int) invocation.getArgument(2))
+                        .findFirst());
+        when(chunkRepository.save(any())).thenAnswer(invocation -> {
+            ComplaintDigestChunk chunk = invocation.getArgument(0);
+            if (chunk.getId() == null) {
+                chunk.setId((long) chunks.size() + 1);
+                chunks.add(chunk);
+            }
+            return chunk;
+        });
+        when(chunkRepository.findByWeekStartAndCategoryOrderByChunkIndex(WEEK, "IT"))
+                .thenAnswer(invocation -> chunks.stream()
+                        .sorted(Comparator.comparing(ComplaintDigestChunk::getChunkIndex)).toList());
+    }
+
+    @Test
+    void summarisesTokenBoundedBatchesAndMergesThem() {
+        succeedingLlm();
+
+        job().run(WEEK);
+
+        assertNotNull(saved.getCompletedAt());
+        assertEquals(6, saved.getComplaintCount());
+        assertTrue(chunks.size() > 1, "six complaints should not fit one small batch");
+        assertEquals(chunks.size(), saved.getChunkCount());
+        assertEquals(6, chunks.stream().mapToInt(ComplaintDigestChunk::getComplaintCount).sum());
+        assertTrue(saved.getSummary().startsWith("## Overview"));
+        assertTrue(saved.getSummary().contains("## IT (6 complaints)"));
+        // One call per batch, one merge, one overview
+        assertEquals(chunks.size() + 2, calls.get());
+    }
+
+    @Test
+    void rerunSkipsCheckpointedBatches() {
+        when(llmService.getChatCompletionAsync(any())).thenAnswer(invocation -> calls.incrementAndGet() == 2
+                ? CompletableFuture.failedFuture(new AIProviderException("unavailable", 503, null))
+                : CompletableFuture.completedFuture("- summary " + calls.get()));
+
+        job().run(WEEK);
+
+        assertNull(saved.getCompletedAt());
+        int checkpointed = chunks.size();
+        int firstRunCalls = calls.get();
+
+        job().run(WEEK);
+
+        assertNotNull(saved.getCompletedAt());
+        int batches = saved.getChunkCount();
+        assertEquals(batches - checkpointed + 2, calls.get() - firstRunCalls);
+    }
+
+    @Test
+    void completedWeeksAreNotRedone() {
+        succeedingLlm();
+        job().run(WEEK);
+        int afterFirst = calls.get();
+
+        job().run(WEEK);
+
+        assertEquals(afterFirst, calls.get());
+    }
+
+    private void succeedingLlm() {
+        when(llmService.getChatCompletionAsync(any()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture("- summary " + calls.incrementAndGet()));
+    }
+
+    private ComplaintDigestJob job() {
+        return new ComplaintDigestJob(complaintRepository, digestRepository, chunkRepository, llmService,
+                new TokenEstimator(), 60, 300, 100, 2, 200, 1, 0, 8, 10);
+    }
+}
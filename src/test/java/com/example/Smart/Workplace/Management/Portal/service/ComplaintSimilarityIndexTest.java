@@ -0,0 +1,110 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ComplaintSimilarityIndexTest {
+
+    private final ComplaintSimilarityIndex index = new ComplaintSimilarityIndex(null, 0.5, 5);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void findsNearDuplicatesMostSimilarFirst() {
+        add(1L, "Wifi down", "The wifi on floor three keeps dropping every few minutes during meetings");
+        add(2L, "Wifi dropping", "The wifi on floor three keeps dropping during meetings");
+        add(3L, "Broken chair", "The chair at desk 14 has a broken wheel and leans to the left");
+
+        List<Long> candidates = index.findCandidates(
+                index.signature("Wifi down", "The wifi on floor three keeps dropping every few minutes during meetings"),
+                null);
+
+        assertEquals(List.of(1L, 2L), candidates);
+    }
+
+    @Test
+    void ignoresWordOrderCaseAndStopWords() {
+        add(1L, "Printer jammed", "Printer on the second floor is jammed again");
+
+        assertEquals(List.of(1L), index.findCandidates(
+                index.signature("PRINTER JAMMED", "jammed printer, second floor"), null));
+    }
+
+    @Test
+    void doesNotMatchUnrelatedComplaintsOrItself() {
+        add(1L, "Parking gate", "The parking gate does not open with my badge in the morning");
+        add(2L, "Coffee machine", "Coffee machine in the kitchen leaks water onto the floor");
+
+        int[] signature = index.signature("Parking gate", "The parking gate does not open with my badge in the morning");
+        assertEquals(List.of(), index.findCandidates(signature, 1L));
+        assertEquals(List.of(), index.findCandidates(
+                index.signature("Payslip", "Overtime hours missing from the October payslip"), null));
+    }
+
+    @Test
+    void textWithoutWordsIsNeitherIndexedNorMatched() {
+        int[] empty = index.signature("Please!", "It is not there, again...");
+        assertEquals(0, empty.length);
+
+        index.add(1L, empty);
+        index.add(2L, index.signature("?!", "is it"));
+
+        assertEquals(0, index.size());
+        assertEquals(List.of(), index.findCandidates(index.signature("...", "the"), null));
+    }
+
+    @Test
+    void removedAndRewordedComplaintsLeaveTheirOldBuckets() {
+        add(1L, "Air conditioning", "Air conditioning in meeting room B is far too cold");
+        int[] probe = index.signature("Air conditioning", "Air conditioning in meeting room B is far too cold");
+        assertFalse(index.findCandidates(probe, null).isEmpty());
+
+        add(1L, "Desk lamp", "Desk lamp flickers constantly");
+        assertTrue(index.findCandidates(probe, null).isEmpty());
+        assertEquals(List.of(1L), index.findCandidates(index.signature("Desk lamp", "Desk lamp flickers constantly"), null));
+
+        index.remove(1L);
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void changesMadeInATransactionApplyOnlyOnCommit() {
+        add(1L, "Lift broken", "The lift in building C is stuck on the ground floor");
+        int[] signature = index.signature("Lift stuck", "The lift in building C is stuck on the ground floor");
+
+        TransactionSynchronizationManager.initSynchronization();
+        index.addAfterCommit(2L, signature);
+        index.removeAfterCommit(1L);
+        assertEquals(List.of(1L), index.findCandidates(signature, null));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(List.of(2L), index.findCandidates(signature, null));
+    }
+
+    @Test
+    void rolledBackSubmissionIsNeverIndexed() {
+        TransactionSynchronizationManager.initSynchronization();
+        index.addAfterCommit(1L, index.signature("Lift broken", "The lift in building C is stuck"));
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertEquals(0, index.size());
+    }
+
+    private void add(Long id, String title, String description) {
+        index.add(id, index.signature(title, description));
+    }
+}
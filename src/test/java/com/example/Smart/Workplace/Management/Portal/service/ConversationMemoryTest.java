@@ -0,0 +1,100 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.dto.ChatHistoryItem;
+import com.example.Smart.Workplace.Management.Portal.repository.ChatMessageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConversationMemoryTest {
+
+    private final ChatMessageRepository chatMessageRepository = mock(ChatMessageRepository.class);
+    private final TokenEstimator tokenEstimator = new TokenEstimator();
+
+    @Test
+    void keepsRecentTurnsWithinTheTurnLimit() {
+        ConversationMemory memory = memory(10_000, 10_000, 3);
+        for (int i = 1; i <= 5; i++) {
+            memory.record(1L, "question " + i, "Answer " + i + ". More detail that the summary leaves out.");
+        }
+
+        ConversationMemory.Snapshot snapshot = memory.snapshot(1L);
+        assertEquals(List.of("question 3", "question 4", "question 5"),
+                snapshot.turns().stream().map(ConversationMemory.Turn::question).toList());
+        assertEquals("- User asked: question 1 | Assistant: Answer 1.\n- User asked: question 2 | Assistant: Answer 2.",
+                snapshot.summary());
+    }
+
+    @Test
+    void trimsToTheTokenBudgetButKeepsTheLatestTurn() {
+        ConversationMemory memory = memory(60, 10_000, 20);
+        String longAnswer = "The leave policy allows fifteen days a year. ".repeat(20);
+        memory.record(1L, "short one", "short answer");
+        memory.record(1L, "what is the leave policy", longAnswer);
+
+        ConversationMemory.Snapshot snapshot = memory.snapshot(1L);
+        assertEquals(1, snapshot.turns().size());
+        assertEquals(longAnswer, snapshot.turns().get(0).answer());
+        assertTrue(snapshot.turns().get(0).tokens() > 60);
+        assertEquals("- User asked: short one | Assistant: short answer", snapshot.summary());
+    }
+
+    @Test
+    void summaryDropsItsOldestLinesWhenFull() {
+        ConversationMemory memory = memory(1, 20, 20);
+        memory.record(1L, "first question", "First answer.");
+        memory.record(1L, "second question", "Second answer.");
+        memory.record(1L, "third question", "Third answer.");
+        memory.record(1L, "fourth question", "Fourth answer.");
+
+        String summary = memory.snapshot(1L).summary();
+        assertFalse(summary.contains("first question"), summary);
+        assertTrue(summary.endsWith("- User asked: third question | Assistant: Third answer."), summary);
+        assertTrue(tokenEstimator.estimate(summary) <= 20, summary);
+    }
+
+    @Test
+    void warmsUpFromSavedMessagesOldestFirst() {
+        when(chatMessageRepository.findLatestHistory(eq(1L), any(Pageable.class))).thenReturn(List.of(
+                new ChatHistoryItem(2L, "newer", "b", LocalDateTime.now(), "general"),
+                new ChatHistoryItem(1L, "older", "a", LocalDateTime.now().minusMinutes(1), "general")));
+
+        assertEquals(List.of("older", "newer"),
+                memory(10_000, 10_000, 20).snapshot(1L).turns().stream().map(ConversationMemory.Turn::question).toList());
+    }
+
+    @Test
+    void followUpNeedsAPreviousTurn() {
+        ConversationMemory memory = memory(10_000, 10_000, 20);
+
+        assertFalse(memory.isFollowUp(1L, "and for sick leave?"));
+        memory.record(1L, "how many leave days do I have?", "You have 12 days left.");
+        assertTrue(memory.isFollowUp(1L, "and for sick leave?"));
+        assertTrue(memory.isFollowUp(1L, "why is that?"));
+    }
+
+    @Test
+    void standaloneQuestionsAreNotFollowUps() {
+        ConversationMemory memory = memory(10_000, 10_000, 20);
+        memory.record(1L, "hello", "Hi! How can I help?");
+
+        assertFalse(memory.isFollowUp(1L, "Is there a dress code for the office?"));
+        assertFalse(memory.isFollowUp(1L, "What does the policy say about carrying this year's leave into the next one?"));
+        assertFalse(memory.isFollowUp(1L, "  "));
+    }
+
+    private ConversationMemory memory(int historyTokens, int summaryTokens, int maxTurns) {
+        return new ConversationMemory(chatMessageRepository, tokenEstimator, historyTokens, summaryTokens, maxTurns,
+                100, 60);
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.exception.ServiceOverloadedException;
+import com.example.Smart.Workplace.Management.Portal.model.Role;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FairLlmSchedulerTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final List<String> started = new ArrayList<>();
+    private final List<CompletableFuture<String>> calls = new ArrayList<>();
+    private FairLlmScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        scheduler.close();
+    }
+
+    @Test
+    void lightUserIsServedAheadOfHeavyUsersBacklog() {
+        scheduler = scheduler(FairLlmScheduler.Settings.builder()
+                .maxConcurrency(1)
+                .maxConcurrencyPerUser(1)
+                .maxQueuedPerUser(10)
+                .build());
+
+        for (int i = 0; i < 5; i++) {
+            submit(1L, Role.EMPLOYEE, "heavy-" + i);
+        }
+        submit(2L, Role.EMPLOYEE, "light");
+
+        finishNext();
+        assertEquals(List.of("heavy-0", "light"), started);
+    }
+
+    @Test
+    void perUserConcurrencyCapLeavesRoomForOthers() {
+        scheduler = scheduler(FairLlmScheduler.Settings.builder()
+                .maxConcurrency(4)
+                .maxConcurrencyPerUser(2)
+                .build());
+
+        for (int i = 0; i < 4; i++) {
+            submit(1L, Role.EMPLOYEE, "heavy-" + i);
+        }
+        submit(2L, Role.EMPLOYEE, "light");
+
+        assertEquals(List.of("heavy-0", "heavy-1", "light"), started);
+    }
+
+    @Test
+    void managersGetALargerShare() {
+        scheduler = scheduler(FairLlmScheduler.Settings.builder()
+                .maxConcurrency(1)
+                .maxConcurrencyPerUser(1)
+                .maxQueuedPerUser(10)
+                .maxQueued(100)
+                .quantumTokens(500)
+                .build());
+
+        for (int i = 0; i < 6; i++) {
+            submit(1L, Role.EMPLOYEE, "employee");
+            submit(2L, Role.MANAGER, "manager");
+        }
+        for (int i = 0; i < 9; i++) {
+            finishNext();
+        }
+
+        long managers = started.stream().filter("manager"::equals).count();
+        long employees = started.stream().filter("employee"::equals).count();
+        assertTrue(managers > employees, "started: " + started);
+    }
+
+    @Test
+    void systemLaneGetsLessThanAnEmployee() {
+        scheduler = scheduler(FairLlmScheduler.Settings.builder()
+                .maxConcurrency(1)
+                .maxConcurrencyPerUser(1)
+                .maxQueuedPerUser(10)
+                .maxQueued(100)
+                .quantumTokens(500)
+                .build());
+
+        for (int i = 0; i < 6; i++) {
+            submit(null, null, "system");
+            submit(1L, Role.EMPLOYEE, "employee");
+        }
+        for (int i = 0; i < 9; i++) {
+            finishNext();
+        }
+
+        long system = started.stream().filter("system"::equals).count();
+        long employees = started.stream().filter("employee"::equals).count();
+        assertTrue(employees > system, "started: " + started);
+        assertEquals(system, scheduler.getStatistics().get("dispatchedSystem"));
+    }
+
+    @Test
+    void rejectsWhenUserLaneIsFull() {
+        scheduler = scheduler(FairLlmScheduler.Settings.builder()
+                .maxConcurrency(1)
+                .maxQueuedPerUser(2)
+                .build());
+
+        submit(1L, Role.EMPLOYEE, "running");
+        submit(1L, Role.EMPLOYEE, "queued-1");
+        submit(1L, Role.EMPLOYEE, "queued-2");
+
+        assertThrows(ServiceOverloadedException.class, () -> submit(1L, Role.EMPLOYEE, "rejected"));
+    }
+
+    @Test
+    void userTokenBudgetHoldsBackFurtherCalls() {
+        scheduler = scheduler(FairLlmScheduler.Settings.builder()
+                .maxConcurrency(10)
+                .maxConcurrencyPerUser(10)
+                .userTokensPerMinute(2000)
+                .maxQueueWaitMillis(120_000)
+                .build());
+
+        submit(1L, Role.EMPLOYEE, "first");
+        submit(1L, Role.EMPLOYEE, "over-budget");
+        submit(2L, Role.EMPLOYEE, "other-user");
+        assertEquals(List.of("first", "other-user"), started);
+
+        clock.addAndGet(60_000);
+        finishNext();
+        assertEquals(List.of("first", "other-user", "over-budget"), started);
+    }
+
+    @Test
+    void queuedCallExpiresWhileEverySlotIsBusy() {
+        scheduler = scheduler(FairLlmScheduler.Settings.builder()
+                .maxConcurrency(1)
+                .maxQueueWaitMillis(100)
+                .build());
+
+        submit(1L, Role.EMPLOYEE, "running");
+        CompletableFuture<String> waiting = submit(2L, Role.EMPLOYEE, "waiting");
+
+        // Nothing finishes, so only the expiry timer can fail the queued call
+        ExecutionException error = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ServiceOverloadedException.class, error.getCause());
+        assertEquals(0, scheduler.getQueued());
+        assertEquals(1L, scheduler.getStatistics().get("expired"));
+        assertEquals(List.of("running"), started);
+    }
+
+    @Test
+    void startedCallIsNotExpired() throws Exception {
+        scheduler = scheduler(FairLlmScheduler.Settings.builder()
+                .maxQueueWaitMillis(100)
+                .build());
+
+        CompletableFuture<String> call = submit(1L, Role.EMPLOYEE, "started");
+        Thread.sleep(300);
+        finishNext();
+
+        assertEquals("done", call.get(1, TimeUnit.SECONDS));
+        assertEquals(0L, scheduler.getStatistics().get("expired"));
+    }
+
+    @Test
+    void laneWaitingOnTheBudgetDoesNotBankCredit() {
+        scheduler = scheduler(FairLlmScheduler.Settings.builder()
+                .userTokensPerMinute(2000)
+                .quantumTokens(1000)
+                .maxQueueWaitMillis(120_000)
+                .build());
+
+        submit(1L, Role.EMPLOYEE, "first");
+        submit(1L, Role.EMPLOYEE, "over-budget");
+        // Every dispatch visits the blocked lane and credits it a quantum
+        for (int i = 0; i < 50; i++) {
+            ReflectionTestUtils.invokeMethod(scheduler, "dispatch");
+        }
+
+        assertEquals(List.of("first"), started);
+        assertTrue(deficit(1L) <= 1500 + 1000, "deficit " + deficit(1L));
+    }
+
+    @SuppressWarnings("unchecked")
+    private long deficit(Long userId) {
+        Map<Long, ?> lanes = (Map<Long, ?>) ReflectionTestUtils.getField(scheduler, "lanes");
+        return (Long) ReflectionTestUtils.getField(lanes.get(userId), "deficit");
+    }
+
+    private FairLlmScheduler scheduler(FairLlmScheduler.Settings settings) {
+        return new FairLlmScheduler(settings, clock::get);
+    }
+
+    private CompletableFuture<String> submit(Long userId, Role role, String name) {
+        return scheduler.submit(userId, role, 1500, () -> {
+            started.add(name);
+            CompletableFuture<String> call = new CompletableFuture<>();
+            calls.add(call);
+            return call;
+        });
+    }
+
+    private void finishNext() {
+        calls.stream().filter(call -> !call.isDone()).findFirst().ifPresent(call -> call.complete("done"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimerWheelTest {
+
+    private static final long TICK = 10;
+
+    @Test
+    void expiresOnTheDeadlineTickAndNotBefore() {
+        HierarchicalTimerWheel<String> wheel = new HierarchicalTimerWheel<>(TICK, 4, 0);
+        wheel.schedule("a", 50);
+        wheel.schedule("b", 55);
+
+        assertEquals(List.of(), wheel.advance(49));
+        assertEquals(List.of("b", "a"), wheel.advance(50));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void pastDeadlinesExpireOnTheNextTick() {
+        HierarchicalTimerWheel<String> wheel = new HierarchicalTimerWheel<>(TICK, 4, 0);
+        wheel.advance(100);
+        wheel.schedule("late", 20);
+
+        assertEquals(List.of(), wheel.advance(100));
+        assertEquals(List.of("late"), wheel.advance(110));
+    }
+
+    @Test
+    void cancelledTimersNeverExpire() {
+        HierarchicalTimerWheel<String> wheel = new HierarchicalTimerWheel<>(TICK, 4, 0);
+        HierarchicalTimerWheel.Timeout<String> kept = wheel.schedule("kept", 30);
+        HierarchicalTimerWheel.Timeout<String> cancelled = wheel.schedule("cancelled", 30);
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("kept"), wheel.advance(30));
+        assertFalse(wheel.cancel(kept));
+        assertFalse(wheel.cancel(null));
+    }
+
+    @Test
+    void cascadesFromHigherLevelsToTheExactTick() {
+        HierarchicalTimerWheel<Long> wheel = new HierarchicalTimerWheel<>(TICK, 3, 0);
+        // Deadlines on level 1 (64+ ticks) and level 2 (4096+ ticks), including slot boundaries
+        long[] ticks = {63, 64, 65, 127, 128, 4095, 4096, 4097, 100_000};
+        for (long tick : ticks) {
+            wheel.schedule(tick, tick * TICK);
+        }
+
+        for (long tick : ticks) {
+            assertEquals(List.of(), wheel.advance((tick - 1) * TICK), "early at tick " + tick);
+            assertEquals(List.of(tick), wheel.advance(tick * TICK));
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void deadlinesBeyondTheSpanAreReplacedUntilDue() {
+        // One level spans 64 ticks, two levels 4096
+        for (int levels = 1; levels <= 2; levels++) {
+            HierarchicalTimerWheel<String> wheel = new HierarchicalTimerWheel<>(TICK, levels, 0);
+            long deadlineTick = 3 * (1L << (6 * levels)) + 5;
+            wheel.schedule("far", deadlineTick * TICK);
+
+            List<String> expired = new ArrayList<>();
+            for (long tick = 1; tick < deadlineTick; tick++) {
+                expired.addAll(wheel.advance(tick * TICK));
+            }
+            assertEquals(List.of(), expired, "expired early with " + levels + " level(s)");
+            assertEquals(1, wheel.size());
+            assertEquals(List.of("far"), wheel.advance(deadlineTick * TICK));
+        }
+    }
+}
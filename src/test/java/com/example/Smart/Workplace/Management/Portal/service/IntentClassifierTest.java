@@ -0,0 +1,79 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.ChatIntent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Golden messages against the shipped model; rerun after retraining with scripts/train_intent_model.py
+ */
+class IntentClassifierTest {
+
+    private static IntentClassifier classifier;
+
+    @BeforeAll
+    static void loadModel() throws Exception {
+        classifier = new IntentClassifier(new ObjectMapper(), new DefaultResourceLoader(),
+                "classpath:ai/intent-model.json", 0.7);
+        classifier.loadModel();
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', textBlock = """
+            What is my leave balance?                  | LEAVE_BALANCE
+            How many vacation days do I have left      | LEAVE_BALANCE
+            how many days off do i have remaining      | LEAVE_BALANCE
+            Do I have any pending leave requests?      | PENDING_LEAVES
+            Is my leave request approved yet?          | PENDING_LEAVES
+            When is my next vacation?                  | UPCOMING_LEAVES
+            any upcoming time off for me               | UPCOMING_LEAVES
+            What's the status of my complaint?         | COMPLAINT_STATUS
+            show my complaints                         | COMPLAINT_STATUS
+            """)
+    void answersQuestionsAboutTheUsersOwnDataLocally(String message, ChatIntent expected) {
+        IntentClassifier.Classification classification = classifier.classify(message);
+
+        assertEquals(expected, classification.intent());
+        assertTrue(classifier.isLocallyAnswerable(classification), message);
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', textBlock = """
+            What happens to my leave balance if I quit?
+            How is my PTO balance worked out?
+            Can I carry over my remaining vacation days?
+            Why is my vacation still pending?
+            How do I escalate my complaint if nobody responds?
+            What is the leave policy?
+            When is the next public holiday?
+            Tell me a joke
+            """)
+    void leavesOpenEndedQuestionsToTheModel(String message) {
+        IntentClassifier.Classification classification = classifier.classify(message);
+
+        assertEquals(ChatIntent.GENERAL, classification.intent(), message);
+        assertFalse(classifier.isLocallyAnswerable(classification), message);
+    }
+
+    @Test
+    void ruleOnlyCountsWhenTheModelAgrees() {
+        // The complaint rule matches "list my tickets"; the model reads a request for help with a report
+        IntentClassifier.Classification classification =
+                classifier.classify("I need to list my tickets in the weekly report for my manager");
+
+        assertFalse(classifier.isLocallyAnswerable(classification), classification.toString());
+    }
+
+    @Test
+    void blankMessagesAreGeneral() {
+        assertEquals(ChatIntent.GENERAL, classifier.classify("  ").intent());
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LlmRouterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000);
+    private final FakeProvider primary = new FakeProvider("primary");
+    private final FakeProvider secondary = new FakeProvider("secondary");
+
+    @Test
+    void keepsConfiguredOrderUntilMeasured() {
+        LlmRouter router = router(0);
+
+        assertEquals(List.of(primary, secondary), router.rank());
+    }
+
+    @Test
+    void prefersTheFasterProvider() {
+        LlmRouter router = router(0);
+        for (int i = 0; i < 10; i++) {
+            router.recordSuccess(primary, millis(2_000));
+            router.recordSuccess(secondary, millis(400));
+        }
+
+        assertEquals(secondary, router.rank().get(0));
+    }
+
+    @Test
+    void routesAroundErrorsAndForgivesThemWhenIdle() {
+        LlmRouter router = router(0);
+        router.recordSuccess(primary, millis(400));
+        router.recordSuccess(secondary, millis(900));
+        for (int i = 0; i < 5; i++) {
+            router.recordFailure(primary);
+        }
+        assertEquals(secondary, router.rank().get(0));
+
+        clock.addAndGet(TimeUnit.MINUTES.toMillis(10));
+        assertEquals(primary, router.rank().get(0));
+    }
+
+    @Test
+    void openCircuitAndExhaustedRateLimitGoLast() {
+        LlmRouter router = router(0);
+        router.recordSuccess(primary, millis(300));
+        router.recordSuccess(secondary, millis(600));
+
+        primary.headroom = 0.02;
+        assertEquals(secondary, router.rank().get(0));
+
+        primary.headroom = 1;
+        primary.available = false;
+        assertEquals(List.of(secondary, primary), router.rank());
+    }
+
+    @Test
+    void explorationSwapsTheTwoBest() {
+        LlmRouter router = router(1.0);
+        router.recordSuccess(primary, millis(300));
+        router.recordSuccess(secondary, millis(600));
+
+        assertEquals(secondary, router.rank().get(0));
+    }
+
+    private LlmRouter router(double explorationRate) {
+        return new LlmRouter(List.of(primary, secondary),
+                LlmRouter.Settings.builder().explorationRate(explorationRate).build(), clock::get, () -> 0.5);
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static final class FakeProvider implements LlmProvider {
+        private final String name;
+        private volatile boolean available = true;
+        private volatile double headroom = 1;
+
+        FakeProvider(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getModel(ModelTier tier) {
+            return name + "-model";
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return available;
+        }
+
+        @Override
+        public double getRateLimitHeadroom() {
+            return headroom;
+        }
+
+        @Override
+        public CompletableFuture<LlmCompletion> complete(LlmRequest request, String model, long timeoutMillis) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public StreamCall stream(LlmRequest request, String model, Consumer<String> onToken) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map<String, Object> getStatistics() {
+            return Map.of();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
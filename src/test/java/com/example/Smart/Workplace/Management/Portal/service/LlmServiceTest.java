@@ -0,0 +1,219 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.exception.AIProviderException;
+import com.example.Smart.Workplace.Management.Portal.model.Role;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class LlmServiceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private LlmStubServer stub;
+    private LlmStubServer secondStub;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (stub != null) {
+            stub.close();
+        }
+        if (secondStub != null) {
+            secondStub.close();
+        }
+    }
+
+    @Test
+    void completionRecordsProviderUsage() throws Exception {
+        stub = new LlmStubServer(LlmStubServer.Settings.builder().medianLatencyMillis(20).p99LatencyMillis(40)
+                .completionTokens(30).build()).start();
+
+        runner().run(context -> {
+            LlmCompletion completion = context.getBean(LlmService.class).getCompletionAsync(request()).get(5, TimeUnit.SECONDS);
+
+            assertTrue(completion.content().startsWith("the policy allows"));
+            assertEquals(30, completion.completionTokens());
+            assertEquals(30, registry.get("llm.tokens").tag("type", "completion").counter().count());
+            assertEquals(1, registry.get("llm.request.duration").tag("mode", "completion").tag("status", "200")
+                    .timer().count());
+        });
+    }
+
+    @Test
+    void streamDeliversChunksAndMeasuresFirstToken() throws Exception {
+        stub = new LlmStubServer(LlmStubServer.Settings.builder().medianLatencyMillis(20).p99LatencyMillis(40)
+                .completionTokens(12).tokensPerChunk(3).chunkIntervalMillis(5).build()).start();
+
+        runner().run(context -> {
+            AtomicInteger tokens = new AtomicInteger();
+            AtomicReference<String> full = new AtomicReference<>();
+            AtomicLong usage = new AtomicLong(-1);
+            CountDownLatch done = new CountDownLatch(1);
+            context.getBean(LlmService.class).streamChatCompletion(request(), new LlmService.StreamListener() {
+                @Override
+                public void onToken(String token) {
+                    tokens.incrementAndGet();
+                }
+
+                @Override
+                public void onComplete(LlmCompletion completion) {
+                    usage.set(completion.completionTokens());
+                    onComplete(completion.content());
+                }
+
+                @Override
+                public void onComplete(String fullResponse) {
+                    full.set(fullResponse);
+                    done.countDown();
+                }
+
+                @Override
+                public void onError(String userMessage, Throwable cause) {
+                    done.countDown();
+                }
+            });
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(4, tokens.get());
+            assertEquals(12, full.get().trim().split(" ").length);
+            assertEquals(12, usage.get());
+            assertEquals(12, registry.get("llm.tokens").tag("type", "completion").counter().count());
+            assertEquals(1, registry.get("llm.stream.time-to-first-token").timer().count());
+        });
+    }
+
+    @Test
+    void injectedServerErrorsSurfaceAsProviderErrors() throws Exception {
+        stub = new LlmStubServer(LlmStubServer.Settings.builder().serverErrorRate(1.0).build()).start();
+
+        runner().withPropertyValues("groq.retry.max-attempts=2", "groq.retry.base-backoff-ms=10").run(context -> {
+            CompletableFuture<String> answer = context.getBean(LlmService.class).getChatCompletionAsync(request());
+
+            ExecutionException error = assertThrows(ExecutionException.class, () -> answer.get(5, TimeUnit.SECONDS));
+            assertEquals(500, assertInstanceOf(AIProviderException.class, error.getCause()).getStatusCode());
+            assertEquals(2, stub.getRequestCount());
+            assertEquals(1, registry.get("llm.request.duration").tag("status", "500").timer().count());
+        });
+    }
+
+    @Test
+    void fastTierUsesTheProvidersSmallModel() throws Exception {
+        stub = new LlmStubServer(LlmStubServer.Settings.builder().medianLatencyMillis(5).p99LatencyMillis(10).build()).start();
+
+        runner().withPropertyValues("groq.model.fast=small-model").run(context -> {
+            LlmRequest fast = LlmRequest.builder().systemPrompt("s").userMessage("How many days?")
+                    .tier(ModelTier.FAST).userId(1L).role(Role.EMPLOYEE).build();
+            context.getBean(LlmService.class).getChatCompletionAsync(fast).get(5, TimeUnit.SECONDS);
+
+            assertEquals(1, registry.get("llm.request.duration").tag("model", "small-model").timer().count());
+        });
+    }
+
+    @Test
+    void completionFailsOverToSecondProvider() throws Exception {
+        stub = new LlmStubServer(LlmStubServer.Settings.builder().serverErrorRate(1.0).build()).start();
+        secondStub = new LlmStubServer(LlmStubServer.Settings.builder().medianLatencyMillis(5).p99LatencyMillis(10)
+                .build()).start();
+
+        runner().withPropertyValues("groq.retry.max-attempts=1", "llm.openai.api.key=test",
+                "llm.openai.api.url=" + secondStub.url(), "llm.openai.model=backup-model").run(context -> {
+            String answer = context.getBean(LlmService.class).getChatCompletionAsync(request()).get(5, TimeUnit.SECONDS);
+
+            assertTrue(answer.startsWith("the policy allows"));
+            assertEquals(1, stub.getRequestCount());
+            assertEquals(1, secondStub.getRequestCount());
+            assertEquals(1, registry.get("llm.request.duration").tag("model", "backup-model").tag("status", "200")
+                    .timer().count());
+        });
+    }
+
+    @Test
+    void hangingProviderLeavesTimeToFailOver() throws Exception {
+        stub = new LlmStubServer(LlmStubServer.Settings.builder().medianLatencyMillis(6000).p99LatencyMillis(6000)
+                .build()).start();
+        secondStub = new LlmStubServer(LlmStubServer.Settings.builder().medianLatencyMillis(5).p99LatencyMillis(10)
+                .build()).start();
+
+        runner().withPropertyValues("groq.retry.max-attempts=1", "groq.call-timeout-ms=4000",
+                "llm.failover.min-remaining-ms=500", "llm.router.exploration-rate=0", "llm.openai.api.key=test",
+                "llm.openai.api.url=" + secondStub.url(), "llm.openai.model=backup-model").run(context -> {
+            long started = System.nanoTime();
+            String answer = context.getBean(LlmService.class).getChatCompletionAsync(request()).get(5, TimeUnit.SECONDS);
+
+            assertTrue(answer.startsWith("the policy allows"));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 4000);
+            assertEquals(1, secondStub.getRequestCount());
+        });
+    }
+
+    @Test
+    void streamFailsOverBeforeFirstToken() throws Exception {
+        stub = new LlmStubServer(LlmStubServer.Settings.builder().disconnectRate(1.0).build()).start();
+        secondStub = new LlmStubServer(LlmStubServer.Settings.builder().medianLatencyMillis(5).p99LatencyMillis(10)
+                .completionTokens(6).build()).start();
+
+        runner().withPropertyValues("groq.retry.max-attempts=1", "llm.openai.api.key=test",
+                "llm.openai.api.url=" + secondStub.url()).run(context -> {
+            AtomicReference<String> full = new AtomicReference<>();
+            AtomicReference<String> failure = new AtomicReference<>();
+            CountDownLatch done = new CountDownLatch(1);
+            context.getBean(LlmService.class).streamChatCompletion(request(), new LlmService.StreamListener() {
+                @Override
+                public void onToken(String token) {
+                }
+
+                @Override
+                public void onComplete(String fullResponse) {
+                    full.set(fullResponse);
+                    done.countDown();
+                }
+
+                @Override
+                public void onError(String userMessage, Throwable cause) {
+                    failure.set(userMessage);
+                    done.countDown();
+                }
+            });
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(null, failure.get());
+            assertEquals(6, full.get().trim().split(" ").length);
+            assertEquals(1, secondStub.getRequestCount());
+        });
+    }
+
+    private ApplicationContextRunner runner() {
+        return new ApplicationContextRunner()
+                .withPropertyValues("groq.api.key=test", "groq.api.url=" + stub.url())
+                .withBean(TokenEstimator.class)
+                .withBean(LlmUsageRecorder.class, () -> new LlmUsageRecorder(registry, mock(JdbcTemplate.class),
+                        mock(TransactionTemplate.class), null, ""))
+                .withBean(LlmService.class);
+    }
+
+    private static LlmRequest request() {
+        return LlmRequest.builder()
+                .systemPrompt("You are a helpful assistant")
+                .userMessage("How many leave days do I have?")
+                .maxTokens(200)
+                .userId(1L)
+                .role(Role.EMPLOYEE)
+                .build();
+    }
+}
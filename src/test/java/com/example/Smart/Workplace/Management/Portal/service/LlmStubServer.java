@@ -0,0 +1,217 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import lombok.Builder;
+import lombok.Getter;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process OpenAI-compatible chat completions endpoint for tests and load runs
+ * Latency is drawn from a log-normal distribution fitted to a median and a p99. Streamed
+ * responses send one SSE chunk per token group at a fixed cadence, and a configurable share of
+ * calls fails with 429, 500 or a dropped connection. Responses carry a usage block like Groq's.
+ */
+public class LlmStubServer implements AutoCloseable {
+
+    private static final double Z_99 = 2.3263;
+    private static final String[] WORDS = {"the", "policy", "allows", "employees", "to", "request", "leave",
+            "through", "portal", "and", "your", "manager", "will", "review", "it", "within", "two", "days"};
+
+    @Getter
+    @Builder
+    public static class Settings {
+        // Non-streamed: time until the whole response; streamed: time to first token
+        @Builder.Default
+        private final long medianLatencyMillis = 200;
+        @Builder.Default
+        private final long p99LatencyMillis = 800;
+        @Builder.Default
+        private final int completionTokens = 120;
+        @Builder.Default
+        private final int tokensPerChunk = 3;
+        @Builder.Default
+        private final long chunkIntervalMillis = 20;
+        @Builder.Default
+        private final double rateLimitRate = 0;
+        @Builder.Default
+        private final double serverErrorRate = 0;
+        @Builder.Default
+        private final double disconnectRate = 0;
+    }
+
+    private final Settings settings;
+    private final MockWebServer server = new MockWebServer();
+    private final Gson gson = new Gson();
+    private final double sigma;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    public LlmStubServer(Settings settings) {
+        this.settings = settings;
+        this.sigma = Math.log((double) Math.max(settings.p99LatencyMillis, settings.medianLatencyMillis)
+                / Math.max(settings.medianLatencyMillis, 1)) / Z_99;
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return respond(request);
+            }
+        });
+    }
+
+    public LlmStubServer start() throws IOException {
+        server.start();
+        return this;
+    }
+
+    /**
+     * Value for groq.api.url
+     */
+    public String url() {
+        return server.url("/openai/v1/chat/completions").toString();
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getInjectedErrorCount() {
+        return injectedErrors.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+    }
+
+    private MockResponse respond(RecordedRequest request) {
+        requests.incrementAndGet();
+        MockResponse failure = injectedFailure();
+        if (failure != null) {
+            injectedErrors.incrementAndGet();
+            return failure;
+        }
+
+        JsonObject body = gson.fromJson(request.getBody().readUtf8(), JsonObject.class);
+        String model = body.has("model") ? body.get("model").getAsString() : "stub";
+        boolean stream = body.has("stream") && body.get("stream").getAsBoolean();
+        int promptTokens = Math.max(1, (int) (request.getBodySize() / 4));
+        long latency = sampleLatencyMillis();
+
+        if (!stream) {
+            return new MockResponse()
+                    .setHeader("Content-Type", "application/json")
+                    .setHeadersDelay(latency, TimeUnit.MILLISECONDS)
+                    .setBody(completion(model, promptTokens).toString());
+        }
+
+        StringBuilder sse = new StringBuilder();
+        int chunks = 0;
+        for (int from = 0; from < settings.completionTokens; from += settings.tokensPerChunk) {
+            StringBuilder text = new StringBuilder();
+            for (int i = from; i < Math.min(from + settings.tokensPerChunk, settings.completionTokens); i++) {
+                text.append(WORDS[i % WORDS.length]).append(' ');
+            }
+            sse.append("data: ").append(chunk(model, text.toString(), null)).append("\n\n");
+            chunks++;
+        }
+        sse.append("data: ").append(chunk(model, null, usage(promptTokens))).append("\n\n");
+        sse.append("data: [DONE]\n\n");
+
+        long bytesPerChunk = Math.max(1, sse.length() / (chunks + 1));
+        return new MockResponse()
+                .setHeader("Content-Type", "text/event-stream")
+                .setHeadersDelay(latency, TimeUnit.MILLISECONDS)
+                .throttleBody(bytesPerChunk, settings.chunkIntervalMillis, TimeUnit.MILLISECONDS)
+                .setBody(sse.toString());
+    }
+
+    private MockResponse injectedFailure() {
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < settings.rateLimitRate) {
+            return new MockResponse().setResponseCode(429).setHeader("Retry-After", "1")
+                    .setBody("{\"error\":{\"message\":\"Rate limit reached\"}}");
+        }
+        roll -= settings.rateLimitRate;
+        if (roll < settings.serverErrorRate) {
+            return new MockResponse().setResponseCode(500).setBody("{\"error\":{\"message\":\"Internal error\"}}");
+        }
+        roll -= settings.serverErrorRate;
+        if (roll < settings.disconnectRate) {
+            return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+        }
+        return null;
+    }
+
+    private long sampleLatencyMillis() {
+        double gaussian = ThreadLocalRandom.current().nextGaussian();
+        return Math.round(settings.medianLatencyMillis * Math.exp(sigma * gaussian));
+    }
+
+    private JsonObject completion(String model, int promptTokens) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < settings.completionTokens; i++) {
+            text.append(WORDS[i % WORDS.length]).append(' ');
+        }
+        JsonObject message = new JsonObject();
+        message.addProperty("role", "assistant");
+        message.addProperty("content", text.toString().trim());
+        JsonObject choice = new JsonObject();
+        choice.addProperty("index", 0);
+        choice.add("message", message);
+        choice.addProperty("finish_reason", "stop");
+        JsonArray choices = new JsonArray();
+        choices.add(choice);
+
+        JsonObject response = new JsonObject();
+        response.addProperty("id", "chatcmpl-stub");
+        response.addProperty("object", "chat.completion");
+        response.addProperty("model", model);
+        response.add("choices", choices);
+        response.add("usage", usage(promptTokens));
+        return response;
+    }
+
+    /**
+     * A content delta, or the final usage-only chunk (empty choices) when usage is given
+     */
+    private static JsonObject chunk(String model, String content, JsonObject usage) {
+        JsonArray choices = new JsonArray();
+        if (content != null) {
+            JsonObject delta = new JsonObject();
+            delta.addProperty("content", content);
+            JsonObject choice = new JsonObject();
+            choice.addProperty("index", 0);
+            choice.add("delta", delta);
+            choices.add(choice);
+        }
+        JsonObject chunk = new JsonObject();
+        chunk.addProperty("id", "chatcmpl-stub");
+        chunk.addProperty("object", "chat.completion.chunk");
+        chunk.addProperty("model", model);
+        chunk.add("choices", choices);
+        if (usage != null) {
+            chunk.add("usage", usage);
+        }
+        return chunk;
+    }
+
+    private JsonObject usage(int promptTokens) {
+        JsonObject usage = new JsonObject();
+        usage.addProperty("prompt_tokens", promptTokens);
+        usage.addProperty("completion_tokens", settings.completionTokens);
+        usage.addProperty("total_tokens", promptTokens + settings.completionTokens);
+        return usage;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.Role;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LlmUsageRecorderTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LlmUsageRecorder recorder = new LlmUsageRecorder(registry, null, null, null, "big=1.00/2.00");
+
+    @Test
+    void parsesPricesPerMillionTokens() {
+        Map<String, LlmUsageRecorder.Price> prices = LlmUsageRecorder.parsePricing(" a=0.59/0.79 , b = 0.05/0.08");
+
+        assertEquals(new LlmUsageRecorder.Price(0.59, 0.79), prices.get("a"));
+        assertEquals(new LlmUsageRecorder.Price(0.05, 0.08), prices.get("b"));
+        assertThrows(IllegalArgumentException.class, () -> LlmUsageRecorder.parsePricing("a=0.59"));
+    }
+
+    @Test
+    void costsUnknownModelsAtZero() {
+        assertEquals(0.003, recorder.cost("big", 1000, 1000), 1e-12);
+        assertEquals(0.0, recorder.cost("unknown", 1000, 1000));
+    }
+
+    @Test
+    void publishesMetersWithoutUserTags() {
+        recorder.record(call(200, false));
+        recorder.record(call(429, false));
+        recorder.record(call(200, true));
+
+        assertEquals(1, registry.get("llm.request.duration").tag("status", "200").timer().count());
+        assertEquals(1, registry.get("llm.request.duration").tag("status", "429").timer().count());
+        assertEquals(1, registry.get("llm.request.duration").tag("status", "cancelled").timer().count());
+        assertEquals(3, registry.get("llm.stream.time-to-first-token").timer().count());
+        assertEquals(300, registry.get("llm.tokens").tag("type", "prompt").counter().count());
+        assertEquals(0.0012, registry.get("llm.cost").counter().count(), 1e-9);
+        registry.getMeters().forEach(meter -> assertEquals(null, meter.getId().getTag("user")));
+    }
+
+    private static LlmUsageRecorder.Call call(int status, boolean cancelled) {
+        return LlmUsageRecorder.Call.builder()
+                .userId(7L)
+                .role(Role.EMPLOYEE)
+                .model("big")
+                .streaming(true)
+                .status(status)
+                .cancelled(cancelled)
+                .latencyNanos(TimeUnit.MILLISECONDS.toNanos(800))
+                .timeToFirstTokenNanos(TimeUnit.MILLISECONDS.toNanos(150))
+                .promptTokens(100)
+                .completionTokens(150)
+                .build();
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogHistogramTest {
+
+    // Half a bucket either way of the midpoint, plus rounding in the bucket index
+    private static final double MAX_RELATIVE_ERROR = 0.0501;
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LogHistogram histogram = new LogHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.percentile(0.5));
+        assertEquals(0, histogram.percentile(0.99));
+    }
+
+    @Test
+    void everyValueIsReportedWithinTheBucketError() {
+        for (long value = 2; value < 100_000_000L; value = value * 3 / 2 + 1) {
+            LogHistogram histogram = new LogHistogram();
+            histogram.record(value);
+
+            double reported = histogram.percentile(0.5);
+            assertTrue(Math.abs(reported - value) / value <= MAX_RELATIVE_ERROR, value + " reported as " + reported);
+        }
+    }
+
+    @Test
+    void valuesUpToOneShareTheFirstBucket() {
+        LogHistogram histogram = new LogHistogram();
+        histogram.record(-5);
+        histogram.record(0);
+        histogram.record(1);
+
+        assertEquals(3, histogram.getCount());
+        assertEquals(1.0 / 3, histogram.getMean(), 1e-9);
+        assertEquals(1, histogram.percentile(0));
+        assertEquals(1, histogram.percentile(1));
+    }
+
+    @Test
+    void valuesBeyondTheLastBucketAreClampedIntoIt() {
+        LogHistogram histogram = new LogHistogram();
+        histogram.record(Long.MAX_VALUE / 2);
+        histogram.record(1_000_000_000_000L);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(histogram.percentile(0), histogram.percentile(1));
+        assertTrue(histogram.percentile(1) < 1_000_000_000_000L);
+    }
+
+    @Test
+    void percentilesFollowTheRank() {
+        LogHistogram histogram = new LogHistogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMean(), 1e-9);
+        assertWithinBucket(500, histogram.percentile(0.50));
+        assertWithinBucket(900, histogram.percentile(0.90));
+        assertWithinBucket(990, histogram.percentile(0.99));
+        assertWithinBucket(1000, histogram.percentile(1));
+        assertEquals(1, histogram.percentile(0));
+    }
+
+    @Test
+    void percentileOfASkewedDistributionIgnoresTheTail() {
+        LogHistogram histogram = new LogHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(200);
+        }
+        histogram.record(60_000);
+
+        assertWithinBucket(200, histogram.percentile(0.99));
+        assertWithinBucket(60_000, histogram.percentile(0.995));
+    }
+
+    @Test
+    void mergingMatchesRecordingEverythingInOne() {
+        LogHistogram all = new LogHistogram();
+        LogHistogram fast = new LogHistogram();
+        LogHistogram slow = new LogHistogram();
+        for (long value = 1; value <= 500; value++) {
+            fast.record(value);
+            all.record(value);
+        }
+        for (long value = 5_000; value <= 5_500; value++) {
+            slow.record(value);
+            all.record(value);
+        }
+
+        LogHistogram merged = new LogHistogram();
+        merged.merge(fast);
+        merged.merge(slow);
+
+        assertEquals(all.getCount(), merged.getCount());
+        assertEquals(all.getMean(), merged.getMean(), 1e-9);
+        for (double quantile : new double[]{0, 0.25, 0.5, 0.75, 0.9, 0.99, 1}) {
+            assertEquals(all.percentile(quantile), merged.percentile(quantile), "quantile " + quantile);
+        }
+        // The source is left as it was
+        assertEquals(500, fast.getCount());
+        assertWithinBucket(250, fast.percentile(0.5));
+    }
+
+    private static void assertWithinBucket(double expected, double reported) {
+        assertTrue(Math.abs(reported - expected) / expected <= MAX_RELATIVE_ERROR, expected + " reported as " + reported);
+    }
+}
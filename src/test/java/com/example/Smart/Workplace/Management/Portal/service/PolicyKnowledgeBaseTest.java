@@ -0,0 +1,72 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.repository.PolicyDocumentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class PolicyKnowledgeBaseTest {
+
+    private static final String HANDBOOK = """
+            # Leave Policy
+
+            ## Annual leave
+            Full-time employees accrue 20 days of annual leave per year. Up to 5 unused days
+            may be carried over into the first quarter of the next year.
+
+            ## Sick leave
+            Employees may take up to 10 paid sick days per year. A medical certificate is required
+            for absences longer than 2 consecutive days.
+
+            # Remote Work
+
+            Employees may work remotely up to two days per week with their manager's approval.
+            """;
+
+    private final PolicyKnowledgeBase knowledgeBase = knowledgeBase(200, 600, 1.0);
+
+    @Test
+    void chunksFollowTheHeadings() {
+        List<PolicyKnowledgeBase.Chunk> chunks = knowledgeBase.chunk(
+                new PolicyKnowledgeBase.Document("Handbook", "test", HANDBOOK));
+
+        assertEquals(List.of("Handbook > Leave Policy > Annual leave", "Handbook > Leave Policy > Sick leave",
+                "Handbook > Remote Work"), chunks.stream().map(PolicyKnowledgeBase.Chunk::section).toList());
+    }
+
+    @Test
+    void ranksTheRelevantSectionFirst() {
+        knowledgeBase.rebuild(List.of(new PolicyKnowledgeBase.Document("Handbook", "test", HANDBOOK)));
+
+        List<PolicyKnowledgeBase.Match> matches = knowledgeBase.search("Do I need a medical certificate when sick?");
+
+        assertEquals("Handbook > Leave Policy > Sick leave", matches.get(0).chunk().section());
+        assertTrue(knowledgeBase.excerpts("can I carry over unused days?").get(0).contains("carried over"));
+        assertTrue(knowledgeBase.excerpts("hello there").isEmpty());
+    }
+
+    @Test
+    void splitsLongSectionsAndRespectsTheBudget() {
+        String longSection = "# Expenses\n" + "Receipts must be submitted within thirty days of purchase. ".repeat(40);
+        // Every chunk says the same, so no term is rare enough to pass a score floor
+        PolicyKnowledgeBase small = knowledgeBase(50, 120, 0);
+        small.rebuild(List.of(new PolicyKnowledgeBase.Document("Expenses", "test", longSection)));
+
+        List<PolicyKnowledgeBase.Match> matches = small.search("when must receipts be submitted");
+
+        assertTrue(matches.size() > 1);
+        assertTrue(matches.stream().mapToInt(match -> match.chunk().tokens()).sum() <= 120);
+        assertTrue(matches.stream().allMatch(match -> match.chunk().tokens() <= 50));
+    }
+
+    private static PolicyKnowledgeBase knowledgeBase(int chunkTokens, int tokenBudget, double minScore) {
+        return new PolicyKnowledgeBase(new PathMatchingResourcePatternResolver(), mock(PolicyDocumentRepository.class),
+                new TokenEstimator(), mock(AssistantResponseCache.class), "classpath:none/*.md",
+                chunkTokens, 4, tokenBudget, minScore);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PromptAssemblerTest {
+
+    private final TokenEstimator tokenEstimator = new TokenEstimator();
+
+    @Test
+    void countsTokensWithTheBpeVocabulary() {
+        assertEquals(2, tokenEstimator.estimate("hello world"));
+        assertEquals(0, tokenEstimator.estimate(""));
+        // Special token markers in user text are plain text, not an error
+        assertTrue(tokenEstimator.estimate("<|endoftext|>") > 1);
+    }
+
+    @Test
+    void keepsEverythingThatFitsAndSizesTheCompletion() {
+        PromptAssembler assembler = new PromptAssembler(tokenEstimator, 4096, 1000, 256, 1000, 400);
+
+        PromptAssembler.Assembled assembled = assembler.assemble(prompt(ModelTier.STANDARD, 3, "earlier: asked about leave"));
+        LlmRequest request = assembled.request();
+
+        assertEquals(6, request.getHistory().size());
+        assertTrue(request.getSystemPrompt().contains("COMPANY POLICY EXCERPTS"));
+        assertTrue(request.getSystemPrompt().contains("earlier: asked about leave"));
+        assertEquals(1000, request.getMaxTokens());
+        assertEquals(400, assembler.assemble(prompt(ModelTier.FAST, 0, "")).request().getMaxTokens());
+        assertTrue(assembled.promptTokens() > tokenEstimator.estimate(request.getSystemPrompt()));
+    }
+
+    @Test
+    void dropsTheSummaryAndOldestTurnsFirstWhenOverBudget() {
+        // Room for the instructions, the question, the excerpt and about two turns
+        PromptAssembler assembler = new PromptAssembler(tokenEstimator, 600, 1000, 256, 1000, 400);
+
+        PromptAssembler.Assembled assembled = assembler.assemble(prompt(ModelTier.STANDARD, 10, "a summary"));
+        LlmRequest request = assembled.request();
+
+        assertTrue(request.getSystemPrompt().contains("COMPANY POLICY EXCERPTS"));
+        assertFalse(request.getSystemPrompt().contains("a summary"));
+        assertTrue(request.getHistory().size() < 20);
+        assertEquals("question 9", request.getHistory().get(request.getHistory().size() - 2).content());
+        assertTrue(request.getMaxTokens() >= 256);
+        assertEquals(600, assembled.promptTokens() + request.getMaxTokens());
+        assertEquals(1L, assembler.getStatistics().get("droppedSummaries"));
+    }
+
+    @Test
+    void rejectsMessagesOverTheLimit() {
+        PromptAssembler assembler = new PromptAssembler(tokenEstimator, 4096, 50, 256, 1000, 400);
+
+        assembler.requireWithinLimit("How many leave days do I have left?");
+        assertThrows(IllegalArgumentException.class,
+                () -> assembler.requireWithinLimit("Please tell me about the leave policy. ".repeat(20)));
+    }
+
+    @Test
+    void countsShortMessagesThatAreManyTokens() {
+        PromptAssembler assembler = new PromptAssembler(tokenEstimator, 4096, 50, 256, 1000, 400);
+        // 40 chars, but every emoji is several tokens
+        String emoji = "\uD83D\uDE80".repeat(20);
+
+        assertTrue(emoji.length() <= 50 && tokenEstimator.estimate(emoji) > 50);
+        assertThrows(IllegalArgumentException.class, () -> assembler.requireWithinLimit(emoji));
+    }
+
+    private static PromptAssembler.Prompt prompt(ModelTier tier, int turns, String summary) {
+        List<ConversationMemory.Turn> history = new ArrayList<>();
+        for (int i = 0; i < turns; i++) {
+            history.add(new ConversationMemory.Turn("question " + i,
+                    "An answer that goes on for a while about leave, approvals and balances. ".repeat(3), 0));
+        }
+        return PromptAssembler.Prompt.builder()
+                .instructions("You are a helpful workplace assistant.\n\nUSER INFORMATION:\nRole: EMPLOYEE\n")
+                .policyExcerpts(List.of("[Handbook > Annual leave]\nUp to five unused days may be carried over."))
+                .summary(summary)
+                .history(history)
+                .userMessage("Can I carry over leave?")
+                .tier(tier)
+                .userId(1L)
+                .build();
+    }
+}
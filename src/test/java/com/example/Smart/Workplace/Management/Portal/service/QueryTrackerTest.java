@@ -0,0 +1,73 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryTrackerTest {
+
+    private static final String SELECT_USER = "select u.id, u.name from users u where u.id=?";
+
+    private final QueryTracker tracker = new QueryTracker(5, 10_000, 10);
+
+    @Test
+    void flagsRepeatedStatementsAsOverBudget() throws Exception {
+        QueryTracker.RequestQueries queries = tracker.begin();
+        run("select c.id from complaints c where c.status=? and c.category=?", "OPEN", null);
+        for (long id = 1; id <= 6; id++) {
+            run(SELECT_USER, id);
+        }
+        tracker.end(queries, "GET /api/complaints");
+
+        assertEquals(7, queries.getCount());
+        List<?> recent = (List<?>) tracker.getStatistics().get("recent");
+        assertEquals(1, recent.size());
+        QueryTracker.Offender offender = (QueryTracker.Offender) recent.get(0);
+        assertEquals("GET /api/complaints", offender.endpoint());
+        assertEquals(SELECT_USER, offender.mostRepeatedSql());
+        assertEquals(6, offender.mostRepeatedCount());
+        assertTrue(offender.slowestParameters().matches("\\((Long|String, null)\\)"), offender.slowestParameters());
+    }
+
+    @Test
+    void requestsWithinBudgetOnlyCountTowardsTheEndpoint() throws Exception {
+        QueryTracker.RequestQueries queries = tracker.begin();
+        run(SELECT_USER, 1L);
+        tracker.end(queries, "GET /api/users/{id}");
+        // Statements outside a request are not charged to anything
+        run(SELECT_USER, 2L);
+
+        Map<String, Object> stats = tracker.getStatistics();
+        assertEquals(List.of(), stats.get("recent"));
+        Map<?, ?> endpoint = (Map<?, ?>) ((List<?>) stats.get("endpoints")).get(0);
+        assertEquals(1L, endpoint.get("requests"));
+        assertEquals(1, endpoint.get("maxQueries"));
+        assertEquals(1, queries.getCount());
+    }
+
+    private void run(String sql, Object... parameters) throws Exception {
+        QueryInfo query = new QueryInfo(sql);
+        List<ParameterSetOperation> bound = new ArrayList<>();
+        for (int i = 0; i < parameters.length; i++) {
+            bound.add(parameters[i] == null
+                    ? new ParameterSetOperation(PreparedStatement.class.getMethod("setNull", int.class, int.class),
+                    new Object[]{i + 1, Types.VARCHAR})
+                    : new ParameterSetOperation(PreparedStatement.class.getMethod("setObject", int.class, Object.class),
+                    new Object[]{i + 1, parameters[i]}));
+        }
+        query.getParametersList().add(bound);
+        ExecutionInfo execution = new ExecutionInfo();
+        tracker.beforeQuery(execution, List.of(query));
+        tracker.afterQuery(execution, List.of(query));
+    }
+}
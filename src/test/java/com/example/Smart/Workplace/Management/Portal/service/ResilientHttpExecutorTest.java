@@ -0,0 +1,179 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.exception.AIProviderException;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResilientHttpExecutorTest {
+
+    private MockWebServer server;
+    private OkHttpClient client;
+    private ResilientHttpExecutor executor;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new OkHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (executor != null) {
+            executor.close();
+        }
+        server.shutdown();
+    }
+
+    @Test
+    void retriesServerErrorThenSucceeds() throws Exception {
+        executor = executor(ResilientHttpExecutor.Settings.builder().baseBackoffMillis(10).build());
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        try (Response response = execute(5000)) {
+            assertEquals("ok", response.body().string());
+        }
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1L, executor.getStatistics().get("retries"));
+    }
+
+    @Test
+    void honoursRetryAfterAndPausesBreaker() throws Exception {
+        executor = executor(ResilientHttpExecutor.Settings.builder().build());
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "1"));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        long start = System.nanoTime();
+        ResilientHttpExecutor.Execution execution = executor.execute(client, request(), 5000, false);
+
+        // Everyone else is held back until Retry-After has passed
+        server.takeRequest(2, TimeUnit.SECONDS);
+        Thread.sleep(100);
+        assertTrue((long) circuitBreakerStats().get("pausedForMs") > 0);
+
+        try (Response response = execution.response().get(5, TimeUnit.SECONDS)) {
+            assertEquals("ok", response.body().string());
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 1000);
+    }
+
+    @Test
+    void retriesBare429AfterItsOwnPause() throws Exception {
+        executor = executor(ResilientHttpExecutor.Settings.builder().build());
+        server.enqueue(new MockResponse().setResponseCode(429));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        long start = System.nanoTime();
+        try (Response response = execute(5000)) {
+            assertEquals("ok", response.body().string());
+        }
+        // The retry waited out the base-backoff pause instead of being rejected by it
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 250);
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1L, executor.getStatistics().get("retries"));
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        executor = executor(ResilientHttpExecutor.Settings.builder().baseBackoffMillis(10).build());
+        server.enqueue(new MockResponse().setResponseCode(400).setBody("bad request"));
+
+        AIProviderException error = failure(5000);
+        assertEquals(400, error.getStatusCode());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void opensCircuitAndFailsFast() {
+        executor = executor(ResilientHttpExecutor.Settings.builder()
+                .maxAttempts(1)
+                .breakerWindowSize(4)
+                .breakerMinimumCalls(4)
+                .breakerFailureRate(0.5)
+                .breakerOpenMillis(60000)
+                .build());
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+        }
+        for (int i = 0; i < 4; i++) {
+            assertEquals(500, failure(5000).getStatusCode());
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, executor.getCircuitState());
+        assertEquals(503, failure(5000).getStatusCode());
+        assertEquals(4, server.getRequestCount());
+    }
+
+    @Test
+    void retriesStopAtDeadline() {
+        executor = executor(ResilientHttpExecutor.Settings.builder().maxAttempts(10).baseBackoffMillis(10).build());
+        server.enqueue(new MockResponse().setBody("late").setHeadersDelay(2, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        AIProviderException error = failure(300);
+        assertEquals(0, error.getStatusCode());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1500);
+    }
+
+    @Test
+    void hedgesSlowRequest() throws Exception {
+        executor = executor(ResilientHttpExecutor.Settings.builder()
+                .hedgeEnabled(true)
+                .hedgeMinDelayMillis(100)
+                .hedgeMinSamples(5)
+                .build());
+        for (int i = 0; i < 5; i++) {
+            server.enqueue(new MockResponse().setBody("warm-up"));
+            execute(5000).close();
+        }
+
+        server.enqueue(new MockResponse().setBody("slow").setHeadersDelay(3, TimeUnit.SECONDS));
+        server.enqueue(new MockResponse().setBody("hedge"));
+
+        long start = System.nanoTime();
+        try (Response response = executor.execute(client, request(), 10000, true).response().get(5, TimeUnit.SECONDS)) {
+            assertEquals("hedge", response.body().string());
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        assertEquals(1L, executor.getStatistics().get("hedgesWon"));
+    }
+
+    private ResilientHttpExecutor executor(ResilientHttpExecutor.Settings settings) {
+        return new ResilientHttpExecutor("test", settings, status -> "failed with " + status);
+    }
+
+    private Request request() {
+        return new Request.Builder().url(server.url("/v1/chat/completions")).build();
+    }
+
+    private Response execute(long deadlineMillis) throws Exception {
+        return executor.execute(client, request(), deadlineMillis, false).response().get(5, TimeUnit.SECONDS);
+    }
+
+    private AIProviderException failure(long deadlineMillis) {
+        ExecutionException error = assertThrows(ExecutionException.class, () -> execute(deadlineMillis));
+        return assertInstanceOf(AIProviderException.class, error.getCause());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> circuitBreakerStats() {
+        return (Map<String, Object>) executor.getStatistics().get("circuitBreaker");
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.Complaint;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintPriority;
+import com.example.Smart.Workplace.Management.Portal.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResolutionTimeAnalyticsTest {
+
+    private final ResolutionTimeAnalytics analytics = new ResolutionTimeAnalytics(null);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void recordsOnlyOnceTheTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        analytics.recordAfterCommit(resolved());
+
+        assertNull(analytics.getAverageResolutionDays("Finance"));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(2.0, analytics.getAverageResolutionDays("Finance"), 0.1);
+    }
+
+    @Test
+    void rolledBackResolutionIsNeverRecorded() {
+        TransactionSynchronizationManager.initSynchronization();
+        analytics.recordAfterCommit(resolved());
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertNull(analytics.getAverageResolutionDays("Finance"));
+    }
+
+    @Test
+    void recordsImmediatelyOutsideATransaction() {
+        analytics.recordAfterCommit(resolved());
+
+        assertEquals(1L, analytics.getSummary(null, null, 1).get("count"));
+    }
+
+    private static Complaint resolved() {
+        LocalDateTime resolvedAt = LocalDateTime.now();
+        return Complaint.builder()
+                .category("Facilities")
+                .priority(ComplaintPriority.HIGH)
+                .submittedAt(resolvedAt.minusDays(2))
+                .resolvedAt(resolvedAt)
+                .user(User.builder().department("Finance").build())
+                .build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallersShareOneUpstreamCall() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(100);
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        List<CompletableFuture<String>> waiters = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            waiters.add(singleFlight.execute("q", () -> {
+                calls.incrementAndGet();
+                return upstream;
+            }, 0));
+        }
+        upstream.complete("answer");
+
+        assertEquals(1, calls.get());
+        for (CompletableFuture<String> waiter : waiters) {
+            assertEquals("answer", waiter.get(1, TimeUnit.SECONDS));
+        }
+        assertEquals(0, singleFlight.getInFlight());
+    }
+
+    @Test
+    void waiterCapStartsANewFlight() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(3);
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 7; i++) {
+            singleFlight.execute("q", () -> {
+                calls.incrementAndGet();
+                return new CompletableFuture<>();
+            }, 0);
+        }
+
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void waiterTimeoutDoesNotCancelSharedCall() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(10);
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+
+        CompletableFuture<String> impatient = singleFlight.execute("q", () -> upstream, 50);
+        CompletableFuture<String> patient = singleFlight.execute("q", () -> upstream, 0);
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> impatient.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        assertFalse(upstream.isDone());
+
+        upstream.complete("late answer");
+        assertEquals("late answer", patient.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void upstreamFailureReachesEveryWaiter() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(10);
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+
+        CompletableFuture<String> first = singleFlight.execute("q", () -> upstream, 0);
+        CompletableFuture<String> second = singleFlight.execute("q", () -> upstream, 0);
+        upstream.completeExceptionally(new IllegalStateException("upstream down"));
+
+        assertInstanceOf(IllegalStateException.class, assertThrows(ExecutionException.class, first::get).getCause());
+        assertInstanceOf(IllegalStateException.class, assertThrows(ExecutionException.class, second::get).getCause());
+    }
+}
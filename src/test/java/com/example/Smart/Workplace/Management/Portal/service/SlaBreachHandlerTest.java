@@ -0,0 +1,111 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.Complaint;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintEventType;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintPriority;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintStatus;
+import com.example.Smart.Workplace.Management.Portal.model.User;
+import com.example.Smart.Workplace.Management.Portal.repository.ComplaintRepository;
+import com.example.Smart.Workplace.Management.Portal.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class SlaBreachHandlerTest {
+
+    private final ComplaintRepository complaintRepository = mock(ComplaintRepository.class);
+    private final ComplaintEventLog complaintEventLog = mock(ComplaintEventLog.class);
+    private final SlaMonitorService slaMonitorService = mock(SlaMonitorService.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    private SlaBreachHandler handler;
+
+    @SuppressWarnings("unchecked")
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        ObjectProvider<JavaMailSender> mailSender = mock(ObjectProvider.class);
+        handler = new SlaBreachHandler(complaintRepository, mock(UserRepository.class), complaintEventLog,
+                mailSender, slaMonitorService, transactionTemplate);
+        ReflectionTestUtils.setField(handler, "autoEscalate", true);
+        when(complaintRepository.findById(1L)).thenReturn(Optional.of(open(ComplaintPriority.MEDIUM)));
+    }
+
+    @AfterEach
+    void shutdown() throws Exception {
+        ReflectionTestUtils.invokeMethod(handler, "shutdown");
+    }
+
+    @Test
+    void escalatesThroughTheGuardedUpdate() {
+        Complaint escalated = open(ComplaintPriority.HIGH);
+        when(complaintRepository.markResponseBreached(eq(1L), eq(ComplaintPriority.HIGH), any(LocalDateTime.class)))
+                .thenReturn(1);
+        when(complaintRepository.findById(1L))
+                .thenReturn(Optional.of(open(ComplaintPriority.MEDIUM)))
+                .thenReturn(Optional.of(escalated));
+
+        handle(SlaBreachEvent.Kind.RESPONSE);
+
+        verify(complaintRepository, never()).save(any());
+        verify(complaintEventLog).record(eq(1L), eq(ComplaintEventType.ESCALATED), any(), any(), any(), any(),
+                eq("SLA response breach, priority MEDIUM -> HIGH"));
+        verify(slaMonitorService).track(escalated);
+    }
+
+    @Test
+    void complaintResolvedConcurrentlyIsNeitherEscalatedNorReTracked() {
+        when(complaintRepository.markResolutionBreached(eq(1L), any(), any())).thenReturn(0);
+
+        handle(SlaBreachEvent.Kind.RESOLUTION);
+
+        verify(complaintRepository, never()).save(any());
+        verify(complaintEventLog, never()).record(any(), any(), any(), any(), any(), any(), anyString());
+        verifyNoInteractions(slaMonitorService);
+    }
+
+    @Test
+    void closedComplaintIsSkippedWithoutAnUpdate() {
+        Complaint resolved = open(ComplaintPriority.MEDIUM);
+        resolved.setStatus(ComplaintStatus.RESOLVED);
+        when(complaintRepository.findById(1L)).thenReturn(Optional.of(resolved));
+
+        handle(SlaBreachEvent.Kind.RESPONSE);
+
+        verify(complaintRepository, never()).markResponseBreached(any(), any(), any());
+        verifyNoInteractions(slaMonitorService);
+    }
+
+    private void handle(SlaBreachEvent.Kind kind) {
+        ReflectionTestUtils.invokeMethod(handler, "handle",
+                new SlaBreachEvent(1L, kind, ComplaintPriority.MEDIUM, LocalDateTime.now().minusHours(1)));
+    }
+
+    private static Complaint open(ComplaintPriority priority) {
+        return Complaint.builder()
+                .id(1L)
+                .title("Broken projector")
+                .status(ComplaintStatus.OPEN)
+                .priority(priority)
+                .assignedTo(User.builder().email("tech@example.com").build())
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.model.Complaint;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintPriority;
+import com.example.Smart.Workplace.Management.Portal.model.ComplaintStatus;
+import com.example.Smart.Workplace.Management.Portal.repository.ComplaintRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.mock;
+
+class SlaMonitorServiceTest {
+
+    private final SlaMonitorService monitor = new SlaMonitorService(mock(ComplaintRepository.class),
+            new SlaPolicy(Map.of("LOW", 60, "MEDIUM", 30, "HIGH", 20, "URGENT", 10),
+                    Map.of("LOW", 600, "MEDIUM", 300, "HIGH", 200, "URGENT", 100)),
+            mock(ApplicationEventPublisher.class), 60_000);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void tracksOnlyOnceTheTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        monitor.track(open(LocalDateTime.now()));
+
+        assertEquals(0, pendingTimers());
+        commit();
+        assertEquals(2, pendingTimers());
+    }
+
+    @Test
+    void rolledBackResolutionKeepsTheTimers() {
+        monitor.track(open(LocalDateTime.now()));
+
+        TransactionSynchronizationManager.initSynchronization();
+        monitor.recordResolution(open(LocalDateTime.now()));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(2, pendingTimers());
+    }
+
+    @Test
+    void lateResolutionIsFlaggedInTheTransactionAndCancelledAfterCommit() {
+        // Submitted long enough ago that both deadlines passed before the ticker ran
+        monitor.track(open(LocalDateTime.now().minusHours(6)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        Complaint resolving = open(LocalDateTime.now().minusHours(6));
+        monitor.recordResolution(resolving);
+
+        assertNotNull(resolving.getResponseBreachedAt());
+        assertNotNull(resolving.getResolutionBreachedAt());
+        assertEquals(2, pendingTimers());
+        commit();
+        assertEquals(0, pendingTimers());
+    }
+
+    private static Complaint open(LocalDateTime submittedAt) {
+        return Complaint.builder()
+                .id(1L)
+                .status(ComplaintStatus.OPEN)
+                .priority(ComplaintPriority.MEDIUM)
+                .submittedAt(submittedAt)
+                .build();
+    }
+
+    private static void commit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private int pendingTimers() {
+        return (Integer) monitor.getComplianceStatistics().get("pendingTimers");
+    }
+}
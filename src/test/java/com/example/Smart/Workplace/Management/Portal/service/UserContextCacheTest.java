@@ -0,0 +1,96 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.example.Smart.Workplace.Management.Portal.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserContextCacheTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserContextCache cache = new UserContextCache(userRepository, 100, 60);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void mapsTheSnapshotRowForTheCurrentYear() {
+        int year = Year.now().getValue();
+        when(userRepository.findAssistantContext(7L, LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31)))
+                .thenReturn(rows(row("MANAGER")));
+
+        UserContextCache.Snapshot snapshot = cache.get(7L);
+
+        // Counts arrive as whatever numeric type the driver picks
+        assertEquals(new UserContextCache.Snapshot("Jane Doe", "jane@example.com", "MANAGER", "Finance",
+                6, 1, 4, 1, 9, 2, year), snapshot);
+    }
+
+    @Test
+    void loadsOnceUntilInvalidated() {
+        when(userRepository.findAssistantContext(eq(7L), any(), any())).thenReturn(rows(row("MANAGER")));
+
+        cache.get(7L);
+        cache.get(7L);
+        verify(userRepository, times(1)).findAssistantContext(eq(7L), any(), any());
+
+        cache.invalidateAfterCommit(7L);
+        cache.get(7L);
+        verify(userRepository, times(2)).findAssistantContext(eq(7L), any(), any());
+    }
+
+    @Test
+    void invalidatesOnlyAfterTheTransactionCommits() {
+        when(userRepository.findAssistantContext(eq(7L), any(), any()))
+                .thenReturn(rows(row("MANAGER")))
+                .thenReturn(rows(row("ADMIN")));
+        assertEquals("MANAGER", cache.get(7L).role());
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.invalidateAfterCommit(7L);
+        // A chat inside the writing transaction still reads the old snapshot
+        assertEquals("MANAGER", cache.get(7L).role());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertEquals("ADMIN", cache.get(7L).role());
+    }
+
+    @Test
+    void unknownUsersAreRejected() {
+        when(userRepository.findAssistantContext(eq(9L), any(), any())).thenReturn(List.of());
+
+        assertThrows(IllegalArgumentException.class, () -> cache.get(9L));
+    }
+
+    private static List<Object[]> rows(Object[] row) {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row);
+        return rows;
+    }
+
+    private static Object[] row(String role) {
+        return new Object[]{"Jane", "Doe", "jane@example.com", role, "Finance", 6L, 1L, 4L, 1L, BigDecimal.valueOf(9), 2};
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.Smart.Workplace.Management.Portal.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteBehindBufferTest {
+
+    record Item(long id, String text) {
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Item> written = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean databaseDown = new AtomicBoolean();
+
+    @TempDir
+    Path dir;
+
+    private WriteBehindBuffer<Item> buffer;
+
+    @AfterEach
+    void tearDown() {
+        if (buffer != null) {
+            buffer.close();
+        }
+    }
+
+    @Test
+    void spillsFailedBatchesAndReplaysThemOnTheNextStart() throws Exception {
+        databaseDown.set(true);
+        buffer = buffer(16, batch -> {
+            if (databaseDown.get()) {
+                throw new IllegalStateException("database unavailable");
+            }
+            written.addAll(batch);
+        });
+        buffer.offer(new Item(1, "first"));
+        buffer.offer(new Item(2, "second"));
+        buffer.close();
+
+        assertEquals(2, buffer.getSpilledCount());
+        assertEquals(2, Files.readAllLines(spillFile()).size());
+
+        databaseDown.set(false);
+        buffer = buffer(16, written::addAll);
+        buffer.replaySpill();
+
+        assertEquals(List.of(new Item(1, "first"), new Item(2, "second")), written);
+        assertFalse(Files.exists(spillFile()));
+        assertFalse(Files.exists(replayFile()));
+    }
+
+    @Test
+    void setsATornLastLineAsideAndReplaysTheRest() throws Exception {
+        Files.writeString(spillFile(), objectMapper.writeValueAsString(new Item(1, "first")) + "\n"
+                + objectMapper.writeValueAsString(new Item(2, "second")) + "\n"
+                + "{\"id\":3,\"te", StandardCharsets.UTF_8);
+        buffer = buffer(16, written::addAll);
+
+        buffer.replaySpill();
+
+        assertEquals(List.of(new Item(1, "first"), new Item(2, "second")), written);
+        assertEquals(1, buffer.getRejectedCount());
+        assertEquals(List.of("{\"id\":3,\"te"), Files.readAllLines(dir.resolve("items.spill.rejected")));
+        assertFalse(Files.exists(replayFile()));
+    }
+
+    @Test
+    void finishesAReplayInterruptedByTheLastRun() throws Exception {
+        Files.writeString(replayFile(), objectMapper.writeValueAsString(new Item(1, "left mid-replay")) + "\n");
+        Files.writeString(spillFile(), objectMapper.writeValueAsString(new Item(2, "spilled later")) + "\n");
+        buffer = buffer(16, written::addAll);
+
+        buffer.replaySpill();
+
+        assertEquals(List.of(new Item(1, "left mid-replay"), new Item(2, "spilled later")), written);
+        assertFalse(Files.exists(replayFile()));
+        assertFalse(Files.exists(spillFile()));
+    }
+
+    @Test
+    void overflowIsSpilledInTheBackgroundWhileTheWriterIsStuckAndReplayedOnceItIsFree() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        buffer = buffer(2, batch -> {
+            writing.countDown();
+            release.await();
+            written.addAll(batch);
+        });
+        buffer.start();
+        buffer.offer(new Item(0, "in flight"));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        for (long id = 1; id <= 6; id++) {
+            buffer.offer(new Item(id, "queued"));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (buffer.getSpilledCount() < 4 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(4, buffer.getSpilledCount());
+
+        release.countDown();
+        buffer.close();
+
+        assertEquals(7, written.size());
+        assertFalse(Files.exists(spillFile()));
+    }
+
+    @Test
+    void replaysTheSpillAfterTheFirstBatchThatSucceeds() throws Exception {
+        databaseDown.set(true);
+        buffer = buffer(16, batch -> {
+            if (databaseDown.get()) {
+                throw new IllegalStateException("database unavailable");
+            }
+            written.addAll(batch);
+        });
+        buffer.start();
+        buffer.offer(new Item(1, "during outage"));
+        waitFor(() -> buffer.getSpilledCount() == 1);
+        assertTrue(buffer.pending().isEmpty());
+
+        databaseDown.set(false);
+        buffer.offer(new Item(2, "after recovery"));
+        waitFor(() -> written.size() == 2);
+
+        assertEquals(List.of(new Item(2, "after recovery"), new Item(1, "during outage")), written);
+        assertFalse(Files.exists(spillFile()));
+        assertFalse(Files.exists(replayFile()));
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private WriteBehindBuffer<Item> buffer(int capacity, WriteBehindBuffer.BatchWriter<Item> writer) {
+        return new WriteBehindBuffer<>("items", capacity, 10, 20, writer, spillFile(), objectMapper, Item.class);
+    }
+
+    private Path spillFile() {
+        return dir.resolve("items.spill");
+    }
+
+    private Path replayFile() {
+        return dir.resolve("items.spill.replay");
+    }
+}